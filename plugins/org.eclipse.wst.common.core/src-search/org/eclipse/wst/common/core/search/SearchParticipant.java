@@ -18,6 +18,7 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.wst.common.core.search.document.Entry;
 import org.eclipse.wst.common.core.search.document.SearchDocument;
 import org.eclipse.wst.common.core.search.document.SearchDocumentSet;
 import org.eclipse.wst.common.core.search.pattern.SearchPattern;
@@ -236,6 +237,74 @@ public abstract class SearchParticipant implements ISearchOptions
 		return scope;
 	}
 
+	/**
+	 * Returns whether the entries of the file are kept in the search index. The
+	 * index is only used for the files of participants that return
+	 * <code>true</code> for at least some files and that implement
+	 * {@link #createIndexEntries(String, IProgressMonitor)} and
+	 * {@link #getIndexKeys(SearchPattern, Map)}.
+	 * <p>
+	 * This method returns <code>false</code> by default.
+	 * </p>
+	 * 
+	 * @param file
+	 *            a file in the scope of a search
+	 * @return <code>true</code> if the entries of the file are kept in the index
+	 * @since 1.5
+	 */
+	public boolean isIndexed(IFile file)
+	{
+		return false;
+	}
+
+	/**
+	 * Computes the entries of a document for the search index. Only the
+	 * category and key of each entry are kept in the index. The search index
+	 * calls this method when a file that is indexed is searched for the first
+	 * time, or after it has changed.
+	 * <p>
+	 * This method returns <code>null</code> by default.
+	 * </p>
+	 * 
+	 * @param documentPath
+	 *            the path of the document, as passed to
+	 *            {@link #createSearchDocument(String)}
+	 * @param monitor
+	 *            Progress monitor used to report work completed; <code>null</code>
+	 *            if no progress needs to be reported
+	 * @return the entries of the document, or <code>null</code> if the document
+	 *         can't be indexed, in which case it is always searched
+	 * @since 1.5
+	 */
+	public Entry[] createIndexEntries(String documentPath, IProgressMonitor monitor)
+	{
+		return null;
+	}
+
+	/**
+	 * Returns the entries that a document must have at least one of to contain
+	 * matches for the pattern. Only the category and key of the entries are
+	 * used. When the search index is used, search documents are only created
+	 * for the indexed files that have one of these entries.
+	 * <p>
+	 * This method returns <code>null</code> by default.
+	 * </p>
+	 * 
+	 * @param pattern
+	 *            The pattern describing the information to search for
+	 * @param searchOptions
+	 *            Map of options and values defining behavior of the search;
+	 *            <code>null</code> if no options are specified;
+	 *            some options and values are provided by {@link ISearchOptions}
+	 * @return the entries to look for in the index, or <code>null</code> if the
+	 *         index can't be used for the pattern
+	 * @since 1.5
+	 */
+	public Entry[] getIndexKeys(SearchPattern pattern, Map searchOptions)
+	{
+		return null;
+	}
+
 	/**
 	 * <p>
 	 * This method calls the following methods for each file in the search scope:
@@ -265,6 +334,13 @@ public abstract class SearchParticipant implements ISearchOptions
 	{
 		Assert.isNotNull(id, "The SearchPartipants id has not been initalized");
 		IFile[] files = scope.enclosingFiles();
+		Entry[] indexKeys = getIndexKeys(pattern, searchOptions);
+		SearchPlugin plugin = indexKeys == null ? null : SearchPlugin.getDefault();
+		if (plugin != null)
+		{
+			// only create documents for the files that can contain matches
+			files = plugin.getSearchIndex().selectCandidates(this, id, indexKeys, files, monitor);
+		}
 		
 		for (int i = 0; i < files.length; i++)
 		{
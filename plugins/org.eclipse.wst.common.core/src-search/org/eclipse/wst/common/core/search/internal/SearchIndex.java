@@ -0,0 +1,488 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.wst.common.core.search.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.wst.common.core.search.SearchParticipant;
+import org.eclipse.wst.common.core.search.SearchPlugin;
+import org.eclipse.wst.common.core.search.document.Entry;
+
+/**
+ * An inverted index of the entries of the documents of the search participants
+ * that keep their entries in the index, from the category and key of an entry
+ * to the workspace paths of the documents that contain it.
+ * <p>
+ * A document is indexed the first time it is in the scope of a search, and
+ * indexed again when its modification stamp has changed, so the index is
+ * brought up to date incrementally as the files are changed. Documents of
+ * removed files are dropped from the index by a resource change listener.
+ * The index is saved in the plugin's state location when the plugin stops, and
+ * because the modification stamp of each document is saved with its entries,
+ * the files that were changed while the index wasn't running are indexed
+ * again the next time they are searched.
+ * </p>
+ */
+public class SearchIndex implements IResourceChangeListener
+{
+	private static final int VERSION = 1;
+
+	private final File file;
+
+	/**
+	 * The index of each participant, by participant id.
+	 */
+	private final Map<String, ParticipantIndex> participants = new HashMap<String, ParticipantIndex>();
+
+	private boolean dirty;
+
+	/**
+	 * @param file
+	 *            The file that the index is saved in.
+	 */
+	public SearchIndex(File file)
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Select the files that can contain matches for the pattern. The files
+	 * that the participant keeps in the index are indexed if they have changed
+	 * since they were last indexed, and they are only selected if they have at
+	 * least one of the participant's index keys for the pattern. Other files
+	 * are always selected.
+	 *
+	 * @param participant
+	 *            The participant.
+	 * @param id
+	 *            The id of the participant.
+	 * @param keys
+	 *            The participant's index keys for the pattern.
+	 * @param files
+	 *            The files in the scope of the search.
+	 * @param monitor
+	 *            Progress monitor, or <code>null</code>.
+	 * @return The files that can contain matches.
+	 */
+	public IFile[] selectCandidates(SearchParticipant participant, String id, Entry[] keys, IFile[] files, IProgressMonitor monitor)
+	{
+		update(participant, id, files, monitor);
+
+		List<IFile> candidates = new ArrayList<IFile>(files.length);
+		synchronized (this)
+		{
+			ParticipantIndex index = getParticipantIndex(id);
+			Set<String> matches = index.getDocuments(keys);
+			for (int i = 0; i < files.length; i++)
+			{
+				String path = files[i].getFullPath().toString();
+				Document document = index.documents.get(path);
+				if (document == null || document.keys == null || matches.contains(path))
+				{
+					// a file that isn't in the index is searched as it would be without one
+					candidates.add(files[i]);
+				}
+			}
+		}
+		return candidates.toArray(new IFile[candidates.size()]);
+	}
+
+	/**
+	 * Index the participant's files that haven't been indexed since they last
+	 * changed. The entries are computed without holding the index lock, so
+	 * that other searches can use the index in the meantime.
+	 */
+	private void update(SearchParticipant participant, String id, IFile[] files, IProgressMonitor monitor)
+	{
+		List<IFile> stale = new ArrayList<IFile>();
+		synchronized (this)
+		{
+			ParticipantIndex index = getParticipantIndex(id);
+			for (int i = 0; i < files.length; i++)
+			{
+				IFile file = files[i];
+				if (participant.isIndexed(file))
+				{
+					Document document = index.documents.get(file.getFullPath().toString());
+					if (document == null || document.stamp != file.getModificationStamp())
+					{
+						stale.add(file);
+					}
+				}
+			}
+		}
+
+		for (Iterator<IFile> iter = stale.iterator(); iter.hasNext();)
+		{
+			if (monitor != null && monitor.isCanceled())
+				throw new OperationCanceledException();
+
+			IFile file = iter.next();
+			long stamp = file.getModificationStamp();
+			String path = file.getFullPath().toString();
+			Entry[] entries = null;
+			if (file.getLocation() != null)
+			{
+				entries = participant.createIndexEntries(file.getLocation().toString(), monitor);
+			}
+			synchronized (this)
+			{
+				getParticipantIndex(id).put(path, new Document(stamp, entries));
+				dirty = true;
+			}
+		}
+	}
+
+	private ParticipantIndex getParticipantIndex(String id)
+	{
+		ParticipantIndex index = participants.get(id);
+		if (index == null)
+		{
+			participants.put(id, index = new ParticipantIndex());
+		}
+		return index;
+	}
+
+	/**
+	 * Drop the documents of removed files from the index.
+	 */
+	public void resourceChanged(IResourceChangeEvent event)
+	{
+		IResourceDelta delta = event.getDelta();
+		if (delta == null)
+			return;
+		final List<String> removed = new ArrayList<String>();
+		try
+		{
+			delta.accept(new IResourceDeltaVisitor()
+			{
+				public boolean visit(IResourceDelta delta)
+				{
+					if (delta.getKind() == IResourceDelta.REMOVED)
+					{
+						IResource resource = delta.getResource();
+						String path = resource.getFullPath().toString();
+						removed.add(resource.getType() == IResource.FILE ? path : path + '/');
+						return false;
+					}
+					return true;
+				}
+			});
+		}
+		catch (CoreException e)
+		{
+			SearchPlugin.logError(e);
+		}
+		if (removed.isEmpty())
+			return;
+		synchronized (this)
+		{
+			for (Iterator<ParticipantIndex> iter = participants.values().iterator(); iter.hasNext();)
+			{
+				ParticipantIndex index = iter.next();
+				for (Iterator<String> paths = removed.iterator(); paths.hasNext();)
+				{
+					String path = paths.next();
+					if (path.endsWith("/")) //$NON-NLS-1$
+					{
+						index.removeAll(path);
+					}
+					else
+					{
+						index.remove(path);
+					}
+				}
+			}
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Forget all the documents, so that they are indexed again when they are
+	 * next searched.
+	 */
+	public synchronized void clear()
+	{
+		participants.clear();
+		dirty = true;
+	}
+
+	/**
+	 * @param id
+	 *            The id of a participant.
+	 * @return The number of the participant's documents in the index.
+	 */
+	public synchronized int getDocumentCount(String id)
+	{
+		ParticipantIndex index = participants.get(id);
+		return index == null ? 0 : index.documents.size();
+	}
+
+	/**
+	 * Load the index that was saved. If it can't be read, the index is empty
+	 * and the documents are indexed again.
+	 */
+	public synchronized void load()
+	{
+		participants.clear();
+		if (!file.exists())
+			return;
+		DataInputStream in = null;
+		try
+		{
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != VERSION)
+				return;
+			int participantCount = in.readInt();
+			for (int i = 0; i < participantCount; i++)
+			{
+				ParticipantIndex index = getParticipantIndex(in.readUTF());
+				int documentCount = in.readInt();
+				for (int j = 0; j < documentCount; j++)
+				{
+					String path = in.readUTF();
+					long stamp = in.readLong();
+					int keyCount = in.readInt();
+					String[] keys = keyCount < 0 ? null : new String[keyCount];
+					for (int k = 0; k < keyCount; k++)
+					{
+						keys[k] = in.readUTF();
+					}
+					index.put(path, new Document(stamp, keys));
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			participants.clear();
+			SearchPlugin.logWarning(e);
+		}
+		finally
+		{
+			close(in);
+		}
+		dirty = false;
+	}
+
+	/**
+	 * Save the index if it has changed since it was loaded or last saved.
+	 */
+	public synchronized void save()
+	{
+		if (!dirty)
+			return;
+		File temp = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = null;
+		try
+		{
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.writeInt(VERSION);
+			out.writeInt(participants.size());
+			for (Iterator<Map.Entry<String, ParticipantIndex>> iter = participants.entrySet().iterator(); iter.hasNext();)
+			{
+				Map.Entry<String, ParticipantIndex> participant = iter.next();
+				out.writeUTF(participant.getKey());
+				Map<String, Document> documents = participant.getValue().documents;
+				out.writeInt(documents.size());
+				for (Iterator<Map.Entry<String, Document>> docs = documents.entrySet().iterator(); docs.hasNext();)
+				{
+					Map.Entry<String, Document> document = docs.next();
+					out.writeUTF(document.getKey());
+					out.writeLong(document.getValue().stamp);
+					String[] keys = document.getValue().keys;
+					out.writeInt(keys == null ? -1 : keys.length);
+					for (int i = 0; keys != null && i < keys.length; i++)
+					{
+						out.writeUTF(keys[i]);
+					}
+				}
+			}
+			out.close();
+			out = null;
+			if (file.exists() && !file.delete() || !temp.renameTo(file))
+			{
+				throw new IOException(file.getPath());
+			}
+			dirty = false;
+		}
+		catch (IOException e)
+		{
+			SearchPlugin.logWarning(e);
+		}
+		finally
+		{
+			close(out);
+		}
+	}
+
+	private static void close(java.io.Closeable stream)
+	{
+		if (stream != null)
+		{
+			try
+			{
+				stream.close();
+			}
+			catch (IOException e)
+			{
+				// nothing more can be done
+			}
+		}
+	}
+
+	/**
+	 * The key of an entry in the index, the category and key of the entry
+	 * joined by a character that they are unlikely to contain.
+	 */
+	static String indexKey(String category, String key)
+	{
+		return category + '\u0000' + key;
+	}
+
+	/**
+	 * The index keys of a document and the modification stamp of the file
+	 * when it was indexed. The keys are null if the participant couldn't index
+	 * the document, so that it is always searched until it changes.
+	 */
+	private static final class Document
+	{
+		final long stamp;
+		final String[] keys;
+
+		Document(long stamp, String[] keys)
+		{
+			this.stamp = stamp;
+			this.keys = keys;
+		}
+
+		Document(long stamp, Entry[] entries)
+		{
+			this.stamp = stamp;
+			if (entries == null)
+			{
+				this.keys = null;
+				return;
+			}
+			Set<String> keys = new HashSet<String>();
+			for (int i = 0; i < entries.length; i++)
+			{
+				Entry entry = entries[i];
+				if (entry != null && entry.getCategory() != null && entry.getKey() != null)
+				{
+					keys.add(indexKey(entry.getCategory(), entry.getKey()));
+				}
+			}
+			this.keys = keys.toArray(new String[keys.size()]);
+		}
+	}
+
+	/**
+	 * The documents of one participant, by workspace path, and the inverted
+	 * index from each index key to the paths of the documents that have it.
+	 */
+	private static final class ParticipantIndex
+	{
+		final Map<String, Document> documents = new HashMap<String, Document>();
+		final Map<String, Set<String>> inverted = new HashMap<String, Set<String>>();
+
+		void put(String path, Document document)
+		{
+			remove(path);
+			documents.put(path, document);
+			for (int i = 0; document.keys != null && i < document.keys.length; i++)
+			{
+				Set<String> paths = inverted.get(document.keys[i]);
+				if (paths == null)
+				{
+					inverted.put(document.keys[i], paths = new HashSet<String>());
+				}
+				paths.add(path);
+			}
+		}
+
+		void remove(String path)
+		{
+			Document document = documents.remove(path);
+			if (document == null || document.keys == null)
+				return;
+			for (int i = 0; i < document.keys.length; i++)
+			{
+				Set<String> paths = inverted.get(document.keys[i]);
+				if (paths != null)
+				{
+					paths.remove(path);
+					if (paths.isEmpty())
+					{
+						inverted.remove(document.keys[i]);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Remove the documents of the files in a removed container.
+		 */
+		void removeAll(String prefix)
+		{
+			List<String> paths = new ArrayList<String>();
+			for (Iterator<String> iter = documents.keySet().iterator(); iter.hasNext();)
+			{
+				String path = iter.next();
+				if (path.startsWith(prefix))
+				{
+					paths.add(path);
+				}
+			}
+			for (Iterator<String> iter = paths.iterator(); iter.hasNext();)
+			{
+				remove(iter.next());
+			}
+		}
+
+		Set<String> getDocuments(Entry[] keys)
+		{
+			Set<String> result = new HashSet<String>();
+			for (int i = 0; i < keys.length; i++)
+			{
+				Set<String> paths = inverted.get(indexKey(keys[i].getCategory(), keys[i].getKey()));
+				if (paths != null)
+				{
+					result.addAll(paths);
+				}
+			}
+			return result;
+		}
+	}
+}
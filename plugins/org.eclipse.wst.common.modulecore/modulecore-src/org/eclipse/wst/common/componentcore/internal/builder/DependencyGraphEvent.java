@@ -144,6 +144,26 @@ public class DependencyGraphEvent implements IDependencyGraphUpdateEvent {
 		references.add(sourceProject);
 	}
 
+	/**
+	 * Adds the changes in a later event to this one, so that this event
+	 * describes the net change of both.
+	 */
+	void merge(IDependencyGraphUpdateEvent event) {
+		for (Map.Entry<IProject, Set<IProject>> entry : event.getRemovedReferences().entrySet()) {
+			for (IProject sourceProject : entry.getValue()) {
+				removeReference(sourceProject, entry.getKey());
+			}
+		}
+		for (Map.Entry<IProject, Set<IProject>> entry : event.getAddedReferences().entrySet()) {
+			for (IProject sourceProject : entry.getValue()) {
+				addRefererence(sourceProject, entry.getKey());
+			}
+		}
+		if (event.getModStamp() > modStamp) {
+			setModStamp(event.getModStamp());
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
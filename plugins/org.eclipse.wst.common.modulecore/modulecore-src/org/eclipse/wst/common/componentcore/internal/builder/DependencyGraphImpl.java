@@ -24,11 +24,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
@@ -47,11 +51,14 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.ILock;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.common.componentcore.ComponentCore;
 import org.eclipse.wst.common.componentcore.internal.ModulecorePlugin;
+import org.eclipse.wst.common.componentcore.internal.StructureEdit;
 import org.eclipse.wst.common.componentcore.internal.impl.WTPModulesResourceFactory;
 import org.eclipse.wst.common.componentcore.internal.resources.VirtualComponent;
 import org.eclipse.wst.common.componentcore.internal.util.IModuleConstants;
@@ -59,19 +66,29 @@ import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
 import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
 import org.osgi.framework.Bundle;
 
-public class DependencyGraphImpl implements IDependencyGraph {
+public class DependencyGraphImpl implements IDependencyGraph2 {
 
 	/**
-	 * Don't read or write the graph without first obtaining the graphLock.
+	 * Don't write the graph without first obtaining the graphLock. Readers
+	 * use the published snapshot instead, and never need the lock.
 	 */
 	private final Object graphLock = new Object();
 
 	/**
 	 * If projects A and and B both depend on C an entry in this graph would be
 	 * {C -> {A, B} }
+	 * 
+	 * <p>This is the writers' copy; changes are made visible to readers by
+	 * {@link #publish()}.
 	 */
 	private Map<IProject, Set<IProject>> graph;
 
+	/** The targets whose entries changed since the last publish. This is guarded by graphLock. */
+	private final Set<IProject> changedTargets = new HashSet<IProject>();
+
+	/** The graph as last published by {@link #publish()}. */
+	private final AtomicReference<GraphSnapshot> snapshot = new AtomicReference<GraphSnapshot>(new GraphSnapshot(Collections.EMPTY_MAP));
+
 	private final AtomicLong modStamp = new AtomicLong();
 
 	private final ListenerList listeners = new ListenerList();
@@ -107,10 +124,113 @@ public class DependencyGraphImpl implements IDependencyGraph {
 		modStamp.incrementAndGet();
 	}
 
+	/**
+	 * An immutable copy of the graph. The transitive closures are computed
+	 * on first use and kept with the snapshot, so they are only recomputed
+	 * after the graph has changed.
+	 */
+	private static final class GraphSnapshot {
+
+		/** The referencing projects of each target, as in the graph. The sets are unmodifiable. */
+		private final Map<IProject, Set<IProject>> referencing;
+
+		/** The inverse of referencing, built when first needed. */
+		private volatile Map<IProject, Set<IProject>> referenced;
+
+		private final Map<IProject, Set<IProject>> referencingClosures = new ConcurrentHashMap<IProject, Set<IProject>>();
+		private final Map<IProject, Set<IProject>> referencedClosures = new ConcurrentHashMap<IProject, Set<IProject>>();
+
+		GraphSnapshot(Map<IProject, Set<IProject>> referencing) {
+			this.referencing = referencing;
+		}
+
+		Set<IProject> getReferencing(IProject targetProject) {
+			Set<IProject> set = referencing.get(targetProject);
+			return set == null ? Collections.EMPTY_SET : set;
+		}
+
+		Set<IProject> getReferencingClosure(IProject targetProject) {
+			Set<IProject> closure = referencingClosures.get(targetProject);
+			if (closure == null) {
+				closure = closure(targetProject, referencing);
+				referencingClosures.put(targetProject, closure);
+			}
+			return closure;
+		}
+
+		Set<IProject> getReferencedClosure(IProject sourceProject) {
+			Set<IProject> closure = referencedClosures.get(sourceProject);
+			if (closure == null) {
+				closure = closure(sourceProject, getReferenced());
+				referencedClosures.put(sourceProject, closure);
+			}
+			return closure;
+		}
+
+		private Map<IProject, Set<IProject>> getReferenced() {
+			Map<IProject, Set<IProject>> map = referenced;
+			if (map == null) {
+				map = new HashMap<IProject, Set<IProject>>();
+				for (Entry<IProject, Set<IProject>> entry : referencing.entrySet()) {
+					for (IProject sourceProject : entry.getValue()) {
+						Set<IProject> targets = map.get(sourceProject);
+						if (targets == null) {
+							targets = new HashSet<IProject>();
+							map.put(sourceProject, targets);
+						}
+						targets.add(entry.getKey());
+					}
+				}
+				referenced = map;
+			}
+			return map;
+		}
+
+		private static Set<IProject> closure(IProject start, Map<IProject, Set<IProject>> edges) {
+			Set<IProject> closure = new HashSet<IProject>();
+			LinkedList<IProject> pending = new LinkedList<IProject>();
+			pending.add(start);
+			while (!pending.isEmpty()) {
+				Set<IProject> next = edges.get(pending.removeFirst());
+				if (next != null) {
+					for (IProject project : next) {
+						if (!project.equals(start) && closure.add(project)) {
+							pending.add(project);
+						}
+					}
+				}
+			}
+			return Collections.unmodifiableSet(closure);
+		}
+	}
+
+	/**
+	 * Make the changes to the graph visible to readers. Only the entries
+	 * which changed are copied. Callers must hold the graphLock.
+	 */
+	private void publish() {
+		if (changedTargets.isEmpty()) {
+			return;
+		}
+		Map<IProject, Set<IProject>> copy = new HashMap<IProject, Set<IProject>>(snapshot.get().referencing);
+		for (IProject targetProject : changedTargets) {
+			Set<IProject> set = graph.get(targetProject);
+			if (set == null || set.isEmpty()) {
+				copy.remove(targetProject);
+			} else {
+				copy.put(targetProject, Collections.unmodifiableSet(new HashSet<IProject>(set)));
+			}
+		}
+		changedTargets.clear();
+		snapshot.set(new GraphSnapshot(copy));
+	}
+
 	/**
 	 * Returns the set of projects whose components reference the specified
 	 * target project's component. For example if projects A and B both
 	 * reference C. Passing C as the targetProject will return {A, B}
+	 * 
+	 * <p>The returned set is shared and must not be modified.
 	 */
 	public Set<IProject> getReferencingComponents(IProject targetProject) {
 		IDependencyGraphReferences refs = getReferencingComponents(targetProject, true);
@@ -119,6 +239,19 @@ public class DependencyGraphImpl implements IDependencyGraph {
 
 	public IDependencyGraphReferences getReferencingComponents(
 			IProject targetProject, boolean waitForAllUpdates) {
+		DependencyGraphReferences refs = createReferences(targetProject, waitForAllUpdates);
+		Set<IProject> set = snapshot.get().getReferencing(targetProject);
+		for (IProject sourceProject : set) {
+			if (!sourceProject.isAccessible()) {
+				set = removeInaccessibleReferences(targetProject);
+				break;
+			}
+		}
+		refs.referencingProjects = set;
+		return refs;
+	}
+
+	private DependencyGraphReferences createReferences(IProject targetProject, boolean waitForAllUpdates) {
 		DependencyGraphReferences refs = new DependencyGraphReferences();
 		refs.targetProject = targetProject;
 		if (waitForAllUpdates) {
@@ -127,32 +260,83 @@ public class DependencyGraphImpl implements IDependencyGraph {
 		} else if (isUpdateNecessary()) {
 			refs.stale = true;
 		}
+		return refs;
+	}
+
+	private Set<IProject> removeInaccessibleReferences(IProject targetProject) {
+		synchronized (graphLock) {
+			removeInaccessibleReferences(Collections.singleton(targetProject));
+			return snapshot.get().getReferencing(targetProject);
+		}
+	}
+
+	private Set<IProject> removeInaccessibleTransitiveReferences(IProject targetProject) {
 		synchronized (graphLock) {
+			Set<IProject> targetProjects = new HashSet<IProject>(snapshot.get().getReferencingClosure(targetProject));
+			targetProjects.add(targetProject);
+			removeInaccessibleReferences(targetProjects);
+			return snapshot.get().getReferencingClosure(targetProject);
+		}
+	}
+
+	/**
+	 * Removes the references from inaccessible projects to any of the target
+	 * projects, and notifies the listeners once. Callers must hold the
+	 * graphLock.
+	 */
+	private void removeInaccessibleReferences(Set<IProject> targetProjects) {
+		DependencyGraphEvent event = null;
+		for (IProject targetProject : targetProjects) {
 			Set<IProject> set = graph.get(targetProject);
 			if (set == null) {
-				refs.referencingProjects = Collections.EMPTY_SET;
-			} else {
-				DependencyGraphEvent event = null;
-				for (Iterator<IProject> iterator = set.iterator(); iterator	.hasNext();) {
-					IProject sourceProject = iterator.next();
-					if (!sourceProject.isAccessible()) {
-						iterator.remove();
-						if (event == null) {
-							incrementModStamp();
-							event = new DependencyGraphEvent();
-							event.setModStamp(getModStamp());
-						}
-						event.removeReference(sourceProject, targetProject);
+				continue;
+			}
+			for (Iterator<IProject> iterator = set.iterator(); iterator	.hasNext();) {
+				IProject sourceProject = iterator.next();
+				if (!sourceProject.isAccessible()) {
+					iterator.remove();
+					changedTargets.add(targetProject);
+					if (event == null) {
+						incrementModStamp();
+						event = new DependencyGraphEvent();
+						event.setModStamp(getModStamp());
 					}
+					event.removeReference(sourceProject, targetProject);
 				}
-				if (event != null) {
-					notifiyListeners(event);
-				}
-				Set<IProject> copy = new HashSet<IProject>();
-				copy.addAll(set);
-				refs.referencingProjects = copy;
 			}
 		}
+		publish();
+		if (event != null) {
+			notifiyListeners(event);
+		}
+	}
+
+	public Set<IProject> getTransitiveReferencingComponents(IProject targetProject) {
+		IDependencyGraphReferences refs = getTransitiveReferencingComponents(targetProject, true);
+		return refs.getReferencingComponents();
+	}
+
+	public IDependencyGraphReferences getTransitiveReferencingComponents(IProject targetProject, boolean waitForAllUpdates) {
+		DependencyGraphReferences refs = createReferences(targetProject, waitForAllUpdates);
+		Set<IProject> set = snapshot.get().getReferencingClosure(targetProject);
+		for (IProject sourceProject : set) {
+			if (!sourceProject.isAccessible()) {
+				set = removeInaccessibleTransitiveReferences(targetProject);
+				break;
+			}
+		}
+		refs.referencingProjects = set;
+		return refs;
+	}
+
+	public Set<IProject> getTransitiveReferencedComponents(IProject sourceProject) {
+		IDependencyGraphReferences refs = getTransitiveReferencedComponents(sourceProject, true);
+		return refs.getReferencingComponents();
+	}
+
+	public IDependencyGraphReferences getTransitiveReferencedComponents(IProject sourceProject, boolean waitForAllUpdates) {
+		DependencyGraphReferences refs = createReferences(sourceProject, waitForAllUpdates);
+		refs.referencingProjects = snapshot.get().getReferencedClosure(sourceProject);
 		return refs;
 	}
 
@@ -238,6 +422,7 @@ public class DependencyGraphImpl implements IDependencyGraph {
 				listener = new DependencyGraphResourceChangedListener();
 				ResourcesPlugin.getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
 				if (restoreGraph() == null)rebuild();
+				publish();
 			} finally {
 				postUpdate();
 			}
@@ -271,6 +456,7 @@ public class DependencyGraphImpl implements IDependencyGraph {
 			Set<IProject> removedSet = graph.remove(targetProject);
 			if (removedSet != null && !removedSet.isEmpty()) {
 				removed = true;
+				changedTargets.add(targetProject);
 				for (IProject project : removedSet) {
 					event.removeReference(project, targetProject);
 				}
@@ -278,6 +464,7 @@ public class DependencyGraphImpl implements IDependencyGraph {
 			for (Entry<IProject, Set<IProject>> entry : graph.entrySet()) {
 				if (!entry.getValue().isEmpty()	&& entry.getValue().remove(targetProject)) {
 					removed = true;
+					changedTargets.add(entry.getKey());
 					event.removeReference(targetProject, entry.getKey());
 				}
 			}
@@ -293,6 +480,7 @@ public class DependencyGraphImpl implements IDependencyGraph {
 			Set<IProject> referencingProjects = graph.get(targetProject);
 			if (referencingProjects != null) {
 				if (referencingProjects.remove(sourceProject)) {
+					changedTargets.add(targetProject);
 					event.removeReference(sourceProject, targetProject);
 					incrementModStamp();
 					event.setModStamp(getModStamp());
@@ -310,6 +498,7 @@ public class DependencyGraphImpl implements IDependencyGraph {
 			}
 			boolean added = referencingProjects.add(sourceProject);
 			if (added) {
+				changedTargets.add(targetProject);
 				event.addRefererence(sourceProject, targetProject);
 				incrementModStamp();
 				event.setModStamp(getModStamp());
@@ -319,6 +508,9 @@ public class DependencyGraphImpl implements IDependencyGraph {
 
 	public static final Object GRAPH_UPDATE_JOB_FAMILY = new Object();
 
+	/** The family of the job which notifies the {@link IDependencyGraphListener}s. */
+	public static final Object GRAPH_NOTIFICATION_JOB_FAMILY = new Object();
+
 	/** The amount of time that we delay before starting the graph update job. */
 	private static final int JOB_DELAY = 100;
 
@@ -343,17 +535,38 @@ public class DependencyGraphImpl implements IDependencyGraph {
 		private final Queue projectsRemoved = new Queue();
 		private final Queue projectsUpdated = new Queue();
 		
-		/** Used to guard runStamp and running. */
+		/** Used to guard runStamp, doneStamp and running, and to wait for them to change. */
 		private final Object runLock = new Object();
 		
 		/** A simple counter that keeps track of which run number we are. */
 		private long runStamp;
+
+		/** Counts the runs which have finished, after the job has left the running state. */
+		private long doneStamp;
 		
 		private boolean running;
 
+		/** The number of times a thread has waited in waitForRun. */
+		private long waits;
+
+		/**
+		 * The number of times a thread waiting in waitForRun woke up before its
+		 * time was up, although the job had neither started nor finished a run.
+		 */
+		private long idleWakeups;
+
 		public GraphUpdateJob() {
 			super(Resources.JOB_NAME);
 			setSystem(true);
+			addJobChangeListener(new JobChangeAdapter() {
+				@Override
+				public void done(IJobChangeEvent event) {
+					synchronized (runLock) {
+						doneStamp++;
+						runLock.notifyAll();
+					}
+				}
+			});
 		}
 
 		public boolean belongsTo(Object family) {
@@ -398,40 +611,52 @@ public class DependencyGraphImpl implements IDependencyGraph {
 			synchronized (runLock) {
 				running = b;
 				if (running)runStamp++;
+				runLock.notifyAll();
 			}
 		}
 
-		private boolean isRunning() {
+		/**
+		 * Waits until the job starts or finishes a run, or until maxWaitTime
+		 * has passed. Returns immediately if the job is running.
+		 */
+		public void waitForRun(long maxWaitTime) {
+			final long endTime = System.currentTimeMillis() + maxWaitTime;
+			final long localRunStamp;
+			final long localDoneStamp;
 			synchronized (runLock) {
-				return running;
+				if (running)return;
+				localRunStamp = runStamp;
+				localDoneStamp = doneStamp;
+			}
+			// the last run may have finished before the stamps were taken
+			if (!isUpdateNecessary())return;
+			synchronized (runLock) {
+				if (localRunStamp != runStamp || localDoneStamp != doneStamp)return;
+				waits++;
+				while (localRunStamp == runStamp && localDoneStamp == doneStamp) {
+					long remaining = endTime - System.currentTimeMillis();
+					if (remaining <= 0)return;
+					try {
+						runLock.wait(remaining);
+					} catch (InterruptedException e) {
+						Thread.interrupted();
+					}
+					if (localRunStamp == runStamp && localDoneStamp == doneStamp && System.currentTimeMillis() < endTime) {
+						idleWakeups++;
+					}
+				}
 			}
 		}
 
-		private boolean didRun(long stamp) {
+		public long getWaits() {
 			synchronized (runLock) {
-				return stamp != runStamp;
+				return waits;
 			}
 		}
 
-		public void waitForRun(long maxWaitTime) {
-			if (isRunning())return;
-			
-			final long startTime = System.currentTimeMillis();
-			long localRunStamp = 0;
+		public long getIdleWakeups() {
 			synchronized (runLock) {
-				localRunStamp = runStamp;
-			}
-			
-			while (true) {
-				if (System.currentTimeMillis() - startTime > maxWaitTime)return;
-				
-				if (didRun(localRunStamp))return;
-				
-				try {
-					Thread.sleep(50);
-				} catch (InterruptedException e) {
-					Thread.interrupted();
-				}
+				return idleWakeups;
 			}
 		}
 
@@ -554,11 +779,18 @@ public class DependencyGraphImpl implements IDependencyGraph {
 								}
 							}
 						}
+						synchronized (graphLock) {
+							publish();
+						}
 						notifiyListeners(event);
 					}
 				});
 				return Status.OK_STATUS;
 			} finally {
+				// in case the update failed part way through
+				synchronized (graphLock) {
+					publish();
+				}
 				setRunning(false);
 				jobILock.release();
 			}
@@ -579,28 +811,73 @@ public class DependencyGraphImpl implements IDependencyGraph {
 		}
 		// fire notifications on a different job so they do not block
 		// waitForAllUpdates()
-		Job notificationJob = new Job(Resources.NOTIFICATION_JOB_NAME) {
-			@Override
-			protected IStatus run(final IProgressMonitor monitor) {
-				SafeRunner.run(new ISafeRunnable() {
-					public void run() throws Exception {
-						for (Object listener : listeners.getListeners()) {
-							((IDependencyGraphListener) listener).dependencyGraphUpdate(event);
-						}
-						saveGraph(); // trigger a future save
-						monitor.done();
-					}
+		notificationJob.queue(event);
+	}
 
-					public void handleException(Throwable exception) {
-						ModulecorePlugin.logError(exception);
-					}
-				});
+	/** How long the notification job waits for more events to merge. */
+	private static final int NOTIFICATION_DELAY = 50;
+
+	private final NotificationJob notificationJob = new NotificationJob();
+
+	/**
+	 * The purpose of this job is to notify the listeners. Events which are
+	 * queued before the job runs are merged, so that a burst of graph updates
+	 * is delivered as a single event holding the net change.
+	 */
+	private class NotificationJob extends Job {
+
+		/** Used to guard pendingEvent. */
+		private final Object pendingLock = new Object();
+
+		/** The changes which have not been delivered yet, or null. */
+		private DependencyGraphEvent pendingEvent;
+
+		public NotificationJob() {
+			super(Resources.NOTIFICATION_JOB_NAME);
+			setSystem(true);
+			setRule(null);
+		}
+
+		public boolean belongsTo(Object family) {
+			return family == GRAPH_NOTIFICATION_JOB_FAMILY;
+		}
+
+		public void queue(DependencyGraphEvent event) {
+			synchronized (pendingLock) {
+				if (pendingEvent == null) {
+					pendingEvent = new DependencyGraphEvent();
+				}
+				pendingEvent.merge(event);
+			}
+			schedule(NOTIFICATION_DELAY);
+		}
+
+		@Override
+		protected IStatus run(final IProgressMonitor monitor) {
+			final DependencyGraphEvent event;
+			synchronized (pendingLock) {
+				event = pendingEvent;
+				pendingEvent = null;
+			}
+			// the merged changes may cancel each other out
+			if (event == null || event.getType() == 0) {
 				return Status.OK_STATUS;
 			}
-		};
-		notificationJob.setSystem(true);
-		notificationJob.setRule(null);
-		notificationJob.schedule();
+			SafeRunner.run(new ISafeRunnable() {
+				public void run() throws Exception {
+					for (Object listener : listeners.getListeners()) {
+						((IDependencyGraphListener) listener).dependencyGraphUpdate(event);
+					}
+					saveGraph(); // trigger a future save
+					monitor.done();
+				}
+
+				public void handleException(Throwable exception) {
+					ModulecorePlugin.logError(exception);
+				}
+			});
+			return Status.OK_STATUS;
+		}
 	}
 
 	/**
@@ -666,6 +943,24 @@ public class DependencyGraphImpl implements IDependencyGraph {
 		}
 	}
 
+	/**
+	 * Answer the number of times a thread has waited for the graph update job
+	 * to start or finish a run. This is used by the tests.
+	 */
+	public long getUpdateWaits() {
+		return graphUpdateJob.getWaits();
+	}
+
+	/**
+	 * Answer the number of times a thread waiting for the graph update job
+	 * woke up early, without the job having started or finished a run. The job
+	 * signals the waiting threads, so this stays at zero. This is used by the
+	 * tests.
+	 */
+	public long getIdleWakeups() {
+		return graphUpdateJob.getIdleWakeups();
+	}
+
 	public void waitForAllUpdates(IProgressMonitor monitor) {
 		SubMonitor subMonitor = SubMonitor.convert(monitor);
 		subMonitor.subTask(Resources.WAITING);
@@ -735,6 +1030,46 @@ public class DependencyGraphImpl implements IDependencyGraph {
 	 */
 	private static final String DEPENDENCY_GRAPH_CACHE = "dependencyCache.index";
 
+	/**
+	 * Written ahead of the graph and the component file stamps. Files written
+	 * by older versions start with the graph itself.
+	 */
+	private static final Integer DEPENDENCY_GRAPH_CACHE_VERSION = Integer.valueOf(2);
+
+	/**
+	 * Returns the time stamp of the project's component file, or 0 if it has
+	 * none. The file system is asked rather than the workspace, so that
+	 * changes made while the workspace was closed are noticed.
+	 */
+	private static long getComponentFileStamp(IProject project) {
+		IFile file = project.getFile(StructureEdit.MODULE_META_FILE_NAME);
+		IPath location = file.getLocation();
+		return location == null ? 0 : location.toFile().lastModified();
+	}
+
+	/**
+	 * Returns the component file stamp of every open project, by project name.
+	 */
+	public static HashMap<String, Long> getComponentFileStamps() {
+		HashMap<String, Long> stamps = new HashMap<String, Long>();
+		for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+			if (project.isAccessible()) {
+				stamps.put(project.getName(), Long.valueOf(getComponentFileStamp(project)));
+			}
+		}
+		return stamps;
+	}
+
+	/**
+	 * Returns whether a graph saved with the given component file stamps can
+	 * be used without checking it against the components, which is when the
+	 * same projects are open and none of their component files changed.
+	 * Graphs saved by older versions have no stamps and are always checked.
+	 */
+	public static boolean isRestoredGraphCurrent(Map<String, Long> savedStamps) {
+		return savedStamps != null && savedStamps.equals(getComponentFileStamps());
+	}
+
 	/**
 	 * Restores the graph if possible and returns a {@link RestoredGraphResults}
 	 * if successful.
@@ -745,6 +1080,11 @@ public class DependencyGraphImpl implements IDependencyGraph {
 	 * If bad data is detected, it is deleted to avoid a repeat failure the next
 	 * time the workspace is restarted.
 	 * 
+	 * <p>
+	 * If the same projects are open and none of their component files have
+	 * changed since the graph was saved, the graph is used as is. Otherwise
+	 * it is checked against the components in a job.
+	 * 
 	 * @return {@link RestoredGraphResults} if successful in restoring the
 	 *         graph, <code>null</code> if not successful
 	 */
@@ -758,13 +1098,20 @@ public class DependencyGraphImpl implements IDependencyGraph {
 					return null; // no state to restore from
 				} else {
 					HashMap<String, Set<String>> savedMap = null;
+					HashMap<String, Long> savedStamps = null;
 					FileInputStream fIn = null;
 					boolean deleteCache = true;
 					try {
 						fIn = new FileInputStream(file);
 						BufferedInputStream bIn = new BufferedInputStream(fIn);
 						ObjectInputStream oIn = new ObjectInputStream(bIn);
-						savedMap = (HashMap<String, Set<String>>) oIn.readObject();
+						Object first = oIn.readObject();
+						if (DEPENDENCY_GRAPH_CACHE_VERSION.equals(first)) {
+							savedMap = (HashMap<String, Set<String>>) oIn.readObject();
+							savedStamps = (HashMap<String, Long>) oIn.readObject();
+						} else {
+							savedMap = (HashMap<String, Set<String>>) first;
+						}
 						oIn.close();
 						deleteCache = false;
 					} catch (FileNotFoundException e) {
@@ -827,7 +1174,9 @@ public class DependencyGraphImpl implements IDependencyGraph {
 						results.graph = savedMap;
 
 						// finally ensure the results are accurate
-						checkRestoredResults(results);
+						if (!isRestoredGraphCurrent(savedStamps)) {
+							checkRestoredResults(results);
+						}
 						return results;
 					}
 				}
@@ -879,20 +1228,29 @@ public class DependencyGraphImpl implements IDependencyGraph {
 	}
 
 	private void persist() {
-		Map<String, Set<String>> savedMap = null;
-		synchronized (graphLock) {
-			savedMap = new HashMap<String, Set<String>>(graph.size());
-			for (IProject sourceProject : graph.keySet()) {
-				Set<String> savedTargets = new HashSet<String>();
-				for (IProject targetProject : graph.get(sourceProject)) {
-					savedTargets.add(targetProject.getName());
-				}
-				savedMap.put(sourceProject.getName(), savedTargets);
+		// the stamps must describe the component files the graph was built from
+		long startModStamp = getModStamp();
+		if (isUpdateNecessary()) {
+			saveGraph();
+			return;
+		}
+		HashMap<String, Long> savedStamps = getComponentFileStamps();
+		Map<IProject, Set<IProject>> current = snapshot.get().referencing;
+		if (startModStamp != getModStamp() || isUpdateNecessary()) {
+			saveGraph();
+			return;
+		}
+		Map<String, Set<String>> savedMap = new HashMap<String, Set<String>>(current.size());
+		for (IProject sourceProject : current.keySet()) {
+			Set<String> savedTargets = new HashSet<String>();
+			for (IProject targetProject : current.get(sourceProject)) {
+				savedTargets.add(targetProject.getName());
 			}
+			savedMap.put(sourceProject.getName(), savedTargets);
 		}
 		IPath stateLocation = ModulecorePlugin.getDefault().getStateLocation();
 		File file = stateLocation.append(DEPENDENCY_GRAPH_CACHE).toFile();
-		if (savedMap.isEmpty()) {
+		if (savedMap.isEmpty() && savedStamps.isEmpty()) {
 			// if there is nothing to persist, delete the file.
 			if (file.exists()) {
 				file.delete();
@@ -903,7 +1261,9 @@ public class DependencyGraphImpl implements IDependencyGraph {
 				fOut = new FileOutputStream(file);
 				BufferedOutputStream bOut = new BufferedOutputStream(fOut);
 				ObjectOutputStream oOut = new ObjectOutputStream(bOut);
+				oOut.writeObject(DEPENDENCY_GRAPH_CACHE_VERSION);
 				oOut.writeObject(savedMap);
+				oOut.writeObject(savedStamps);
 				oOut.close();
 			} catch (FileNotFoundException e) {
 				ModulecorePlugin.logError(e);
@@ -1005,22 +1365,19 @@ public class DependencyGraphImpl implements IDependencyGraph {
 	}
 
 	public String toString() {
-		synchronized (graphLock) {
-			StringBuffer buff = new StringBuffer("Dependency Graph:\n{\n");
-			for (Map.Entry<IProject, Set<IProject>> entry : graph.entrySet()) {
-				buff.append("  " + entry.getKey().getName() + " -> {");
-				for (Iterator<IProject> mappedProjects = entry.getValue().iterator(); mappedProjects.hasNext();) {
-					buff.append(mappedProjects.next().getName());
-					if (mappedProjects.hasNext()) {
-						buff.append(", ");
-					}
+		StringBuffer buff = new StringBuffer("Dependency Graph:\n{\n");
+		for (Map.Entry<IProject, Set<IProject>> entry : snapshot.get().referencing.entrySet()) {
+			buff.append("  " + entry.getKey().getName() + " -> {");
+			for (Iterator<IProject> mappedProjects = entry.getValue().iterator(); mappedProjects.hasNext();) {
+				buff.append(mappedProjects.next().getName());
+				if (mappedProjects.hasNext()) {
+					buff.append(", ");
 				}
-				buff.append("}\n");
 			}
-			buff.append("}");
-			return buff.toString();
+			buff.append("}\n");
 		}
-
+		buff.append("}");
+		return buff.toString();
 	}
 
 	public static final class Resources extends NLS {
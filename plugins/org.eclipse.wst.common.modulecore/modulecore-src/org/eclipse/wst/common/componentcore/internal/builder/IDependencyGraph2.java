@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.wst.common.componentcore.internal.builder;
+
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+
+/**
+ * Adds transitive queries to {@link IDependencyGraph}. Clients should check
+ * that {@link IDependencyGraph#INSTANCE} is an instance of this interface
+ * before using it.
+ *
+ * <p>For example, if A references B and B references C, then the transitive
+ * referencing components of C are {A, B} and the transitive referenced
+ * components of A are {B, C}.
+ *
+ * <p>The closures are computed on first use and are kept until the
+ * dependencies change, so repeated queries are cheap. The returned sets must
+ * not be modified.
+ */
+public interface IDependencyGraph2 extends IDependencyGraph {
+
+	/**
+	 * Returns the set of component projects which reference the specified
+	 * target project directly or indirectly. The target project itself is not
+	 * included, even if there is a cycle. As with
+	 * {@link IDependencyGraph#getReferencingComponents(IProject)}, references
+	 * from projects which are no longer accessible are dropped, and so are
+	 * the projects only reached through them.
+	 *
+	 * @param targetProject
+	 * @return
+	 */
+	Set<IProject> getTransitiveReferencingComponents(IProject targetProject);
+
+	/**
+	 * The transitive form of
+	 * {@link IDependencyGraph#getReferencingComponents(IProject, boolean)}.
+	 *
+	 * @param targetProject
+	 * @param waitForAllUpdates
+	 * @return
+	 */
+	IDependencyGraphReferences getTransitiveReferencingComponents(IProject targetProject, boolean waitForAllUpdates);
+
+	/**
+	 * Returns the set of projects which the specified source project's
+	 * component references directly or indirectly. The source project itself
+	 * is not included, even if there is a cycle.
+	 *
+	 * @param sourceProject
+	 * @return
+	 */
+	Set<IProject> getTransitiveReferencedComponents(IProject sourceProject);
+
+	/**
+	 * The form of {@link #getTransitiveReferencedComponents(IProject)} which
+	 * need not wait for the pending graph updates. The answered
+	 * {@link IDependencyGraphReferences#getTargetProject()} is the source
+	 * project, and {@link IDependencyGraphReferences#getReferencingComponents()}
+	 * answers the projects it references.
+	 *
+	 * @param sourceProject
+	 * @param waitForAllUpdates
+	 * @return
+	 */
+	IDependencyGraphReferences getTransitiveReferencedComponents(IProject sourceProject, boolean waitForAllUpdates);
+}
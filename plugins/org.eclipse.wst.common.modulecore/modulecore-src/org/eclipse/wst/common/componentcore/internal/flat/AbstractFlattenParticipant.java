@@ -20,7 +20,7 @@ import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
  * A simple abstract class with default values so clients
  * can extend and override only the method they care about
  */
-public class AbstractFlattenParticipant implements IFlattenParticipant {
+public class AbstractFlattenParticipant implements IFlattenParticipant2 {
 
 	public void initialize(IVirtualComponent component,
 			FlatComponentTaskModel dataModel, List<IFlatResource> resources) {
@@ -64,4 +64,12 @@ public class AbstractFlattenParticipant implements IFlattenParticipant {
 		return null;
 	}
 
+	/**
+	 * Participants are not thread safe unless they say so.
+	 * Override to return true if the file callbacks do not share state.
+	 */
+	public boolean isThreadSafe() {
+		return false;
+	}
+
 }
@@ -11,6 +11,7 @@
 package org.eclipse.wst.common.componentcore.internal.flat;
 
 import java.io.File;
+import java.util.Arrays;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.wst.common.componentcore.internal.flat.FlatVirtualComponent.FlatComponentTaskModel;
@@ -45,6 +46,15 @@ public class FilterResourceParticipant extends AbstractFlattenParticipant {
 			} 
 			return false;
 		}
+		
+		public boolean equals(Object obj) {
+			return obj instanceof FilterExtensionsParticipant 
+				&& Arrays.equals(bannedExtensions, ((FilterExtensionsParticipant)obj).bannedExtensions);
+		}
+		
+		public int hashCode() {
+			return Arrays.hashCode(bannedExtensions);
+		}
 	}
 	
 	public static FilterResourceParticipant createSuffixFilterParticipant(String[] strings) {
@@ -61,4 +71,25 @@ public class FilterResourceParticipant extends AbstractFlattenParticipant {
 			IFlatFile file) {
 		return filter.accepts(file);
 	}
+	
+	/**
+	 * Participants with equal filters are equal, so they can share 
+	 * results in the FlatComponentCache.
+	 */
+	public boolean equals(Object obj) {
+		return obj instanceof FilterResourceParticipant && obj.getClass() == getClass()
+			&& filter.equals(((FilterResourceParticipant)obj).filter);
+	}
+	
+	public int hashCode() {
+		return filter.hashCode();
+	}
+	
+	/**
+	 * The suffix filter keeps no state, other filters are not known
+	 * to be thread safe.
+	 */
+	public boolean isThreadSafe() {
+		return filter instanceof FilterExtensionsParticipant;
+	}
 }
@@ -0,0 +1,411 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.componentcore.internal.flat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.common.componentcore.internal.StructureEdit;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatVirtualComponent.FlatComponentTaskModel;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualContainer;
+import org.eclipse.wst.common.componentcore.resources.IVirtualResource;
+
+/**
+ * A workspace wide cache of flattened components, so that a component
+ * referenced by many modules is flattened once.
+ *
+ * Results are kept per component, participants and options, in an
+ * {@link IncrementalFlatVirtualComponent} which is brought up to date from
+ * resource deltas and the dependency graph before it is used. Participants
+ * are compared with equals(), so callers which want to share results must
+ * use equal participants; the participants in this package are equal when
+ * they are configured the same way. The least recently used entries are
+ * evicted when there are more than the maximum number of entries.
+ *
+ * The members of the folders of every component walked for an entry are
+ * kept too, so a utility component referenced by many modules is only read
+ * once, while the participants are still asked about each of its files on
+ * behalf of the module being flattened. A component's folders are read
+ * again once a resource is added to or removed from its project, or its
+ * component file changes.
+ */
+public class FlatComponentCache implements IResourceChangeListener {
+
+	private static final int DEFAULT_MAX_ENTRIES = 64;
+
+	/**
+	 * The datamodel key under which the cache hands itself to the
+	 * FlatVirtualComponents flattening its entries.
+	 */
+	static final String FOLDER_CACHE = "org.eclipse.wst.common.componentcore.export.folderCache"; //$NON-NLS-1$
+
+	private static final IPath COMPONENT_FILE_PATH = new Path(StructureEdit.MODULE_META_FILE_NAME);
+
+	private static FlatComponentCache cache;
+
+	/**
+	 * Return the shared cache.
+	 */
+	public static synchronized FlatComponentCache getDefault() {
+		if( cache == null )
+			cache = new FlatComponentCache(DEFAULT_MAX_ENTRIES);
+		return cache;
+	}
+
+	/**
+	 * Clear the shared cache, if it was ever used.
+	 */
+	public static synchronized void shutdown() {
+		if( cache != null ) {
+			cache.clear();
+			cache = null;
+		}
+	}
+
+	/**
+	 * The component, participants and options a result was computed for.
+	 */
+	private static class Key {
+		private IVirtualComponent component;
+		private List<IFlattenParticipant> participants;
+		private Map<Object, Object> options;
+		private int hash;
+
+		Key(IVirtualComponent component, FlatComponentTaskModel dataModel) {
+			this.component = component;
+			this.participants = Arrays.asList(FlatVirtualComponent.getParticipants(dataModel));
+			this.options = new HashMap<Object, Object>(dataModel);
+			options.remove(IFlatVirtualComponent.PARTICIPANT_LIST);
+			options.remove(IFlatVirtualComponent.EXPORT_MODEL);
+			options.remove(FOLDER_CACHE);
+			hash = (component.hashCode() * 37 + participants.hashCode()) * 37 + options.hashCode();
+		}
+
+		public boolean equals(Object obj) {
+			if( obj == this )
+				return true;
+			if( !(obj instanceof Key))
+				return false;
+			Key other = (Key)obj;
+			return hash == other.hash && component.equals(other.component)
+					&& participants.equals(other.participants) && options.equals(other.options);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private int maxEntries;
+
+	/**
+	 * The entries in least recently used order. Guarded by this.
+	 */
+	private LinkedHashMap<Key, IncrementalFlatVirtualComponent> entries =
+		new LinkedHashMap<Key, IncrementalFlatVirtualComponent>(16, 0.75f, true);
+
+	/**
+	 * The members of the walked folders, by component and runtime path, 
+	 * in least recently used order. Guarded by this.
+	 */
+	private LinkedHashMap<IVirtualComponent, Map<IPath, IVirtualResource[]>> folders =
+		new LinkedHashMap<IVirtualComponent, Map<IPath, IVirtualResource[]>>(16, 0.75f, true);
+
+	/**
+	 * Changed whenever folders are forgotten, so that members read 
+	 * meanwhile are not kept. Guarded by this.
+	 */
+	private int folderGeneration = 0;
+	private boolean listening = false;
+
+	/** Some counters so that we can tell if the cache is working. */
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong folderHits = new AtomicLong();
+	private final AtomicLong folderMisses = new AtomicLong();
+
+	public FlatComponentCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Return a flat virtual component whose results come from this cache.
+	 * The datamodel is copied, so later changes to it are not seen.
+	 * @param component
+	 * @param dataModel the datamodel, which may list participants and options
+	 * @return
+	 */
+	public IFlatVirtualComponent getFlatVirtualComponent(IVirtualComponent component, FlatComponentTaskModel dataModel) {
+		final Key key = new Key(component, dataModel);
+		final FlatComponentTaskModel copy = new FlatComponentTaskModel();
+		copy.putAll(dataModel);
+		copy.put(FOLDER_CACHE, this);
+		return new IFlatVirtualComponent() {
+			public IFlatResource[] fetchResources() throws CoreException {
+				IncrementalFlatVirtualComponent entry = getEntry(key, copy);
+				int count = entry.getFlattenCount();
+				try {
+					return entry.fetchResources();
+				} finally {
+					finished(key, entry, count);
+				}
+			}
+
+			public IChildModuleReference[] getChildModules() throws CoreException {
+				IncrementalFlatVirtualComponent entry = getEntry(key, copy);
+				int count = entry.getFlattenCount();
+				try {
+					return entry.getChildModules();
+				} finally {
+					finished(key, entry, count);
+				}
+			}
+		};
+	}
+
+	private IncrementalFlatVirtualComponent getEntry(Key key, FlatComponentTaskModel dataModel) {
+		List<IncrementalFlatVirtualComponent> evicted = null;
+		IncrementalFlatVirtualComponent entry;
+		synchronized (this) {
+			entry = entries.get(key);
+			if( entry == null ) {
+				entry = new IncrementalFlatVirtualComponent(key.component, dataModel);
+				entries.put(key, entry);
+				Iterator<IncrementalFlatVirtualComponent> it = entries.values().iterator();
+				while( entries.size() > maxEntries && it.hasNext()) {
+					if( evicted == null )
+						evicted = new ArrayList<IncrementalFlatVirtualComponent>();
+					evicted.add(it.next());
+					it.remove();
+					evictions.incrementAndGet();
+				}
+			}
+		}
+		if( evicted != null ) {
+			for( int i = 0; i < evicted.size(); i++ )
+				evicted.get(i).dispose();
+		}
+		return entry;
+	}
+
+	/**
+	 * Count the call, and dispose the entry if it was evicted while
+	 * it was being used, since using it starts listening again.
+	 */
+	private void finished(Key key, IncrementalFlatVirtualComponent entry, int count) {
+		if( entry.getFlattenCount() == count )
+			hits.incrementAndGet();
+		else
+			misses.incrementAndGet();
+		boolean evicted;
+		synchronized (this) {
+			evicted = entries.get(key) != entry;
+		}
+		if( evicted )
+			entry.dispose();
+	}
+
+	/**
+	 * Return the members of a folder of a component being walked, reading
+	 * them only if they are not known yet.
+	 */
+	IVirtualResource[] getMembers(IVirtualContainer container) throws CoreException {
+		IVirtualComponent component = container.getComponent();
+		IPath path = container.getRuntimePath();
+		int generation;
+		synchronized (this) {
+			Map<IPath, IVirtualResource[]> known = folders.get(component);
+			IVirtualResource[] members = known == null ? null : known.get(path);
+			if( members != null ) {
+				folderHits.incrementAndGet();
+				return members;
+			}
+			if( !listening ) {
+				// Listen before reading so no change can be missed
+				ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+				listening = true;
+			}
+			generation = folderGeneration;
+		}
+		folderMisses.incrementAndGet();
+		IVirtualResource[] members = container.members();
+		synchronized (this) {
+			if( generation == folderGeneration ) {
+				Map<IPath, IVirtualResource[]> known = folders.get(component);
+				if( known == null ) {
+					known = new HashMap<IPath, IVirtualResource[]>();
+					folders.put(component, known);
+					Iterator<IVirtualComponent> it = folders.keySet().iterator();
+					while( folders.size() > maxEntries && it.hasNext()) {
+						it.next();
+						it.remove();
+					}
+				}
+				known.put(path, members);
+			}
+		}
+		return members;
+	}
+
+	/**
+	 * Forget the folders of the components whose projects had resources
+	 * added or removed, or whose component file changed.
+	 */
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if( delta == null )
+			return;
+		Set<IProject> walked = new HashSet<IProject>();
+		synchronized (this) {
+			for( Iterator<IVirtualComponent> it = folders.keySet().iterator(); it.hasNext(); )
+				walked.add(it.next().getProject());
+		}
+		Set<IProject> changed = new HashSet<IProject>();
+		IResourceDelta[] projectDeltas = delta.getAffectedChildren();
+		for( int i = 0; i < projectDeltas.length; i++ ) {
+			IProject project = (IProject)projectDeltas[i].getResource();
+			if( !walked.contains(project))
+				continue;
+			if( projectDeltas[i].getKind() != IResourceDelta.CHANGED
+					|| (projectDeltas[i].getFlags() & IResourceDelta.OPEN) != 0 ) {
+				changed.add(project);
+				continue;
+			}
+			final boolean[] found = new boolean[1];
+			try {
+				projectDeltas[i].accept(new IResourceDeltaVisitor() {
+					public boolean visit(IResourceDelta resourceDelta) {
+						if( found[0] )
+							return false;
+						IResource resource = resourceDelta.getResource();
+						switch( resourceDelta.getKind()) {
+						case IResourceDelta.ADDED:
+						case IResourceDelta.REMOVED:
+							found[0] = true;
+							return false;
+						case IResourceDelta.CHANGED:
+							if( resource.getType() == IResource.FILE
+									&& COMPONENT_FILE_PATH.equals(resource.getProjectRelativePath()))
+								found[0] = true;
+							return true;
+						}
+						return true;
+					}
+				});
+			} catch( CoreException ce ) {
+				found[0] = true;
+			}
+			if( found[0] )
+				changed.add(project);
+		}
+		if( changed.isEmpty())
+			return;
+		synchronized (this) {
+			folderGeneration++;
+			for( Iterator<IVirtualComponent> it = folders.keySet().iterator(); it.hasNext(); ) {
+				if( changed.contains(it.next().getProject()))
+					it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Discard all the cached results.
+	 */
+	public void clear() {
+		List<IncrementalFlatVirtualComponent> all;
+		synchronized (this) {
+			all = new ArrayList<IncrementalFlatVirtualComponent>(entries.values());
+			entries.clear();
+			folders.clear();
+			folderGeneration++;
+			if( listening ) {
+				ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+				listening = false;
+			}
+		}
+		for( int i = 0; i < all.size(); i++ )
+			all.get(i).dispose();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return The number of calls answered without flattening a component.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return The number of calls which flattened a component, because it was
+	 * not cached or because it had changed.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return The number of entries evicted to stay within the maximum size.
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return The number of folders whose members were known when a 
+	 * component was walked.
+	 */
+	public long getFolderHits() {
+		return folderHits.get();
+	}
+
+	/**
+	 * @return The number of folders whose members had to be read when a
+	 * component was walked.
+	 */
+	public long getFolderMisses() {
+		return folderMisses.get();
+	}
+
+	/**
+	 * Reset the counters.
+	 */
+	public void resetStatistics() {
+		hits.set(0);
+		misses.set(0);
+		evictions.set(0);
+		folderHits.set(0);
+		folderMisses.set(0);
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.componentcore.internal.flat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An implementation of {@link IFlatDelta} computed by comparing
+ * two flat trees. Folders which are the same instance in both trees
+ * are assumed to have the same members and are not descended into.
+ */
+public class FlatDelta implements IFlatDelta {
+	private static final IFlatResource[] EMPTY_RESOURCE_ARRAY = new IFlatResource[0];
+
+	private IFlatResource[] added;
+	private IFlatResource[] changed;
+	private IFlatResource[] removed;
+	private IChildModuleReference[] addedChildren;
+	private IChildModuleReference[] removedChildren;
+
+	public FlatDelta(IFlatResource[] added, IFlatResource[] changed, IFlatResource[] removed,
+			IChildModuleReference[] addedChildren, IChildModuleReference[] removedChildren) {
+		this.added = added;
+		this.changed = changed;
+		this.removed = removed;
+		this.addedChildren = addedChildren;
+		this.removedChildren = removedChildren;
+	}
+
+	/**
+	 * Compute the delta between two flat trees.
+	 * @param oldMembers the members of the old tree, or null if there was none
+	 * @param oldChildren the child modules of the old tree, or null if there was none
+	 * @param newMembers
+	 * @param newChildren
+	 * @return
+	 */
+	public static FlatDelta compute(IFlatResource[] oldMembers, IChildModuleReference[] oldChildren,
+			IFlatResource[] newMembers, IChildModuleReference[] newChildren) {
+		List<IFlatResource> added = new ArrayList<IFlatResource>();
+		List<IFlatResource> changed = new ArrayList<IFlatResource>();
+		List<IFlatResource> removed = new ArrayList<IFlatResource>();
+		compare(oldMembers == null ? EMPTY_RESOURCE_ARRAY : oldMembers, newMembers, added, changed, removed);
+
+		Map<String, IChildModuleReference> oldURIs = new LinkedHashMap<String, IChildModuleReference>();
+		if( oldChildren != null ) {
+			for( int i = 0; i < oldChildren.length; i++ )
+				oldURIs.put(oldChildren[i].getRelativeURI().toString(), oldChildren[i]);
+		}
+		List<IChildModuleReference> addedChildren = new ArrayList<IChildModuleReference>();
+		for( int i = 0; i < newChildren.length; i++ ) {
+			if( oldURIs.remove(newChildren[i].getRelativeURI().toString()) == null )
+				addedChildren.add(newChildren[i]);
+		}
+
+		return new FlatDelta(
+				(IFlatResource[]) added.toArray(new IFlatResource[added.size()]),
+				(IFlatResource[]) changed.toArray(new IFlatResource[changed.size()]),
+				(IFlatResource[]) removed.toArray(new IFlatResource[removed.size()]),
+				(IChildModuleReference[]) addedChildren.toArray(new IChildModuleReference[addedChildren.size()]),
+				(IChildModuleReference[]) oldURIs.values().toArray(new IChildModuleReference[oldURIs.size()]));
+	}
+
+	private static void compare(IFlatResource[] oldMembers, IFlatResource[] newMembers,
+			List<IFlatResource> added, List<IFlatResource> changed, List<IFlatResource> removed) {
+		Map<String, IFlatResource> oldNames = new LinkedHashMap<String, IFlatResource>();
+		for( int i = 0; i < oldMembers.length; i++ )
+			oldNames.put(oldMembers[i].getName(), oldMembers[i]);
+		for( int i = 0; i < newMembers.length; i++ ) {
+			IFlatResource newResource = newMembers[i];
+			IFlatResource oldResource = oldNames.remove(newResource.getName());
+			if( oldResource == null ) {
+				addAll(newResource, added);
+			} else if( newResource instanceof IFlatFolder && oldResource instanceof IFlatFolder ) {
+				if( newResource != oldResource )
+					compare(((IFlatFolder)oldResource).members(), ((IFlatFolder)newResource).members(), added, changed, removed);
+			} else if( newResource instanceof IFlatFolder || oldResource instanceof IFlatFolder ) {
+				addAll(oldResource, removed);
+				addAll(newResource, added);
+			} else if( getModificationStamp(newResource) != getModificationStamp(oldResource)) {
+				changed.add(newResource);
+			}
+		}
+		for( IFlatResource oldResource : oldNames.values() )
+			addAll(oldResource, removed);
+	}
+
+	private static void addAll(IFlatResource resource, List<IFlatResource> list) {
+		list.add(resource);
+		if( resource instanceof IFlatFolder ) {
+			IFlatResource[] members = ((IFlatFolder)resource).members();
+			for( int i = 0; i < members.length; i++ )
+				addAll(members[i], list);
+		}
+	}
+
+	private static long getModificationStamp(IFlatResource resource) {
+		return resource instanceof IFlatFile ? ((IFlatFile)resource).getModificationStamp() : -1;
+	}
+
+	public IFlatResource[] getAdded() {
+		return added;
+	}
+
+	public IFlatResource[] getChanged() {
+		return changed;
+	}
+
+	public IFlatResource[] getRemoved() {
+		return removed;
+	}
+
+	public IChildModuleReference[] getAddedChildModules() {
+		return addedChildren;
+	}
+
+	public IChildModuleReference[] getRemovedChildModules() {
+		return removedChildren;
+	}
+
+	public boolean isEmpty() {
+		return added.length == 0 && changed.length == 0 && removed.length == 0
+				&& addedChildren.length == 0 && removedChildren.length == 0;
+	}
+
+	public String toString() {
+		return "FlatDelta [added=" + added.length + ", changed=" + changed.length + ", removed=" + removed.length //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ ", addedChildModules=" + addedChildren.length + ", removedChildModules=" + removedChildren.length + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
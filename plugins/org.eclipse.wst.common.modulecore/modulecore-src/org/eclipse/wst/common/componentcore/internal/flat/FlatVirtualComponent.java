@@ -13,11 +13,14 @@ package org.eclipse.wst.common.componentcore.internal.flat;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
@@ -60,6 +63,23 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 	 */
 	private List<IChildModuleReference> children = null;
 	
+	/**
+	 * The root containers of the components walked for this component
+	 */
+	private Set<IContainer> roots = null;
+	
+	/**
+	 * The utility reading ahead of the walk, when flattening in parallel
+	 */
+	private ParallelFlattenUtility parallelUtil = null;
+	
+	/**
+	 * The participants' answers for a file 
+	 */
+	static final int INCLUDE_FILE = 0;
+	static final int EXCLUDE_FILE = 1;
+	static final int CHILD_MODULE_FILE = 2;
+	
 	
 	public FlatVirtualComponent(IVirtualComponent component) {
 		this(component, new FlatComponentTaskModel());
@@ -77,6 +97,13 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 	 * This is pulled from the datamodel. 
 	 */
 	protected IFlattenParticipant[] setParticipants() {
+		return getParticipants(dataModel);
+	}
+	
+	/**
+	 * Return the participants listed in a datamodel.
+	 */
+	static IFlattenParticipant[] getParticipants(FlatComponentTaskModel dataModel) {
 		Object o = dataModel.get(PARTICIPANT_LIST);
 		if( o != null ) {
 			if( o instanceof IFlattenParticipant )
@@ -123,6 +150,7 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 					// Since the most recent, save the results for future calls.
 					members = proxyComponent.members;
 					children = proxyComponent.children;
+					roots = proxyComponent.roots;
 				}
 			}
 			// Return the results of this thread's calculation.
@@ -165,6 +193,7 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 					// Since the most recent, save the results for future calls.
 					members = proxyComponent.members;
 					children = proxyComponent.children;
+					roots = proxyComponent.roots;
 				}
 			}
 			// Return the results of this thread's calculation.
@@ -183,6 +212,8 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 	protected void cacheResources() throws CoreException {
 		runInitializations();
 		if( canOptimize()) {
+			if( component != null )
+				addRoots(component.getRootFolder());
 			optimize(members, children);
 		} else {
 			treeWalk();
@@ -193,6 +224,7 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 	protected void runInitializations() {
 		members = new ArrayList<IFlatResource>();
 		children = new ArrayList<IChildModuleReference>();
+		roots = new HashSet<IContainer>();
 		for( int i = 0; i < participants.length; i++ ) {
 			participants[i].initialize(component, dataModel, members);
 		}
@@ -223,19 +255,116 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 	
 	protected void treeWalk() throws CoreException {
 		if (component != null) {
-			VirtualComponentFlattenUtility util = new VirtualComponentFlattenUtility(members, this);
-			IVirtualFolder vFolder = component.getRootFolder();
-			
-			// actually walk the tree
-			util.addMembers(component, vFolder, Path.EMPTY);
+			VirtualComponentFlattenUtility util;
+			if( canParallelize()) {
+				// read every folder to be walked ahead, then walk as usual
+				parallelUtil = new ParallelFlattenUtility(members, this);
+				setFolderCache(parallelUtil);
+				parallelUtil.addUnit(component, Path.EMPTY);
+				addParallelUnits(parallelUtil, component, Path.EMPTY);
+				parallelUtil.prefetch();
+				util = parallelUtil;
+			} else {
+				util = new VirtualComponentFlattenUtility(members, this);
+				setFolderCache(util);
+			}
+			try {
+				IVirtualFolder vFolder = getRootFolder(util, component, Path.EMPTY);
+				addRoots(vFolder);
+				
+				// actually walk the tree
+				util.addMembers(component, vFolder, Path.EMPTY);
 
-			//addRelevantOutputFolders(); // to be done in a participant later
+				//addRelevantOutputFolders(); // to be done in a participant later
 
-			addConsumedReferences(util, component, new Path(""));
-			addUsedReferences(util, component, new Path(""));
+				addConsumedReferences(util, component, new Path(""));
+				addUsedReferences(util, component, new Path(""));
+			} finally {
+				parallelUtil = null;
+			}
+		}
+	}
+	
+	/**
+	 * Can the folders be read on several threads? Only if it was requested
+	 * and every participant says it is thread safe.
+	 */
+	protected boolean canParallelize() {
+		if( !Boolean.TRUE.equals(dataModel.get(PARALLEL_FLATTEN)))
+			return false;
+		for( int i = 0; i < participants.length; i++ ) {
+			if( !(participants[i] instanceof IFlattenParticipant2) 
+					|| !((IFlattenParticipant2)participants[i]).isThreadSafe())
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Share the folder listings of the workspace cache, if we were given one.
+	 */
+	private void setFolderCache(VirtualComponentFlattenUtility util) {
+		Object folderCache = dataModel.get(FlatComponentCache.FOLDER_CACHE);
+		if( folderCache instanceof FlatComponentCache )
+			util.setFolderCache((FlatComponentCache)folderCache);
+	}
+	
+	/**
+	 * Add the root folders the walk will add members from, following 
+	 * the references the same way addConsumedReferences and 
+	 * addUsedReferences do.
+	 */
+	protected void addParallelUnits(ParallelFlattenUtility util, IVirtualComponent vc, IPath root) {
+		Map<String, Object> options = new HashMap<String, Object>();
+		options.put(IVirtualComponent.REQUESTED_REFERENCE_TYPE, IVirtualComponent.FLATTENABLE_REFERENCES);
+		IVirtualReference[] references = vc.getReferences(options);
+		for (int i = 0; i < references.length; i++) {
+			IVirtualReference reference = references[i];
+			if (reference != null && reference.getDependencyType() == IVirtualReference.DEPENDENCY_TYPE_CONSUMES) {
+				IPath path = root.append(reference.getRuntimePath().makeRelative());
+				if( util.addUnit(reference.getReferencedComponent(), path))
+					addParallelUnits(util, reference.getReferencedComponent(), path);
+			}
+		}
+		for (int i = 0; i < references.length; i++) {
+			IVirtualReference reference = references[i];
+			if (reference.getDependencyType() == DependencyType.USES && !shouldIgnoreReference(reference))
+				addParallelUnit(util, reference, root);
+		}
+		for( int i = 0; i < participants.length; i++ ) {
+			List<IVirtualReference> participantReferences = getParticipantChildModules(i, vc);
+			if (participantReferences != null) {
+				for (IVirtualReference reference : participantReferences) {
+					if (reference.getDependencyType() == DependencyType.USES)
+						addParallelUnit(util, reference, root);
+				}
+			}
 		}
 	}
 	
+	private void addParallelUnit(ParallelFlattenUtility util, IVirtualReference reference, IPath root) {
+		if( !isChildModule(reference) && !reference.getReferencedComponent().isBinary())
+			util.addUnit(reference.getReferencedComponent(), 
+					root.append(reference.getRuntimePath()).append(reference.getArchiveName()));
+	}
+	
+	/**
+	 * Ask a participant for the child modules it adds for the component.
+	 * While the folders are read in parallel the answer is kept, so that
+	 * addParallelUnits and the walk only ask once.
+	 */
+	private List<IVirtualReference> getParticipantChildModules(int participant, IVirtualComponent vc) {
+		if( parallelUtil == null )
+			return participants[participant].getChildModules(vc, dataModel);
+		return parallelUtil.getChildModules(participants[participant], vc, dataModel);
+	}
+	
+	private IVirtualFolder getRootFolder(VirtualComponentFlattenUtility util, IVirtualComponent vc, IPath path) {
+		if( util instanceof ParallelFlattenUtility )
+			return ((ParallelFlattenUtility)util).getRootFolder(vc, path);
+		return vc.getRootFolder();
+	}
+	
 	/**
 	 * Consumed references are, by definition, consumed, and should not
 	 * be eligible to be exposed as child modules. They are consumed 
@@ -267,8 +396,9 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 
 	protected void consumeComponent(VirtualComponentFlattenUtility util, IPath root, IVirtualReference reference) throws CoreException {
 		IVirtualComponent consumedComponent = reference.getReferencedComponent();
-		IVirtualFolder vFolder = consumedComponent.getRootFolder();
+		IVirtualFolder vFolder = getRootFolder(util, consumedComponent, root.append(reference.getRuntimePath().makeRelative()));
 		if (vFolder !=null) {
+			addRoots(vFolder);
 			util.addMembers(consumedComponent, vFolder, root.append(reference.getRuntimePath().makeRelative()));
 			addConsumedReferences(util, consumedComponent, root.append(reference.getRuntimePath().makeRelative()));
 			addUsedReferences(util, consumedComponent, root.append(reference.getRuntimePath().makeRelative()));
@@ -280,15 +410,29 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 	 * Children modules will be exposed via the getChildModules() method. 
 	 */
 	public boolean shouldAddComponentFile(IVirtualComponent current, IFlatFile file) {
+		Integer disposition = parallelUtil == null ? null : parallelUtil.getDisposition(file);
+		int answer = disposition == null ? getFileDisposition(current, file) : disposition.intValue();
+		if( answer == CHILD_MODULE_FILE ) {
+			ChildModuleReference child = new ChildModuleReference(current.getProject(), file);
+			children.add(child); 
+			return false;
+		}
+		return answer == INCLUDE_FILE;
+	}
+	
+	/**
+	 * Ask the participants whether a file is a child module, or should be
+	 * included or excluded. Unlike shouldAddComponentFile, this does not 
+	 * change the children, so it may be called ahead of the walk.
+	 */
+	int getFileDisposition(IVirtualComponent current, IFlatFile file) {
 		for( int i = 0; i < participants.length; i++ ) {
 			if( participants[i].isChildModule(component, dataModel, file)) {
-				ChildModuleReference child = new ChildModuleReference(current.getProject(), file);
-				children.add(child); 
-				return false;
+				return CHILD_MODULE_FILE;
 			} else if( !participants[i].shouldAddExportableFile(component, current, dataModel, file))
-				return false;
+				return EXCLUDE_FILE;
 		}
-		return true;
+		return INCLUDE_FILE;
 	}
 
 	protected void addUsedReferences(VirtualComponentFlattenUtility util, IVirtualComponent vc, IPath root) throws CoreException {
@@ -331,7 +475,7 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 	protected void addUsedReferencesFromParticipants(VirtualComponentFlattenUtility util, IVirtualComponent vc, IPath root) throws CoreException{		
 		List<IVirtualReference> references = null;
 		for( int i = 0; i < participants.length; i++ ) {
-			references = participants[i].getChildModules(vc, dataModel);
+			references = getParticipantChildModules(i, vc);
 			if (references == null || references.isEmpty()){
 				continue;
 			}
@@ -397,11 +541,37 @@ public class FlatVirtualComponent implements IFlatVirtualComponent, ShouldInclud
 			 * 
 			 * TODO Investigate / Discuss
 			 */
-			util.addMembers(reference.getReferencedComponent(), reference.getReferencedComponent().getRootFolder(), 
+			IVirtualFolder vFolder = getRootFolder(util, reference.getReferencedComponent(), runtimePath.append(reference.getArchiveName()));
+			addRoots(vFolder);
+			util.addMembers(reference.getReferencedComponent(), vFolder, 
 					runtimePath.append(reference.getArchiveName()));
 		}
 	}
 	
+	/**
+	 * Remember the containers a walked root folder is mapped to, so
+	 * resources added directly to them can be recognized later.
+	 */
+	private void addRoots(IVirtualFolder vFolder) {
+		if( vFolder == null )
+			return;
+		IResource[] underlying = vFolder.getUnderlyingResources();
+		for( int i = 0; i < underlying.length; i++ ) {
+			if( underlying[i] instanceof IContainer )
+				roots.add((IContainer)underlying[i]);
+		}
+	}
+	
+	/**
+	 * Return the root containers of the components walked by the last 
+	 * flattening. Only the root component's containers are known when 
+	 * a participant optimized the flattening.
+	 */
+	Set<IContainer> getRoots() {
+		Set<IContainer> result = roots;
+		return result == null ? new HashSet<IContainer>() : result;
+	}
+	
 	protected void handleNonChildUsedBinaryReference(VirtualComponentFlattenUtility util, IVirtualComponent parent, 
 			IVirtualReference reference, IPath runtimePath) throws CoreException {
 		// Binary used references must be added as a single file unless they're child modules
@@ -55,6 +55,31 @@ public class GlobalHeirarchyParticipant extends AbstractFlattenParticipant {
 		return false;
 	}
 	
+	@Override
+	public boolean isThreadSafe() {
+		ensureLoaded();
+		Iterator<IFlattenParticipant> it = list.iterator();
+		while(it.hasNext() ) {
+			IFlattenParticipant next = it.next();
+			if( !(next instanceof IFlattenParticipant2) || !((IFlattenParticipant2)next).isThreadSafe())
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * All instances consult the same extensions, so they are equal.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj != null && obj.getClass() == getClass();
+	}
+	
+	@Override
+	public int hashCode() {
+		return getClass().hashCode();
+	}
+	
 	private synchronized void ensureLoaded() {
 		if( list != null ) 
 			return;
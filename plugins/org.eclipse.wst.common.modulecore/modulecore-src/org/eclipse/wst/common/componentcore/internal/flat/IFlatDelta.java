@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.componentcore.internal.flat;
+
+/**
+ * The difference between two flattenings of a component, so that
+ * publishers can copy only what has changed.
+ *
+ * This interface is not intended to be implemented by clients
+ */
+public interface IFlatDelta {
+
+	/**
+	 * Returns the resources which were not in the old tree.
+	 * The members of an added folder are also returned, after the folder.
+	 * @return
+	 */
+	public IFlatResource[] getAdded();
+
+	/**
+	 * Returns the files of the new tree whose modification stamp
+	 * differs from the stamp of the same file in the old tree.
+	 * @return
+	 */
+	public IFlatResource[] getChanged();
+
+	/**
+	 * Returns the resources of the old tree which are no longer present.
+	 * The members of a removed folder are also returned, after the folder.
+	 * @return
+	 */
+	public IFlatResource[] getRemoved();
+
+	/**
+	 * Returns the child modules whose relative uri was not in the old tree.
+	 * @return
+	 */
+	public IChildModuleReference[] getAddedChildModules();
+
+	/**
+	 * Returns the child modules of the old tree whose relative uri
+	 * is no longer present.
+	 * @return
+	 */
+	public IChildModuleReference[] getRemovedChildModules();
+
+	/**
+	 * Returns true if nothing has changed.
+	 * @return
+	 */
+	public boolean isEmpty();
+}
@@ -26,6 +26,15 @@ public interface IFlatVirtualComponent {
 	 */
 	public static String EXPORT_MODEL = "org.eclipse.wst.common.componentcore.export.exportModel";
 
+	/**
+	 * An options key requesting that referenced components and folders 
+	 * be walked on several threads. The value must be a Boolean.
+	 * The result is the same as for a single thread. It is ignored 
+	 * unless every participant is an {@link IFlattenParticipant2} which 
+	 * says it is thread safe.
+	 */
+	public static String PARALLEL_FLATTEN = "org.eclipse.wst.common.componentcore.export.parallelFlatten";
+
 	/**
 	 * Fetch the list of resources, which include raw files or folders only
 	 * @return
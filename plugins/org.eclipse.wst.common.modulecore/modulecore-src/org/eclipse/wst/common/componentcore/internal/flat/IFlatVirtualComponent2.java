@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.componentcore.internal.flat;
+
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * A flat virtual component which keeps its flat tree up to date
+ * between calls, and can report what changed since the last delta.
+ */
+public interface IFlatVirtualComponent2 extends IFlatVirtualComponent {
+
+	/**
+	 * Bring the flat tree up to date and return the difference between
+	 * it and the tree as of the previous call to this method.
+	 * The first call returns every resource and child module as added.
+	 * @return
+	 * @throws CoreException
+	 */
+	public IFlatDelta fetchDelta() throws CoreException;
+
+	/**
+	 * Stop tracking changes and release the flat tree.
+	 */
+	public void dispose();
+}
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.componentcore.internal.flat;
+
+/**
+ * A participant which can say whether it may be called from
+ * several threads at once.
+ * Clients should not implement this class directly,
+ * but should rather extend AbstractFlattenParticipant.
+ */
+public interface IFlattenParticipant2 extends IFlattenParticipant {
+
+	/**
+	 * Can {@link #isChildModule(org.eclipse.wst.common.componentcore.resources.IVirtualComponent, FlatVirtualComponent.FlatComponentTaskModel, IFlatFile)}
+	 * and {@link #shouldAddExportableFile(org.eclipse.wst.common.componentcore.resources.IVirtualComponent, org.eclipse.wst.common.componentcore.resources.IVirtualComponent, FlatVirtualComponent.FlatComponentTaskModel, IFlatFile)}
+	 * be called concurrently, in any order, for different files?
+	 * If any participant returns false, or does not implement this interface,
+	 * a component is flattened on a single thread even when
+	 * {@link IFlatVirtualComponent#PARALLEL_FLATTEN} is requested.
+	 * @return
+	 */
+	public boolean isThreadSafe();
+}
@@ -0,0 +1,467 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.componentcore.internal.flat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.common.componentcore.internal.StructureEdit;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraph;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraph2;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraphReferences;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraphListener;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraphUpdateEvent;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatVirtualComponent.FlatComponentTaskModel;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+
+/**
+ * A flat virtual component which keeps the last flat tree and tracks
+ * resource deltas and dependency graph events, so the tree does not
+ * have to be walked again on every call.
+ *
+ * Content changes to files in the tree are patched in place by replacing
+ * the file and the folders above it; the participants are not consulted
+ * again for them. Any other change which may affect the tree, such as a
+ * resource added to or removed from a flattened folder, a change to a
+ * component file or a manifest, or a change to the references of a 
+ * flattened component, flattens the whole component again. Manifests 
+ * are never patched, as their class path may add or remove child modules.
+ *
+ * The folders of the returned trees are copies, so callers may change them
+ * without affecting the tree kept here.
+ *
+ * Clients must call {@link #dispose()} when the component is no longer needed.
+ */
+public class IncrementalFlatVirtualComponent implements IFlatVirtualComponent2,
+		IResourceChangeListener, IDependencyGraphListener {
+
+	private static final IPath COMPONENT_FILE_PATH = new Path(StructureEdit.MODULE_META_FILE_NAME);
+	private static final IPath MANIFEST_PATH = new Path("META-INF/MANIFEST.MF"); //$NON-NLS-1$
+
+	/**
+	 * The resources of the last flat tree, as seen by the listeners.
+	 */
+	private static class TrackedResources {
+		private Set<IProject> projects = new HashSet<IProject>();
+		private Set<IResource> resources = new HashSet<IResource>();
+	}
+
+	private IVirtualComponent component;
+	private FlatComponentTaskModel dataModel;
+
+	/**
+	 * Guards the flat tree and the baseline of the next delta
+	 */
+	private Object lock = new Object();
+	private IFlatResource[] members = null;
+	private IChildModuleReference[] children = null;
+	private Map<IFile, List<FlatFile>> files = null;
+	private IFlatResource[] baselineMembers = null;
+	private IChildModuleReference[] baselineChildren = null;
+	private boolean listening = false;
+	private long modStamp;
+	private Set<IProject> referencedProjects = null;
+	private int flattenCount = 0;
+
+	/**
+	 * Guards the changes noticed since the last refresh
+	 */
+	private Object changeLock = new Object();
+	private boolean fullRefresh = true;
+	private Set<IFile> changedFiles = new HashSet<IFile>();
+
+	private volatile TrackedResources tracked = null;
+
+	public IncrementalFlatVirtualComponent(IVirtualComponent component) {
+		this(component, new FlatComponentTaskModel());
+	}
+
+	public IncrementalFlatVirtualComponent(IVirtualComponent component, FlatComponentTaskModel dataModel) {
+		this.component = component;
+		this.dataModel = dataModel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.wst.common.componentcore.internal.flat.IFlatVirtualComponent#fetchResources()
+	 */
+	public IFlatResource[] fetchResources() throws CoreException {
+		synchronized (lock) {
+			refresh();
+			return copy(members);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.wst.common.componentcore.internal.flat.IFlatVirtualComponent#getChildModules()
+	 */
+	public IChildModuleReference[] getChildModules() throws CoreException {
+		synchronized (lock) {
+			refresh();
+			return (IChildModuleReference[]) children.clone();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.wst.common.componentcore.internal.flat.IFlatVirtualComponent2#fetchDelta()
+	 */
+	public IFlatDelta fetchDelta() throws CoreException {
+		synchronized (lock) {
+			refresh();
+			FlatDelta delta = FlatDelta.compute(baselineMembers, baselineChildren, members, children);
+			baselineMembers = members;
+			baselineChildren = children;
+			return delta;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.wst.common.componentcore.internal.flat.IFlatVirtualComponent2#dispose()
+	 */
+	public void dispose() {
+		synchronized (lock) {
+			if( listening ) {
+				ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+				IDependencyGraph.INSTANCE.removeListener(this);
+				listening = false;
+			}
+			members = null;
+			children = null;
+			files = null;
+			referencedProjects = null;
+			baselineMembers = null;
+			baselineChildren = null;
+			tracked = null;
+		}
+		synchronized (changeLock) {
+			fullRefresh = true;
+			changedFiles.clear();
+		}
+	}
+
+	public IVirtualComponent getComponent() {
+		return component;
+	}
+
+	/**
+	 * Bring the flat tree up to date with the changes noticed since
+	 * the last refresh. Must be called holding the lock.
+	 */
+	private void refresh() throws CoreException {
+		if( !listening ) {
+			// Listen before the first flattening so no change can be missed
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+			IDependencyGraph.INSTANCE.addListener(this);
+			listening = true;
+		}
+		boolean full;
+		Set<IFile> changed;
+		// Graph listeners are notified from a job, so look at the stamp too
+		long currentModStamp = IDependencyGraph.INSTANCE.getModStamp();
+		IDependencyGraphReferences current = currentModStamp != modStamp ? getReferencedProjects() : null;
+		boolean graphChanged = currentModStamp != modStamp && (current == null || referencesChanged(current));
+		synchronized (changeLock) {
+			full = fullRefresh || graphChanged;
+			changed = changedFiles;
+			fullRefresh = false;
+			changedFiles = new HashSet<IFile>();
+		}
+		try {
+			if( full || !patch(changed)) {
+				if( current == null )
+					current = getReferencedProjects();
+				referencedProjects = current == null ? null : new HashSet<IProject>(current.getReferencingComponents());
+				flatten();
+			}
+			// A stale answer may not include the updates still queued for the graph, so look again next time
+			if( current == null || !current.isStale() )
+				modStamp = currentModStamp;
+		} catch( CoreException ce ) {
+			markFullRefresh();
+			throw ce;
+		} catch( RuntimeException re ) {
+			markFullRefresh();
+			throw re;
+		}
+	}
+
+	/**
+	 * Has the set of projects this component references, directly or 
+	 * indirectly, changed since it was last flattened? A change anywhere 
+	 * else in the dependency graph does not affect this component.
+	 */
+	private boolean referencesChanged(IDependencyGraphReferences current) {
+		if( referencedProjects == null )
+			return true;
+		return !current.getReferencingComponents().equals(referencedProjects);
+	}
+
+	/**
+	 * Answer the projects this component references, directly or indirectly,
+	 * without waiting for the graph to be updated, as we are called holding
+	 * the lock. Answer null if the graph can't tell us.
+	 */
+	private IDependencyGraphReferences getReferencedProjects() {
+		IProject project = component.getProject();
+		if( project == null || !(IDependencyGraph.INSTANCE instanceof IDependencyGraph2))
+			return null;
+		return ((IDependencyGraph2)IDependencyGraph.INSTANCE).getTransitiveReferencedComponents(project, false);
+	}
+
+	/**
+	 * Copy the folders of a tree, so that changing the copy does not
+	 * change the tree. The files are shared, as they can't be changed.
+	 */
+	static IFlatResource[] copy(IFlatResource[] resources) {
+		IFlatResource[] result = new IFlatResource[resources.length];
+		for( int i = 0; i < resources.length; i++ ) {
+			if( resources[i] instanceof FlatFolder ) {
+				FlatFolder folder = (FlatFolder)resources[i];
+				FlatFolder copy = new FlatFolder((IContainer)folder.getAdapter(IContainer.class),
+						folder.getName(), folder.getModuleRelativePath());
+				copy.setMembers(copy(folder.members()));
+				result[i] = copy;
+			} else {
+				result[i] = resources[i];
+			}
+		}
+		return result;
+	}
+
+	private void flatten() throws CoreException {
+		FlatVirtualComponent flat = new FlatVirtualComponent(component, dataModel);
+		IFlatResource[] resources = flat.fetchResources();
+		IChildModuleReference[] childModules = flat.getChildModules();
+
+		Map<IFile, List<FlatFile>> index = new HashMap<IFile, List<FlatFile>>();
+		TrackedResources newTracked = new TrackedResources();
+		index(resources, index, newTracked);
+		for( Iterator<IContainer> i = flat.getRoots().iterator(); i.hasNext(); )
+			track(i.next(), newTracked);
+		if( component.getProject() != null )
+			newTracked.projects.add(component.getProject());
+
+		members = resources;
+		children = childModules;
+		files = index;
+		tracked = newTracked;
+		flattenCount++;
+	}
+	
+	/**
+	 * Return the number of times the whole component has been flattened.
+	 */
+	int getFlattenCount() {
+		synchronized (lock) {
+			return flattenCount;
+		}
+	}
+
+	private static void index(IFlatResource[] resources, Map<IFile, List<FlatFile>> index, TrackedResources tracked) {
+		for( int i = 0; i < resources.length; i++ ) {
+			IResource resource = (IResource)resources[i].getAdapter(IResource.class);
+			if( resource != null ) {
+				track(resource, tracked);
+				// the parent of a file may not be a folder of the tree when it is mapped to a root
+				if( resource.getType() == IResource.FILE )
+					track(resource.getParent(), tracked);
+			}
+			if( resources[i] instanceof IFlatFolder ) {
+				index(((IFlatFolder)resources[i]).members(), index, tracked);
+			} else if( resources[i] instanceof FlatFile && resource instanceof IFile ) {
+				List<FlatFile> entries = index.get(resource);
+				if( entries == null ) {
+					entries = new ArrayList<FlatFile>(1);
+					index.put((IFile)resource, entries);
+				}
+				entries.add((FlatFile)resources[i]);
+			}
+		}
+	}
+
+	private static void track(IResource resource, TrackedResources tracked) {
+		if( resource == null || resource.getType() == IResource.ROOT )
+			return;
+		tracked.resources.add(resource);
+		tracked.projects.add(resource.getProject());
+	}
+
+	/**
+	 * Replace the entries of the changed files with new entries carrying
+	 * the current modification stamps.
+	 * @return false if a file could not be patched and the component must be flattened again
+	 */
+	private boolean patch(Set<IFile> changed) {
+		if( members == null )
+			return false;
+		for( Iterator<IFile> i = changed.iterator(); i.hasNext(); ) {
+			IFile file = i.next();
+			List<FlatFile> entries = files.get(file);
+			if( entries == null || !file.exists())
+				return false;
+			for( int j = 0; j < entries.size(); j++ ) {
+				FlatFile old = entries.get(j);
+				FlatFile replacement = new FlatFile(file, old.getName(), old.getModuleRelativePath());
+				IFlatResource[] patched = replace(members, old.getModuleRelativePath().segments(), 0, old, replacement);
+				if( patched == null )
+					return false;
+				members = patched;
+				entries.set(j, replacement);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return a copy of the resources with the old file replaced, copying
+	 * the folders on the way to it so that trees handed out earlier, and
+	 * the baseline of the next delta, are left untouched.
+	 * @return the copy, or null if the old file was not found
+	 */
+	private static IFlatResource[] replace(IFlatResource[] resources, String[] segments, int index,
+			IFlatResource old, IFlatResource replacement) {
+		for( int i = 0; i < resources.length; i++ ) {
+			IFlatResource[] result = null;
+			if( index == segments.length ) {
+				if( resources[i] == old ) {
+					result = (IFlatResource[]) resources.clone();
+					result[i] = replacement;
+					return result;
+				}
+			} else if( resources[i] instanceof FlatFolder && resources[i].getName().equals(segments[index])) {
+				FlatFolder folder = (FlatFolder)resources[i];
+				IFlatResource[] folderMembers = replace(folder.members(), segments, index + 1, old, replacement);
+				if( folderMembers != null ) {
+					FlatFolder copy = new FlatFolder((IContainer)folder.getAdapter(IContainer.class),
+							folder.getName(), folder.getModuleRelativePath());
+					copy.setMembers(folderMembers);
+					result = (IFlatResource[]) resources.clone();
+					result[i] = copy;
+					return result;
+				}
+			}
+		}
+		return null;
+	}
+
+	private void markFullRefresh() {
+		synchronized (changeLock) {
+			fullRefresh = true;
+			changedFiles.clear();
+		}
+	}
+
+	private void markChanged(IFile file) {
+		synchronized (changeLock) {
+			if( !fullRefresh )
+				changedFiles.add(file);
+		}
+	}
+
+	public void resourceChanged(IResourceChangeEvent event) {
+		final TrackedResources current = tracked;
+		IResourceDelta delta = event.getDelta();
+		if( current == null || delta == null )
+			return;
+		IResourceDelta[] projectDeltas = delta.getAffectedChildren();
+		for( int i = 0; i < projectDeltas.length; i++ ) {
+			if( !current.projects.contains(projectDeltas[i].getResource()))
+				continue;
+			if( projectDeltas[i].getKind() != IResourceDelta.CHANGED
+					|| (projectDeltas[i].getFlags() & IResourceDelta.OPEN) != 0 ) {
+				markFullRefresh();
+				return;
+			}
+			final boolean[] full = new boolean[1];
+			try {
+				projectDeltas[i].accept(new IResourceDeltaVisitor() {
+					public boolean visit(IResourceDelta resourceDelta) {
+						if( full[0] )
+							return false;
+						IResource resource = resourceDelta.getResource();
+						switch( resourceDelta.getKind()) {
+						case IResourceDelta.ADDED:
+						case IResourceDelta.REMOVED:
+							full[0] = current.resources.contains(resource)
+									|| current.resources.contains(resource.getParent());
+							return false;
+						case IResourceDelta.CHANGED:
+							if( resource.getType() == IResource.FILE
+									&& (resourceDelta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0 ) {
+								if( COMPONENT_FILE_PATH.equals(resource.getProjectRelativePath())
+										|| isManifest(resource))
+									full[0] = true;
+								else if( current.resources.contains(resource))
+									markChanged((IFile)resource);
+							}
+							return true;
+						}
+						return true;
+					}
+				});
+			} catch( CoreException ce ) {
+				full[0] = true;
+			}
+			if( full[0] ) {
+				markFullRefresh();
+				return;
+			}
+		}
+	}
+
+	private static boolean isManifest(IResource resource) {
+		IPath path = resource.getProjectRelativePath();
+		return path.segmentCount() >= MANIFEST_PATH.segmentCount()
+				&& MANIFEST_PATH.equals(path.removeFirstSegments(path.segmentCount() - MANIFEST_PATH.segmentCount()));
+	}
+
+	public void dependencyGraphUpdate(IDependencyGraphUpdateEvent event) {
+		TrackedResources current = tracked;
+		if( current == null )
+			return;
+		if( referencesChanged(event.getAddedReferences(), current)
+				|| referencesChanged(event.getRemovedReferences(), current))
+			markFullRefresh();
+	}
+
+	/**
+	 * Have the references of a flattened component changed?
+	 */
+	private static boolean referencesChanged(Map<IProject, Set<IProject>> references, TrackedResources tracked) {
+		for( Iterator<Set<IProject>> i = references.values().iterator(); i.hasNext(); ) {
+			for( Iterator<IProject> j = i.next().iterator(); j.hasNext(); ) {
+				if( tracked.projects.contains(j.next()))
+					return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.componentcore.internal.flat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatVirtualComponent.FlatComponentTaskModel;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualContainer;
+import org.eclipse.wst.common.componentcore.resources.IVirtualFolder;
+import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
+import org.eclipse.wst.common.componentcore.resources.IVirtualResource;
+
+/**
+ * A flatten utility which reads the folders of every component to be
+ * walked on a fork-join pool ahead of the walk. The members of each
+ * container, the flat file for each file, and the participants' answer
+ * for it are remembered, and the walk itself then runs on the calling
+ * thread exactly as it would without them, so the order of the members
+ * and the handling of duplicates do not change.
+ */
+class ParallelFlattenUtility extends VirtualComponentFlattenUtility {
+
+	/**
+	 * A root folder to be walked, with the component it belongs to
+	 * and the path it is walked at.
+	 */
+	private static class Unit {
+		private IVirtualComponent component;
+		private IVirtualFolder folder;
+		private IPath path;
+	}
+
+	/**
+	 * A file read ahead of the walk
+	 */
+	private static class PrefetchedFile {
+		private IVirtualComponent current;
+		private IPath path;
+		private IFlatFile file;
+		private int disposition;
+	}
+
+	private FlatVirtualComponent handler;
+	private List<Unit> units = new ArrayList<Unit>();
+	private Map<IVirtualContainer, IVirtualResource[]> containers =
+		Collections.synchronizedMap(new IdentityHashMap<IVirtualContainer, IVirtualResource[]>());
+	private Map<IAdaptable, PrefetchedFile> files =
+		Collections.synchronizedMap(new IdentityHashMap<IAdaptable, PrefetchedFile>());
+	private Map<IFlatFile, Integer> dispositions =
+		Collections.synchronizedMap(new IdentityHashMap<IFlatFile, Integer>());
+	private Map<IFlattenParticipant, Map<IVirtualComponent, List<IVirtualReference>>> childModules =
+		new IdentityHashMap<IFlattenParticipant, Map<IVirtualComponent, List<IVirtualReference>>>();
+
+	public ParallelFlattenUtility(List<IFlatResource> members, FlatVirtualComponent handler) {
+		super(members, handler);
+		this.handler = handler;
+	}
+
+	/**
+	 * Add a component whose root folder will be walked at the given path.
+	 * @return false if the component has no root folder or was already added at that path
+	 */
+	public boolean addUnit(IVirtualComponent component, IPath path) {
+		if( getUnit(component, path) != null )
+			return false;
+		IVirtualFolder folder = component.getRootFolder();
+		if( folder == null )
+			return false;
+		Unit unit = new Unit();
+		unit.component = component;
+		unit.folder = folder;
+		unit.path = path;
+		units.add(unit);
+		return true;
+	}
+
+	/**
+	 * Return the root folder added for the component at the given path,
+	 * so that the walk uses the folder which was read ahead.
+	 */
+	public IVirtualFolder getRootFolder(IVirtualComponent component, IPath path) {
+		Unit unit = getUnit(component, path);
+		return unit == null ? component.getRootFolder() : unit.folder;
+	}
+
+	private Unit getUnit(IVirtualComponent component, IPath path) {
+		for( int i = 0; i < units.size(); i++ ) {
+			Unit unit = units.get(i);
+			if( unit.component.equals(component) && unit.path.equals(path))
+				return unit;
+		}
+		return null;
+	}
+
+	/**
+	 * Read every added root folder on the fork-join pool.
+	 */
+	public void prefetch() {
+		List<PrefetchTask> tasks = new ArrayList<PrefetchTask>(units.size());
+		for( int i = 0; i < units.size(); i++ ) {
+			Unit unit = units.get(i);
+			tasks.add(new PrefetchTask(unit.component, unit.folder, unit.path));
+		}
+		final List<PrefetchTask> all = tasks;
+		ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+			protected void compute() {
+				invokeAll(all);
+			}
+		});
+	}
+
+	/**
+	 * Return the participants' answer for a file created by this utility,
+	 * or null if it was not read ahead.
+	 */
+	public Integer getDisposition(IFlatFile file) {
+		return dispositions.get(file);
+	}
+
+	/**
+	 * Return the participant's child modules for the component, asking
+	 * the participant only the first time. This is only called on the
+	 * thread doing the walk.
+	 */
+	public List<IVirtualReference> getChildModules(IFlattenParticipant participant, 
+			IVirtualComponent component, FlatComponentTaskModel dataModel) {
+		Map<IVirtualComponent, List<IVirtualReference>> answers = childModules.get(participant);
+		if( answers == null ) {
+			answers = new HashMap<IVirtualComponent, List<IVirtualReference>>();
+			childModules.put(participant, answers);
+		}
+		if( !answers.containsKey(component))
+			answers.put(component, participant.getChildModules(component, dataModel));
+		return answers.get(component);
+	}
+
+	protected IVirtualResource[] getMembers(IVirtualContainer cont) throws CoreException {
+		IVirtualResource[] members = containers.get(cont);
+		return members == null ? super.getMembers(cont) : members;
+	}
+
+	protected IFlatFile getFlatFile(IVirtualComponent current, IPath path, IAdaptable file) {
+		PrefetchedFile prefetched = files.get(file);
+		if( prefetched != null && prefetched.path.equals(path) && prefetched.current.equals(current)) {
+			dispositions.put(prefetched.file, Integer.valueOf(prefetched.disposition));
+			return prefetched.file;
+		}
+		return super.getFlatFile(current, path, file);
+	}
+
+	private class PrefetchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private IVirtualComponent current;
+		private IVirtualContainer container;
+		private IPath path;
+
+		PrefetchTask(IVirtualComponent current, IVirtualContainer container, IPath path) {
+			this.current = current;
+			this.container = container;
+			this.path = path;
+		}
+
+		protected void compute() {
+			IVirtualResource[] members;
+			try {
+				members = ParallelFlattenUtility.super.getMembers(container);
+			} catch( CoreException ce ) {
+				// Leave it to the walk, which reports the failure
+				return;
+			}
+			containers.put(container, members);
+			List<PrefetchTask> subtasks = new ArrayList<PrefetchTask>();
+			for( int i = 0; i < members.length; i++ ) {
+				if( members[i] instanceof IVirtualContainer ) {
+					IVirtualContainer cc = (IVirtualContainer)members[i];
+					subtasks.add(new PrefetchTask(current, cc, path.append(cc.getName())));
+				} else {
+					IFlatFile file = createFlatFile(path, members[i]);
+					if( file != null ) {
+						PrefetchedFile prefetched = new PrefetchedFile();
+						prefetched.current = current;
+						prefetched.path = path;
+						prefetched.file = file;
+						prefetched.disposition = handler.getFileDisposition(current, file);
+						files.put(members[i], prefetched);
+					}
+				}
+			}
+			invokeAll(subtasks);
+		}
+	}
+}
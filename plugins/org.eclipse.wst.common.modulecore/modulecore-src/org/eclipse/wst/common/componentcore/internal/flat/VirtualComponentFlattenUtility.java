@@ -40,12 +40,20 @@ public class VirtualComponentFlattenUtility {
 	
 	private List<IFlatResource> members;
 	private ShouldIncludeUtilityCallback handler;
+	private FlatComponentCache folderCache;
 	public VirtualComponentFlattenUtility(
 			List<IFlatResource> members, ShouldIncludeUtilityCallback handler) {
 		this.members = members;
 		this.handler = handler;
 	}
 	
+	/**
+	 * Read the members of the walked folders through the given cache
+	 */
+	void setFolderCache(FlatComponentCache folderCache) {
+		this.folderCache = folderCache;
+	}
+	
 	public void addMembers(IVirtualComponent current, IVirtualContainer cont, IPath path) throws CoreException {
 		ensureParentExists(members, path, null);
 		FlatResource[] mr = addMembersInternal(current, cont, path);
@@ -86,7 +94,7 @@ public class VirtualComponentFlattenUtility {
 	}
 	
 	protected FlatResource[] addMembersInternal(IVirtualComponent current, IVirtualContainer cont, IPath path) throws CoreException {
-		IVirtualResource[] res = cont.members();
+		IVirtualResource[] res = getMembers(cont);
 		int size2 = res.length;
 		List list = new ArrayList(size2);
 		for (int j = 0; j < size2; j++) {
@@ -104,21 +112,15 @@ public class VirtualComponentFlattenUtility {
 		return mr;
 	}
 	
+	/**
+	 * Return the members of a virtual container being walked
+	 */
+	protected IVirtualResource[] getMembers(IVirtualContainer cont) throws CoreException {
+		return folderCache == null ? cont.members() : folderCache.getMembers(cont);
+	}
+	
 	public void addFile(IVirtualComponent current, IPath path, IAdaptable file) {
-                IVirtualFile vf = file instanceof IFile ? null : (IVirtualFile)file.getAdapter(IVirtualFile.class);
-                IFile f = file instanceof IFile ? (IFile)file : (IFile)file.getAdapter(IFile.class);
-
-		IFlatFile mf = null;
-		String vfName = null;
-		if( vf != null && vf.getName() != null )
-			vfName = vf.getName();
-		if( f != null )
-			 mf = new FlatFile(f, vfName == null ? f.getName() : vfName, path.makeRelative());
-		else {
-			File f2 = (File)file.getAdapter(File.class);
-			if( f2 != null )
-				mf = new FlatFile(f2, vfName == null ? f2.getName() : vfName, path.makeRelative());
-		}
+		IFlatFile mf = getFlatFile(current, path, file);
 		if( mf != null ) {
 			if (handler == null || handler.shouldAddComponentFile(current, mf)) {
 				if( mf.getModuleRelativePath().segmentCount() == 0) {
@@ -136,6 +138,31 @@ public class VirtualComponentFlattenUtility {
 		}
 	}
 	
+	/**
+	 * Return the flat file for a file being walked, or null if there is no file on disk
+	 */
+	protected IFlatFile getFlatFile(IVirtualComponent current, IPath path, IAdaptable file) {
+		return createFlatFile(path, file);
+	}
+	
+	public static IFlatFile createFlatFile(IPath path, IAdaptable file) {
+                IVirtualFile vf = file instanceof IFile ? null : (IVirtualFile)file.getAdapter(IVirtualFile.class);
+                IFile f = file instanceof IFile ? (IFile)file : (IFile)file.getAdapter(IFile.class);
+
+		IFlatFile mf = null;
+		String vfName = null;
+		if( vf != null && vf.getName() != null )
+			vfName = vf.getName();
+		if( f != null )
+			 mf = new FlatFile(f, vfName == null ? f.getName() : vfName, path.makeRelative());
+		else {
+			File f2 = (File)file.getAdapter(File.class);
+			if( f2 != null )
+				mf = new FlatFile(f2, vfName == null ? f2.getName() : vfName, path.makeRelative());
+		}
+		return mf;
+	}
+	
 	public void addFile(IVirtualComponent current, IFile f, IPath path) {
 		addFile(current, path, (IAdaptable)f);
 	}
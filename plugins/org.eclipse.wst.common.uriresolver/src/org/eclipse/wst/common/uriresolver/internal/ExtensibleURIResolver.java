@@ -11,9 +11,6 @@
  *******************************************************************************/
 package org.eclipse.wst.common.uriresolver.internal;
 
-import java.util.Iterator;
-import java.util.List;
-
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -22,8 +19,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolver;
-import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverExtension;
+import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolver2;
 import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverPlugin;
 import org.osgi.framework.Bundle;
 
@@ -32,10 +28,17 @@ import org.osgi.framework.Bundle;
  * @author csalter
  * 
  */
-public class ExtensibleURIResolver implements URIResolver
+public class ExtensibleURIResolver implements URIResolver2
 {
 	private static final boolean logExceptions = false;
 
+	/**
+	 * The file computed for the last base location. The documents that are
+	 * parsed with a resolver usually resolve many references from the same
+	 * base location.
+	 */
+	private volatile ComputedFile lastFile;
+
 	//protected IProject project;
 
 	//TODO... consider ctor that takes a project arg
@@ -54,19 +57,17 @@ public class ExtensibleURIResolver implements URIResolver
 
 		// compute the project that holds the resource
 		//
-    IFile file = computeFile(baseLocation);
-		IProject project =  file != null ? file.getProject() : null;
-
 		URIResolverExtensionRegistry resolverRegistry = URIResolverExtensionRegistry.getIntance();
-		List list = resolverRegistry.getExtensionDescriptors(project);
+    IFile file = getFile(resolverRegistry, baseLocation);
+		IProject project =  file != null ? file.getProject() : null;
 
 		// get the list of applicable pre-normalized resolvers from the
 		// extension registry
 		//
-		for (Iterator i = resolverRegistry.getMatchingURIResolvers(list, URIResolverExtensionRegistry.STAGE_PRENORMALIZATION).iterator(); i.hasNext();)
+		URIResolverExtensionDescriptor[] resolvers = resolverRegistry.getResolverChain(project, URIResolverExtensionRegistry.STAGE_PRENORMALIZATION);
+		for (int i = 0; i < resolvers.length; i++)
 		{
-			URIResolverExtension resolver = (URIResolverExtension) i.next();
-			String tempresult = resolver.resolve(file, baseLocation, publicId, result);
+			String tempresult = resolverRegistry.resolve(resolvers[i], file, baseLocation, publicId, result);
 			if(tempresult != null)
 			{
 			  result = tempresult;
@@ -80,10 +81,10 @@ public class ExtensibleURIResolver implements URIResolver
 		// get the list of applicable post-normalized resolvers from the
 		// extension registry
 		//		
-		for (Iterator i = resolverRegistry.getMatchingURIResolvers(list, URIResolverExtensionRegistry.STAGE_POSTNORMALIZATION).iterator(); i.hasNext();)
+		resolvers = resolverRegistry.getResolverChain(project, URIResolverExtensionRegistry.STAGE_POSTNORMALIZATION);
+		for (int i = 0; i < resolvers.length; i++)
 		{ 
-			URIResolverExtension resolver = (URIResolverExtension) i.next();
-			String tempresult = resolver.resolve(file, baseLocation, publicId, result);
+			String tempresult = resolverRegistry.resolve(resolvers[i], file, baseLocation, publicId, result);
 			if(tempresult != null)
 			{
 			  result = tempresult;
@@ -93,30 +94,68 @@ public class ExtensibleURIResolver implements URIResolver
 		return result;
 	}
     
+	/**
+	 * Resolve the references in one pass. The project is looked up once for
+	 * the base location, and each resolver in the chain is given all of the
+	 * references before the next one runs.
+	 */
+	public String[] resolveAll(String baseLocation, String[] publicIds, String[] systemIds)
+	{
+		String[] results = (String[]) systemIds.clone();
+
+		URIResolverExtensionRegistry resolverRegistry = URIResolverExtensionRegistry.getIntance();
+		IFile file = getFile(resolverRegistry, baseLocation);
+		IProject project = file != null ? file.getProject() : null;
+
+		resolveAll(resolverRegistry, resolverRegistry.getResolverChain(project, URIResolverExtensionRegistry.STAGE_PRENORMALIZATION), file, baseLocation, publicIds, results);
+		for (int i = 0; i < results.length; i++)
+		{
+			results[i] = normalize(baseLocation, results[i]);
+		}
+		resolveAll(resolverRegistry, resolverRegistry.getResolverChain(project, URIResolverExtensionRegistry.STAGE_POSTNORMALIZATION), file, baseLocation, publicIds, results);
+
+		return results;
+	}
+
+	/**
+	 * Run the resolvers in turn, replacing each result with the result of a
+	 * resolver that resolves it, as resolve does for a single reference.
+	 */
+	private static void resolveAll(URIResolverExtensionRegistry resolverRegistry, URIResolverExtensionDescriptor[] resolvers, IFile file, String baseLocation, String[] publicIds, String[] results)
+	{
+		for (int i = 0; i < resolvers.length; i++)
+		{
+			String[] tempresults = resolverRegistry.resolveAll(resolvers[i], file, baseLocation, publicIds, results);
+			for (int j = 0; j < results.length; j++)
+			{
+				if (tempresults[j] != null)
+				{
+					results[j] = tempresults[j];
+				}
+			}
+		}
+	}
+
     public String resolvePhysicalLocation(String baseLocation, String publicId, String logicalLocation)
     {
       String result = logicalLocation;
       URIResolverExtensionRegistry resolverRegistry = URIResolverExtensionRegistry.getIntance();
-      IFile file = computeFile(baseLocation);
+      IFile file = getFile(resolverRegistry, baseLocation);
       
       // compute the project that holds the resource
       //      
       IProject project =  file != null ? file.getProject() : null;            
-      List list = resolverRegistry.getExtensionDescriptors(project);      
-      for (Iterator i = resolverRegistry.getMatchingURIResolvers(list, URIResolverExtensionRegistry.STAGE_PHYSICAL).iterator(); i.hasNext(); )
-      {        
-        // get the list of applicable physical resolvers from the extension registry
-        //
-        while (i.hasNext())
+      // get the list of applicable physical resolvers from the extension registry
+      //
+      URIResolverExtensionDescriptor[] resolvers = resolverRegistry.getResolverChain(project, URIResolverExtensionRegistry.STAGE_PHYSICAL);
+      for (int i = 0; i < resolvers.length; i++)
+      {
+        String tempresult = resolverRegistry.resolve(resolvers[i], file, baseLocation, publicId, result);
+        if(tempresult != null)
         {
-          URIResolverExtension resolver = (URIResolverExtension) i.next();
-          String tempresult = resolver.resolve(file, baseLocation, publicId, result);
-          if(tempresult != null)
-          {
-            result = tempresult;
-          }
+          result = tempresult;
         }
-      }        
+      }
       return result;
     }
     
@@ -128,7 +167,13 @@ public class ExtensibleURIResolver implements URIResolver
 	  if(systemId == null)
 	    return null;
 	  String result = systemId;
-      
+
+	  // An absolute systemId is returned unchanged, so there is no need to
+	  // parse it. The scheme is found the same way URI.createURI finds it,
+	  // a ':' before any of '/', '?' or '#'.
+	  if (hasScheme(systemId))
+	    return result;
+
       // cs : sometimes normalizing the URI will cause an exception to get thrown
       // for example the 'bad' version of the URI below ...
       //
@@ -186,6 +231,41 @@ public class ExtensibleURIResolver implements URIResolver
 	  return result;
 	}
 
+  private static boolean hasScheme(String systemId)
+  {
+    for (int i = 0, length = systemId.length(); i < length; i++)
+    {
+      switch (systemId.charAt(i))
+      {
+        case ':':
+          return true;
+        case '/':
+        case '?':
+        case '#':
+          return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Return the file for the base location, reusing the file computed for the
+   * previous call if the base location is the same and the workspace hasn't
+   * changed since.
+   */
+  private IFile getFile(URIResolverExtensionRegistry resolverRegistry, String baseLocation)
+  {
+    int version = resolverRegistry.getWorkspaceVersion();
+    ComputedFile last = lastFile;
+    if (last != null && last.version == version && baseLocation != null && baseLocation.equals(last.baseLocation))
+    {
+      return last.file;
+    }
+    IFile file = computeFile(baseLocation);
+    lastFile = new ComputedFile(baseLocation, file, version);
+    return file;
+  }
+
   protected IFile computeFile(String baseLocation)
   {
     IFile file = null;
@@ -201,4 +281,21 @@ public class ExtensibleURIResolver implements URIResolver
     }
     return file;    
   }
+
+  /**
+   * A base location, its file and the workspace version it was computed in.
+   */
+  private static final class ComputedFile
+  {
+    final String baseLocation;
+    final IFile file;
+    final int version;
+
+    ComputedFile(String baseLocation, IFile file, int version)
+    {
+      this.baseLocation = baseLocation;
+      this.file = file;
+      this.version = version;
+    }
+  }
 }
@@ -42,6 +42,8 @@ public class URIResolverExtensionDescriptor
 
 	protected boolean error;
 
+	protected boolean cacheable;
+
 	/**
 	 * Constructor.
 	 * 
@@ -63,6 +65,34 @@ public class URIResolverExtensionDescriptor
 		this.priority = priority;
 	}
 
+	/**
+	 * Constructor.
+	 * 
+	 * @param className The extension URI resolver class name.
+	 * @param pluginId The ID of the plugin that contains the extension URI resolver class.
+	 * @param projectNatureIds The project nature IDs for which the resolver should run.
+	 * @param resourceType The type of resource for which the resolver should run.
+	 * @param stage The stage of the resolver. Either prenormalization or postnormalization.
+	 * @param priority The resolver's priority. high, medium, or low.
+	 * @param cacheable True if the resolver's results only depend on its arguments and can be cached.
+	 */
+	public URIResolverExtensionDescriptor(String className, String pluginId,
+			List projectNatureIds, String resourceType, int stage, String priority, boolean cacheable)
+	{
+		this(className, pluginId, projectNatureIds, resourceType, stage, priority);
+		this.cacheable = cacheable;
+	}
+
+	/**
+	 * Determines if the results of the resolver can be cached.
+	 * 
+	 * @return True if the resolver's results only depend on its arguments, false otherwise.
+	 */
+	public boolean isCacheable()
+	{
+		return cacheable;
+	}
+
 	/**
 	 * Get the extension URI resolver.
 	 * 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2005 IBM Corporation and others.
+ * Copyright (c) 2004, 2026 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v2.0
  * which accompanies this distribution, and is available at
@@ -13,15 +13,35 @@ package org.eclipse.wst.common.uriresolver.internal;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverExtension;
+import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverExtension2;
 
 /**
  * The URI resolver extension registry contains information about
  * all of the extension URI resolvers.
+ * <p>
+ * The resolvers that run for a project only depend on the project's natures,
+ * so the registry keeps the resolver chain for each stage and set of natures,
+ * and only computes them again when a project's natures or the registry
+ * change. The results of resolvers that are declared as cacheable are kept
+ * in a bounded memo.
+ * </p>
  */
 public class URIResolverExtensionRegistry
 {
@@ -29,6 +49,62 @@ public class URIResolverExtensionRegistry
 	
 	protected List resolverList = new ArrayList();
 
+	/**
+	 * The maximum number of results kept in the memo.
+	 */
+	private static final int MEMO_SIZE = 1000;
+
+	/**
+	 * The key of the resolver chains for resources that are not in a project.
+	 */
+	private static final Object NO_PROJECT = new Object();
+
+	/**
+	 * Stands for a null result in the memo.
+	 */
+	private static final Object NO_RESULT = new Object();
+
+	/**
+	 * The natures in the registry that each project has, keyed by project.
+	 */
+	private final Map projectNatures = new ConcurrentHashMap();
+
+	/**
+	 * The resolver chains, keyed by a set of project natures or NO_PROJECT.
+	 * The value is an array of chains indexed by stage.
+	 */
+	private final Map chains = new ConcurrentHashMap();
+
+	/**
+	 * Incremented whenever the registry changes, so that chains computed
+	 * from the previous registry are not kept.
+	 */
+	private volatile int registryVersion;
+
+	/**
+	 * Incremented whenever a resource changes, so that information derived
+	 * from the workspace, like the file for a location, can be reused until then.
+	 */
+	private volatile int workspaceVersion;
+
+	/**
+	 * The results of cacheable resolvers, least recently used first.
+	 */
+	private final Map memo = new LinkedHashMap(16, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry eldest)
+		{
+			return size() > MEMO_SIZE;
+		}
+	};
+
+	private final AtomicLong chainHits = new AtomicLong();
+	private final AtomicLong chainMisses = new AtomicLong();
+	private final AtomicLong memoHits = new AtomicLong();
+	private final AtomicLong memoMisses = new AtomicLong();
+
 	public static final int STAGE_PRENORMALIZATION = 1;
 
 	public static final int STAGE_POSTNORMALIZATION = 2;
@@ -60,6 +136,14 @@ public class URIResolverExtensionRegistry
 		{
 			instance = new URIResolverExtensionRegistry();
 			new URIResolverExtensionRegistryReader(instance).readRegistry();
+			try
+			{
+				ResourcesPlugin.getWorkspace().addResourceChangeListener(instance.new ProjectListener(), IResourceChangeEvent.POST_CHANGE);
+			}
+			catch (IllegalStateException e)
+			{
+				// There is no workspace, so resources never change.
+			}
 		}
 		return instance;
 	}
@@ -76,6 +160,23 @@ public class URIResolverExtensionRegistry
 	 */
 	public void put(String className, String pluginId, List projectNatureIds,
 			String resourceType, int stage, String priority)
+	{
+		put(className, pluginId, projectNatureIds, resourceType, stage, priority, false);
+	}
+
+	/**
+	 * Add an extension resolver to the registry.
+	 * 
+	 * @param className The name of the extension URI resolver class.
+	 * @param pluginId The ID of the plugin that contains the extension URI resolver class.
+	 * @param projectNatureIds A list of project natures IDs for which the resolver should run.
+	 * @param resourceType The type of resoure for which an extension resource should run.
+	 * @param stage The stage to run. Either prenormalization or postnormalization.
+	 * @param priority The priority of the resolver. Valid values are high, medium, and low.
+	 * @param cacheable True if the resolver's results only depend on its arguments and can be cached.
+	 */
+	public synchronized void put(String className, String pluginId, List projectNatureIds,
+			String resourceType, int stage, String priority, boolean cacheable)
 	{
 		if (projectNatureIds == null)
 			projectNatureIds = new ArrayList();
@@ -84,7 +185,7 @@ public class URIResolverExtensionRegistry
 			projectNatureIds.add(NULL_PROJECT_NATURE_ID);
 		}
 		URIResolverExtensionDescriptor info = new URIResolverExtensionDescriptor(
-				className, pluginId, projectNatureIds, resourceType, stage, priority);
+				className, pluginId, projectNatureIds, resourceType, stage, priority, cacheable);
 
 		resolverList.add(info);
 		
@@ -105,6 +206,10 @@ public class URIResolverExtensionRegistry
 			List list = (List) priorityMap.get(priority);
 			list.add(info);
 		}
+		registryVersion++;
+		projectNatures.clear();
+		chains.clear();
+		clearMemo();
 	}
 
 	/**
@@ -172,4 +277,355 @@ public class URIResolverExtensionRegistry
 		}
 		return result;
 	}
+
+	/**
+	 * Return the resolvers that run for the project in the stage, in the order
+	 * they should run. The array is shared and must not be modified.
+	 * 
+	 * @param project The project for which you are requesting resolvers, or null.
+	 * @param stage The stage requested.
+	 * @return The descriptors of the resolvers, whose resolvers have been created.
+	 */
+	public URIResolverExtensionDescriptor[] getResolverChain(IProject project, int stage)
+	{
+		Object key = project != null ? getProjectNatures(project) : NO_PROJECT;
+		URIResolverExtensionDescriptor[][] stages = (URIResolverExtensionDescriptor[][]) chains.get(key);
+		if (stages != null)
+		{
+			chainHits.incrementAndGet();
+			return stages[stage];
+		}
+		chainMisses.incrementAndGet();
+		int version = registryVersion;
+		List list = getExtensionDescriptors(project);
+		stages = new URIResolverExtensionDescriptor[STAGE_PHYSICAL + 1][];
+		for (int i = STAGE_PRENORMALIZATION; i <= STAGE_PHYSICAL; i++)
+		{
+			List descriptors = new ArrayList();
+			for (Iterator j = list.iterator(); j.hasNext();)
+			{
+				URIResolverExtensionDescriptor info = (URIResolverExtensionDescriptor) j.next();
+				if (info.stage == i && info.getResolver() != null)
+				{
+					descriptors.add(info);
+				}
+			}
+			stages[i] = (URIResolverExtensionDescriptor[]) descriptors.toArray(new URIResolverExtensionDescriptor[descriptors.size()]);
+		}
+		if (version == registryVersion)
+		{
+			chains.put(key, stages);
+		}
+		return stages[stage];
+	}
+
+	/**
+	 * Return the natures in the registry that the project has. Projects
+	 * with the same natures share the same resolver chains.
+	 */
+	private Set getProjectNatures(IProject project)
+	{
+		Set natures = (Set) projectNatures.get(project);
+		if (natures == null)
+		{
+			int version = registryVersion;
+			natures = new HashSet();
+			for (Iterator i = map.keySet().iterator(); i.hasNext();)
+			{
+				String key = (String) i.next();
+				try
+				{
+					if (key == NULL_PROJECT_NATURE_ID || project.hasNature(key))
+					{
+						natures.add(key);
+					}
+				} catch (CoreException e)
+				{
+				}
+			}
+			if (version == registryVersion)
+			{
+				projectNatures.put(project, natures);
+			}
+		}
+		return natures;
+	}
+
+	/**
+	 * Call the resolver of the descriptor. If the resolver is cacheable its
+	 * result is kept, and it isn't called again with the same arguments.
+	 * 
+	 * @param info The descriptor of the resolver.
+	 * @param file The in-workspace base resource, if one exists.
+	 * @param baseLocation The location of the resource that contains the uri.
+	 * @param publicId An optional public identifier, or null if none.
+	 * @param systemId An absolute or relative URI, or null if none.
+	 * @return The result of the resolver.
+	 */
+	public String resolve(URIResolverExtensionDescriptor info, IFile file, String baseLocation, String publicId, String systemId)
+	{
+		if (!info.isCacheable())
+		{
+			return info.getResolver().resolve(file, baseLocation, publicId, systemId);
+		}
+		MemoKey key = new MemoKey(info, baseLocation, publicId, systemId);
+		Object result;
+		synchronized (memo)
+		{
+			result = memo.get(key);
+		}
+		if (result != null)
+		{
+			memoHits.incrementAndGet();
+			return result == NO_RESULT ? null : (String) result;
+		}
+		memoMisses.incrementAndGet();
+		String resolved = info.getResolver().resolve(file, baseLocation, publicId, systemId);
+		synchronized (memo)
+		{
+			memo.put(key, resolved != null ? (Object) resolved : NO_RESULT);
+		}
+		return resolved;
+	}
+
+	/**
+	 * Call the resolver of the descriptor for each of the references. A
+	 * resolver that implements URIResolverExtension2 is called once with all
+	 * the references, any other resolver is called for each of them. If the
+	 * resolver is cacheable, only the references without a kept result are
+	 * passed to it.
+	 * 
+	 * @param info The descriptor of the resolver.
+	 * @param file The in-workspace base resource, if one exists.
+	 * @param baseLocation The location of the resource that contains the uris.
+	 * @param publicIds The optional public identifiers.
+	 * @param systemIds The absolute or relative URIs.
+	 * @return The result of the resolver for each reference.
+	 */
+	public String[] resolveAll(URIResolverExtensionDescriptor info, IFile file, String baseLocation, String[] publicIds, String[] systemIds)
+	{
+		int count = systemIds.length;
+		String[] results = new String[count];
+		int[] misses = new int[count];
+		int missCount = 0;
+		MemoKey[] keys = null;
+		if (info.isCacheable())
+		{
+			keys = new MemoKey[count];
+			for (int i = 0; i < count; i++)
+			{
+				keys[i] = new MemoKey(info, baseLocation, publicIds[i], systemIds[i]);
+			}
+			synchronized (memo)
+			{
+				for (int i = 0; i < count; i++)
+				{
+					Object result = memo.get(keys[i]);
+					if (result == null)
+					{
+						misses[missCount++] = i;
+					}
+					else if (result != NO_RESULT)
+					{
+						results[i] = (String) result;
+					}
+				}
+			}
+			memoHits.addAndGet(count - missCount);
+			memoMisses.addAndGet(missCount);
+		}
+		else
+		{
+			for (int i = 0; i < count; i++)
+			{
+				misses[i] = i;
+			}
+			missCount = count;
+		}
+		if (missCount == 0)
+		{
+			return results;
+		}
+
+		URIResolverExtension resolver = info.getResolver();
+		if (resolver instanceof URIResolverExtension2)
+		{
+			String[] missPublicIds = publicIds;
+			String[] missSystemIds = systemIds;
+			if (missCount < count)
+			{
+				missPublicIds = new String[missCount];
+				missSystemIds = new String[missCount];
+				for (int j = 0; j < missCount; j++)
+				{
+					missPublicIds[j] = publicIds[misses[j]];
+					missSystemIds[j] = systemIds[misses[j]];
+				}
+			}
+			String[] resolved = ((URIResolverExtension2) resolver).resolveAll(file, baseLocation, missPublicIds, missSystemIds);
+			for (int j = 0; j < missCount; j++)
+			{
+				results[misses[j]] = resolved[j];
+			}
+		}
+		else
+		{
+			for (int j = 0; j < missCount; j++)
+			{
+				int i = misses[j];
+				results[i] = resolver.resolve(file, baseLocation, publicIds[i], systemIds[i]);
+			}
+		}
+
+		if (keys != null)
+		{
+			synchronized (memo)
+			{
+				for (int j = 0; j < missCount; j++)
+				{
+					int i = misses[j];
+					memo.put(keys[i], results[i] != null ? (Object) results[i] : NO_RESULT);
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Forget the results of the cacheable resolvers.
+	 */
+	public void clearMemo()
+	{
+		synchronized (memo)
+		{
+			memo.clear();
+		}
+	}
+
+	/**
+	 * Return a number that changes whenever a resource in the workspace changes.
+	 * 
+	 * @return The version of the workspace.
+	 */
+	public int getWorkspaceVersion()
+	{
+		return workspaceVersion;
+	}
+
+	/**
+	 * @return The number of times a resolver chain was reused.
+	 */
+	public long getChainHits()
+	{
+		return chainHits.get();
+	}
+
+	/**
+	 * @return The number of times a resolver chain had to be computed.
+	 */
+	public long getChainMisses()
+	{
+		return chainMisses.get();
+	}
+
+	/**
+	 * @return The number of times the result of a cacheable resolver was reused.
+	 */
+	public long getMemoHits()
+	{
+		return memoHits.get();
+	}
+
+	/**
+	 * @return The number of times a cacheable resolver had to be called.
+	 */
+	public long getMemoMisses()
+	{
+		return memoMisses.get();
+	}
+
+	/**
+	 * Reset the hit and miss counters.
+	 */
+	public void resetStatistics()
+	{
+		chainHits.set(0);
+		chainMisses.set(0);
+		memoHits.set(0);
+		memoMisses.set(0);
+	}
+
+	/**
+	 * Forgets the natures of projects whose natures may have changed. When
+	 * projects are added, removed, opened or closed the files that locations
+	 * map to may change too, so the memo is cleared as well.
+	 */
+	private class ProjectListener implements IResourceChangeListener
+	{
+		public void resourceChanged(IResourceChangeEvent event)
+		{
+			workspaceVersion++;
+			IResourceDelta delta = event.getDelta();
+			if (delta == null)
+				return;
+			IResourceDelta[] projects = delta.getAffectedChildren();
+			for (int i = 0; i < projects.length; i++)
+			{
+				int flags = projects[i].getFlags();
+				if (projects[i].getKind() != IResourceDelta.CHANGED || (flags & IResourceDelta.OPEN) != 0)
+				{
+					projectNatures.remove(projects[i].getResource());
+					clearMemo();
+				}
+				else if ((flags & IResourceDelta.DESCRIPTION) != 0)
+				{
+					projectNatures.remove(projects[i].getResource());
+				}
+			}
+		}
+	}
+
+	/**
+	 * The key of a result in the memo.
+	 */
+	private static final class MemoKey
+	{
+		private final URIResolverExtensionDescriptor info;
+		private final String baseLocation;
+		private final String publicId;
+		private final String systemId;
+		private final int hash;
+
+		MemoKey(URIResolverExtensionDescriptor info, String baseLocation, String publicId, String systemId)
+		{
+			this.info = info;
+			this.baseLocation = baseLocation;
+			this.publicId = publicId;
+			this.systemId = systemId;
+			int h = System.identityHashCode(info);
+			h = 31 * h + (baseLocation != null ? baseLocation.hashCode() : 0);
+			h = 31 * h + (publicId != null ? publicId.hashCode() : 0);
+			h = 31 * h + (systemId != null ? systemId.hashCode() : 0);
+			hash = h;
+		}
+
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof MemoKey))
+				return false;
+			MemoKey other = (MemoKey) obj;
+			return info == other.info && equals(baseLocation, other.baseLocation)
+					&& equals(publicId, other.publicId) && equals(systemId, other.systemId);
+		}
+
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		private static boolean equals(String a, String b)
+		{
+			return a != null ? a.equals(b) : b == null;
+		}
+	}
 }
@@ -54,6 +54,8 @@ public class URIResolverExtensionRegistryReader
 
 	protected static final String ATT_PRIORITY = "priority";
 
+	protected static final String ATT_CACHEABLE = "cacheable";
+
 	protected URIResolverExtensionRegistry registry;
 
 	public URIResolverExtensionRegistryReader(URIResolverExtensionRegistry registry)
@@ -104,6 +106,7 @@ public class URIResolverExtensionRegistryReader
 			{
 				priority = URIResolverExtensionRegistry.PRIORITY_MEDIUM;
 			}
+			boolean cacheable = Boolean.valueOf(element.getAttribute(ATT_CACHEABLE)).booleanValue();
 			List projectNatureIds = new ArrayList();
 			IConfigurationElement[] ids = element.getChildren(ELEM_PROJECT_NATURE_ID);
 			int numids = ids.length;
@@ -131,7 +134,7 @@ public class URIResolverExtensionRegistryReader
 						stageint = URIResolverExtensionRegistry.STAGE_PHYSICAL;
 					}
 					registry.put(className, pluginId, projectNatureIds, resourceType,
-							stageint, priority);
+							stageint, priority, cacheable);
 				} catch (Exception e)
 				{
 					Bundle bundle = URIResolverPlugin.getInstance().getBundle();
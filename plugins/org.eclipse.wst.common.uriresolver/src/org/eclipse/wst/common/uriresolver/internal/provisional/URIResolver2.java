@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.internal.provisional;
+
+/**
+ * A URIResolver that can resolve all the references of a resource in one call,
+ * for example all the imports and includes of a schema. The work that only
+ * depends on the base location is done once, and resolver extensions that
+ * implement URIResolverExtension2 see all the references at the same time.
+ */
+public interface URIResolver2 extends URIResolver {
+
+	/**
+	 * Resolve the references of a resource. The result is the same as calling
+	 * resolve(baseLocation, publicIds[i], systemIds[i]) for each reference.
+	 * 
+	 * @param baseLocation - the location of the resource that contains the uris
+	 * @param publicIds - the optional public identifiers, with a null element for a reference without one
+	 * @param systemIds - the absolute or relative URIs, with a null element for a reference without one;
+	 *            the array has the same length as publicIds
+	 * @return an array with the absolute URI representation of the 'logical' location of each resource
+	 */
+	public String[] resolveAll(String baseLocation, String[] publicIds, String[] systemIds);
+}
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.internal.provisional;
+
+import org.eclipse.core.resources.IFile;
+
+/**
+ * A URIResolverExtension that can resolve many references from the same base
+ * resource in one call, so that it can share lookups between them or fetch
+ * remote resources in parallel. Extensions that only implement
+ * URIResolverExtension are called once for each reference.
+ */
+public interface URIResolverExtension2 extends URIResolverExtension {
+
+	/**
+	 * Resolve the references. The arrays must not be modified.
+	 * 
+	 * @param file the in-workspace base resource, if one exists
+	 * @param baseLocation - the location of the resource that contains the uris
+	 * @param publicIds - the optional public identifiers, with a null element for a reference without one
+	 * @param systemIds - the absolute or relative URIs, with a null element for a reference without one;
+	 *            the array has the same length as publicIds
+	 * 
+	 * @return an array with the same length as systemIds, with an absolute URI or null for
+	 *         each reference that this extension can not resolve
+	 */
+	public String[] resolveAll(IFile file, String baseLocation, String[] publicIds, String[] systemIds);
+}
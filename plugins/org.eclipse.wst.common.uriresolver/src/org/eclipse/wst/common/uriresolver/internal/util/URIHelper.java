@@ -32,6 +32,13 @@ public class URIHelper
   protected static final String FILE_PROTOCOL = "file:";
   protected static final String PLATFORM_RESOURCE_PROTOCOL = "platform:/resource/";
   protected static final String PROTOCOL_PATTERN = ":"; 
+
+  // the protocols that getProtocol answers without allocating a new string
+  //
+  private static final String[] COMMON_PROTOCOLS = {FILE_PROTOCOL, "platform:", "http:", "https:", "jar:", "bundleentry:"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+  private static final String FILE_ROOT = "file:/"; //$NON-NLS-1$
+  private static final String IMPLIED_FILE_PROTOCOL = "file://"; //$NON-NLS-1$
+  private static final String IMPLIED_FILE_PROTOCOL_ROOT = "file:///"; //$NON-NLS-1$
   
   
   public static String ensureURIProtocolFormat(String uri) {
@@ -67,7 +74,7 @@ public class URIHelper
   
   public static String normalize(String uri)
   {                           
-    if (uri != null)
+    if (uri != null && !isNormalized(uri))
     {                      
       String protocol = getProtocol(uri);
       String file = uri;
@@ -97,6 +104,86 @@ public class URIHelper
   }
 
 
+  /**
+   * Answer whether the uri is an absolute "file:/" or "platform:/resource/" uri that
+   * normalize(String) would return unchanged, i.e. it has no authority, query or fragment,
+   * no empty, '.' or '..' segments and no backslashes. The check scans the characters
+   * once and does not allocate, so that the common case of a uri that has already
+   * been normalized doesn't pay for parsing it into a URL and a Path and back again.
+   * A uri that isn't recognized is not necessarily unnormalized.
+   */
+  public static boolean isNormalized(CharSequence uri)
+  {
+    int index;
+    if (startsWith(uri, PLATFORM_RESOURCE_PROTOCOL))
+    {
+      index = PLATFORM_RESOURCE_PROTOCOL.length() - 1;
+    }
+    else if (startsWith(uri, FILE_ROOT))
+    {
+      index = FILE_ROOT.length() - 1;
+    }
+    else
+    {
+      return false;
+    }
+
+    // index is always at a '/' that starts a segment
+    //
+    int length = uri.length();
+    if (index + 1 == length || uri.charAt(index + 1) == '/')
+    {
+      // no path, or an authority
+      return false;
+    }
+    while (index < length)
+    {
+      int start = ++index;
+      while (index < length)
+      {
+        char c = uri.charAt(index);
+        if (c == '/')
+        {
+          break;
+        }
+        if (c == '\\' || c == ':' || c == '?' || c == '#')
+        {
+          return false;
+        }
+        index++;
+      }
+      int segment = index - start;
+      if (segment == 0 && index < length)
+      {
+        return false;
+      }
+      if ((segment == 1 || segment == 2) && uri.charAt(start) == '.' && (segment == 1 || uri.charAt(start + 1) == '.'))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  private static boolean startsWith(CharSequence uri, String prefix)
+  {
+    int length = prefix.length();
+    if (uri.length() < length)
+    {
+      return false;
+    }
+    for (int i = 0; i < length; i++)
+    {
+      if (uri.charAt(i) != prefix.charAt(i))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
   /**
    * a 'null' rootLocation argument will causes uri that begins with a '/' to be treated as a workspace relative resource
    * (i.e. the string "platform:/resource" is prepended and the uri is resolved via the Platform object)
@@ -305,9 +392,7 @@ public class URIHelper
   {  
     if (!hasProtocol(uri))
     {                           
-      String prefix = FILE_PROTOCOL;
-      prefix += uri.startsWith("/") ? "//" : "///";
-      uri = prefix + uri;
+      uri = (uri.startsWith("/") ? IMPLIED_FILE_PROTOCOL : IMPLIED_FILE_PROTOCOL_ROOT).concat(uri);
     }
     return uri;
   }
@@ -322,7 +407,15 @@ public class URIHelper
       int index = uri.indexOf(PROTOCOL_PATTERN);
       if (index > 2) // assume protocol with be length 3 so that the'C' in 'C:/' is not interpreted as a protocol
       {
-        result = uri.substring(0, index + PROTOCOL_PATTERN.length());
+        int length = index + PROTOCOL_PATTERN.length();
+        for (int i = 0; i < COMMON_PROTOCOLS.length; i++)
+        {
+          if (COMMON_PROTOCOLS[i].length() == length && uri.startsWith(COMMON_PROTOCOLS[i]))
+          {
+            return COMMON_PROTOCOLS[i];
+          }
+        }
+        result = uri.substring(0, length);
       }
     }
     return result;
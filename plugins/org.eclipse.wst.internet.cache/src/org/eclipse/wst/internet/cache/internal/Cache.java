@@ -13,35 +13,53 @@ package org.eclipse.wst.internet.cache.internal;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.text.MessageFormat;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.Random;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.wst.common.uriresolver.URIHelper;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 /**
  * The cache holds references to remote resources. The cache can store resources,
@@ -53,17 +71,32 @@ public class Cache
   /**
    * String instances.
    */
-  private static final String URI = "uri"; //$NON-NLS-1$
-  private static final String LOCATION ="location"; //$NON-NLS-1$
-  private static final String ENTRY = "entry"; //$NON-NLS-1$
-  private static final String CACHE = "cache"; //$NON-NLS-1$
-  private static final String LAST_MODIFIED = "lastModified"; //$NON-NLS-1$
-  private static final String EXPIRATION_TIME = "expirationTime"; //$NON-NLS-1$
+  private static final String ETAG_HEADER = "ETag"; //$NON-NLS-1$
+  private static final String IF_NONE_MATCH_HEADER = "If-None-Match"; //$NON-NLS-1$
   private static final String FILE_PROTOCOL = "file:///"; //$NON-NLS-1$
-  private static final String CACHE_FILE = "cache.xml"; //$NON-NLS-1$
   private static final String CACHE_EXTENSION = ".cache"; //$NON-NLS-1$
   private static final String CACHE_PREFIX = "wtpcache"; //$NON-NLS-1$
   private static final String CACHE_SUFFIX = null;
+  private static final String DIGEST_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+  
+  /**
+   * When the cache is over budget entries are evicted until it is within
+   * this percentage of the budget, so that eviction doesn't run on every
+   * new entry.
+   */
+  private static final int EVICTION_TARGET = 90;
+  
+  /**
+   * The maximum delay in milliseconds before a resource that could not be
+   * cached is retried.
+   */
+  private static final long MAX_RETRY_DELAY = 86400000;
+  
+  /**
+   * The maximum number of resources that are remembered as uncached. Once
+   * there are more, the ones that are due to be retried soonest are forgotten.
+   */
+  private static final int MAX_UNCACHED = 1000;
 
 	
   /**
@@ -77,17 +110,57 @@ public class Cache
   private Hashtable cache;
   
   /**
-   * A set of uncached resources. The cache was not able to cache resources
-   * in this list. This list allows quickly skipping over these resources in
-   * future requests. 
+   * The resources the cache was not able to cache, keyed by URI. Requests
+   * for these resources are skipped until they are due to be retried, which
+   * allows quickly skipping over these resources in future requests. This is
+   * bounded so URIs that fail once are eventually forgotten.
+   */
+  private final Map<String, Failure> uncached = new ConcurrentHashMap<String, Failure>();
+  
+  /**
+   * The URIs of expired entries that have been returned to callers and are
+   * waiting to be revalidated by the cache job.
    */
-  private Set uncached;
+  private final Set<String> stale = Collections.synchronizedSet(new HashSet<String>());
   
   /**
    * The location of the cache
    */
   private File cacheLocation = null;
   
+  /**
+   * The fetches that are in progress, keyed by URI. Concurrent requests for
+   * the same URI wait for the fetch that is already in progress instead of
+   * starting their own.
+   */
+  private final ConcurrentMap<String, FutureTask<CacheEntry>> inflight = new ConcurrentHashMap<String, FutureTask<CacheEntry>>();
+  
+  /**
+   * Limits the number of different URIs that are downloaded at the same time.
+   */
+  private final Semaphore downloads;
+  
+  /**
+   * The total size in bytes of the cached files.
+   */
+  private final AtomicLong totalSize = new AtomicLong();
+  
+  /**
+   * The cached files, keyed by name. Entries for different URIs with the same
+   * contents share a file, and the file is deleted once no entry refers to it.
+   */
+  private final Map<String, Blob> blobs = new HashMap<String, Blob>();
+  
+  /**
+   * Only one thread evicts entries at a time.
+   */
+  private final Object evictionLock = new Object();
+  
+  /**
+   * The persistent index of the cache entries.
+   */
+  private final CacheIndex index;
+  
   /**
    * Private constructor.
    */
@@ -95,7 +168,9 @@ public class Cache
   {
 	  this.cacheLocation = cacheLocation.toFile();//Platform.getPluginStateLocation(CachePlugin.getDefault()).toFile();
     cache = new Hashtable();
-    uncached = new HashSet();
+    CachePlugin plugin = CachePlugin.getDefault();
+    index = new CacheIndex(this.cacheLocation);
+    downloads = new Semaphore(plugin == null ? CachePlugin.DEFAULT_MAX_DOWNLOADS : plugin.getMaxConcurrentDownloads(), true);
   }
   
   /**
@@ -116,7 +191,9 @@ public class Cache
   /**
    * Return the local resource for the specified uri. If there is no resource
    * the cache will attempt to download and cache the resource before returning.
-   * If a remote resource cannot be cached this method will return null.
+   * If a remote resource cannot be cached this method will return null. When
+   * the cache is offline the network is never used, and a cached resource is
+   * returned even if it has expired.
    * 
    * @param uri The URI for which a resource is requested.
    * @return The local resource for the specified URI or null if a remote resource cannot be cached.
@@ -131,23 +208,159 @@ public class Cache
 	  if(result == null)
 	  {
       
-        if(!uncached.contains(uri))
+        if(!isOffline() && !isBackingOff(uri))
 	    {
-          result = cacheResource(uri); 
+          result = fetch(uri, null); 
         }
 	  }
-	  // Retreive a fresh copy of the result if it has timed out.
-	  else if(result.hasExpired())
+	  // Retreive a fresh copy of the result if it has timed out. When offline
+	  // the result is returned however old it is.
+	  else if(result.hasExpired() && !isOffline())
 	  {
-		result = refreshCacheEntry(result);
+		if(CachePlugin.getDefault().isStaleWhileRevalidate())
+		{
+		  // Return the stale copy straight away and revalidate it in the background.
+		  addStaleURI(uri);
+		}
+		else
+		{
+		  result = fetch(uri, result);
+		}
 	  }
 	  if(result == null || result.getLocalFile() == null)
 	  {
 		return null;
 	  }
+	  result.accessed();
+	  index.touch(result);
 	  return FILE_PROTOCOL + cacheLocation.toString() + IPath.SEPARATOR + result.getLocalFile();
   }
 
+  /**
+   * Get the local resources for the URIs. The resources that aren't cached yet
+   * are downloaded at the same time, as for prefetch, instead of one after
+   * the other.
+   * 
+   * @param uris The URIs for which resources are requested. An element may be null.
+   * @return The local resource for each URI, or null for a remote resource that cannot be cached.
+   */
+  public String[] getResources(String[] uris)
+  {
+	if(!isOffline())
+	{
+	  List<String> missing = new ArrayList<String>();
+	  for(int i = 0; i < uris.length; i++)
+	  {
+		String uri = uris[i];
+		if(uri != null && cache.get(uri) == null && !isBackingOff(uri))
+		{
+		  missing.add(uri);
+		}
+	  }
+	  if(missing.size() > 1)
+	  {
+		prefetch(missing);
+	  }
+	}
+	String[] resources = new String[uris.length];
+	for(int i = 0; i < uris.length; i++)
+	{
+	  resources[i] = getResource(uris[i]);
+	}
+	return resources;
+  }
+
+  /**
+   * Fetch the resource, either caching it for the first time or refreshing an
+   * expired entry. If a fetch for the URI is already in progress, wait for it
+   * rather than starting another one.
+   * 
+   * @param uri The remote URI.
+   * @param expired The expired cache entry, or null if the URI isn't cached.
+   * @return The cache entry, or the expired entry if the resource could not be
+   *         retrieved within the download timeout.
+   */
+  private CacheEntry fetch(final String uri, final CacheEntry expired)
+  {
+	if(isOffline())
+	{
+	  return expired;
+	}
+	FutureTask<CacheEntry> task = new FutureTask<CacheEntry>(new Callable<CacheEntry>()
+	{
+	  public CacheEntry call() throws Exception
+	  {
+		return download(uri, expired);
+	  }
+	});
+	FutureTask<CacheEntry> existing = inflight.putIfAbsent(uri, task);
+	if(existing == null)
+	{
+	  // This thread does the fetch, any other requests for the URI wait for it.
+	  try
+	  {
+		task.run();
+	  }
+	  finally
+	  {
+		inflight.remove(uri, task);
+	  }
+	  existing = task;
+	}
+	try
+	{
+	  return existing.get(getDownloadTimeout(), TimeUnit.MILLISECONDS);
+	}
+	catch(TimeoutException e)
+	{
+	  // The fetch carries on, and the entry will be available to later requests.
+	  return expired;
+	}
+	catch(InterruptedException e)
+	{
+	  Thread.currentThread().interrupt();
+	  return expired;
+	}
+	catch(ExecutionException e)
+	{
+	  return expired;
+	}
+  }
+  
+  /**
+   * Download the resource, waiting for a free download slot.
+   * 
+   * @param uri The remote URI.
+   * @param expired The expired cache entry, or null if the URI isn't cached.
+   * @return The cache entry, or the expired entry if the resource could not be
+   *         retrieved.
+   */
+  private CacheEntry download(String uri, CacheEntry expired) throws InterruptedException
+  {
+	// Another fetch may have completed between the check and this fetch starting.
+	CacheEntry current = (CacheEntry)cache.get(uri);
+	if(current != null && !current.hasExpired())
+	{
+	  return current;
+	}
+	if(!downloads.tryAcquire(getDownloadTimeout(), TimeUnit.MILLISECONDS))
+	{
+	  return expired;
+	}
+	try
+	{
+	  if(expired == null)
+	  {
+		return cacheResource(uri);
+	  }
+	  return refreshCacheEntry(expired);
+	}
+	finally
+	{
+	  downloads.release();
+	}
+  }
+
   /**
    * Return the preferred timeout in milliseconds
    * @return
@@ -156,6 +369,54 @@ public class Cache
   {
     return CachePlugin.getDefault().getCacheTimeout() * 60000;
   }
+  
+  /**
+   * Describe why the resource could not be read from the connection.
+   */
+  private static String getFailureReason(URLConnection conn)
+  {
+	if(conn instanceof HttpURLConnection)
+	{
+	  try
+	  {
+		HttpURLConnection httpConn = (HttpURLConnection)conn;
+		return httpConn.getResponseCode() + " " + httpConn.getResponseMessage(); //$NON-NLS-1$
+	  }
+	  catch(IOException e)
+	  {
+		return e.toString();
+	  }
+	}
+	return CacheMessages._LOG_REASON_NO_CONTENT;
+  }
+  
+  /**
+   * Return true if the cache must not use the network.
+   */
+  private static boolean isOffline()
+  {
+	CachePlugin plugin = CachePlugin.getDefault();
+	return plugin != null && plugin.isOffline();
+  }
+  
+  /**
+   * Return how long a resource that could not be cached is remembered before
+   * it is retried for the first time, in milliseconds.
+   */
+  private static long getNegativeCacheTimeout()
+  {
+	CachePlugin plugin = CachePlugin.getDefault();
+	return (plugin == null ? CachePlugin.DEFAULT_NEGATIVE_CACHE_TIMEOUT : plugin.getNegativeCacheTimeout()) * 1000L;
+  }
+  
+  /**
+   * Return how long to wait for a download, in milliseconds.
+   */
+  private static int getDownloadTimeout()
+  {
+	CachePlugin plugin = CachePlugin.getDefault();
+	return (plugin == null ? CachePlugin.DEFAULT_DOWNLOAD_TIMEOUT : plugin.getDownloadTimeout()) * 1000;
+  }
 
   /**
    * Get the list of uncached resources.
@@ -164,7 +425,48 @@ public class Cache
    */
   protected String[] getUncachedURIs()
   {
-    return (String[])uncached.toArray(new String[uncached.size()]);
+    return (String[])uncached.keySet().toArray(new String[0]);
+  }
+  
+  /**
+   * Get the uncached resources that are due to be retried.
+   * 
+   * @return The uncached resources that are due to be retried.
+   */
+  protected String[] getRetryURIs()
+  {
+	long now = System.currentTimeMillis();
+	List<String> uris = new ArrayList<String>();
+	Iterator<Map.Entry<String, Failure>> iter = uncached.entrySet().iterator();
+	while(iter.hasNext())
+	{
+	  Map.Entry<String, Failure> entry = iter.next();
+	  if(entry.getValue().retryTime <= now)
+	  {
+		uris.add(entry.getKey());
+	  }
+	}
+	return (String[])uris.toArray(new String[uris.size()]);
+  }
+  
+  /**
+   * Get the time until the next uncached resource is due to be retried.
+   * 
+   * @return The delay in milliseconds, or -1 if there are no uncached resources.
+   */
+  protected long getRetryDelay()
+  {
+	long next = Long.MAX_VALUE;
+	Iterator<Failure> iter = uncached.values().iterator();
+	while(iter.hasNext())
+	{
+	  next = Math.min(next, iter.next().retryTime);
+	}
+	if(next == Long.MAX_VALUE)
+	{
+	  return -1;
+	}
+	return Math.max(0, next - System.currentTimeMillis());
   }
   
   /**
@@ -176,13 +478,278 @@ public class Cache
   }
   
   /**
-   * Add an uncached resource to the list and start the 
-   * uncached job if not already started.
+   * Get the reason the resource could not be cached.
+   * 
+   * @param uri The remote URI.
+   * @return The reason the resource could not be cached, or null if the
+   *         resource is not in the list of uncached resources.
+   */
+  public String getUncachedReason(String uri)
+  {
+	Failure failure = uri == null ? null : uncached.get(uri);
+	return failure == null ? null : failure.reason;
+  }
+  
+  /**
+   * Add an uncached resource to the list and schedule the cache job to retry
+   * it. The resource is first retried after the negative cache timeout, and
+   * each time the resource cannot be cached the delay before it is retried
+   * doubles.
+   * 
+   * @param uri The remote URI.
+   * @param reason The reason the resource could not be cached.
    */
-  protected void addUncachedURI(String uri)
+  protected void addUncachedURI(String uri, String reason)
   {
+	Failure previous = uncached.get(uri);
+	int attempts = previous == null ? 1 : previous.attempts + 1;
+	long delay = getNegativeCacheTimeout() << Math.min(attempts - 1, 20);
+	uncached.put(uri, new Failure(attempts, System.currentTimeMillis() + Math.min(delay, MAX_RETRY_DELAY), reason));
+	if(uncached.size() > MAX_UNCACHED)
+	{
+	  forgetUncachedURI();
+	}
 	CacheJob.startJob();
-    uncached.add(uri);
+  }
+  
+  /**
+   * Forget the uncached resource that is due to be retried soonest, so that
+   * the list of uncached resources doesn't grow without bound.
+   */
+  private void forgetUncachedURI()
+  {
+	String first = null;
+	long retryTime = Long.MAX_VALUE;
+	Iterator<Map.Entry<String, Failure>> iter = uncached.entrySet().iterator();
+	while(iter.hasNext())
+	{
+	  Map.Entry<String, Failure> entry = iter.next();
+	  if(entry.getValue().retryTime < retryTime)
+	  {
+		first = entry.getKey();
+		retryTime = entry.getValue().retryTime;
+	  }
+	}
+	if(first != null)
+	{
+	  uncached.remove(first);
+	}
+  }
+  
+  /**
+   * Determine if the resource could not be cached and is not yet due to be retried.
+   */
+  private boolean isBackingOff(String uri)
+  {
+	Failure failure = uncached.get(uri);
+	return failure != null && failure.retryTime > System.currentTimeMillis();
+  }
+  
+  /**
+   * Add the URI of an expired entry to the list of entries to revalidate and
+   * start the cache job.
+   */
+  protected void addStaleURI(String uri)
+  {
+	stale.add(uri);
+	CacheJob.startRefresh();
+  }
+  
+  /**
+   * Get and clear the list of entries to revalidate.
+   * 
+   * @return The URIs of the entries to revalidate.
+   */
+  protected String[] takeStaleURIs()
+  {
+	synchronized(stale)
+	{
+	  String[] uris = (String[])stale.toArray(new String[stale.size()]);
+	  stale.clear();
+	  return uris;
+	}
+  }
+  
+  /**
+   * Revalidate the entry for the URI if it has expired. If a fetch for the URI
+   * is already in progress this waits for it instead.
+   * 
+   * @param uri The URI of the entry to revalidate.
+   */
+  protected void revalidate(String uri)
+  {
+	CacheEntry entry = (CacheEntry)cache.get(uri);
+	if(entry != null && entry.hasExpired())
+	{
+	  fetch(uri, entry);
+	}
+  }
+  
+  /**
+   * Cache the resources, downloading as many of them at the same time as the
+   * number of concurrent downloads allows. Resources that are cached and have
+   * not expired are skipped. Resources that cannot be cached are retried later,
+   * as for any other request.
+   * 
+   * @param uris The URIs of the resources to cache.
+   * @return A status with a warning for each resource that could not be cached.
+   */
+  public IStatus prefetch(Collection<String> uris)
+  {
+	return prefetch(uris, null);
+  }
+  
+  /**
+   * Cache the resources, downloading as many of them at the same time as the
+   * number of concurrent downloads allows. Resources that are cached and have
+   * not expired are skipped. Resources that cannot be cached are retried later,
+   * as for any other request.
+   * 
+   * @param uris The URIs of the resources to cache.
+   * @param monitor The progress monitor, or null.
+   * @return A status with a warning for each resource that could not be cached,
+   *         or a cancel status if the monitor was canceled.
+   */
+  public IStatus prefetch(Collection<String> uris, IProgressMonitor monitor)
+  {
+	if(monitor == null)
+	{
+	  monitor = new NullProgressMonitor();
+	}
+	Set<String> pending = new LinkedHashSet<String>();
+	Iterator<String> iter = uris.iterator();
+	while(iter.hasNext())
+	{
+	  String uri = iter.next();
+	  CacheEntry entry = getCacheEntry(uri);
+	  if(uri != null && (entry == null || entry.hasExpired()))
+	  {
+		pending.add(uri);
+	  }
+	}
+	MultiStatus status = new MultiStatus(CachePlugin.PLUGIN_ID, IStatus.OK, CacheMessages._LOG_PREFETCH_FAILED, null);
+	monitor.beginTask(CacheMessages._UI_CACHE_MONITOR_NAME, pending.size());
+	if(pending.isEmpty())
+	{
+	  monitor.done();
+	  return status;
+	}
+	CachePlugin plugin = CachePlugin.getDefault();
+	int threads = Math.min(pending.size(), plugin == null ? CachePlugin.DEFAULT_MAX_DOWNLOADS : plugin.getMaxConcurrentDownloads());
+	ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1), new ThreadFactory()
+	{
+	  public Thread newThread(Runnable runnable)
+	  {
+		Thread thread = new Thread(runnable, CacheMessages._UI_CACHE_MONITOR_NAME);
+		thread.setDaemon(true);
+		return thread;
+	  }
+	});
+	try
+	{
+	  CompletionService<String> completion = new ExecutorCompletionService<String>(executor);
+	  final Map<String, String> failed = new ConcurrentHashMap<String, String>();
+	  iter = pending.iterator();
+	  while(iter.hasNext())
+	  {
+		final String uri = iter.next();
+		completion.submit(new Callable<String>()
+		{
+		  public String call()
+		  {
+			String reason = prefetch(uri);
+			if(reason != null)
+			{
+			  failed.put(uri, reason);
+			}
+			return uri;
+		  }
+		});
+	  }
+	  for(int i = 0; i < pending.size(); i++)
+	  {
+		Future<String> done = null;
+		while(done == null)
+		{
+		  if(monitor.isCanceled())
+		  {
+			return Status.CANCEL_STATUS;
+		  }
+		  done = completion.poll(100, TimeUnit.MILLISECONDS);
+		}
+		String uri = done.get();
+		String reason = failed.get(uri);
+		if(reason != null)
+		{
+		  status.add(new Status(IStatus.WARNING, CachePlugin.PLUGIN_ID, MessageFormat.format(CacheMessages._LOG_RESOURCE_NOT_CACHED, new Object[]{uri, reason})));
+		}
+		monitor.subTask(MessageFormat.format(CacheMessages._UI_CACHE_MONITOR_CACHING, new Object[]{uri}));
+		monitor.worked(1);
+	  }
+	  return status;
+	}
+	catch(InterruptedException e)
+	{
+	  Thread.currentThread().interrupt();
+	  return Status.CANCEL_STATUS;
+	}
+	catch(ExecutionException e)
+	{
+	  // The tasks don't throw exceptions.
+	  return status;
+	}
+	finally
+	{
+	  executor.shutdownNow();
+	  monitor.done();
+	}
+  }
+  
+  /**
+   * Cache the resource if it isn't cached or has expired.
+   * 
+   * @param uri The remote URI.
+   * @return Null if the resource is cached, or the reason it could not be cached.
+   */
+  private String prefetch(String uri)
+  {
+	if(isOffline())
+	{
+	  return CacheMessages._LOG_REASON_OFFLINE;
+	}
+	CacheEntry entry = (CacheEntry)cache.get(uri);
+	if(entry == null)
+	{
+	  entry = fetch(uri, null);
+	}
+	else if(entry.hasExpired())
+	{
+	  entry = fetch(uri, entry);
+	}
+	if(entry != null && entry.getLocalFile() != null)
+	{
+	  return null;
+	}
+	String reason = getUncachedReason(uri);
+	if(reason == null)
+	{
+	  // The download didn't finish in time. Remember the resource so that it
+	  // isn't retried straight away.
+	  reason = CacheMessages._LOG_REASON_TIMED_OUT;
+	  addUncachedURI(uri, reason);
+	}
+	return reason;
+  }
+  
+  /**
+   * Get the cache entry for the URI.
+   * 
+   * @param uri The remote URI.
+   * @return The cache entry or null if the URI isn't cached.
+   */
+  protected CacheEntry getCacheEntry(String uri)
+  {
+	return uri == null ? null : (CacheEntry)cache.get(uri);
   }
   
   /**
@@ -198,60 +765,47 @@ public class Cache
   {
 	  CacheEntry cacheEntry = null;
 	  InputStream is = null;
-	  OutputStream os = null;
+	  String fileName = null;
 	  try
 	  {
+		  int timeout = getDownloadTimeout();
 		  String actualUri = uri;
 		  URL url = new URL(actualUri);
-		  URLConnection conn = url.openConnection();
+		  URLConnection conn = openConnection(url, timeout);
 		  /* XXX: This should really be implemented using HttpClient or similar */
 		  int allowedRedirects = 5;
 		  while(conn.getHeaderField("Location") != null && allowedRedirects > 0) //$NON-NLS-1$
 		  {
 			  allowedRedirects--;
 			  url = new URL(actualUri = conn.getHeaderField("Location")); //$NON-NLS-1$
-			  conn = url.openConnection();
+			  conn = openConnection(url, timeout);
 		  }
 		  // Determine if this resource can be cached.
 		  if(CachePlugin.getDefault().isIgnoreNoCacheHeader() || conn.getUseCaches())
           {
-			is = URIHelper.getInputStream(actualUri, 0);
+			is = URIHelper.getInputStream(actualUri, timeout);
 	    	if (is == null) {
-	    	  uncached.add(uri);
+	    	  addUncachedURI(uri, getFailureReason(conn));
 	    	  return cacheEntry;
 	    	}
-		    Random rand = new Random();
-			String fileName = Math.abs(rand.nextInt()) + CACHE_EXTENSION;
-		    File file = new File(cacheLocation, fileName);
-		    // If the file already exists we need to change the file name.
-		    while(!file.createNewFile())
-		    {
-			  fileName = Math.abs(rand.nextInt()) + CACHE_EXTENSION;
-			  file = new File(cacheLocation,fileName);
-		    }
-		    os = new BufferedOutputStream(new FileOutputStream(file));
-		    byte[] bytes = new byte[1024];
-		    int bytelength;
-		    while((bytelength = is.read(bytes)) != -1)
-		    {
-			  os.write(bytes, 0, bytelength);
-		    }
+		    fileName = storeBlob(is);
 			long lastModified = conn.getLastModified();
-		    long expiration = conn.getExpiration();
-			if(expiration == 0)
-			{
-			  expiration = System.currentTimeMillis() + getTimeout();
-			}
-		    cacheEntry = new CacheEntry(uri, fileName, lastModified, expiration);
-		    cache.put(uri,cacheEntry);
+		    long expiration = getExpiration(conn);
+		    cacheEntry = new CacheEntry(uri, fileName, lastModified, expiration, conn.getHeaderField(ETAG_HEADER));
+		    cacheEntry.setSize(new File(cacheLocation, fileName).length());
+		    addEntry(cacheEntry);
+		    uncached.remove(uri);
+		  }
+		  else
+		  {
+			addUncachedURI(uri, CacheMessages._LOG_REASON_NOT_CACHEABLE);
 		  }
 
 	  }
 	  catch(Exception t)
 	  {
 		  // Put the entry in the uncached list so the resolution work will not be performed again.
-      // TODO: Add in a timeout for the non-located uris.
-      addUncachedURI(uri);
+      addUncachedURI(uri, t.toString());
 	  }
 	  finally
 	  {
@@ -266,15 +820,12 @@ public class Cache
 			    // Do nothing if the stream cannot be closed.
 			  }
 		  }
-		  if(os != null)
+		  // Don't keep a file that no entry refers to.
+		  if(cacheEntry == null && fileName != null)
 		  {
-			  try
+			  synchronized(blobs)
 			  {
-			    os.close();
-			  }
-			  catch(IOException e)
-			  {
-				// Do nothing if the stream cannot be closed. 
+			    releaseReference(fileName);
 			  }
 		  }
 	  }
@@ -282,10 +833,23 @@ public class Cache
   }
   
   /**
-   * Refresh the cache entry if necessary. The cache entry will be refreshed
-   * if the remote resource is accessible and the last modified time of the
-   * remote resource is greater than the last modified time of the cached
-   * resource.
+   * Open a connection to the URL, with the download timeout.
+   */
+  private static URLConnection openConnection(URL url, int timeout) throws IOException
+  {
+	URLConnection conn = url.openConnection();
+	conn.setConnectTimeout(timeout);
+	conn.setReadTimeout(timeout);
+	return conn;
+  }
+  
+  /**
+   * Refresh the cache entry if necessary. For HTTP resources the request is
+   * made conditional on the entity tag and last modified time of the cached
+   * resource, and if the server answers that the resource has not been
+   * modified only the expiration time is updated. For other resources the
+   * cache entry is refreshed if the last modified time of the remote resource
+   * is greater than the last modified time of the cached resource.
    * 
    * @param cacheEntry The cache entry to refresh.
    * @return The refreshed cache entry.
@@ -294,53 +858,64 @@ public class Cache
   {
 	  URLConnection conn = null;
 	  InputStream is = null;
-	  OutputStream os = null;
 	  try
 	  {
 		  URL url = new URL(cacheEntry.getURI());
-		  conn = url.openConnection();
-		  conn.connect();
-		  
-		  long lastModified = conn.getLastModified();
-	      if(lastModified > cacheEntry.getLastModified())
+		  conn = openConnection(url, getDownloadTimeout());
+		  boolean modified;
+		  if(conn instanceof HttpURLConnection)
 		  {
-			long expiration = conn.getExpiration();
-		    if(expiration == 0)
+			String etag = cacheEntry.getETag();
+			if(etag != null)
+			{
+			  conn.setRequestProperty(IF_NONE_MATCH_HEADER, etag);
+			}
+			if(cacheEntry.getLastModified() > 0)
+			{
+			  conn.setIfModifiedSince(cacheEntry.getLastModified());
+			}
+			conn.connect();
+			int status = ((HttpURLConnection)conn).getResponseCode();
+			if(status != HttpURLConnection.HTTP_OK && status != HttpURLConnection.HTTP_NOT_MODIFIED)
 			{
-			  expiration = System.currentTimeMillis() + getTimeout();
+			  // Keep the cached copy until the server can be reached again.
+			  return cacheEntry;
 			}
-			
+			modified = status == HttpURLConnection.HTTP_OK;
+		  }
+		  else
+		  {
+			conn.connect();
+			modified = conn.getLastModified() > cacheEntry.getLastModified();
+		  }
+		  
+		  long expiration = getExpiration(conn);
+	      if(modified)
+		  {
 		    is = conn.getInputStream();
-			
-			String localFile = cacheEntry.getLocalFile();
-  
-		    File tempFile = File.createTempFile(CACHE_PREFIX, CACHE_SUFFIX);
-			tempFile.deleteOnExit();
-
-		    os = new FileOutputStream(tempFile);
-		    byte[] bytes = new byte[1024];
-		    int bytelength;
-		    while((bytelength = is.read(bytes)) != -1)
-		    {
-			  os.write(bytes, 0, bytelength);
-		    }
-			is.close();
-			os.close();
-			deleteFile(cacheEntry.getURI());
-			File f = new File(cacheLocation, localFile);
-			tempFile.renameTo(f);
-			cacheEntry.setExpiration(expiration);
-			cacheEntry.setLastModified(lastModified);
+			replaceBlob(cacheEntry, storeBlob(is));
+			cacheEntry.setLastModified(conn.getLastModified());
+			cacheEntry.setETag(conn.getHeaderField(ETAG_HEADER));
 		  }
-		  // The cache entry hasn't changed. Just update the expiration time.
+		  // The cache entry hasn't changed. Just update the expiration time,
+		  // and the entity tag if the server sent a new one.
 	      else
 		  {
-			long expiration = conn.getExpiration();
-			if(expiration == 0)
+			String etag = conn.getHeaderField(ETAG_HEADER);
+			if(etag != null)
 			{
-			  expiration = System.currentTimeMillis() + getTimeout();
+			  cacheEntry.setETag(etag);
 			}
-			cacheEntry.setExpiration(expiration);
+		  }
+		  cacheEntry.setExpiration(expiration);
+		  if(cache.get(cacheEntry.getURI()) == cacheEntry)
+		  {
+			index.put(cacheEntry);
+			snapshotIfNeeded();
+		  }
+		  if(modified)
+		  {
+			evict(cacheEntry);
 		  }
 
 	  }
@@ -361,21 +936,371 @@ public class Cache
 			    // Do nothing if the stream cannot be closed.
 			  }
 		  }
-		  if(os != null)
+		  if(conn instanceof HttpURLConnection)
 		  {
-			  try
-			  {
-			    os.close();
-			  }
-			  catch(IOException e)
-			  {
-				// Do nothing if the stream cannot be closed. 
-			  }
+			  ((HttpURLConnection)conn).disconnect();
 		  }
 	  }
 	  return cacheEntry;
   }
   
+  /**
+   * Get the expiration time that the server sent for the resource or, if it
+   * didn't send one, the current time plus the preferred timeout.
+   */
+  private static long getExpiration(URLConnection conn)
+  {
+	long expiration = conn.getExpiration();
+	if(expiration == 0)
+	{
+	  expiration = System.currentTimeMillis() + getTimeout();
+	}
+	return expiration;
+  }
+  
+  /**
+   * Add the entry to the cache, replacing any existing entry for its URI,
+   * and evict other entries if the cache is over budget.
+   * 
+   * @param cacheEntry The new cache entry.
+   */
+  private void addEntry(CacheEntry cacheEntry)
+  {
+	synchronized(blobs)
+	{
+	  CacheEntry old = (CacheEntry)cache.put(cacheEntry.getURI(), cacheEntry);
+	  if(old != null)
+	  {
+		releaseReference(old.getLocalFile());
+	  }
+	}
+	index.put(cacheEntry);
+	evict(cacheEntry);
+	snapshotIfNeeded();
+  }
+  
+  /**
+   * Remove the entry from the cache and release its file. Nothing is done if
+   * the entry has already been replaced or removed.
+   * 
+   * @param cacheEntry The cache entry to remove.
+   */
+  private void removeEntry(CacheEntry cacheEntry)
+  {
+	synchronized(blobs)
+	{
+	  if(!cache.remove(cacheEntry.getURI(), cacheEntry))
+	  {
+		return;
+	  }
+	  releaseReference(cacheEntry.getLocalFile());
+	}
+	index.delete(cacheEntry.getURI());
+  }
+  
+  /**
+   * Store the contents of the stream in a file named after the SHA-256 hash
+   * of the contents, and take a reference to the file. If a file with the
+   * same contents is already stored, for example because the same resource
+   * is served from several mirrors, that file is shared instead.
+   * 
+   * @param is The contents to store.
+   * @return The name of the file in the cache location.
+   */
+  private String storeBlob(InputStream is) throws IOException
+  {
+	MessageDigest digest;
+	try
+	{
+	  digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+	}
+	catch(NoSuchAlgorithmException e)
+	{
+	  throw new IOException(e);
+	}
+	File tempFile = File.createTempFile(CACHE_PREFIX, CACHE_SUFFIX, cacheLocation);
+	try
+	{
+	  OutputStream os = new BufferedOutputStream(new FileOutputStream(tempFile));
+	  try
+	  {
+		byte[] bytes = new byte[4096];
+		int bytelength;
+		while((bytelength = is.read(bytes)) != -1)
+		{
+		  os.write(bytes, 0, bytelength);
+		  digest.update(bytes, 0, bytelength);
+		}
+	  }
+	  finally
+	  {
+		os.close();
+	  }
+	  String name = toHex(digest.digest()) + CACHE_EXTENSION;
+	  File file = new File(cacheLocation, name);
+	  synchronized(blobs)
+	  {
+		// A file with this name already has these contents.
+		if(!file.exists() && !tempFile.renameTo(file))
+		{
+		  throw new IOException("Unable to store " + file); //$NON-NLS-1$
+		}
+		addReference(name, file.length());
+	  }
+	  return name;
+	}
+	finally
+	{
+	  // This has already gone if it was renamed.
+	  tempFile.delete();
+	}
+  }
+  
+  /**
+   * Point the entry at a new file, which it already holds a reference to,
+   * and release its reference to the old one.
+   */
+  private void replaceBlob(CacheEntry cacheEntry, String name)
+  {
+	synchronized(blobs)
+	{
+	  String old = cacheEntry.getLocalFile();
+	  cacheEntry.setLocalFile(name);
+	  cacheEntry.setSize(new File(cacheLocation, name).length());
+	  if(cache.get(cacheEntry.getURI()) == cacheEntry)
+	  {
+		releaseReference(old);
+	  }
+	  else
+	  {
+		// The entry was removed while it was being refreshed, and its old
+		// file was released then.
+		releaseReference(name);
+	  }
+	}
+  }
+  
+  /**
+   * Take a reference to a cached file. The caller must hold the blobs lock.
+   */
+  private void addReference(String name, long size)
+  {
+	Blob blob = blobs.get(name);
+	if(blob == null)
+	{
+	  blob = new Blob(size);
+	  blobs.put(name, blob);
+	  totalSize.addAndGet(size);
+	}
+	blob.references++;
+  }
+  
+  /**
+   * Release a reference to a cached file, and delete the file once nothing
+   * refers to it. The caller must hold the blobs lock.
+   */
+  private void releaseReference(String name)
+  {
+	Blob blob = blobs.get(name);
+	if(blob == null || --blob.references > 0)
+	{
+	  return;
+	}
+	blobs.remove(name);
+	totalSize.addAndGet(-blob.size);
+	File file = new File(cacheLocation, name);
+	if(file.exists() && !file.delete())
+	{
+	  System.out.println("Unable to delete file " + file + " from cache.");
+	}
+  }
+  
+  /**
+   * Check that the cached files still have the contents they were stored
+   * with, and remove the entries for any that don't. Only files that are
+   * named after the hash of their contents can be checked.
+   * 
+   * @return The number of entries that were removed.
+   */
+  public int verify()
+  {
+	int removed = 0;
+	Map<String, Boolean> checked = new HashMap<String, Boolean>();
+	for(Iterator it = new ArrayList(cache.values()).iterator(); it.hasNext();)
+	{
+	  CacheEntry cacheEntry = (CacheEntry)it.next();
+	  String name = cacheEntry.getLocalFile();
+	  Boolean valid = checked.get(name);
+	  if(valid == null)
+	  {
+		valid = Boolean.valueOf(isIntact(name));
+		checked.put(name, valid);
+	  }
+	  if(!valid.booleanValue())
+	  {
+		removeEntry(cacheEntry);
+		removed++;
+	  }
+	}
+	return removed;
+  }
+  
+  /**
+   * Answer false if the file is named after a hash that its contents no
+   * longer match, or if it is missing.
+   */
+  private boolean isIntact(String name)
+  {
+	File file = new File(cacheLocation, name);
+	if(!file.isFile())
+	{
+	  return false;
+	}
+	String hash = name.substring(0, name.length() - CACHE_EXTENSION.length());
+	if(!name.endsWith(CACHE_EXTENSION) || hash.length() != 64)
+	{
+	  // Stored by an older version of the cache, under a random name.
+	  return true;
+	}
+	try
+	{
+	  MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+	  InputStream is = new FileInputStream(file);
+	  try
+	  {
+		byte[] bytes = new byte[4096];
+		int bytelength;
+		while((bytelength = is.read(bytes)) != -1)
+		{
+		  digest.update(bytes, 0, bytelength);
+		}
+	  }
+	  finally
+	  {
+		is.close();
+	  }
+	  return hash.equals(toHex(digest.digest()));
+	}
+	catch(Exception e)
+	{
+	  return false;
+	}
+  }
+  
+  private static String toHex(byte[] bytes)
+  {
+	StringBuffer hex = new StringBuffer(bytes.length * 2);
+	for(int i = 0; i < bytes.length; i++)
+	{
+	  hex.append(Character.forDigit((bytes[i] >> 4) & 0xf, 16));
+	  hex.append(Character.forDigit(bytes[i] & 0xf, 16));
+	}
+	return hex.toString();
+  }
+  
+  /**
+   * Fold the index journal into a new snapshot once it has grown large enough.
+   */
+  private void snapshotIfNeeded()
+  {
+	if(index.isSnapshotNeeded())
+	{
+	  index.snapshot(cache);
+	}
+  }
+  
+  /**
+   * Get the total size in bytes of the cached files.
+   * 
+   * @return The total size of the cached files.
+   */
+  protected long getSize()
+  {
+	return totalSize.get();
+  }
+  
+  /**
+   * If the cache is over either its size or its entry budget, evict entries
+   * until it is comfortably within both. Entries whose files have disappeared
+   * are removed first, then the least recently (or least frequently) used
+   * entries according to the eviction policy.
+   * 
+   * @param keep An entry that must not be evicted, normally the one that has
+   *             just been added, or null.
+   */
+  protected void evict(CacheEntry keep)
+  {
+	CachePlugin plugin = CachePlugin.getDefault();
+	if(plugin == null)
+	{
+	  return;
+	}
+	long maxSize = plugin.getMaxCacheSize() * 1024 * 1024;
+	int maxEntries = plugin.getMaxCacheEntries();
+	if(totalSize.get() <= maxSize && cache.size() <= maxEntries)
+	{
+	  return;
+	}
+	synchronized(evictionLock)
+	{
+	  if(totalSize.get() <= maxSize && cache.size() <= maxEntries)
+	  {
+		return;
+	  }
+	  List<CacheEntry> entries = new ArrayList<CacheEntry>(cache.size());
+	  for(Iterator it = new ArrayList(cache.values()).iterator(); it.hasNext();)
+	  {
+		CacheEntry entry = (CacheEntry)it.next();
+		if(new File(cacheLocation, entry.getLocalFile()).exists())
+		{
+		  entries.add(entry);
+		}
+		else
+		{
+		  removeEntry(entry);
+		}
+	  }
+	  Collections.sort(entries, getEvictionOrder(plugin.getEvictionPolicy()));
+	  long targetSize = maxSize / 100 * EVICTION_TARGET;
+	  int targetEntries = maxEntries * EVICTION_TARGET / 100;
+	  for(Iterator<CacheEntry> it = entries.iterator(); it.hasNext();)
+	  {
+		if(totalSize.get() <= targetSize && cache.size() <= targetEntries)
+		{
+		  break;
+		}
+		CacheEntry entry = it.next();
+		if(entry != keep)
+		{
+		  removeEntry(entry);
+		}
+	  }
+	}
+  }
+  
+  /**
+   * Get the order in which entries are evicted, the first entry is evicted first.
+   * 
+   * @param policy The eviction policy.
+   */
+  private static Comparator<CacheEntry> getEvictionOrder(String policy)
+  {
+	final boolean lfu = CachePlugin.EVICTION_LFU.equals(policy);
+	return new Comparator<CacheEntry>()
+	{
+	  public int compare(CacheEntry e1, CacheEntry e2)
+	  {
+		if(lfu && e1.getAccessCount() != e2.getAccessCount())
+		{
+		  return e1.getAccessCount() < e2.getAccessCount() ? -1 : 1;
+		}
+		long a1 = e1.getLastAccessed();
+		long a2 = e2.getLastAccessed();
+		return a1 < a2 ? -1 : a1 == a2 ? 0 : 1;
+	  }
+	};
+  }
+  
   /**
    * Get an array of the cached URIs.
    * 
@@ -388,110 +1313,82 @@ public class Cache
   }
   
   /**
-   * Close the cache. Closing the cache involves serializing the data to an XML file
-   * in the plugin state location.
+   * Close the cache. Closing the cache writes a snapshot of the index to the
+   * plugin state location and closes the index journal.
    */
   protected void close()
   {
-	  DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      try {
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document cachedoc = builder.newDocument();
-		Element rootelem = cachedoc.createElement(CACHE);
-		cachedoc.appendChild(rootelem);
-		
-	  Enumeration uris = cache.keys();
-	  while(uris.hasMoreElements())
-	  {
-		  String key = (String)uris.nextElement();
-		  CacheEntry cacheEntry = (CacheEntry)cache.get(key);
-		  if(cacheEntry != null)
-		  {
-			  Element entry = cachedoc.createElement(ENTRY);
-			  entry.setAttribute(URI, key);
-			  entry.setAttribute(LOCATION, cacheEntry.getLocalFile());
-			  entry.setAttribute(EXPIRATION_TIME, String.valueOf(cacheEntry.getExpirationTime()));
-			  entry.setAttribute(LAST_MODIFIED, String.valueOf(cacheEntry.getLastModified()));
-			  rootelem.appendChild(entry);
-		  }
-	  }
-	  
-	  // Write the cache entry.
-	  TransformerFactory tFactory  = TransformerFactory.newInstance();
-      Transformer transformer = tFactory.newTransformer();
-      Source input = new DOMSource(cachedoc);
-	  IPath stateLocation = Platform.getStateLocation(CachePlugin.getDefault().getBundle());
-      Result output = new StreamResult(stateLocation.toString() + "/" + CACHE_FILE);
-      transformer.transform(input, output);
-
-      }
-      catch(Exception e)
-	  {
-		  System.err.println("Unable to store internet cache."); //$NON-NLS-1$
-	  }
-	  cacheInstance = null;
+	index.snapshot(cache);
+	index.close();
+	cacheInstance = null;
   }
   
   /**
-   * Open the cache. Opening the cache involves parsing the cache XML file in
-   * the plugin state location if it can be read.
+   * Open the cache. Opening the cache involves loading the index from the
+   * plugin state location if it can be read.
    */
   protected static void open(IPath cacheLocation)
   {
     cacheInstance = new Cache(cacheLocation);
-	  DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      try {
-		  
-		IPath stateLocation = cacheLocation;
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document cachedoc = builder.parse(stateLocation.toString() + "/" + CACHE_FILE);
-		Element rootelem = cachedoc.getDocumentElement();
-		NodeList entries = rootelem.getChildNodes();
-		int numEntries = entries.getLength();
-		for(int i = 0; i < numEntries; i++)
+	boolean dropped = false;
+	try
+	{
+	  Collection entries = cacheInstance.index.load();
+	  for(Iterator it = entries.iterator(); it.hasNext();)
+	  {
+		CacheEntry cacheEntry = (CacheEntry)it.next();
+		// Entries whose files have disappeared are dropped.
+		File file = new File(cacheInstance.cacheLocation, cacheEntry.getLocalFile());
+		if(file.isFile())
 		{
-			Node entry = entries.item(i);
-			if(entry instanceof Element)
-			{
-				Element e = (Element)entry;
-				if(e.getNodeName().equals(ENTRY))
-				{
-					String uri = e.getAttribute(URI);
-					String location = e.getAttribute(LOCATION);
-					String lm = e.getAttribute(LAST_MODIFIED);
-					String et = e.getAttribute(EXPIRATION_TIME);
-					long lastModified = -1;
-					long expirationTime = -1;
-					try
-					{
-						lastModified = Long.parseLong(lm);
-					}
-					catch(NumberFormatException nfe)
-					{
-					}
-					try
-					{
-						expirationTime = Long.parseLong(et);
-					}
-					catch(NumberFormatException nfe)
-					{
-					}
-					if(uri != null && location != null)
-					{
-					  cacheInstance.cache.put(uri, new CacheEntry(uri, location, lastModified, expirationTime));
-					}
-				}
-			}
+		  cacheEntry.setSize(file.length());
+		  cacheInstance.cache.put(cacheEntry.getURI(), cacheEntry);
+		  cacheInstance.addReference(cacheEntry.getLocalFile(), cacheEntry.getSize());
+		}
+		else
+		{
+		  dropped = true;
 		}
-      }
-	  catch(FileNotFoundException e)
-	  {
-		// If the file doesn't exist in the correct location there is nothing to load. Do nothing.
 	  }
-	  catch(Exception e)
+	}
+	catch(IOException e)
+	{
+	  System.out.println("Unable to load cache.");
+	  return;
+	}
+	cacheInstance.deleteOrphans();
+	cacheInstance.evict(null);
+	if(dropped || cacheInstance.index.isSnapshotNeeded())
+	{
+	  cacheInstance.index.snapshot(cacheInstance.cache);
+	}
+  }
+  
+  /**
+   * Delete any cache files that don't belong to an entry, for example because
+   * the workbench exited before the cache could be saved.
+   */
+  private void deleteOrphans()
+  {
+	Set locations;
+	synchronized(blobs)
+	{
+	  locations = new HashSet(blobs.keySet());
+	}
+	File[] files = cacheLocation.listFiles();
+	if(files == null)
+	{
+	  return;
+	}
+	for(int i = 0; i < files.length; i++)
+	{
+	  String name = files[i].getName();
+	  // Temporary files are left behind if a refresh was interrupted.
+	  if((name.endsWith(CACHE_EXTENSION) || name.startsWith(CACHE_PREFIX)) && !locations.contains(name))
 	  {
-		  System.out.println("Unable to load cache.");
+		files[i].delete();
 	  }
+	}
   }
   
   /**
@@ -499,14 +1396,16 @@ public class Cache
    */
   public void clear()
   {
-	Enumeration keys = cache.keys();
-	while(keys.hasMoreElements())
+	synchronized(blobs)
 	{
-	  String key = (String)keys.nextElement();
-	  
-	  deleteFile(key);
+	  Enumeration entries = cache.elements();
+	  while(entries.hasMoreElements())
+	  {
+		releaseReference(((CacheEntry)entries.nextElement()).getLocalFile());
+	  }
+	  cache.clear();
 	}
-	cache.clear();
+	index.snapshot(cache);
   }
   
   /**
@@ -517,26 +1416,48 @@ public class Cache
   {
 	  if(uri == null) return;
 	  
-	  deleteFile(uri);
-	  cache.remove(uri);
+	  CacheEntry cacheEntry;
+	  synchronized(blobs)
+	  {
+		cacheEntry = (CacheEntry)cache.remove(uri);
+		if(cacheEntry == null)
+		{
+		  return;
+		}
+		releaseReference(cacheEntry.getLocalFile());
+	  }
+	  index.delete(uri);
   }
   
   /**
-   * Delete the file specified by the URI.
-   * 
-   * @param uri The URI of the file to delete.
+   * The number of failed attempts to cache a resource, when it is due to be
+   * retried and why the last attempt failed.
    */
-  protected void deleteFile(String uri)
+  private static class Failure
   {
-	  CacheEntry cacheEntry = (CacheEntry)cache.get(uri);
-	  if(cacheEntry != null)
-	  {
-		String location = cacheLocation.toString() + "/" + cacheEntry.getLocalFile();
-	    File file = new File(location);
-	    if(!file.delete())
-	    {
-	      System.out.println("Unable to delete file " + location + " from cache.");
-	    } 
-	  }
+	final int attempts;
+	final long retryTime;
+	final String reason;
+	
+	Failure(int attempts, long retryTime, String reason)
+	{
+	  this.attempts = attempts;
+	  this.retryTime = retryTime;
+	  this.reason = reason;
+	}
+  }
+  
+  /**
+   * A cached file and the number of entries that refer to it.
+   */
+  private static class Blob
+  {
+	final long size;
+	int references;
+	
+	Blob(long size)
+	{
+	  this.size = size;
+	}
   }
 }
\ No newline at end of file
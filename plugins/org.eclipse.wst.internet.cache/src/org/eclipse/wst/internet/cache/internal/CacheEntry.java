@@ -12,14 +12,20 @@
 package org.eclipse.wst.internet.cache.internal;
 
 /**
- * A cache entry contains a URI, a local file, and a timeout.
+ * A cache entry contains a URI, a local file, and a timeout. It also
+ * holds the validators (last modified time and entity tag) that are
+ * used to revalidate the entry once it has expired.
  */
 public class CacheEntry 
 {
   private String uri;
-  private String localFile;
-  private long lastModified;
-  private long expirationTime;
+  private volatile String localFile;
+  private volatile long lastModified;
+  private volatile long expirationTime;
+  private volatile String etag;
+  private volatile long lastAccessed;
+  private volatile int accessCount;
+  private volatile long size;
   
   /**
    * Create a new cache entry.
@@ -36,6 +42,24 @@ public class CacheEntry
 	this.localFile = localFile;
 	this.lastModified = lastModified;
 	this.expirationTime = expirationTime;
+	this.lastAccessed = System.currentTimeMillis();
+  }
+  
+  /**
+   * Create a new cache entry.
+   * 
+   * @param uri The remote URI of the cache entry.
+   * @param localFile The local file that contains the cached entry.
+   * @param lastModifie The time this resource was last modified.
+   * @param expirationTime The time in miliseconds that this cache entry will
+   *                       expire.
+   * @param etag The entity tag of the resource, or null if the server didn't
+   *             send one.
+   */
+  public CacheEntry(String uri, String localFile, long lastModified, long expirationTime, String etag)
+  {
+	this(uri, localFile, lastModified, expirationTime);
+	this.etag = etag;
   }
   
   /**
@@ -94,6 +118,14 @@ public class CacheEntry
 	return localFile;
   }
   
+  /**
+   * Set the local file for this cache entry.
+   */
+  public void setLocalFile(String localFile)
+  {
+	this.localFile = localFile;
+  }
+  
   /**
    * Get the last time this cache entry was modified.
    * 
@@ -111,4 +143,87 @@ public class CacheEntry
   {
 	this.lastModified = lastModified;
   }
+  
+  /**
+   * Get the entity tag of this cache entry.
+   * 
+   * @return The entity tag of this cache entry, or null if there isn't one.
+   */
+  public String getETag()
+  {
+	return etag;
+  }
+  
+  /**
+   * Set the entity tag of this cache entry.
+   */
+  public void setETag(String etag)
+  {
+	this.etag = etag;
+  }
+  
+  /**
+   * Record an access to this cache entry. This is called for every cache
+   * hit so it only updates fields in memory, and as it isn't synchronized
+   * the access count is approximate.
+   */
+  public void accessed()
+  {
+	lastAccessed = System.currentTimeMillis();
+	accessCount++;
+  }
+  
+  /**
+   * Get the last time this cache entry was accessed.
+   * 
+   * @return The last time this cache entry was accessed.
+   */
+  public long getLastAccessed()
+  {
+	return lastAccessed;
+  }
+  
+  /**
+   * Set the last time this cache entry was accessed.
+   */
+  public void setLastAccessed(long lastAccessed)
+  {
+	this.lastAccessed = lastAccessed;
+  }
+  
+  /**
+   * Get the number of times this cache entry has been accessed.
+   * 
+   * @return The number of times this cache entry has been accessed.
+   */
+  public int getAccessCount()
+  {
+	return accessCount;
+  }
+  
+  /**
+   * Set the number of times this cache entry has been accessed.
+   */
+  public void setAccessCount(int accessCount)
+  {
+	this.accessCount = accessCount;
+  }
+  
+  /**
+   * Get the size in bytes of the local file for this cache entry.
+   * 
+   * @return The size in bytes of the local file.
+   */
+  public long getSize()
+  {
+	return size;
+  }
+  
+  /**
+   * Set the size in bytes of the local file for this cache entry.
+   */
+  public void setSize(long size)
+  {
+	this.size = size;
+  }
 }
@@ -0,0 +1,596 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.wst.internet.cache.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * The persistent index of the cache. The index is made up of a snapshot of
+ * all the entries and a journal of the changes made since the snapshot was
+ * written. Each change is appended to the journal as it happens, so a crash
+ * loses at most the record that was being written, and once the journal has
+ * grown large enough it is folded into a new snapshot.
+ * <p>
+ * Every journal record carries its length and a checksum so that a record
+ * that was only partly written is recognized and ignored. All the records
+ * are idempotent, so replaying a record that is already in the snapshot is
+ * harmless.
+ * </p>
+ */
+public class CacheIndex
+{
+  /**
+   * String instances.
+   */
+  private static final String SNAPSHOT_FILE = "cache.index"; //$NON-NLS-1$
+  private static final String JOURNAL_FILE = "cache.journal"; //$NON-NLS-1$
+  private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+  private static final String LEGACY_FILE = "cache.xml"; //$NON-NLS-1$
+  private static final String URI = "uri"; //$NON-NLS-1$
+  private static final String LOCATION ="location"; //$NON-NLS-1$
+  private static final String ENTRY = "entry"; //$NON-NLS-1$
+  private static final String LAST_MODIFIED = "lastModified"; //$NON-NLS-1$
+  private static final String EXPIRATION_TIME = "expirationTime"; //$NON-NLS-1$
+  private static final String ETAG = "etag"; //$NON-NLS-1$
+  private static final String LAST_ACCESSED = "lastAccessed"; //$NON-NLS-1$
+  private static final String ACCESS_COUNT = "accessCount"; //$NON-NLS-1$
+
+  private static final int MAGIC = 0x57435849; // WCXI
+  private static final int VERSION = 1;
+
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+  private static final byte TOUCH = 3;
+
+  /**
+   * The largest journal record that is believed. Anything larger is the
+   * result of a torn write.
+   */
+  private static final int MAX_RECORD = 256 * 1024;
+
+  /**
+   * The journal is folded into a new snapshot once it has this many records,
+   * or twice as many records as there are entries if that is more.
+   */
+  private static final int SNAPSHOT_RECORDS = 1000;
+
+  /**
+   * Accesses to an entry are journaled at most this often, in milliseconds.
+   * The access times are only used for eviction so they don't need to be
+   * exact.
+   */
+  private static final long TOUCH_INTERVAL = 60000;
+
+  private final File snapshotFile;
+  private final File journalFile;
+  private final File legacyFile;
+
+  /**
+   * The open journal, or null if it hasn't been opened yet.
+   */
+  private FileOutputStream journal;
+  private DataOutputStream journalOut;
+  private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+  private final DataOutputStream recordOut = new DataOutputStream(record);
+  private final CRC32 crc = new CRC32();
+
+  /**
+   * The number of records in the journal.
+   */
+  private int records;
+  private int entries;
+  private boolean snapshotNeeded;
+
+  /**
+   * The last access time that was journaled for each URI. There is a key for
+   * every entry in the index, so it also tells whether a put is a new entry.
+   */
+  private final Map<String, Long> touched = new ConcurrentHashMap<String, Long>();
+
+  /**
+   * Create an index in the given directory.
+   *
+   * @param location The directory that holds the index files.
+   */
+  public CacheIndex(File location)
+  {
+	snapshotFile = new File(location, SNAPSHOT_FILE);
+	journalFile = new File(location, JOURNAL_FILE);
+	legacyFile = new File(location, LEGACY_FILE);
+  }
+
+  /**
+   * Read the snapshot and replay the journal. If there is neither but there
+   * is a cache.xml file from an older version of the cache, the entries are
+   * read from it instead.
+   *
+   * @return The entries in the index.
+   * @throws IOException If the index files could not be read.
+   */
+  public synchronized Collection<CacheEntry> load() throws IOException
+  {
+	Map<String, CacheEntry> loaded = new LinkedHashMap<String, CacheEntry>();
+	if(!snapshotFile.exists() && !journalFile.exists())
+	{
+	  if(legacyFile.exists())
+	  {
+		readLegacy(loaded);
+		snapshotNeeded = true;
+	  }
+	}
+	else
+	{
+	  readSnapshot(loaded);
+	  readJournal(loaded);
+	}
+	entries = loaded.size();
+	for(Iterator<CacheEntry> it = loaded.values().iterator(); it.hasNext();)
+	{
+	  CacheEntry cacheEntry = it.next();
+	  touched.put(cacheEntry.getURI(), Long.valueOf(cacheEntry.getLastAccessed()));
+	}
+	return loaded.values();
+  }
+
+  /**
+   * Record a new or changed entry.
+   *
+   * @param cacheEntry The entry.
+   */
+  public synchronized void put(CacheEntry cacheEntry)
+  {
+	try
+	{
+	  startRecord(PUT, cacheEntry.getURI());
+	  writeEntry(recordOut, cacheEntry);
+	  writeRecord(true);
+	  if(touched.put(cacheEntry.getURI(), Long.valueOf(cacheEntry.getLastAccessed())) == null)
+	  {
+		entries++;
+	  }
+	}
+	catch(IOException e)
+	{
+	  failed(e);
+	}
+  }
+
+  /**
+   * Record that the entry for the URI has been removed.
+   *
+   * @param uri The URI of the entry.
+   */
+  public synchronized void delete(String uri)
+  {
+	try
+	{
+	  startRecord(DELETE, uri);
+	  writeRecord(true);
+	  if(touched.remove(uri) != null)
+	  {
+		entries--;
+	  }
+	}
+	catch(IOException e)
+	{
+	  failed(e);
+	}
+  }
+
+  /**
+   * Record an access to the entry. This is cheap to call on every access as
+   * the access is only journaled if the last one journaled for the entry is
+   * more than a minute old.
+   *
+   * @param cacheEntry The entry.
+   */
+  public void touch(CacheEntry cacheEntry)
+  {
+	Long last = touched.get(cacheEntry.getURI());
+	if(last != null && cacheEntry.getLastAccessed() - last.longValue() < TOUCH_INTERVAL)
+	{
+	  return;
+	}
+	synchronized(this)
+	{
+	  try
+	  {
+		startRecord(TOUCH, cacheEntry.getURI());
+		recordOut.writeLong(cacheEntry.getLastAccessed());
+		recordOut.writeInt(cacheEntry.getAccessCount());
+		// Losing an access time in an operating system crash doesn't matter.
+		writeRecord(false);
+		touched.put(cacheEntry.getURI(), Long.valueOf(cacheEntry.getLastAccessed()));
+	  }
+	  catch(IOException e)
+	  {
+		failed(e);
+	  }
+	}
+  }
+
+  /**
+   * Answer true if the journal has grown large enough that it should be
+   * folded into a new snapshot.
+   */
+  public synchronized boolean isSnapshotNeeded()
+  {
+	return snapshotNeeded || records > Math.max(SNAPSHOT_RECORDS, entries * 2);
+  }
+
+  /**
+   * Write a new snapshot of the entries and empty the journal. The new
+   * snapshot is written to a temporary file and then moved over the old one,
+   * so there is always a complete snapshot on disk.
+   *
+   * @param cache The cached entries keyed by URI. They are copied while the
+   *              index is locked so that no journal record is lost.
+   */
+  public synchronized void snapshot(Map cache)
+  {
+	Collection values = new ArrayList(cache.values());
+	File tempFile = new File(snapshotFile.getPath() + TEMP_SUFFIX);
+	try
+	{
+	  FileOutputStream fos = new FileOutputStream(tempFile);
+	  try
+	  {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(values.size());
+		for(Iterator it = values.iterator(); it.hasNext();)
+		{
+		  writeEntry(out, (CacheEntry)it.next());
+		}
+		out.flush();
+		fos.getFD().sync();
+	  }
+	  finally
+	  {
+		fos.close();
+	  }
+	  Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	  closeJournal();
+	  journalFile.delete();
+	  records = 0;
+	  entries = values.size();
+	  snapshotNeeded = false;
+	  legacyFile.delete();
+	}
+	catch(IOException e)
+	{
+	  tempFile.delete();
+	  failed(e);
+	}
+  }
+
+  /**
+   * Close the journal. The index can still be used after it has been closed,
+   * the journal is opened again when the next record is written.
+   */
+  public synchronized void close()
+  {
+	try
+	{
+	  closeJournal();
+	}
+	catch(IOException e)
+	{
+	  failed(e);
+	}
+  }
+
+  private void startRecord(byte type, String uri) throws IOException
+  {
+	record.reset();
+	recordOut.writeByte(type);
+	recordOut.writeUTF(uri);
+  }
+
+  /**
+   * Append the current record to the journal.
+   *
+   * @param sync If true the record is forced to disk before returning.
+   */
+  private void writeRecord(boolean sync) throws IOException
+  {
+	if(journal == null)
+	{
+	  journal = new FileOutputStream(journalFile, true);
+	  journalOut = new DataOutputStream(new BufferedOutputStream(journal));
+	}
+	crc.reset();
+	crc.update(record.toByteArray(), 0, record.size());
+	journalOut.writeInt(record.size());
+	record.writeTo(journalOut);
+	journalOut.writeInt((int)crc.getValue());
+	journalOut.flush();
+	if(sync)
+	{
+	  journal.getChannel().force(false);
+	}
+	records++;
+  }
+
+  private void closeJournal() throws IOException
+  {
+	if(journal != null)
+	{
+	  try
+	  {
+		journalOut.close();
+	  }
+	  finally
+	  {
+		journal = null;
+		journalOut = null;
+	  }
+	}
+  }
+
+  /**
+   * The index could not be written. Make sure that a complete snapshot is
+   * attempted the next time rather than relying on the journal.
+   */
+  private void failed(IOException e)
+  {
+	CachePlugin.getDefault().getLog().log(new Status(IStatus.WARNING, CachePlugin.PLUGIN_ID, IStatus.OK, "Unable to update the internet cache index", e)); //$NON-NLS-1$
+	snapshotNeeded = true;
+	try
+	{
+	  closeJournal();
+	}
+	catch(IOException ex)
+	{
+	  // Do nothing if the journal cannot be closed.
+	}
+  }
+
+  private static void writeEntry(DataOutputStream out, CacheEntry cacheEntry) throws IOException
+  {
+	out.writeUTF(cacheEntry.getURI());
+	out.writeUTF(cacheEntry.getLocalFile());
+	out.writeLong(cacheEntry.getLastModified());
+	out.writeLong(cacheEntry.getExpirationTime());
+	String etag = cacheEntry.getETag();
+	out.writeBoolean(etag != null);
+	if(etag != null)
+	{
+	  out.writeUTF(etag);
+	}
+	out.writeLong(cacheEntry.getLastAccessed());
+	out.writeInt(cacheEntry.getAccessCount());
+  }
+
+  private static CacheEntry readEntry(DataInputStream in) throws IOException
+  {
+	String uri = in.readUTF();
+	String location = in.readUTF();
+	long lastModified = in.readLong();
+	long expirationTime = in.readLong();
+	String etag = in.readBoolean() ? in.readUTF() : null;
+	CacheEntry cacheEntry = new CacheEntry(uri, location, lastModified, expirationTime, etag);
+	cacheEntry.setLastAccessed(in.readLong());
+	cacheEntry.setAccessCount(in.readInt());
+	return cacheEntry;
+  }
+
+  private void readSnapshot(Map<String, CacheEntry> loaded) throws IOException
+  {
+	if(!snapshotFile.exists())
+	{
+	  return;
+	}
+	DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+	try
+	{
+	  if(in.readInt() != MAGIC || in.readInt() != VERSION)
+	  {
+		// Not a snapshot that can be read. The journal is still replayed and a
+		// new snapshot replaces this one.
+		snapshotNeeded = true;
+		return;
+	  }
+	  int count = in.readInt();
+	  for(int i = 0; i < count; i++)
+	  {
+		CacheEntry cacheEntry = readEntry(in);
+		loaded.put(cacheEntry.getURI(), cacheEntry);
+	  }
+	}
+	catch(EOFException e)
+	{
+	  // A snapshot is only ever moved into place once it is complete, but
+	  // the entries that could be read are kept.
+	  snapshotNeeded = true;
+	}
+	finally
+	{
+	  in.close();
+	}
+  }
+
+  private void readJournal(Map<String, CacheEntry> loaded) throws IOException
+  {
+	if(!journalFile.exists())
+	{
+	  return;
+	}
+	DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+	long valid = 0;
+	try
+	{
+	  byte[] bytes = new byte[1024];
+	  while(true)
+	  {
+		int length = in.readInt();
+		if(length <= 0 || length > MAX_RECORD)
+		{
+		  break;
+		}
+		if(length > bytes.length)
+		{
+		  bytes = new byte[length];
+		}
+		in.readFully(bytes, 0, length);
+		int checksum = in.readInt();
+		crc.reset();
+		crc.update(bytes, 0, length);
+		if((int)crc.getValue() != checksum)
+		{
+		  break;
+		}
+		replay(new DataInputStream(new ByteArrayInputStream(bytes, 0, length)), loaded);
+		records++;
+		valid += 8 + length;
+	  }
+	}
+	catch(EOFException e)
+	{
+	  // The last record was not completely written.
+	}
+	finally
+	{
+	  in.close();
+	}
+	if(valid < journalFile.length())
+	{
+	  // Drop the torn record so that new records are not appended after it.
+	  FileOutputStream out = new FileOutputStream(journalFile, true);
+	  try
+	  {
+		out.getChannel().truncate(valid);
+	  }
+	  finally
+	  {
+		out.close();
+	  }
+	}
+  }
+
+  private static void replay(DataInputStream in, Map<String, CacheEntry> loaded) throws IOException
+  {
+	byte type = in.readByte();
+	String uri = in.readUTF();
+	switch(type)
+	{
+	  case PUT:
+		loaded.put(uri, readEntry(in));
+		break;
+	  case DELETE:
+		loaded.remove(uri);
+		break;
+	  case TOUCH:
+		CacheEntry cacheEntry = loaded.get(uri);
+		long lastAccessed = in.readLong();
+		int accessCount = in.readInt();
+		if(cacheEntry != null)
+		{
+		  cacheEntry.setLastAccessed(lastAccessed);
+		  cacheEntry.setAccessCount(accessCount);
+		}
+		break;
+	  default:
+		// An unknown record from a newer version of the cache.
+	}
+  }
+
+  /**
+   * Read the cache.xml file that older versions of the cache wrote when they
+   * were closed.
+   */
+  private void readLegacy(Map<String, CacheEntry> loaded) throws IOException
+  {
+	try
+	{
+	  DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+	  Document cachedoc = builder.parse(legacyFile);
+	  NodeList nodes = cachedoc.getDocumentElement().getChildNodes();
+	  int numEntries = nodes.getLength();
+	  for(int i = 0; i < numEntries; i++)
+	  {
+		Node node = nodes.item(i);
+		if(node instanceof Element && node.getNodeName().equals(ENTRY))
+		{
+		  Element e = (Element)node;
+		  String uri = e.getAttribute(URI);
+		  String location = e.getAttribute(LOCATION);
+		  if(uri.length() == 0 || location.length() == 0)
+		  {
+			continue;
+		  }
+		  CacheEntry cacheEntry = new CacheEntry(uri, location, parseLong(e.getAttribute(LAST_MODIFIED)),
+			  parseLong(e.getAttribute(EXPIRATION_TIME)), e.hasAttribute(ETAG) ? e.getAttribute(ETAG) : null);
+		  if(e.hasAttribute(LAST_ACCESSED))
+		  {
+			cacheEntry.setLastAccessed(parseLong(e.getAttribute(LAST_ACCESSED)));
+			cacheEntry.setAccessCount((int)parseLong(e.getAttribute(ACCESS_COUNT)));
+		  }
+		  loaded.put(uri, cacheEntry);
+		}
+	  }
+	}
+	catch(ParserConfigurationException e)
+	{
+	  throw new IOException(e);
+	}
+	catch(SAXException e)
+	{
+	  throw new IOException(e);
+	}
+  }
+
+  private static long parseLong(String value)
+  {
+	try
+	{
+	  return Long.parseLong(value);
+	}
+	catch(NumberFormatException e)
+	{
+	  return -1;
+	}
+  }
+
+}
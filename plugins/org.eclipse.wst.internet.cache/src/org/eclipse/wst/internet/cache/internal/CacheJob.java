@@ -12,22 +12,33 @@
 package org.eclipse.wst.internet.cache.internal;
 
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 
 /**
- * A cache job runs once an hour to cache any prespecified resources which
- * should be cached and any resources for which an attempt was previously 
- * made to cache them but they were unable to be cached.
+ * A cache job caches the prespecified resources which should be cached when
+ * the plugin starts, and retries resources for which an attempt was previously
+ * made to cache them but they were unable to be cached. Each of these resources
+ * is retried with its own delay, which doubles each time it cannot be cached.
+ * It also revalidates expired resources that were returned to callers while
+ * they were stale.
  */
 public class CacheJob extends Job
 {
-  private static final long SCHEDULE_TIME = 3600000;
-
   private static CacheJob job = null;
+
+  /**
+   * Whether the prespecified resources have yet to be cached.
+   */
+  private static boolean warmup = false;
+
   /**
    * Constructor.
    */
@@ -41,59 +52,154 @@ public class CacheJob extends Job
    */
   protected IStatus run(IProgressMonitor monitor)
   {
-	boolean allSuccessful = true;
     Cache cache = Cache.getInstance();
-    String[] uncachedURIs = cache.getUncachedURIs();
-    int numUncachedURIs = uncachedURIs.length;
+    if(cache == null || CachePlugin.getDefault().isOffline())
+    {
+      // The job runs again when the cache goes back online.
+      return Status.OK_STATUS;
+    }
+    String[] staleURIs = cache.takeStaleURIs();
+    int numStaleURIs = staleURIs.length;
+    Set<String> uris = new LinkedHashSet<String>(Arrays.asList(cache.getRetryURIs()));
+    boolean warmingUp = takeWarmup();
+    if(warmingUp)
+    {
+      uris.addAll(Arrays.asList(getAcceptedURIsToCache()));
+    }
 
-    cache.clearUncachedURIs();
-    monitor.beginTask(CacheMessages._UI_CACHE_MONITOR_NAME, numUncachedURIs);
+    SubMonitor progress = SubMonitor.convert(monitor, CacheMessages._UI_CACHE_MONITOR_NAME, numStaleURIs + uris.size());
     try
     {
-      for(int i = 0; i < numUncachedURIs; i++)
+      // Revalidate the stale resources first as they are already in use.
+      for(int i = 0; i < numStaleURIs; i++)
       {
-        if (monitor.isCanceled())
+        if (progress.isCanceled())
         {
-          for(int j = i; j < numUncachedURIs; j++)
-          {
-            cache.addUncachedURI(uncachedURIs[j]);
-          }
+          // The stale entries are queued again the next time they are requested.
           return Status.CANCEL_STATUS;
         }
-        String uri = uncachedURIs[i];
-        monitor.setTaskName(MessageFormat.format(CacheMessages._UI_CACHE_MONITOR_CACHING, new Object[]{uri}));
-       
-        String cachedURI = cache.getResource(uri);
-        if(cachedURI == null)
-    	{
-    	  allSuccessful = false;
-    	}
-        monitor.worked(1);
+        String uri = staleURIs[i];
+        progress.setTaskName(MessageFormat.format(CacheMessages._UI_CACHE_MONITOR_CACHING, new Object[]{uri}));
+        cache.revalidate(uri);
+        progress.worked(1);
+      }
+      // Resources that cannot be cached are retried once they are due.
+      IStatus status = cache.prefetch(uris, progress.newChild(uris.size()));
+      if(status.getSeverity() == IStatus.CANCEL)
+      {
+        if(warmingUp)
+        {
+          startWarmup();
+        }
+        return Status.CANCEL_STATUS;
       }
-      monitor.done();
       return Status.OK_STATUS;
     } 
     finally
     {
-      // If all the uncached URIs could not be cached 
-      // schedule the next time the job should run.
-      if(!allSuccessful)
-      {
-    	  startJob(SCHEDULE_TIME); 
-      }
+      monitor.done();
+      // Run again when the next uncached resource is due to be retried.
+      retry(this);
     }
   }
   
   /**
-   * Start the cache job. The cache job caches resources that were not able to be previously
-   * downloaded. Only one job is run at a time.
+   * Get the prespecified resources whose licenses have already been accepted.
+   * The user is not prompted to accept any licenses.
+   * 
+   * @return The URIs of the prespecified resources that can be cached.
    */
-  protected static void startJob() 
+  private static String[] getAcceptedURIsToCache()
+  {
+	ToCacheRegistryReader reader = ToCacheRegistryReader.getInstance();
+	LicenseRegistry registry = LicenseRegistry.getInstance();
+	String[] uris = reader.getURIsToCache();
+	Set accepted = new LinkedHashSet();
+	for(int i = 0; i < uris.length; i++)
+	{
+	  ToCacheResource resource = reader.getResourceToCache(uris[i]);
+	  String license = resource == null ? null : resource.getLicense();
+	  if(license == null || registry.isLicenseAccepted(license))
+	  {
+		accepted.add(uris[i]);
+	  }
+	}
+	return (String[])accepted.toArray(new String[accepted.size()]);
+  }
+  
+  /**
+   * Schedule the cache job to run when the next resource that could not be
+   * previously downloaded is due to be retried. Only one job is run at a time.
+   */
+  protected static synchronized void startJob() 
+  {
+	Cache cache = Cache.getInstance();
+	CachePlugin plugin = CachePlugin.getDefault();
+	long delay = cache == null || plugin == null || plugin.isOffline() ? -1 : cache.getRetryDelay();
+	if(delay < 0)
+	{
+	  return;
+	}
+	if(job == null)
+	{
+	  startJob(delay);
+	}
+	else if(job.getState() == Job.SLEEPING)
+	{
+	  job.wakeUp(delay);
+	}
+	else if(job.getState() != Job.WAITING)
+	{
+	  job.schedule(delay);
+	}
+  }
+  
+  /**
+   * Schedule the job to retry the uncached resources, unless it has been stopped.
+   */
+  private static synchronized void retry(CacheJob current)
+  {
+	if(job == current)
+	{
+	  startJob();
+	}
+  }
+  
+  /**
+   * Run the cache job as soon as possible to cache the prespecified resources
+   * whose licenses have been accepted.
+   */
+  protected static synchronized void startWarmup()
+  {
+	warmup = true;
+	startRefresh();
+  }
+  
+  /**
+   * Get and clear the warmup flag.
+   */
+  private static synchronized boolean takeWarmup()
+  {
+	boolean result = warmup;
+	warmup = false;
+	return result;
+  }
+  
+  /**
+   * Run the cache job as soon as possible to revalidate stale resources. If the
+   * job is running it runs again once it has finished, and if it is waiting for
+   * its next scheduled run it runs now.
+   */
+  protected static synchronized void startRefresh()
   {
 	if(job == null)
 	{
 	  startJob(0);
 	}
+	else if(job.getState() != Job.WAITING)
+	{
+	  job.schedule();
+	}
   }
   
   /**
@@ -106,14 +212,14 @@ public class CacheJob extends Job
   {
 	job = new CacheJob();
 	job.setPriority(CacheJob.DECORATE);
-	job.schedule(delay); // start as soon as possible
+	job.schedule(delay);
   }
 
   /**
    * Stop the current cache job. The cache job caches resources that were not able to be previously
    * downloaded.
    */
-  protected static void stopJob() 
+  protected static synchronized void stopJob() 
   {
 	if (job != null) 
 	{
@@ -48,6 +48,12 @@ public class CacheMessages extends NLS {
 
 	// Cache logging messages
 	public static String _LOG_INFO_WTP_NO_USER_INTERACTION;
+	public static String _LOG_PREFETCH_FAILED;
+	public static String _LOG_RESOURCE_NOT_CACHED;
+	public static String _LOG_REASON_OFFLINE;
+	public static String _LOG_REASON_TIMED_OUT;
+	public static String _LOG_REASON_NOT_CACHEABLE;
+	public static String _LOG_REASON_NO_CONTENT;
 
 	// WTP test no user interaction system property
 	public static String WTP_NO_USER_INTERACTION_SYSTEM_PROP;   
@@ -27,6 +27,48 @@ public class CachePlugin extends AbstractUIPlugin
    */
   public static final String PLUGIN_ID = "org.eclipse.wst.internet.cache"; //$NON-NLS-1$
 
+  /**
+   * The default number of seconds to wait for a download.
+   */
+  public static final int DEFAULT_DOWNLOAD_TIMEOUT = 30;
+  
+  /**
+   * The default number of different resources that can be downloaded at the same time.
+   */
+  public static final int DEFAULT_MAX_DOWNLOADS = 4;
+
+  /**
+   * The default maximum size of the cache in megabytes.
+   */
+  public static final long DEFAULT_MAX_CACHE_SIZE = 100;
+  
+  /**
+   * The default maximum number of entries in the cache.
+   */
+  public static final int DEFAULT_MAX_CACHE_ENTRIES = 2000;
+  
+  /**
+   * Evict the least recently used entries first.
+   */
+  public static final String EVICTION_LRU = "lru"; //$NON-NLS-1$
+  
+  /**
+   * Evict the least frequently used entries first.
+   */
+  public static final String EVICTION_LFU = "lfu"; //$NON-NLS-1$
+
+  /**
+   * The default number of seconds before a resource that could not be cached
+   * is retried for the first time.
+   */
+  public static final int DEFAULT_NEGATIVE_CACHE_TIMEOUT = 60;
+  
+  /**
+   * The system property that puts the cache offline, for example on build
+   * machines without network access.
+   */
+  public static final String OFFLINE_SYSTEM_PROPERTY = "org.eclipse.wst.internet.cache.offline"; //$NON-NLS-1$
+
   /**
    * The shared instance.
    */
@@ -76,6 +118,13 @@ public class CachePlugin extends AbstractUIPlugin
 		registry.disagreeLicense(licenses[i]);
 	  }
 	}
+	
+	// Cache the prespecified resources in the background so the first
+	// request for them doesn't wait for the network.
+	if(isCacheEnabled() && isWarmupOnStartup())
+	{
+	  CacheJob.startWarmup();
+	}
   }
 
   /**
@@ -190,6 +239,230 @@ public class CachePlugin extends AbstractUIPlugin
 	return 1440;
   }
 
+  /**
+   * Set how long to wait for a resource to be downloaded.
+   * 
+   * @param timeout a timeout in seconds
+   */
+  public void setDownloadTimeout(int timeout) 
+  {
+	getPluginPreferences().setValue(PreferenceConstants.DOWNLOAD_TIMEOUT, timeout);
+  }
+
+  /**
+   * Returns the number of seconds to wait for a resource to be downloaded, or 30 as default.
+   * Requests that are waiting for the same resource give up after this long.
+   * 
+   * @return a number of seconds to wait for a download. The default is 30.
+   */
+  public int getDownloadTimeout() 
+  {
+	if (getPluginPreferences().contains(PreferenceConstants.DOWNLOAD_TIMEOUT)) {
+		int timeout = getPluginPreferences().getInt(PreferenceConstants.DOWNLOAD_TIMEOUT); 
+		if( timeout > 0 )
+			return timeout;
+	}
+	return DEFAULT_DOWNLOAD_TIMEOUT;
+  }
+  
+  /**
+   * Returns the number of different resources that can be downloaded at the same time,
+   * or 4 as default. This is read when the cache is opened.
+   * 
+   * @return the maximum number of concurrent downloads. The default is 4.
+   */
+  public int getMaxConcurrentDownloads() 
+  {
+	if (getPluginPreferences().contains(PreferenceConstants.MAX_CONCURRENT_DOWNLOADS)) {
+		int max = getPluginPreferences().getInt(PreferenceConstants.MAX_CONCURRENT_DOWNLOADS); 
+		if( max > 0 )
+			return max;
+	}
+	return DEFAULT_MAX_DOWNLOADS;
+  }
+  
+  /**
+   * Set whether an expired resource is returned straight away while it is
+   * revalidated in the background.
+   * 
+   * @param stale If true expired resources are revalidated in the background, if false
+   *              they are revalidated before they are returned.
+   */
+  public void setStaleWhileRevalidate(boolean stale) 
+  {
+	getPluginPreferences().setValue(PreferenceConstants.STALE_WHILE_REVALIDATE, stale);
+  }
+
+  /**
+   * Returns true if expired resources are returned straight away and revalidated in
+   * the background, false otherwise. The default is true.
+   * 
+   * @return True if expired resources are revalidated in the background, false otherwise.
+   */
+  public boolean isStaleWhileRevalidate() 
+  {
+	if (getPluginPreferences().contains(PreferenceConstants.STALE_WHILE_REVALIDATE))
+	  return getPluginPreferences().getBoolean(PreferenceConstants.STALE_WHILE_REVALIDATE);
+	return true;
+  }
+  
+  /**
+   * Set whether the prespecified resources whose licenses have been accepted
+   * are cached when the plugin starts.
+   * 
+   * @param warmup If true the resources are cached on startup, if false they are
+   *               cached the first time they are requested.
+   */
+  public void setWarmupOnStartup(boolean warmup) 
+  {
+	getPluginPreferences().setValue(PreferenceConstants.WARMUP_ON_STARTUP, warmup);
+  }
+
+  /**
+   * Returns true if the prespecified resources are cached when the plugin starts,
+   * false otherwise. The default is true.
+   * 
+   * @return True if the prespecified resources are cached on startup, false otherwise.
+   */
+  public boolean isWarmupOnStartup() 
+  {
+	if (getPluginPreferences().contains(PreferenceConstants.WARMUP_ON_STARTUP))
+	  return getPluginPreferences().getBoolean(PreferenceConstants.WARMUP_ON_STARTUP);
+	return true;
+  }
+  
+  /**
+   * Set how long a resource that could not be cached is remembered before it
+   * is retried for the first time. The delay doubles for each further attempt.
+   * 
+   * @param timeout a timeout in seconds
+   */
+  public void setNegativeCacheTimeout(int timeout) 
+  {
+	getPluginPreferences().setValue(PreferenceConstants.NEGATIVE_CACHE_TIMEOUT, timeout);
+  }
+
+  /**
+   * Returns how long a resource that could not be cached is remembered before
+   * it is retried for the first time.
+   * 
+   * @return a timeout in seconds
+   */
+  public int getNegativeCacheTimeout() 
+  {
+	if (getPluginPreferences().contains(PreferenceConstants.NEGATIVE_CACHE_TIMEOUT)) {
+		int timeout = getPluginPreferences().getInt(PreferenceConstants.NEGATIVE_CACHE_TIMEOUT); 
+		if( timeout > 0 )
+			return timeout;
+	}
+	return DEFAULT_NEGATIVE_CACHE_TIMEOUT;
+  }
+  
+  /**
+   * Set whether the cache is offline. When the cache is offline it never uses
+   * the network, and cached resources are returned even if they have expired.
+   * 
+   * @param offline If true the cache is offline, if false it is online.
+   */
+  public void setOffline(boolean offline) 
+  {
+	getPluginPreferences().setValue(PreferenceConstants.OFFLINE, offline);
+	if(!offline)
+	{
+	  // Catch up on the work that was skipped while offline.
+	  CacheJob.startRefresh();
+	}
+  }
+
+  /**
+   * Returns true if the cache is offline, false otherwise. The cache is also
+   * offline if the org.eclipse.wst.internet.cache.offline system property is
+   * set to true. The default is false.
+   * 
+   * @return True if the cache is offline, false otherwise.
+   */
+  public boolean isOffline() 
+  {
+	if (Boolean.getBoolean(OFFLINE_SYSTEM_PROPERTY))
+	  return true;
+	return getPluginPreferences().getBoolean(PreferenceConstants.OFFLINE);
+  }
+  
+  /**
+   * Set the maximum size of the cache.
+   * 
+   * @param size a size in megabytes
+   */
+  public void setMaxCacheSize(long size) 
+  {
+	getPluginPreferences().setValue(PreferenceConstants.MAX_CACHE_SIZE, size);
+  }
+
+  /**
+   * Returns the maximum size of the cache in megabytes, or 100 as default. Once the
+   * cache is larger than this entries are evicted.
+   * 
+   * @return the maximum size of the cache in megabytes. The default is 100.
+   */
+  public long getMaxCacheSize() 
+  {
+	if (getPluginPreferences().contains(PreferenceConstants.MAX_CACHE_SIZE)) {
+		long size = getPluginPreferences().getLong(PreferenceConstants.MAX_CACHE_SIZE); 
+		if( size > 0 )
+			return size;
+	}
+	return DEFAULT_MAX_CACHE_SIZE;
+  }
+  
+  /**
+   * Set the maximum number of entries in the cache.
+   * 
+   * @param entries the maximum number of entries
+   */
+  public void setMaxCacheEntries(int entries) 
+  {
+	getPluginPreferences().setValue(PreferenceConstants.MAX_CACHE_ENTRIES, entries);
+  }
+
+  /**
+   * Returns the maximum number of entries in the cache, or 2000 as default. Once the
+   * cache has more entries than this entries are evicted.
+   * 
+   * @return the maximum number of entries in the cache. The default is 2000.
+   */
+  public int getMaxCacheEntries() 
+  {
+	if (getPluginPreferences().contains(PreferenceConstants.MAX_CACHE_ENTRIES)) {
+		int entries = getPluginPreferences().getInt(PreferenceConstants.MAX_CACHE_ENTRIES); 
+		if( entries > 0 )
+			return entries;
+	}
+	return DEFAULT_MAX_CACHE_ENTRIES;
+  }
+  
+  /**
+   * Set which entries are evicted first when the cache is full.
+   * 
+   * @param policy Either EVICTION_LRU or EVICTION_LFU.
+   */
+  public void setEvictionPolicy(String policy) 
+  {
+	getPluginPreferences().setValue(PreferenceConstants.EVICTION_POLICY, policy);
+  }
+
+  /**
+   * Returns which entries are evicted first when the cache is full, either the least
+   * recently used (EVICTION_LRU) or the least frequently used (EVICTION_LFU). The
+   * default is EVICTION_LRU.
+   * 
+   * @return the eviction policy.
+   */
+  public String getEvictionPolicy() 
+  {
+	if (EVICTION_LFU.equals(getPluginPreferences().getString(PreferenceConstants.EVICTION_POLICY)))
+	  return EVICTION_LFU;
+	return EVICTION_LRU;
+  }
   
   static boolean isRunning() {
 	  return plugin != null;
@@ -12,15 +12,16 @@
 package org.eclipse.wst.internet.cache.internal;
 
 import org.eclipse.core.resources.IFile;
-import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverExtension;
+import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverExtension2;
 import org.eclipse.wst.common.uriresolver.internal.util.URIHelper;
 
 /**
  * A cache URI resolver. This resolver will cache remote resources and return
  * the local copy if they can be cached. If a resource cannot be cached the
- * resource returns null.
+ * resource returns null. When many references are resolved at the same time
+ * the remote resources that aren't cached yet are downloaded in parallel.
  */
-public class CacheURIResolverExtension implements URIResolverExtension 
+public class CacheURIResolverExtension implements URIResolverExtension2 
 {
 	/**
 	 * @see org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverExtension#resolve(org.eclipse.core.resources.IProject, java.lang.String, java.lang.String, java.lang.String)
@@ -29,22 +30,55 @@ public class CacheURIResolverExtension implements URIResolverExtension
 	{ 
       if(CachePlugin.isRunning() && CachePlugin.getDefault().isCacheEnabled())
       {
-		  String resource = null;
-		  if(systemId != null)
-		  {
-		    resource = URIHelper.normalize(systemId, baseLocation, null);
-		  } 
-		  
-		  if(resource != null && (resource.startsWith("http:") || resource.startsWith("ftp:"))) //$NON-NLS-1$ //$NON-NLS-2$
-		  {
-		    // Handle resources prespecified to cache.
-		    ToCacheResource toCacheResource = ToCacheRegistryReader.getInstance().getResourceToCache(resource);
-		    if(toCacheResource == null || LicenseRegistry.getInstance().hasLicenseBeenAccepted(resource, toCacheResource.getLicense()))
-		    { 	
-		      return Cache.getInstance().getResource(resource);
-		    }
+		  String resource = getRemoteResource(baseLocation, systemId);
+		  if(resource != null)
+		  { 	
+		    return Cache.getInstance().getResource(resource);
 		  }
       }
 	  return null;
 	}
+
+	/**
+	 * @see org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverExtension2#resolveAll(org.eclipse.core.resources.IFile, java.lang.String, java.lang.String[], java.lang.String[])
+	 */
+	public String[] resolveAll(IFile file, String baseLocation, String[] publicIds, String[] systemIds)
+	{
+	  if(CachePlugin.isRunning() && CachePlugin.getDefault().isCacheEnabled())
+	  {
+		String[] resources = new String[systemIds.length];
+		for(int i = 0; i < systemIds.length; i++)
+		{
+		  resources[i] = getRemoteResource(baseLocation, systemIds[i]);
+		}
+		return Cache.getInstance().getResources(resources);
+	  }
+	  return new String[systemIds.length];
+	}
+
+	/**
+	 * Get the absolute URI of a remote resource that can be cached.
+	 * 
+	 * @return The URI, or null if the system id isn't for a remote resource or
+	 *         the license of a resource specified to cache hasn't been accepted.
+	 */
+	private static String getRemoteResource(String baseLocation, String systemId)
+	{
+	  String resource = null;
+	  if(systemId != null)
+	  {
+		resource = URIHelper.normalize(systemId, baseLocation, null);
+	  } 
+	  
+	  if(resource != null && (resource.startsWith("http:") || resource.startsWith("ftp:"))) //$NON-NLS-1$ //$NON-NLS-2$
+	  {
+		// Handle resources prespecified to cache.
+		ToCacheResource toCacheResource = ToCacheRegistryReader.getInstance().getResourceToCache(resource);
+		if(toCacheResource == null || LicenseRegistry.getInstance().hasLicenseBeenAccepted(resource, toCacheResource.getLicense()))
+		{ 	
+		  return resource;
+		}
+	  }
+	  return null;
+	}
 }
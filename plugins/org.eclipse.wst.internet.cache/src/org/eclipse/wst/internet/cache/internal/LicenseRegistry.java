@@ -181,6 +181,21 @@ public class LicenseRegistry
 	return true;
   }
   
+  /**
+   * Determine if the license has already been accepted, without prompting the user.
+   * 
+   * @param licenseURL The URL of the license that should be checked to see if it has been accepted.
+   * @return True if the license has been accepted or is not registered with the registry, false otherwise.
+   */
+  public boolean isLicenseAccepted(String licenseURL)
+  {
+	if(DO_NOT_PROMPT || !licenses.containsKey(licenseURL))
+	{
+	  return true;
+	}
+	return licenses.get(licenseURL) == LICENSE_AGREE;
+  }
+  
   /**
    * Prompt the user to accept the license. This method creates a LicenseAcceptanceDialog.
    * 
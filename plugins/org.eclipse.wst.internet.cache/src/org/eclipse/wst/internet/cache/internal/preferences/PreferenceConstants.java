@@ -22,4 +22,22 @@ public class PreferenceConstants  {
 	  public static final String CACHE_DURATION = "cacheDuration"; //$NON-NLS-1$
 
 	  public static final String PROMPT_DISAGREED_LICENSES = "promptDisagreedLicenses"; //$NON-NLS-1$
+
+	  public static final String DOWNLOAD_TIMEOUT = "downloadTimeout"; //$NON-NLS-1$
+
+	  public static final String MAX_CONCURRENT_DOWNLOADS = "maxConcurrentDownloads"; //$NON-NLS-1$
+
+	  public static final String STALE_WHILE_REVALIDATE = "staleWhileRevalidate"; //$NON-NLS-1$
+
+	  public static final String MAX_CACHE_SIZE = "maxCacheSize"; //$NON-NLS-1$
+
+	  public static final String MAX_CACHE_ENTRIES = "maxCacheEntries"; //$NON-NLS-1$
+
+	  public static final String EVICTION_POLICY = "evictionPolicy"; //$NON-NLS-1$
+
+	  public static final String WARMUP_ON_STARTUP = "warmupOnStartup"; //$NON-NLS-1$
+
+	  public static final String NEGATIVE_CACHE_TIMEOUT = "negativeCacheTimeout"; //$NON-NLS-1$
+
+	  public static final String OFFLINE = "offline"; //$NON-NLS-1$
 }
@@ -27,6 +27,7 @@ import org.eclipse.wst.validation.internal.EventManager;
 import org.eclipse.wst.validation.internal.ProjectUnavailableError;
 import org.eclipse.wst.validation.internal.ResourceUnavailableError;
 import org.eclipse.wst.validation.internal.Tracing;
+import org.eclipse.wst.validation.internal.ValSaveParticipant;
 import org.eclipse.wst.validation.internal.core.Message;
 import org.eclipse.wst.validation.internal.provisional.core.IMessage;
 import org.osgi.framework.Bundle;
@@ -102,7 +103,7 @@ public class ValidationPlugin extends Plugin {
 
 		DependencyIndex di = (DependencyIndex)ValidationFramework.getDefault().getDependencyIndex();
 		IWorkspace ws = ResourcesPlugin.getWorkspace();
-		ws.addSaveParticipant(this, di);
+		ws.addSaveParticipant(this, new ValSaveParticipant(di));
 //		ws.addResourceChangeListener(ValOperationManager.getDefault(), 
 //			IResourceChangeEvent.POST_BUILD | IResourceChangeEvent.PRE_BUILD);
 
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Aggregate metrics about the validation operations. Unlike the {@link IPerformanceMonitor}, which
+ * remembers every individual event, the metrics are fixed size histograms and counters, and they are
+ * cheap enough to be left on.
+ * <p>
+ * All the times are in microseconds.
+ * </p>
+ * @noextend This interface is not intended to be extended by clients.
+ * @noimplement This interface is not intended to be implemented by clients.
+ */
+public interface IValidationMetrics {
+
+	/**
+	 * Answer true if metrics are being collected. They are collected by default.
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Turn the collection of metrics on or off.
+	 */
+	public void setEnabled(boolean enabled);
+
+	/**
+	 * Answer true if the bytes allocated by each validator are being measured. They are not measured by
+	 * default, because measuring them costs two reflective calls for every validated resource.
+	 */
+	public boolean isTrackingAllocations();
+
+	/**
+	 * Turn the measuring of the validator allocations on or off. This has no effect unless the metrics
+	 * are enabled.
+	 */
+	public void setTrackingAllocations(boolean track);
+
+	/**
+	 * Answer the ids of the validators that have metrics.
+	 */
+	public String[] getValidatorIds();
+
+	/**
+	 * Answer the number of times that the validator has been invoked.
+	 *
+	 * @param validatorId
+	 *            The id of the validator.
+	 */
+	public long getInvocationCount(String validatorId);
+
+	/**
+	 * Answer the elapsed time of a single invocation of the validator, at the given percentile. For
+	 * example a percentile of 99 answers the time that 99% of the invocations completed within. The
+	 * answer is accurate to within about 6%.
+	 *
+	 * @param validatorId
+	 *            The id of the validator.
+	 * @param percentile
+	 *            A number between 0 and 100.
+	 * @return the time in microseconds, or 0 if the validator hasn't been invoked.
+	 */
+	public long getLatency(String validatorId, double percentile);
+
+	/**
+	 * Answer the number of messages (and therefore markers) that the validator has produced.
+	 *
+	 * @param validatorId
+	 *            The id of the validator.
+	 */
+	public long getMarkerCount(String validatorId);
+
+	/**
+	 * Answer the number of bytes that the validator has allocated while it was running.
+	 *
+	 * @param validatorId
+	 *            The id of the validator.
+	 * @return -1 if the JVM doesn't support measuring the allocations, or if they were not always
+	 *         being measured.
+	 */
+	public long getAllocatedBytes(String validatorId);
+
+	/**
+	 * Answer the number of resources that were validated by at least one validator.
+	 */
+	public long getResourcesValidated();
+
+	/**
+	 * Answer the number of resources that were not validated, because none of the validator filters
+	 * matched them.
+	 */
+	public long getResourcesSkipped();
+
+	/**
+	 * Answer the number of resources that were not validated, because all of the validators that matched
+	 * them were suspended.
+	 */
+	public long getResourcesSuspended();
+
+	/**
+	 * Answer the number of resources that were not validated, because the operation was canceled before
+	 * any validator was run.
+	 */
+	public long getResourcesCanceled();
+
+	/**
+	 * Answer how long build validation requests waited before they were processed, at the given
+	 * percentile.
+	 *
+	 * @param percentile
+	 *            A number between 0 and 100.
+	 * @return the time in microseconds.
+	 */
+	public long getQueueWait(double percentile);
+
+	/**
+	 * Answer the number of build validation requests that were merged into a request that was already
+	 * waiting for the same project.
+	 */
+	public long getRequestsMerged();
+
+	/**
+	 * Answer the number of build validation requests that were dropped, because a full build of the
+	 * same project superseded them.
+	 */
+	public long getRequestsDropped();
+
+	/**
+	 * Discard all of the metrics that have been collected so far.
+	 */
+	public void reset();
+
+	/**
+	 * Write all of the metrics as a JSON object.
+	 */
+	public void writeJSON(Writer out) throws IOException;
+
+	/**
+	 * Write the validator metrics as comma separated values, with one line per validator, and a header line.
+	 */
+	public void writeCSV(Writer out) throws IOException;
+
+}
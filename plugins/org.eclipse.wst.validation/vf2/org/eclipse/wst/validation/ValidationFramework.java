@@ -42,12 +42,14 @@ import org.eclipse.wst.validation.internal.GlobalConfiguration;
 import org.eclipse.wst.validation.internal.MarkerManager;
 import org.eclipse.wst.validation.internal.Misc;
 import org.eclipse.wst.validation.internal.PerformanceMonitor;
+import org.eclipse.wst.validation.internal.PriorityManager;
 import org.eclipse.wst.validation.internal.ProjectUnavailableError;
 import org.eclipse.wst.validation.internal.ValManager;
 import org.eclipse.wst.validation.internal.ValOperation;
 import org.eclipse.wst.validation.internal.ValPrefManagerGlobal;
 import org.eclipse.wst.validation.internal.ValPrefManagerProject;
 import org.eclipse.wst.validation.internal.ValType;
+import org.eclipse.wst.validation.internal.ValidationMetrics;
 import org.eclipse.wst.validation.internal.ValidationRunner;
 import org.eclipse.wst.validation.internal.ValidatorMetaData;
 import org.eclipse.wst.validation.internal.ValidatorMutable;
@@ -157,6 +159,13 @@ public final class ValidationFramework {
 		return _dependencyIndex;
 	}
 
+	/**
+	 * Answer the aggregate metrics for the validators. These are collected by default.
+	 */
+	public IValidationMetrics getValidationMetrics(){
+		return ValidationMetrics.getDefault();
+	}
+	
 	/**
 	 * Answer a performance monitor for the validators.
 	 */
@@ -672,9 +681,51 @@ public final class ValidationFramework {
 	 * @return the result of validating the file.
 	 */
   public ValidationResults validate(IFile file, IProgressMonitor monitor) throws CoreException{
-      ValOperation vo = ValidationRunner.validate(file, ValType.Manual, monitor, true);
-      return vo.getResults();
+      // the build validation pauses while this is running
+      PriorityManager pm = PriorityManager.getDefault();
+      pm.interactiveStarting();
+      try {
+        ValOperation vo = ValidationRunner.validate(file, ValType.Manual, monitor, true);
+        return vo.getResults();
+      }
+      finally {
+        pm.interactiveFinished();
+      }
     }
+  
+	/**
+	 * Give the resource priority over the bulk build validation. This is normally called when the resource
+	 * is opened in an editor. When a build changes the resource, it is validated ahead of the rest of the
+	 * resources that the build has changed, even if the build validation is already busy with another
+	 * project.
+	 * <p>
+	 * Each call needs to be balanced by a call to {@link #removePriorityHint(IResource)}, for example when
+	 * the editor is closed.
+	 * </p>
+	 * 
+	 * @param resource
+	 *            The resource that should be validated ahead of the other resources.
+	 */
+	public void addPriorityHint(IResource resource){
+		PriorityManager.getDefault().addHint(resource);
+	}
+	
+	/**
+	 * Remove a priority hint that was added by {@link #addPriorityHint(IResource)}.
+	 * 
+	 * @param resource
+	 *            The resource that no longer needs to be validated ahead of the other resources.
+	 */
+	public void removePriorityHint(IResource resource){
+		PriorityManager.getDefault().removeHint(resource);
+	}
+	
+	/**
+	 * Answer true if the resource has a priority hint.
+	 */
+	public boolean hasPriorityHint(IResource resource){
+		return PriorityManager.getDefault().hasHint(resource);
+	}
 	  
 	/**
 	 * Answer all the resources in the projects as a map.
@@ -845,7 +845,8 @@ public static class V1 extends Validator {
  *
  */
 public final static class V2 extends Validator implements IAdaptable {
-	private AbstractValidator	_validator;
+	/** This is created lazily, and may be asked for from several validation threads at once. */
+	private volatile AbstractValidator	_validator;
 	
 	private List<FilterGroup>	_groups = new LinkedList<FilterGroup>();
 	private FilterGroup[]		_groupsArray;
@@ -870,6 +871,18 @@ public final static class V2 extends Validator implements IAdaptable {
 	 * An array containing the validator group IDs for which this validator is a member.
 	 */
 	private String[] _validatorGroupIds;
+	
+	/** 
+	 * Has the validator declared that it can validate several resources at the same time? This comes from
+	 * the threadSafe attribute on the validator extension.
+	 */
+	private boolean _threadSafe;
+	
+	/** 
+	 * Can the results of this validator be cached between validation runs? This comes from the cacheable
+	 * attribute on the validator extension.
+	 */
+	private boolean _cacheable;
 		
 	/** 
 	 * If this validator is a delegating validator, then this is the "real" validator (i.e. the one that
@@ -906,6 +919,8 @@ public final static class V2 extends Validator implements IAdaptable {
 			if (id != null)validatorGroupIDs.add(id);
 		}
 		_validatorGroupIds = validatorGroupIDs.toArray(new String[validatorGroupIDs.size()]);
+		_threadSafe = ExtensionConstants.True.equalsIgnoreCase(configElement.getAttribute(ExtensionConstants.threadSafe));
+		_cacheable = ExtensionConstants.True.equalsIgnoreCase(configElement.getAttribute(ExtensionConstants.cacheable));
 			
 		init();
 	}
@@ -965,8 +980,11 @@ public final static class V2 extends Validator implements IAdaptable {
 	@Override
 	public Validator copy(boolean includeChangeCounts) {
 		V2 v = null;
-		if (_validatorConfigElement != null)v = new V2(_validatorConfigElement, _project);
-		else v = new V2(_project, _validatorClassName, _validator);
+		synchronized(this){
+			// the validator may be getting created on another thread
+			if (_validatorConfigElement != null)v = new V2(_validatorConfigElement, _project);
+			else v = new V2(_project, _validatorClassName, _validator);
+		}
 		v.copyLocal(this, includeChangeCounts);
 		
 		if (includeChangeCounts)v._changeCountGroups = _changeCountGroups;
@@ -982,6 +1000,8 @@ public final static class V2 extends Validator implements IAdaptable {
 		v._name = _name;
 		v._description = _description;
 		v._validatorGroupIds = _validatorGroupIds;
+		v._threadSafe = _threadSafe;
+		v._cacheable = _cacheable;
 		v._pendingValidationStarted = _pendingValidationStarted;
 				
 		return v;
@@ -1057,22 +1077,26 @@ public final static class V2 extends Validator implements IAdaptable {
 	}
 
 	public AbstractValidator getValidator() {
-		if (_validator == null){
-			try {
-				_validator = (AbstractValidator)_validatorConfigElement.createExecutableExtension(ExtensionConstants.AttribClass);
-			}
-			catch (Exception e){
-				ValidationPlugin.getPlugin().handleException(e);
-				IContributor contrib = _validatorConfigElement.getContributor();
-				String message = NLS.bind(ValMessages.ErrConfig, contrib.getName());
-				ValidationPlugin.getPlugin().logMessage(IStatus.ERROR, message);
-				_validator = new NullValidator();
+		AbstractValidator validator = _validator;
+		if (validator != null)return validator;
+		synchronized(this){
+			if (_validator == null){
+				try {
+					validator = (AbstractValidator)_validatorConfigElement.createExecutableExtension(ExtensionConstants.AttribClass);
+				}
+				catch (Exception e){
+					ValidationPlugin.getPlugin().handleException(e);
+					IContributor contrib = _validatorConfigElement.getContributor();
+					String message = NLS.bind(ValMessages.ErrConfig, contrib.getName());
+					ValidationPlugin.getPlugin().logMessage(IStatus.ERROR, message);
+					validator = new NullValidator();
+				}
+				validator.setParent(this);
+				_validatorConfigElement = null;
+				_validator = validator;
 			}
-			_validator.setParent(this);
-			_validatorConfigElement = null;
-
+			return _validator;
 		}
-		return _validator;
 	}
 	
 	@Override
@@ -1080,6 +1104,22 @@ public final static class V2 extends Validator implements IAdaptable {
 		return _validatorClassName;
 	}
 	
+	/**
+	 * Answer true if this validator has declared that it is thread safe, in which case the framework may
+	 * call it for several resources at the same time.
+	 */
+	public boolean isThreadSafe(){
+		return _threadSafe;
+	}
+	
+	/**
+	 * Answer true if this validator has declared that it's results only depend on the contents of the
+	 * resource and it's declared dependencies, in which case the framework may reuse earlier results.
+	 */
+	public boolean isCacheable(){
+		return _cacheable;
+	}
+	
 	public String[] getValidatorGroups(){
 		return _validatorGroupIds;
 	}
@@ -1205,10 +1245,7 @@ public final static class V2 extends Validator implements IAdaptable {
 			
 			ValidatorMessage[] msgs = vr.getMessages();
 //			if (sanityTest(msgs.length, resource)){
-				MarkerManager mm = MarkerManager.getDefault();
-				for (ValidatorMessage m : msgs){
-					mm.createMarker(m, getId());
-				}
+				MarkerManager.getDefault().createMarkers(msgs, getId(), operation.getMarkerBatch(resource));
 //			}
 //			else {
 //				setBuildValidation(false);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2012 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v2.0
  * which accompanies this distribution, and is available at
@@ -10,19 +10,17 @@
  *******************************************************************************/
 package org.eclipse.wst.validation.internal;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -39,344 +37,573 @@ import org.eclipse.wst.validation.Validator;
 import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
 
 /**
- * A simple implementation of the IDependencyIndex. This will probably be
- * replaced with a higher performance, more robust index, at some point in the
- * future.
+ * An implementation of the IDependencyIndex.
  * <p>
- * The format of the index is:
- * 
- * <pre>
- * Version number
- * Number of depends on entries
- *   depends on file name
- *   number of dependent entries
- *     dependent file name
- *     number of validators
- *       validator id
- * </pre>
- * 
+ * The validator ids and resource paths are interned into a single string table, so that a dependency is
+ * just three integers: the validator, the dependent and the depends on. The dependencies are held in two
+ * adjacency indexes, one keyed by the depends on resource, and one keyed by the dependent resource. Each
+ * adjacency list is a packed array of longs rather than a set of objects.
+ * </p>
+ * <p>
+ * The index is persisted in a {@link DependencyLog}. Changes are appended to the log when the workspace is
+ * saved, rather than rewriting the whole index, and the log is compacted once it holds more dead records
+ * than live ones. The index isn't read until it is first used.
+ * </p>
  * @author karasiuk
  */
 public class DependencyIndex implements IDependencyIndex, ISaveParticipant {
-	
+
+	/** The strings (validator ids and resource paths) indexed by their id. Unused ids are null. */
+	private String[]				_strings;
+
+	/** The resources for the path ids, these are resolved as they are needed. */
+	private IResource[]				_resources;
+
+	private Map<String, Integer>	_ids;
+	private int						_nextId;
+
 	/**
-	 * An index so that we can determine which things depend on this resource.
+	 * An index so that we can determine which things depend on this resource. The key is the id of the
+	 * depends on resource, and each edge is a dependent and a validator.
 	 */
-	private Map<IResource,Set<Depends>>		_dependsOn;
-	
+	private Map<Integer, Edges>		_dependsOn;
+
 	/**
-	 * An index so that we can determine who the resource depends on.
+	 * An index so that we can determine who the resource depends on. The key is the id of the dependent
+	 * resource, and each edge is a depends on and a validator.
 	 */
-	private Map<IResource,Set<Depends>>		_dependents;
-	private boolean _dirty;
-	
+	private Map<Integer, Edges>		_dependents;
+
+	/** The number of dependencies in the index. */
+	private int						_edges;
+
+	private DependencyLog			_log;
+
+	/** The records that have not yet been written to the log. */
+	private ByteArrayOutputStream	_pendingBytes;
+	private DataOutputStream		_pending;
+	private int						_pendingCount;
+
+	/** Does the log need to be completely rewritten on the next save? */
+	private boolean					_rewrite;
+
 	private static IResource[] EmptyResources = new IResource[0];
-	
-	/** Version of the persistent index. */
-	private static final int CurrentVersion = 1;
+
+	/** The log isn't compacted until it has at least this many records. */
+	private static final int CompactThreshold = 10000;
+
+	/** Version of the old persistent index. */
+	private static final int OldVersion = 1;
 
 	public synchronized void add(String id, IResource dependent, IResource dependsOn) {
 		init();
 		if (dependsOn == null || dependent == null)return;
-		Depends d = getOrCreateDepends(dependent, dependsOn);
-		if (d.getValidators().add(id))_dirty = true;
+		add(intern(id), internResource(dependent), internResource(dependsOn), true);
+	}
+
+	/**
+	 * Add a dependency.
+	 *
+	 * @param log
+	 *            Should the change be written to the log?
+	 * @return true if the dependency was added, and false if it already existed.
+	 */
+	private boolean add(int validator, int dependent, int dependsOn, boolean log){
+		if (!getEdges(_dependents, dependent).add(dependsOn, validator))return false;
+		getEdges(_dependsOn, dependsOn).add(dependent, validator);
+		_edges++;
+		if (log)logEdge(DependencyLog.TypeAdd, validator, dependent, dependsOn);
+		return true;
+	}
+
+	/**
+	 * Remove a dependency.
+	 *
+	 * @param log
+	 *            Should the change be written to the log?
+	 * @return true if the dependency was removed, and false if it didn't exist.
+	 */
+	private boolean remove(int validator, int dependent, int dependsOn, boolean log){
+		if (!removeEdge(_dependents, dependent, dependsOn, validator))return false;
+		removeEdge(_dependsOn, dependsOn, dependent, validator);
+		_edges--;
+		if (log)logEdge(DependencyLog.TypeRemove, validator, dependent, dependsOn);
+		return true;
+	}
+
+	private boolean removeEdge(Map<Integer, Edges> map, int key, int other, int validator){
+		Edges edges = map.get(key);
+		if (edges == null || !edges.remove(other, validator))return false;
+		if (edges.size() == 0)map.remove(key);
+		return true;
+	}
+
+	/**
+	 * Answer the edges for the key, creating them if you need to.
+	 */
+	private Edges getEdges(Map<Integer, Edges> map, int key) {
+		Edges edges = map.get(key);
+		if (edges == null){
+			edges = new Edges();
+			map.put(key, edges);
+		}
+		return edges;
+	}
+
+	/**
+	 * Answer the id of the string, adding it to the string table if it isn't already there.
+	 */
+	private int intern(String value){
+		Integer id = _ids.get(value);
+		if (id != null)return id;
+		int i = _nextId++;
+		setString(i, value);
+		try {
+			DependencyLog.writeString(_pending, i, value);
+			_pendingCount++;
+		}
+		catch (IOException e){
+			// we are writing to memory, this can't happen
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		return i;
 	}
-	
-	private Depends getOrCreateDepends(IResource dependent, IResource dependsOn) {
-		Set<Depends> set = getSet(_dependents, dependent);
-		for (Depends d : set){
-			if (d.getDependsOn() != null && d.getDependsOn().equals(dependsOn)) return d;
-		}
-		Depends d = new Depends(dependent, dependsOn);
-		_dirty = true;
-		set.add(d);
-		
-		getSet(_dependsOn, dependsOn).add(d);
-		return d;
+
+	private int internResource(IResource resource){
+		int id = intern(resource.getFullPath().toPortableString());
+		if (_resources[id] == null)_resources[id] = resource;
+		return id;
+	}
+
+	/**
+	 * Answer the id of the resource, or -1 if it isn't in the index.
+	 */
+	private int find(IResource resource){
+		if (resource == null)return -1;
+		Integer id = _ids.get(resource.getFullPath().toPortableString());
+		if (id == null)return -1;
+		return id;
 	}
 
 	/**
-	 * Answer the set for the resource, creating it if you need to.
+	 * Answer the resource for the id.
+	 *
+	 * @return null if the resource can no longer be found.
 	 */
-	private Set<Depends> getSet(Map<IResource, Set<Depends>> map, IResource resource) {
-		Set<Depends> set = map.get(resource);
-		if (set == null){
-			set = new HashSet<Depends>(5);
-			map.put(resource, set);
+	private IResource getResource(int id){
+		IResource res = _resources[id];
+		if (res == null){
+			IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+			res = root.findMember(_strings[id]);
+			if (res == null)Tracing.log(NLS.bind(ValMessages.Error21, _strings[id]));
+			_resources[id] = res;
+		}
+		return res;
+	}
+
+	private void setString(int id, String value){
+		if (id >= _strings.length){
+			int size = Math.max(id+1, _strings.length*2);
+			String[] strings = new String[size];
+			System.arraycopy(_strings, 0, strings, 0, _strings.length);
+			_strings = strings;
+			IResource[] resources = new IResource[size];
+			System.arraycopy(_resources, 0, resources, 0, _resources.length);
+			_resources = resources;
+		}
+		_strings[id] = value;
+		_ids.put(value, id);
+		if (id >= _nextId)_nextId = id+1;
+	}
+
+	/**
+	 * Answer true if the id is the id of a string that we have read. A corrupt log can refer to strings
+	 * that it never defined.
+	 */
+	private boolean isDefined(int id){
+		return id >= 0 && id < _nextId && _strings[id] != null;
+	}
+
+	private void logEdge(byte type, int validator, int dependent, int dependsOn){
+		try {
+			DependencyLog.writeEdge(_pending, type, validator, dependent, dependsOn);
+			_pendingCount++;
+		}
+		catch (IOException e){
+			// we are writing to memory, this can't happen
+			ValidationPlugin.getPlugin().handleException(e);
 		}
-		return set;
+	}
+
+	private void resetPending(){
+		_pendingBytes = new ByteArrayOutputStream(1024);
+		_pending = new DataOutputStream(_pendingBytes);
+		_pendingCount = 0;
+	}
+
+	private void reset(){
+		_strings = new String[256];
+		_resources = new IResource[256];
+		_ids = new HashMap<String, Integer>(256);
+		_nextId = 0;
+		_dependsOn = new HashMap<Integer, Edges>(100);
+		_dependents = new HashMap<Integer, Edges>(100);
+		_edges = 0;
+		resetPending();
 	}
 
 	/**
-	 * Restore the dependency index. See the class comment for the structure.
-	 */	
+	 * Restore the dependency index from it's log.
+	 */
 	private void init() {
 		if (_dependsOn != null)return;
-		
-		boolean error = false;
-		File f = getIndexLocation();
-		if (!f.exists() || f.length() == 0){
-			_dependsOn = new HashMap<IResource,Set<Depends>>(100);
-			_dependents = new HashMap<IResource,Set<Depends>>(100);
-		}
-		else {
-			String errorMessage = ValMessages.Error21; 
-			DataInputStream in = null;
-			try {
-				IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-				in = new DataInputStream(new FileInputStream(f));
-				
-				int version = in.readInt();
-				if (version != CurrentVersion){
-					error = true;
-					String msg = NLS.bind(ValMessages.ErrDependencyVersion, CurrentVersion);
-					throw new IllegalStateException(msg);
+
+		reset();
+		_log = new DependencyLog(getLocation("dep.log")); //$NON-NLS-1$
+		boolean ok = false;
+		try {
+			ok = _log.read(new DependencyLog.Reader() {
+
+				public boolean string(int id, String value) {
+					if (id < 0)return false;
+					setString(id, value);
+					return true;
 				}
-				int numDependsOn = in.readInt();
-				_dependsOn = new HashMap<IResource,Set<Depends>>(numDependsOn+100);
-				_dependents = new HashMap<IResource,Set<Depends>>(numDependsOn+100);
-				for (int i=0; i<numDependsOn; i++){
-					String v = in.readUTF();
-					IResource dependsOn = root.findMember(v);
-					if (dependsOn == null){
-						Tracing.log(NLS.bind(errorMessage, v));
-					}
-					int numDependents = in.readInt();
-					for (int j=0; j<numDependents; j++){
-						v = in.readUTF();
-						IResource dependent = root.findMember(v);
-						if (dependent == null){
-							Tracing.log(NLS.bind(errorMessage, v));
-						}
-						int numVal = in.readInt();
-						for (int k=0; k<numVal; k++){
-							String id = in.readUTF();
-							if (dependent != null && dependsOn != null)add(id, dependent, dependsOn);
-						}
-					}					
-				}				
-			}
-			catch (EOFException e){
-				error = true;
-				Tracing.log("Unable to read the dependency index file because of EOF exception");  //$NON-NLS-1$
+
+				public boolean remove(int validator, int dependent, int dependsOn) {
+					if (!isDefined(validator) || !isDefined(dependent) || !isDefined(dependsOn))return false;
+					DependencyIndex.this.remove(validator, dependent, dependsOn, false);
+					return true;
+				}
+
+				public boolean add(int validator, int dependent, int dependsOn) {
+					if (!isDefined(validator) || !isDefined(dependent) || !isDefined(dependsOn))return false;
+					DependencyIndex.this.add(validator, dependent, dependsOn, false);
+					return true;
+				}
+			});
+		}
+		catch (IOException e){
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+
+		if (!ok){
+			reset();
+			_rewrite = true;
+			File old = getLocation("dep.index"); //$NON-NLS-1$
+			if (old.exists()){
+				readOldIndex(old);
+				old.delete();
 			}
-			catch (IOException e){
+		}
+		if (Tracing.isLogging())Tracing.log("DependencyIndex-01: restored dependencies: ", _edges); //$NON-NLS-1$
+	}
+
+	/**
+	 * Read the index that was written by earlier versions of the framework. The format of that index is:
+	 *
+	 * <pre>
+	 * Version number
+	 * Number of depends on entries
+	 *   depends on file name
+	 *   number of dependent entries
+	 *     dependent file name
+	 *     number of validators
+	 *       validator id
+	 * </pre>
+	 */
+	private void readOldIndex(File f){
+		if (f.length() == 0)return;
+		boolean error = false;
+		String errorMessage = ValMessages.Error21;
+		DataInputStream in = null;
+		try {
+			IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+			in = new DataInputStream(new FileInputStream(f));
+
+			int version = in.readInt();
+			if (version != OldVersion){
 				error = true;
-				ValidationPlugin.getPlugin().handleException(e);
+				String msg = NLS.bind(ValMessages.ErrDependencyVersion, OldVersion);
+				throw new IllegalStateException(msg);
 			}
-			finally {
-				Misc.close(in);
-				if (error){
-					_dependsOn = new HashMap<IResource,Set<Depends>>(100);
-					_dependents = new HashMap<IResource,Set<Depends>>(100);
-					f.delete();
+			int numDependsOn = in.readInt();
+			for (int i=0; i<numDependsOn; i++){
+				String v = in.readUTF();
+				IResource dependsOn = root.findMember(v);
+				if (dependsOn == null){
+					Tracing.log(NLS.bind(errorMessage, v));
 				}
-			}			
+				int numDependents = in.readInt();
+				for (int j=0; j<numDependents; j++){
+					v = in.readUTF();
+					IResource dependent = root.findMember(v);
+					if (dependent == null){
+						Tracing.log(NLS.bind(errorMessage, v));
+					}
+					int numVal = in.readInt();
+					for (int k=0; k<numVal; k++){
+						String id = in.readUTF();
+						if (dependent != null && dependsOn != null)add(id, dependent, dependsOn);
+					}
+				}
+			}
+		}
+		catch (EOFException e){
+			error = true;
+			Tracing.log("Unable to read the dependency index file because of EOF exception");  //$NON-NLS-1$
+		}
+		catch (IOException e){
+			error = true;
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		finally {
+			Misc.close(in);
+			if (error)reset();
 		}
 	}
 
 	public synchronized void clear(IProject project) {
 		init();
-		for (Map.Entry<IResource,Set<Depends>> me : _dependents.entrySet()){
-			IResource key = me.getKey();
-			if (key != null && key.getProject() == project){
-				for (Depends d : me.getValue()){
-					if (d.delete())_dirty = true;
-				}
-			}
+		String prefix = project.getFullPath().toPortableString();
+		List<Integer> dependents = new LinkedList<Integer>();
+		for (Integer id : _dependents.keySet()){
+			String path = _strings[id];
+			if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/'))
+				dependents.add(id);
 		}
+		for (Integer id : dependents)removeAll(id, null);
+	}
+
+	/**
+	 * Remove all the dependencies of the dependent.
+	 *
+	 * @param validatorId
+	 *            If this is not null, only the dependencies that were asserted
+	 *            by this validator are removed.
+	 */
+	private void removeAll(int dependent, Integer validatorId){
+		Edges edges = _dependents.get(dependent);
+		if (edges == null)return;
+		for (int i=edges.size()-1; i>=0; i--){
+			int validator = edges.validator(i);
+			if (validatorId == null || validatorId == validator)remove(validator, dependent, edges.other(i), true);
+		}
+	}
+
+	/**
+	 * Answer all the resources that this resource depends on, for the given validator.
+	 *
+	 * @param validatorId the validator that asserted the dependencies.
+	 * @param dependent the resource that depends on other resources.
+	 * @return an empty array if the resource doesn't depend on anything.
+	 */
+	public synchronized IResource[] getDependsOn(String validatorId, IResource dependent) {
+		init();
+		Integer validator = _ids.get(validatorId);
+		int id = find(dependent);
+		if (validator == null || id == -1)return EmptyResources;
+		return collect(_dependents.get(id), validator);
 	}
 
 	public synchronized IResource[] get(String validatorId, IResource dependsOn) {
 		init();
+		Integer validator = _ids.get(validatorId);
+		int id = find(dependsOn);
+		if (validator == null || id == -1)return EmptyResources;
+		return collect(_dependsOn.get(id), validator);
+	}
+
+	/**
+	 * Answer the resources at the other end of the edges that were asserted by the validator.
+	 */
+	private IResource[] collect(Edges edges, int validator){
+		if (edges == null)return EmptyResources;
 		List<IResource> list = new LinkedList<IResource>();
-		Set<Depends> set = getSet(_dependsOn, dependsOn);
-		for (Depends d : set){
-			for (String id : d.getValidators()){
-				if (validatorId.equals(id))list.add(d.getDependent());
-			}
+		for (int i=0; i<edges.size(); i++){
+			if (edges.validator(i) != validator)continue;
+			IResource res = getResource(edges.other(i));
+			if (res != null)list.add(res);
 		}
-		
+
 		if (list.size() == 0)return EmptyResources;
 		IResource[] resources = new IResource[list.size()];
 		list.toArray(resources);
 		return resources;
 	}
 
-	
 	public synchronized List<DependentResource> get(IResource dependsOn) {
 		init();
 		List<DependentResource> list = new LinkedList<DependentResource>();
-		Set<Depends> set = getSet(_dependsOn, dependsOn);
+		int id = find(dependsOn);
+		Edges edges = id == -1 ? null : _dependsOn.get(id);
+		if (edges == null)return list;
 		ValManager vm = ValManager.getDefault();
-		for (Depends d : set){
-			for (String id : d.getValidators()){
-				Validator v = vm.getValidator(id, d.getDependent().getProject());
-				if (v != null)list.add(new DependentResource(d.getDependent(), v));
-			}
+		for (int i=0; i<edges.size(); i++){
+			IResource dependent = getResource(edges.other(i));
+			if (dependent == null)continue;
+			Validator v = vm.getValidator(_strings[edges.validator(i)], dependent.getProject());
+			if (v != null)list.add(new DependentResource(dependent, v));
 		}
 		return list;
 	}
 
-
 	public synchronized void set(String id, IResource dependent, IResource[] dependsOn) {
 		init();
-		Set<Depends> set = getSet(_dependents, dependent);
-		for (Depends d : set){
-			if (d.delete(id))_dirty = true;
-		}
+		int dep = find(dependent);
+		Integer validator = _ids.get(id);
+		if (dep != -1 && validator != null)removeAll(dep, validator);
 		if (dependsOn != null){
 			for (IResource d : dependsOn)add(id, dependent, d);
 		}
 	}
-		
+
 	public synchronized boolean isDependedOn(IResource resource) {
 		init();
-		Set<Depends> set = _dependsOn.get(resource);
-		if (set == null || set.size() == 0)return false;
-		return true;
+		int id = find(resource);
+		if (id == -1)return false;
+		Edges edges = _dependsOn.get(id);
+		return edges != null && edges.size() > 0;
 	}
 
-	public void doneSaving(ISaveContext context) {	
+	public void doneSaving(ISaveContext context) {
 	}
-	
-	public void prepareToSave(ISaveContext context) throws CoreException {	
+
+	public void prepareToSave(ISaveContext context) throws CoreException {
 	}
-	
+
 	public void rollback(ISaveContext context) {
 	}
-	
+
 	/**
-	 * Persist the dependency index. See the class comment for the structure.
+	 * Persist the dependency index, by appending the changes to the log, or by compacting the log if it has
+	 * too many dead records.
 	 */
 	public synchronized void saving(ISaveContext context) throws CoreException {
-		if (!_dirty)return;
-		_dirty = false;
-		boolean error = false;
-		DataOutputStream out = null;
-		File f = null;
+		if (_log == null)return;
+		if (_pendingCount == 0 && !_rewrite)return;
 		try {
-			f = getIndexLocation();
-			out = new DataOutputStream(new FileOutputStream(f));
-			out.writeInt(CurrentVersion);
-			Map<String, Set<DependsResolved>> map = compress(_dependsOn);
-			out.writeInt(map.size());
-			for (Map.Entry<String, Set<DependsResolved>> me : map.entrySet()){
-				out.writeUTF(me.getKey());
-				Set<DependsResolved> set = me.getValue();
-				out.writeInt(set.size());
-				for (DependsResolved d : set){
-					out.writeUTF(d.resource);
-					out.writeInt(d.validators.size());
-					for (String id : d.validators){
-						out.writeUTF(id);
-					}
-				}
+			int records = _log.getRecords() + _pendingCount;
+			if (_rewrite || (records > CompactThreshold && records > 2 * (_edges + _ids.size()))){
+				compact();
+			}
+			else {
+				_pending.flush();
+				_log.append(_pendingBytes.toByteArray(), _pendingCount);
 			}
+			resetPending();
+			_rewrite = false;
 		}
 		catch (IOException e){
-			error = true;
 			ValidationPlugin.getPlugin().handleException(e);
-		}
-		finally {		
-			Misc.close(out);
-			if (error)f.delete();
+			_log.delete();
+			_rewrite = true;
 		}
 	}
 
-	private Map<String, Set<DependsResolved>> compress(Map<IResource, Set<Depends>> dependsOn) {
-		Map<String, Set<DependsResolved>> map = new HashMap<String, Set<DependsResolved>>(dependsOn.size());
-		for (Map.Entry<IResource, Set<Depends>> me : dependsOn.entrySet()){
-			Set<DependsResolved> set = new HashSet<DependsResolved>(me.getValue().size());
-			for (Depends d : me.getValue()){
-				IPath path = d.getDependent().getFullPath();
-				if (path != null){
-					DependsResolved dr = new DependsResolved(path.toPortableString(), d.getValidators());
-					if (dr.validators.size() > 0){
-						set.add(dr);
-					}
-				}				
+	/**
+	 * Rewrite the log with just the live records. The strings that are no longer used are dropped, but the
+	 * remaining strings keep their ids.
+	 */
+	private void compact() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(_edges * 13 + 1024);
+		DataOutputStream out = new DataOutputStream(bytes);
+		int count = 0;
+		boolean[] used = new boolean[_nextId];
+		for (Map.Entry<Integer, Edges> me : _dependents.entrySet()){
+			used[me.getKey()] = true;
+			Edges edges = me.getValue();
+			for (int i=0; i<edges.size(); i++){
+				used[edges.other(i)] = true;
+				used[edges.validator(i)] = true;
 			}
-			if (set.size() > 0){
-				IResource res = me.getKey();
-				if (res != null){
-					IPath path = res.getFullPath();
-					if (path != null)map.put(path.toPortableString(), set);
-				}
+		}
+		for (int i=0; i<used.length; i++){
+			if (!used[i])continue;
+			DependencyLog.writeString(out, i, _strings[i]);
+			count++;
+		}
+		for (Map.Entry<Integer, Edges> me : _dependents.entrySet()){
+			Edges edges = me.getValue();
+			for (int i=0; i<edges.size(); i++){
+				DependencyLog.writeEdge(out, DependencyLog.TypeAdd, edges.validator(i), me.getKey(), edges.other(i));
+				count++;
 			}
 		}
-		return map;
+		out.flush();
+		_log.rewrite(bytes.toByteArray(), count);
+
+		// drop the strings that are no longer used, so that they get logged again if they are reused
+		for (int i=0; i<used.length; i++){
+			if (used[i] || _strings[i] == null)continue;
+			_ids.remove(_strings[i]);
+			_strings[i] = null;
+			_resources[i] = null;
+		}
+		if (Tracing.isLogging())Tracing.log("DependencyIndex-02: compacted the dependency log, records: ", count); //$NON-NLS-1$
 	}
 
-	private File getIndexLocation() {
-		IPath path = ValidationPlugin.getPlugin().getStateLocation().append("dep.index"); //$NON-NLS-1$
+	private File getLocation(String name) {
+		IPath path = ValidationPlugin.getPlugin().getStateLocation().append(name);
 		return path.toFile();
 	}
 
 	/**
-	 * Keep track of a relationship between a dependent and the thing that it
-	 * depends on.
-	 * 
-	 * @author karasiuk
-	 * 
+	 * The edges for one end of a set of dependencies. Each edge is the id of the resource at the other end
+	 * of the dependency, and the id of the validator that asserted it, packed into a long.
 	 */
-	private final static class Depends {
-
-		/** The resource that is being depended on, for example a.xsd */
-		private final IResource _dependsOn;
+	private final static class Edges {
 
-		/** The resource that is dependent, for example a.xml */
-		private final IResource _dependent;
-
-		/** The id's of the validators that have asserted the dependency. */
-		private final Set<String> _validators;
-
-		public Depends(IResource dependent, IResource dependsOn) {
-			_dependent = dependent;
-			_dependsOn = dependsOn;
-			_validators = new HashSet<String>(5);
-		}
+		private long[]	_items = new long[2];
+		private int		_size;
 
 		/**
-		 * Answer true if the id was deleted.
+		 * Answer true if the edge was added, and false if it was already there.
 		 */
-		public boolean delete(String id) {
-			return _validators.remove(id);
+		public boolean add(int other, int validator){
+			long item = pack(other, validator);
+			if (indexOf(item) != -1)return false;
+			if (_size == _items.length){
+				long[] items = new long[_size*2];
+				System.arraycopy(_items, 0, items, 0, _size);
+				_items = items;
+			}
+			_items[_size++] = item;
+			return true;
 		}
 
 		/**
-		 * Delete all the dependency assertions for all of your validators.
-		 * @return false if there was nothing to delete
+		 * Answer true if the edge was removed.
 		 */
-		public boolean delete() {
-			boolean deleted = _validators.size() > 0;
-			if (deleted)_validators.clear();
-			return deleted;
+		public boolean remove(int other, int validator){
+			int i = indexOf(pack(other, validator));
+			if (i == -1)return false;
+			_items[i] = _items[--_size];
+			return true;
 		}
 
-		public IResource getDependsOn() {
-			return _dependsOn;
+		public int size(){
+			return _size;
 		}
 
-		public IResource getDependent() {
-			return _dependent;
+		public int other(int i){
+			return (int)(_items[i] >>> 32);
 		}
 
-		public Set<String> getValidators() {
-			return _validators;
+		public int validator(int i){
+			return (int)_items[i];
 		}
-}
 
-	private final static class DependsResolved {
-		final String 		resource;
-		final Set<String> validators;
-		
-		DependsResolved(String resource, Set<String> validators){
-			this.resource = resource;
-			this.validators = validators;
-			
+		private int indexOf(long item){
+			for (int i=0; i<_size; i++){
+				if (_items[i] == item)return i;
+			}
+			return -1;
 		}
-	}
 
+		private static long pack(int other, int validator){
+			return ((long)other << 32) | (validator & 0xffffffffL);
+		}
+	}
 
 }
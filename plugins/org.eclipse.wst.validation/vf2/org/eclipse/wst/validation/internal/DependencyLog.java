@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The persistent storage for the dependency index. It is an append only log of records. Each save only
+ * appends the records that have changed since the last save, and every so often the log is compacted, by
+ * rewriting it with just the live records.
+ * <p>
+ * The format of the log is:
+ *
+ * <pre>
+ * Magic number
+ * Version number
+ * Records, each of which is one of:
+ *   String:  type, id, length, UTF-8 bytes
+ *   Add:     type, validator id, dependent id, depends on id
+ *   Remove:  type, validator id, dependent id, depends on id
+ * </pre>
+ *
+ * The string records intern the validator ids and the resource paths, so that the rest of the records only
+ * need to refer to them by their integer id. A string record always comes before the first record that
+ * uses it.
+ * </p>
+ * <p>
+ * The log is read into a buffer in one go. It is not memory mapped, since on Windows a mapped file can't be
+ * truncated or deleted until the mapping has been garbage collected. If the last record is incomplete
+ * (because we were interrupted while appending to it), the log is read up to the last complete record, and
+ * the partial record is dropped on the next append.
+ * </p>
+ */
+public final class DependencyLog {
+
+	public final static byte TypeString = 1;
+	public final static byte TypeAdd = 2;
+	public final static byte TypeRemove = 3;
+
+	private final static int Magic = 0x5644504C;
+
+	/** Version of the log. */
+	private final static int CurrentVersion = 1;
+
+	private final static int HeaderLength = 8;
+
+	private final File	_file;
+
+	/** The length of the log, up to and including the last complete record. */
+	private long		_validLength;
+
+	/** The number of records in the log. */
+	private int			_records;
+
+	public DependencyLog(File file){
+		_file = file;
+	}
+
+	/**
+	 * Read all the records in the log, passing them to the reader.
+	 *
+	 * @return false if the log doesn't exist, if it isn't in a format that we understand, or if the reader
+	 * rejected one of it's records. In each case the caller needs to rewrite the log.
+	 */
+	public boolean read(Reader reader) throws IOException {
+		_validLength = 0;
+		_records = 0;
+		if (!_file.exists() || _file.length() < HeaderLength)return false;
+
+		RandomAccessFile raf = new RandomAccessFile(_file, "r"); //$NON-NLS-1$
+		try {
+			FileChannel channel = raf.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate((int)channel.size());
+			while (buffer.hasRemaining()){
+				if (channel.read(buffer) < 0)break;
+			}
+			buffer.flip();
+			if (buffer.getInt() != Magic || buffer.getInt() != CurrentVersion)return false;
+			_validLength = buffer.position();
+			try {
+				while (buffer.hasRemaining()){
+					byte type = buffer.get();
+					switch (type){
+					case TypeString:
+						int id = buffer.getInt();
+						byte[] bytes = new byte[buffer.getInt()];
+						buffer.get(bytes);
+						if (!reader.string(id, new String(bytes, "UTF-8")))return rejected(); //$NON-NLS-1$
+						break;
+					case TypeAdd:
+						if (!reader.add(buffer.getInt(), buffer.getInt(), buffer.getInt()))return rejected();
+						break;
+					case TypeRemove:
+						if (!reader.remove(buffer.getInt(), buffer.getInt(), buffer.getInt()))return rejected();
+						break;
+					default:
+						Tracing.log("DependencyLog-01: unknown record type, ignoring the rest of the log: ", type); //$NON-NLS-1$
+						return true;
+					}
+					_records++;
+					_validLength = buffer.position();
+				}
+			}
+			catch (BufferUnderflowException e){
+				Tracing.log("DependencyLog-02: the last record of the dependency log was incomplete"); //$NON-NLS-1$
+			}
+			catch (NegativeArraySizeException e){
+				Tracing.log("DependencyLog-03: the last record of the dependency log was corrupt"); //$NON-NLS-1$
+			}
+		}
+		finally {
+			Misc.close(raf);
+		}
+		return true;
+	}
+
+	private boolean rejected(){
+		Tracing.log("DependencyLog-04: a record of the dependency log was rejected"); //$NON-NLS-1$
+		_validLength = 0;
+		_records = 0;
+		return false;
+	}
+
+	/**
+	 * Add some records to the end of the log.
+	 *
+	 * @param records
+	 *            The encoded records.
+	 * @param count
+	 *            The number of records.
+	 */
+	public void append(byte[] records, int count) throws IOException {
+		if (_validLength < HeaderLength){
+			rewrite(records, count);
+			return;
+		}
+		RandomAccessFile raf = new RandomAccessFile(_file, "rw"); //$NON-NLS-1$
+		try {
+			if (raf.length() != _validLength)raf.setLength(_validLength);
+			raf.seek(_validLength);
+			raf.write(records);
+			_validLength += records.length;
+			_records += count;
+		}
+		finally {
+			Misc.close(raf);
+		}
+	}
+
+	/**
+	 * Replace the log with these records. The new log is written to a temporary file first, so that an
+	 * interrupted rewrite doesn't lose the old log.
+	 *
+	 * @param records
+	 *            The encoded records.
+	 * @param count
+	 *            The number of records.
+	 */
+	public void rewrite(byte[] records, int count) throws IOException {
+		File temp = new File(_file.getPath() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = null;
+		boolean error = true;
+		try {
+			out = new DataOutputStream(new FileOutputStream(temp));
+			out.writeInt(Magic);
+			out.writeInt(CurrentVersion);
+			out.write(records);
+			out.close();
+			out = null;
+			if (_file.exists() && !_file.delete())throw new IOException("Unable to replace " + _file); //$NON-NLS-1$
+			if (!temp.renameTo(_file))throw new IOException("Unable to rename " + temp); //$NON-NLS-1$
+			error = false;
+		}
+		finally {
+			Misc.close(out);
+			if (error)temp.delete();
+		}
+		_validLength = HeaderLength + records.length;
+		_records = count;
+	}
+
+	/**
+	 * Answer the number of records in the log.
+	 */
+	public int getRecords(){
+		return _records;
+	}
+
+	public void delete(){
+		_file.delete();
+		_validLength = 0;
+		_records = 0;
+	}
+
+	public static void writeString(DataOutputStream out, int id, String value) throws IOException {
+		byte[] bytes = encode(value);
+		out.writeByte(TypeString);
+		out.writeInt(id);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	public static void writeEdge(DataOutputStream out, byte type, int validator, int dependent, int dependsOn)
+		throws IOException {
+		out.writeByte(type);
+		out.writeInt(validator);
+		out.writeInt(dependent);
+		out.writeInt(dependsOn);
+	}
+
+	private static byte[] encode(String value){
+		try {
+			return value.getBytes("UTF-8"); //$NON-NLS-1$
+		}
+		catch (UnsupportedEncodingException e){
+			// UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Receives the records as they are read from the log. Each method answers false if the record is not
+	 * valid, which stops the read.
+	 */
+	public interface Reader {
+		boolean string(int id, String value);
+		boolean add(int validator, int dependent, int dependsOn);
+		boolean remove(int validator, int dependent, int dependsOn);
+	}
+
+}
@@ -49,6 +49,20 @@ public interface ExtensionConstants {
 	 * description - user-visible description for the validator, e.g. for clarifying the contexts in which it would be used
 	 */
 	String description = "description"; //$NON-NLS-1$
+	
+	/**
+	 * threadSafe - can this validator be run on several resources at the same time? true or false. This is
+	 * an optional attribute, the default is false, which means that the validator is only ever called from
+	 * one thread at a time.
+	 */
+	String threadSafe = "threadSafe"; //$NON-NLS-1$
+	
+	/**
+	 * cacheable - do the validator's results depend only on the contents of the resource, and the resources 
+	 * that it has declared as dependencies? true or false. If true the framework may replay earlier results
+	 * instead of calling the validator. This is an optional attribute, the default is false.
+	 */
+	String cacheable = "cacheable"; //$NON-NLS-1$
 
 	/** 
 	 * version - the version of this definition. The attribute is a simple integer, and if not specified it
@@ -0,0 +1,431 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.validation.Friend;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.internal.model.FilterGroup;
+import org.eclipse.wst.validation.internal.model.FilterRule;
+
+/**
+ * The filters of all the validators for a project, compiled into a single structure so that the validators
+ * that apply to a resource can be determined in one pass.
+ * <p>
+ * Each filter group of each version 2 validator is given a slot. The rules are merged across all the
+ * validators:
+ * <ul>
+ * <li>file extension rules go into hash tables (one case sensitive, one not)</li>
+ * <li>file, folder and full path rules go into prefix tries</li>
+ * <li>the remaining rules (patterns, content types and the project level rules) are de-duplicated, so that
+ * a rule that is used by several validators is only evaluated once. They are only evaluated if one of their
+ * groups is still undecided, so for example the content type of a file isn't determined unless it could
+ * make a difference.</li>
+ * </ul>
+ * A rule that matches marks the slots of the groups that it belongs to. An include group passes if it has
+ * no rules or one of it's rules matched, and an exclude group passes if none of it's rules matched. This is
+ * the same answer that {@link FilterGroup#shouldValidate(IProject, IResource, ContentTypeWrapper)} gives.
+ * </p>
+ * <p>
+ * Version 1 validators, validators whose filters use rules that we don't know about, and validators that
+ * are being traced, are simply asked directly.
+ * </p>
+ * <p>
+ * A matcher is immutable, and is built once for each set of validators.
+ * </p>
+ */
+public final class FilterMatcher {
+
+	private final Validator[]	_validators;
+
+	/** The validators that are asked directly. */
+	private final BitSet		_direct = new BitSet();
+
+	/** The slots of each validator's groups, indexed by the validator. Null for the direct validators. */
+	private final int[][]		_validatorSlots;
+
+	/** The validator index of each slot. */
+	private final int[]			_slotValidator;
+
+	private final boolean[]		_slotExclude;
+
+	/** Include groups that don't have any rules always pass. */
+	private final boolean[]		_slotEmpty;
+
+	private final Map<String, int[]>	_extCase = new HashMap<String, int[]>(50);
+	private final Map<String, int[]>	_extNoCase = new HashMap<String, int[]>(50);
+
+	/** The path tries, indexed by file type (less one) and whether they are case sensitive. */
+	private final PrefixTrie[]	_tries = new PrefixTrie[6];
+
+	/** The remaining resource level rules. */
+	private final SharedRule[]	_resourceRules;
+
+	/** The project level rules. */
+	private final SharedRule[]	_projectRules;
+
+	public FilterMatcher(Validator[] validators){
+		_validators = validators;
+		_validatorSlots = new int[validators.length][];
+
+		List<Boolean> excludes = new LinkedList<Boolean>();
+		List<Boolean> empties = new LinkedList<Boolean>();
+		List<Integer> owners = new LinkedList<Integer>();
+		Map<String, List<Integer>> extCase = new HashMap<String, List<Integer>>(50);
+		Map<String, List<Integer>> extNoCase = new HashMap<String, List<Integer>>(50);
+		Map<String, SharedRuleBuilder> resourceRules = new LinkedHashMap<String, SharedRuleBuilder>(20);
+		Map<String, SharedRuleBuilder> projectRules = new LinkedHashMap<String, SharedRuleBuilder>(20);
+
+		int slot = 0;
+		for (int i=0; i<validators.length; i++){
+			Validator.V2 v2 = validators[i].asV2Validator();
+			FilterGroup[] groups = v2 == null ? null : v2.getGroups();
+			if (groups == null || !isKnown(groups)){
+				_direct.set(i);
+				continue;
+			}
+			int[] slots = new int[groups.length];
+			for (int j=0; j<groups.length; j++){
+				FilterGroup group = groups[j];
+				FilterRule[] rules = group.getRules();
+				slots[j] = slot;
+				owners.add(i);
+				excludes.add(group.isExclude());
+				empties.add(group.isInclude() && rules.length == 0);
+				for (FilterRule rule : rules){
+					if (rule instanceof FilterRule.FileExt){
+						FilterRule.FileExt ext = (FilterRule.FileExt)rule;
+						if (ext.getPattern() == null)continue;
+						if (ext.isCaseSensitive())addSlot(extCase, ext.getPattern(), slot);
+						else addSlot(extNoCase, ext.getPattern().toLowerCase(), slot);
+					}
+					else if (rule instanceof FilterRule.File){
+						FilterRule.File file = (FilterRule.File)rule;
+						if (file.getPattern() == null)continue;
+						int t = trieIndex(file.getFileType(), file.isCaseSensitive());
+						String pattern = file.isCaseSensitive() ? file.getPattern() : file.getPattern().toLowerCase();
+						if (_tries[t] == null)_tries[t] = new PrefixTrie();
+						_tries[t].add(pattern, slot);
+					}
+					else if (isProjectRule(rule))addShared(projectRules, rule, slot);
+					else addShared(resourceRules, rule, slot);
+				}
+				slot++;
+			}
+			_validatorSlots[i] = slots;
+		}
+
+		_slotValidator = toIntArray(owners);
+		_slotExclude = new boolean[slot];
+		_slotEmpty = new boolean[slot];
+		int k = 0;
+		for (Boolean b : excludes)_slotExclude[k++] = b;
+		k = 0;
+		for (Boolean b : empties)_slotEmpty[k++] = b;
+
+		for (Map.Entry<String, List<Integer>> me : extCase.entrySet())_extCase.put(me.getKey(), toIntArray(me.getValue()));
+		for (Map.Entry<String, List<Integer>> me : extNoCase.entrySet())_extNoCase.put(me.getKey(), toIntArray(me.getValue()));
+		_resourceRules = build(resourceRules);
+		_projectRules = build(projectRules);
+	}
+
+	/**
+	 * Answer the validators that this matcher was built for.
+	 */
+	public Validator[] getValidators(){
+		return _validators;
+	}
+
+	/**
+	 * Answer the validators that should validate the resource, based on their filters and on whether
+	 * they are enabled for the type of validation. The bits in the answer are the indexes of the
+	 * validators in {@link #getValidators()}.
+	 *
+	 * @param resource
+	 *            The resource to be checked.
+	 * @param valType
+	 *            The context to use when performing the check.
+	 * @param contentTypeWrapper
+	 *            For repeated calls on the same resource, it is more efficient
+	 *            to remember the content type.
+	 */
+	public BitSet match(IResource resource, ValType valType, ContentTypeWrapper contentTypeWrapper){
+		return match(resource, valType == ValType.Manual, valType == ValType.Build, contentTypeWrapper);
+	}
+
+	/**
+	 * Answer the validators that should validate the resource, based on their filters and on whether
+	 * they are enabled for manual or build validation. The bits in the answer are the indexes of the
+	 * validators in {@link #getValidators()}.
+	 *
+	 * @param resource
+	 *            The resource to be checked.
+	 * @param isManual
+	 *            If true then the validators must also be enabled for manual
+	 *            validation.
+	 * @param isBuild
+	 *            If true then the validators must also be enabled for builder
+	 *            based validation.
+	 * @param contentTypeWrapper
+	 *            For repeated calls on the same resource, it is more efficient
+	 *            to remember the content type.
+	 */
+	public BitSet match(IResource resource, boolean isManual, boolean isBuild, ContentTypeWrapper contentTypeWrapper){
+		BitSet result = new BitSet(_validators.length);
+		State state = new State();
+		boolean derived = resource.isDerived();
+		int candidates = 0;
+		for (int i=0; i<_validators.length; i++){
+			Validator v = _validators[i];
+			if (_direct.get(i) || Tracing.matchesExtraDetail(v.getId())){
+				if (Friend.shouldValidate(v, resource, isManual, isBuild, contentTypeWrapper))result.set(i);
+				state.dead[i] = true;
+				continue;
+			}
+			if (derived || (isManual && !v.isManualValidation()) || (isBuild && !v.isBuildValidation())){
+				state.dead[i] = true;
+				continue;
+			}
+			candidates++;
+		}
+		if (candidates == 0)return result;
+
+		String ext = resource.getFileExtension();
+		if (ext != null){
+			state.mark(_extCase.get(ext));
+			if (_extNoCase.size() > 0)state.mark(_extNoCase.get(ext.toLowerCase()));
+		}
+
+		IPath path = resource.getProjectRelativePath();
+		for (int t=0; t<_tries.length; t++){
+			PrefixTrie trie = _tries[t];
+			if (trie == null)continue;
+			String name = null;
+			switch (t/2 + 1){
+			case FilterRule.File.FileTypeFile:
+				name = resource.getName();
+				break;
+			case FilterRule.File.FileTypeFolder:
+				name = path.removeLastSegments(1).toString() + "/"; //$NON-NLS-1$
+				break;
+			case FilterRule.File.FileTypeFull:
+				name = path.toPortableString();
+				break;
+			}
+			if (name == null)continue;
+			if (t % 2 == 0)name = name.toLowerCase();
+			trie.match(name, state);
+		}
+
+		IProject project = resource.getProject();
+		for (SharedRule rule : _resourceRules){
+			if (!state.isUndecided(rule.slots))continue;
+			Boolean match = rule.rule.matchesResource(resource, contentTypeWrapper);
+			if (match != null && match)state.mark(rule.slots);
+		}
+		for (SharedRule rule : _projectRules){
+			if (!state.isUndecided(rule.slots))continue;
+			Boolean match = rule.rule.matchesProject(project);
+			if (match != null && match)state.mark(rule.slots);
+		}
+
+		for (int i=0; i<_validators.length; i++){
+			if (state.dead[i])continue;
+			boolean ok = true;
+			for (int slot : _validatorSlots[i]){
+				if (!_slotExclude[slot] && !_slotEmpty[slot] && !state.matched[slot]){
+					ok = false;
+					break;
+				}
+			}
+			if (ok)result.set(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Answer true if all of the rules in the groups are ones that we know how to compile.
+	 */
+	private static boolean isKnown(FilterGroup[] groups){
+		for (FilterGroup group : groups){
+			if (!group.isInclude() && !group.isExclude())return false;
+			for (FilterRule rule : group.getRules()){
+				if (rule instanceof FilterRule.FileExt)continue;
+				if (rule instanceof FilterRule.File)continue;
+				if (rule instanceof FilterRule.FilePattern)continue;
+				if (rule instanceof FilterRule.ContentType)continue;
+				if (isProjectRule(rule))continue;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isProjectRule(FilterRule rule){
+		return rule instanceof FilterRule.ProjectNature || rule instanceof FilterRule.Facet ||
+			rule instanceof FilterRule.TargetRuntime;
+	}
+
+	private static int trieIndex(int fileType, boolean caseSensitive){
+		return (fileType - 1) * 2 + (caseSensitive ? 1 : 0);
+	}
+
+	private static void addSlot(Map<String, List<Integer>> map, String key, int slot){
+		List<Integer> list = map.get(key);
+		if (list == null){
+			list = new LinkedList<Integer>();
+			map.put(key, list);
+		}
+		list.add(slot);
+	}
+
+	private static void addShared(Map<String, SharedRuleBuilder> map, FilterRule rule, int slot){
+		// the display string is included, since the config hash code ignores things like the facet version
+		String key = rule.getClass().getName() + '|' + rule.hashCodeForConfig() + '|' + rule.toString();
+		SharedRuleBuilder b = map.get(key);
+		if (b == null){
+			b = new SharedRuleBuilder(rule);
+			map.put(key, b);
+		}
+		b.slots.add(slot);
+	}
+
+	private static SharedRule[] build(Map<String, SharedRuleBuilder> map){
+		SharedRule[] rules = new SharedRule[map.size()];
+		int i = 0;
+		for (SharedRuleBuilder b : map.values())rules[i++] = new SharedRule(b.rule, toIntArray(b.slots));
+		return rules;
+	}
+
+	private static int[] toIntArray(List<Integer> list){
+		int[] array = new int[list.size()];
+		int i = 0;
+		for (Integer n : list)array[i++] = n;
+		return array;
+	}
+
+	/**
+	 * The state of a single match.
+	 */
+	private final class State {
+		final boolean[] matched = new boolean[_slotExclude.length];
+
+		/** The validators that have already been decided, either because they were asked directly, or because they failed. */
+		final boolean[] dead = new boolean[_validators.length];
+
+		void mark(int[] slots){
+			if (slots == null)return;
+			for (int slot : slots)mark(slot);
+		}
+
+		void mark(int slot){
+			matched[slot] = true;
+			if (_slotExclude[slot])dead[_slotValidator[slot]] = true;
+		}
+
+		/**
+		 * Answer true if evaluating a rule for these slots could make a difference to the answer.
+		 */
+		boolean isUndecided(int[] slots){
+			for (int slot : slots){
+				if (!matched[slot] && !dead[_slotValidator[slot]])return true;
+			}
+			return false;
+		}
+	}
+
+	private final static class SharedRuleBuilder {
+		final FilterRule 	rule;
+		final List<Integer>	slots = new LinkedList<Integer>();
+
+		SharedRuleBuilder(FilterRule rule){
+			this.rule = rule;
+		}
+	}
+
+	/**
+	 * A rule that may be shared by a number of groups.
+	 */
+	private final static class SharedRule {
+		final FilterRule	rule;
+		final int[]			slots;
+
+		SharedRule(FilterRule rule, int[] slots){
+			this.rule = rule;
+			this.slots = slots;
+		}
+	}
+
+	/**
+	 * A trie of the path prefixes. Matching a name marks the slots of every prefix of the name.
+	 */
+	private final static class PrefixTrie {
+		private final Node _root = new Node();
+
+		void add(String prefix, int slot){
+			Node node = _root;
+			for (int i=0; i<prefix.length(); i++)node = node.child(prefix.charAt(i), true);
+			node.addSlot(slot);
+		}
+
+		void match(String name, State state){
+			Node node = _root;
+			state.mark(node.slots);
+			for (int i=0; i<name.length() && node != null; i++){
+				node = node.child(name.charAt(i), false);
+				if (node != null)state.mark(node.slots);
+			}
+		}
+	}
+
+	private final static class Node {
+		private char[]	_keys = new char[0];
+		private Node[]	_children = new Node[0];
+		int[]			slots;
+
+		Node child(char c, boolean create){
+			for (int i=0; i<_keys.length; i++){
+				if (_keys[i] == c)return _children[i];
+			}
+			if (!create)return null;
+			int n = _keys.length;
+			char[] keys = new char[n+1];
+			System.arraycopy(_keys, 0, keys, 0, n);
+			Node[] children = new Node[n+1];
+			System.arraycopy(_children, 0, children, 0, n);
+			keys[n] = c;
+			children[n] = new Node();
+			_keys = keys;
+			_children = children;
+			return children[n];
+		}
+
+		void addSlot(int slot){
+			if (slots == null){
+				slots = new int[]{slot};
+				return;
+			}
+			int[] s = new int[slots.length+1];
+			System.arraycopy(slots, 0, s, 0, slots.length);
+			s[slots.length] = slot;
+			slots = s;
+		}
+	}
+}
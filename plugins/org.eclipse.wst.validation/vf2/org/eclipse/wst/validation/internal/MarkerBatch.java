@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.validation.ValidatorMessage;
+import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
+
+/**
+ * Collects the marker changes that are made while a resource is being validated, so that they can be
+ * applied to the workspace in a single operation, which results in a single resource change event.
+ * <p>
+ * When the batch is opened, it remembers the validation markers that are on the resource from earlier
+ * validations. These are the markers that would previously have been deleted up front. When the batch
+ * is flushed, any of these markers that are identical (same type and attributes) to a newly created
+ * marker are left alone, the rest of them are deleted, and the remaining new markers are created. This
+ * means that re-validating an unchanged resource doesn't cause any marker churn.
+ * </p>
+ * <p>
+ * A batch can be added to from several threads.
+ * </p>
+ */
+public final class MarkerBatch {
+
+	/** The markers that were on the resource when the batch was opened, and which may need to be deleted. */
+	private final List<IMarker> 			_existing;
+
+	/** The markers that need to be created. */
+	private final List<ValidatorMessage> 	_creates = new LinkedList<ValidatorMessage>();
+
+	/**
+	 * Start collecting the marker changes for a resource.
+	 *
+	 * @param existing
+	 *            The markers that should be deleted, unless they are recreated
+	 *            while the batch is open.
+	 */
+	MarkerBatch(List<IMarker> existing){
+		_existing = existing;
+	}
+
+	/**
+	 * Remember that a marker needs to be created for this message.
+	 *
+	 * @param m
+	 *            The message.
+	 * @param id
+	 *            The id of the validator that produced the message.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized void create(ValidatorMessage m, String id){
+		Map map = m.getAttributes();
+		if (map.get(ValidatorMessage.ValidationId) == null)
+			map.put(ValidatorMessage.ValidationId, id);
+		_creates.add(m);
+	}
+
+	/**
+	 * Apply all of the changes in a single workspace operation.
+	 */
+	public void flush(){
+		final List<IMarker> existing;
+		final List<ValidatorMessage> creates;
+		synchronized(this){
+			if (_existing.size() == 0 && _creates.size() == 0)return;
+			existing = new LinkedList<IMarker>(_existing);
+			creates = new LinkedList<ValidatorMessage>(_creates);
+			_existing.clear();
+			_creates.clear();
+		}
+
+		IWorkspaceRunnable runnable = new IWorkspaceRunnable(){
+			public void run(IProgressMonitor monitor) throws CoreException {
+				apply(existing, creates);
+			}
+		};
+		IWorkspace ws = ResourcesPlugin.getWorkspace();
+		try {
+			ws.run(runnable, null, IWorkspace.AVOID_UPDATE, null);
+		}
+		catch (CoreException e){
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+	}
+
+	private void apply(List<IMarker> existing, List<ValidatorMessage> creates) {
+		MarkerManager mm = MarkerManager.getDefault();
+		Map<MarkerKey, List<IMarker>> unchanged = index(existing);
+
+		for (ValidatorMessage m : creates){
+			List<IMarker> same = unchanged.get(new MarkerKey(m.getResource(), m.getType(), m.getAttributes()));
+			if (same != null && same.size() > 0){
+				existing.remove(same.remove(0));
+				continue;
+			}
+			mm.createMarker(m);
+		}
+
+		if (existing.size() > 0){
+			IMarker[] markers = new IMarker[existing.size()];
+			existing.toArray(markers);
+			try {
+				ResourcesPlugin.getWorkspace().deleteMarkers(markers);
+			}
+			catch (CoreException e){
+				// eat it - there is nothing we can do about this.
+			}
+		}
+	}
+
+	/**
+	 * Index the existing markers by their resource, type and attributes.
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<MarkerKey, List<IMarker>> index(List<IMarker> existing) {
+		Map<MarkerKey, List<IMarker>> map = new HashMap<MarkerKey, List<IMarker>>(existing.size()*2+1);
+		for (IMarker marker : existing){
+			try {
+				MarkerKey key = new MarkerKey(marker.getResource(), marker.getType(), marker.getAttributes());
+				List<IMarker> list = map.get(key);
+				if (list == null){
+					list = new LinkedList<IMarker>();
+					map.put(key, list);
+				}
+				list.add(marker);
+			}
+			catch (CoreException e){
+				// the marker no longer exists, so it doesn't need to be considered.
+			}
+		}
+		return map;
+	}
+
+	private final static class MarkerKey {
+		private final IResource _resource;
+		private final String	_type;
+		private final Map		_attributes;
+
+		MarkerKey(IResource resource, String type, Map attributes){
+			_resource = resource;
+			_type = type;
+			_attributes = attributes;
+		}
+
+		@Override
+		public int hashCode() {
+			int h = _resource.hashCode() + 31 * _type.hashCode();
+			if (_attributes != null)h += 17 * _attributes.hashCode();
+			return h;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MarkerKey))return false;
+			MarkerKey other = (MarkerKey)obj;
+			if (!_resource.equals(other._resource) || !_type.equals(other._type))return false;
+			if (_attributes == null)return other._attributes == null;
+			return _attributes.equals(other._attributes);
+		}
+	}
+}
@@ -10,7 +10,9 @@
  *******************************************************************************/
 package org.eclipse.wst.validation.internal;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -18,7 +20,11 @@ import java.util.Set;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.wst.validation.Validator;
 import org.eclipse.wst.validation.ValidatorMessage;
 import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
@@ -76,20 +82,59 @@ public class MarkerManager {
 	
 	@SuppressWarnings("unchecked")
 	public void createMarker(ValidatorMessage m, String id){
+		Map map = m.getAttributes();
+		if (map.get(ValidatorMessage.ValidationId) == null)
+			map.put(ValidatorMessage.ValidationId, id);
+		createMarker(m);
+	}
+	
+	/**
+	 * Create a marker for a message, whose attributes already include the validator id.
+	 */
+	void createMarker(ValidatorMessage m){
 		try {
 			IResource resource = m.getResource();
 			hook(resource);
 			IMarker marker = resource.createMarker(m.getType());
-			Map map = m.getAttributes();
-			if (map.get(ValidatorMessage.ValidationId) == null)
-				map.put(ValidatorMessage.ValidationId, id);
-			marker.setAttributes(map);
+			marker.setAttributes(m.getAttributes());
 		}
 		catch (CoreException e){
 			if (!m.getResource().exists())throw new ResourceUnavailableError(m.getResource());
 			ValidationPlugin.getPlugin().handleException(e);
 		}
-		
+	}
+	
+	/**
+	 * Create the markers for the messages.
+	 * 
+	 * @param msgs
+	 *            The messages that need markers.
+	 * @param id
+	 *            The id of the validator that produced the messages.
+	 * @param batch
+	 *            If this is not null, the markers are added to the batch,
+	 *            and created when the batch is flushed. Otherwise they are
+	 *            created immediately.
+	 */
+	public void createMarkers(ValidatorMessage[] msgs, String id, MarkerBatch batch){
+		for (ValidatorMessage m : msgs){
+			if (batch != null)batch.create(m, id);
+			else createMarker(m, id);
+		}
+	}
+	
+	/**
+	 * Start a batch of marker changes for a resource that is about to be validated. The validation
+	 * markers on the resource that were created before the operation started, will be deleted when the 
+	 * batch is flushed, unless they are recreated while the batch is open.
+	 * 
+	 * @param resource
+	 *            The resource that is about to be validated.
+	 * @param operationStartTime
+	 *            The time as returned by System.currentTimeMillis().
+	 */
+	public MarkerBatch openBatch(IResource resource, long operationStartTime){
+		return new MarkerBatch(findMarkers(resource, operationStartTime, IResource.DEPTH_ZERO));
 	}
 	
 	/**
@@ -105,11 +150,28 @@ public class MarkerManager {
 	 *            IResource.DEPTH_XXX constants.
 	 */
 	public void deleteMarkers(IResource resource, long operationStartTime, int depth){
+		List<IMarker> list = findMarkers(resource, operationStartTime, depth);
+		if (list.size() == 0)return;
+		IMarker[] markers = new IMarker[list.size()];
+		list.toArray(markers);
+		try {
+			resource.getWorkspace().deleteMarkers(markers);
+		}
+		catch (CoreException e){
+			// eat it - there is nothing we can do about this.
+		}
+	}
+	
+	/**
+	 * Answer all the validation markers on this resource that were created before the operation start time.
+	 */
+	private List<IMarker> findMarkers(IResource resource, long operationStartTime, int depth){
+		List<IMarker> list = new LinkedList<IMarker>();
 		try {
 			hook(resource);
 
 			if(!resource.exists())
-				return;
+				return list;
 
 			IMarker[] markers = resource.findMarkers(null, true, depth);
 			String markerType;
@@ -120,18 +182,11 @@ public class MarkerManager {
 				catch (CoreException e)
 				{
 					//ignore the marker
-					return;
+					return list;
 				}
 				if (_markers.contains(markerType)){
 					long createTime = marker.getCreationTime();
-					if (createTime < operationStartTime){
-						try {
-							marker.delete();
-						}
-						catch (CoreException e){
-							// eat it - there is nothing we can do about this.
-						}
-					}
+					if (createTime < operationStartTime)list.add(marker);
 				}
 			}
 		}
@@ -140,37 +195,58 @@ public class MarkerManager {
 			if (!project.exists() || !project.isOpen())throw new ProjectUnavailableError(project);
 			if (!resource.exists())throw new ResourceUnavailableError(resource);
 			ValidationPlugin.getPlugin().handleException(e);
-		}		
+		}
+		return list;
 	}
 	
-	public void makeMarkers(List<IMessage> list){
-		for (IMessage message : list){
-			IResource res = null;
-			Object target = message.getTargetObject();
-			if (target != null && target instanceof IResource)res = (IResource)target;
-			if (res == null){
-				target = message.getAttribute(IMessage.TargetResource);
-				if (target != null && target instanceof IResource)res = (IResource)target;
+	/**
+	 * Create markers for the messages. All the markers are created in a single workspace operation, and
+	 * each marker has all of it's attributes set at once.
+	 */
+	public void makeMarkers(final List<IMessage> list){
+		if (list.size() == 0)return;
+		IWorkspaceRunnable runnable = new IWorkspaceRunnable(){
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for (IMessage message : list)makeMarker(message);
 			}
-			if (res != null){
-				try {
-					hook(res);
-					String id = message.getMarkerId();
-					if (id == null)id = ConfigurationConstants.VALIDATION_MARKER;
-					IMarker marker = res.createMarker(id);
-					marker.setAttributes(message.getAttributes());
-					marker.setAttribute(IMarker.MESSAGE, message.getText());
-					int markerSeverity = IMarker.SEVERITY_INFO;
-					int sev = message.getSeverity();
-					if ((sev & IMessage.HIGH_SEVERITY) != 0)markerSeverity = IMarker.SEVERITY_ERROR;
-					else if ((sev & IMessage.NORMAL_SEVERITY) != 0)markerSeverity = IMarker.SEVERITY_WARNING;
-					marker.setAttribute(IMarker.SEVERITY, markerSeverity);
-					marker.setAttribute(IMarker.LINE_NUMBER, message.getLineNumber());
-				}
-				catch (CoreException e){
-					ValidationPlugin.getPlugin().handleException(e);
-				}				
+		};
+		try {
+			ResourcesPlugin.getWorkspace().run(runnable, null, IWorkspace.AVOID_UPDATE, null);
+		}
+		catch (CoreException e){
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void makeMarker(IMessage message){
+		IResource res = null;
+		Object target = message.getTargetObject();
+		if (target != null && target instanceof IResource)res = (IResource)target;
+		if (res == null){
+			target = message.getAttribute(IMessage.TargetResource);
+			if (target != null && target instanceof IResource)res = (IResource)target;
+		}
+		if (res != null){
+			try {
+				hook(res);
+				String id = message.getMarkerId();
+				if (id == null)id = ConfigurationConstants.VALIDATION_MARKER;
+				Map attributes = new HashMap();
+				if (message.getAttributes() != null)attributes.putAll(message.getAttributes());
+				attributes.put(IMarker.MESSAGE, message.getText());
+				int markerSeverity = IMarker.SEVERITY_INFO;
+				int sev = message.getSeverity();
+				if ((sev & IMessage.HIGH_SEVERITY) != 0)markerSeverity = IMarker.SEVERITY_ERROR;
+				else if ((sev & IMessage.NORMAL_SEVERITY) != 0)markerSeverity = IMarker.SEVERITY_WARNING;
+				attributes.put(IMarker.SEVERITY, new Integer(markerSeverity));
+				attributes.put(IMarker.LINE_NUMBER, new Integer(message.getLineNumber()));
+				IMarker marker = res.createMarker(id);
+				marker.setAttributes(attributes);
 			}
+			catch (CoreException e){
+				ValidationPlugin.getPlugin().handleException(e);
+			}				
 		}
 	}
 	
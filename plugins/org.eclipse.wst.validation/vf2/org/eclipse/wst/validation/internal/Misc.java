@@ -14,6 +14,7 @@ package org.eclipse.wst.validation.internal;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 
@@ -51,6 +52,16 @@ public final class Misc {
 		}		
 	}
 	
+	public static void close(RandomAccessFile file) {
+		if (file == null)return;
+		try {
+			file.close();
+		}
+		catch (IOException e){
+			// eat it
+		}		
+	}
+	
 	public static boolean debugOptionAsBoolean(String option){
 		String opt = Platform.getDebugOption(option);
 		if (opt == null)return false;
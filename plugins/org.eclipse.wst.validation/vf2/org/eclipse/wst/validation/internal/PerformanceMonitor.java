@@ -154,11 +154,11 @@ public class PerformanceMonitor implements IPerformanceMonitor {
 	public static class Collecting extends PerformanceMonitor {
 		private List<PerformanceCounters>	_counters = new LinkedList<PerformanceCounters>();
 		
-		public void add(PerformanceCounters counters){
+		public synchronized void add(PerformanceCounters counters){
 			_counters.add(counters);
 		}
 		
-		public List<PerformanceCounters> getPerformanceCounters(boolean asSummary) {
+		public synchronized List<PerformanceCounters> getPerformanceCounters(boolean asSummary) {
 			if (asSummary){
 				Map<String, Counters> map = new HashMap<String, Counters>(40);
 				for (PerformanceCounters pc : _counters){
@@ -183,7 +183,7 @@ public class PerformanceMonitor implements IPerformanceMonitor {
 			return _counters;
 		}
 		
-		public void resetPerformanceCounters() {
+		public synchronized void resetPerformanceCounters() {
 			_counters.clear();
 		}
 
@@ -112,5 +112,17 @@ public interface PrefConstants {
 	/** global - some global validation settings. */
 	String global = "global"; //$NON-NLS-1$
 	
+	/** 
+	 * threads - the number of worker threads that are used to run thread safe validators during a build.
+	 * Zero (the default) means use the number of available processors, one turns parallel validation off. 
+	 */
+	String threads = "threads"; //$NON-NLS-1$
+	
+	/**
+	 * buildQuietPeriod - the number of milliseconds that build validation waits for further builds, so that
+	 * their changes can be merged into a single validation. Zero (the default) means start immediately.
+	 */
+	String buildQuietPeriod = "buildQuietPeriod"; //$NON-NLS-1$
+	
 	
 }
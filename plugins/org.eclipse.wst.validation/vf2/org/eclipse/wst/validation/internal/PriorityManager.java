@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Keep track of the work that should be done ahead of the bulk build validation. There are three lanes:
+ * <ol>
+ * <li>Interactive - the resources that a client has explicitly asked to have validated, for example through
+ * ValidationFramework.validate(IFile, IProgressMonitor). While any of these are running, the build
+ * validation pauses at the next resource boundary.</li>
+ * <li>Hinted - the resources that a client has given a priority hint for, normally because they are open
+ * in an editor. When these change, they are validated ahead of the rest of the build work.</li>
+ * <li>Bulk - everything else.</li>
+ * </ol>
+ */
+public final class PriorityManager {
+
+	/** How long to wait, in milliseconds, before checking whether the build validation has been canceled. */
+	private final static long PollInterval = 100;
+
+	/** The resources that have priority hints, and the number of hints for each of them. */
+	private final ConcurrentMap<IResource, AtomicInteger> _hints = new ConcurrentHashMap<IResource, AtomicInteger>(20);
+
+	/** The number of interactive validations that are running. */
+	private int _interactive;
+
+	/** The interactive validations that are running on this thread. */
+	private final ThreadLocal<int[]> _local = new ThreadLocal<int[]>(){
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+
+	public static PriorityManager getDefault(){
+		return Singleton.priorityManager;
+	}
+
+	private PriorityManager(){}
+
+	/**
+	 * Give the resource priority over the bulk build validation. Each hint needs to be balanced by a call to
+	 * removeHint.
+	 */
+	public void addHint(IResource resource){
+		AtomicInteger count = _hints.get(resource);
+		if (count == null){
+			count = new AtomicInteger();
+			AtomicInteger old = _hints.putIfAbsent(resource, count);
+			if (old != null)count = old;
+		}
+		count.incrementAndGet();
+	}
+
+	/**
+	 * Remove a hint that was added by addHint. Once all the hints for a resource have been removed, it no
+	 * longer has priority.
+	 */
+	public void removeHint(IResource resource){
+		AtomicInteger count = _hints.get(resource);
+		if (count == null)return;
+		if (count.decrementAndGet() <= 0)_hints.remove(resource, count);
+	}
+
+	public boolean hasHint(IResource resource){
+		return _hints.containsKey(resource);
+	}
+
+	/**
+	 * Answer true if there are any priority hints at all. This is used to avoid looking at build deltas when
+	 * there is nothing to look for.
+	 */
+	public boolean hasHints(){
+		return !_hints.isEmpty();
+	}
+
+	/**
+	 * An interactive validation is starting on the current thread. This needs to be balanced by a call to
+	 * interactiveFinished.
+	 */
+	public void interactiveStarting(){
+		_local.get()[0]++;
+		synchronized(this){
+			_interactive++;
+		}
+	}
+
+	public void interactiveFinished(){
+		_local.get()[0]--;
+		synchronized(this){
+			_interactive--;
+			if (_interactive == 0)notifyAll();
+		}
+	}
+
+	/**
+	 * Answer true if there are interactive validations running.
+	 */
+	public synchronized boolean isInteractive(){
+		return _interactive > 0;
+	}
+
+	/**
+	 * Wait until all of the interactive validations that are running on other threads have finished. This is
+	 * called by the bulk validation at resource boundaries.
+	 *
+	 * @param monitor
+	 *            The waiting stops early if this is canceled.
+	 */
+	public void yieldToInteractive(IProgressMonitor monitor){
+		// an interactive validation that triggers bulk work on the same thread must not wait for itself
+		if (_local.get()[0] > 0)return;
+		synchronized(this){
+			if (_interactive == 0)return;
+			Tracing.log("PriorityManager-01: waiting for the interactive validations to finish"); //$NON-NLS-1$
+			while (_interactive > 0 && !monitor.isCanceled()){
+				try {
+					wait(PollInterval);
+				}
+				catch (InterruptedException e){
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Store the singleton for the PriorityManager. This approach is used to avoid having to synchronize the
+	 * PriorityManager.getDefault() method.
+	 *
+	 */
+	private static class Singleton {
+		static PriorityManager priorityManager = new PriorityManager();
+	}
+
+}
@@ -11,8 +11,12 @@
 package org.eclipse.wst.validation.internal;
 
 import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -28,6 +32,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.wst.validation.DependentResource;
 import org.eclipse.wst.validation.Friend;
 import org.eclipse.wst.validation.IDependencyIndex;
@@ -46,40 +51,146 @@ import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
  * This is the main class for supporting build based validation. When triggered it looks at all of the
  * resource changes and determines what needs to be validated. 
  * </p>
+ * <p>
+ * There is at most one pending request for each project. The deltas of successive builds are merged into
+ * it, so that a resource that is changed by several builds is only validated once, and a full build
+ * replaces any deltas that are waiting. If the buildQuietPeriod preference is set, the job waits for the
+ * builds to go quiet before it starts.
+ * </p>
+ * <p>
+ * Changes to resources that have a priority hint (see {@link PriorityManager}) are also put into a separate
+ * urgent lane. The bulk work is preempted at each resource boundary, so that the urgent changes are
+ * validated first, and so that any interactive validations can run without competing with the build.
+ * Urgent changes for other projects wait for the next project boundary, so that the validators are never
+ * told about a project starting while they are in the middle of another one.
+ * </p>
  * @author karasiuk
  *
  */
 public final class ValBuilderJob extends WorkspaceJob {
 	
 	private static ValBuilderJob _job;
-	private static Queue<ValidationRequest> _work = new LinkedList<ValidationRequest>();
+	
+	/** The pending requests, at most one per project, in the order that they were first made. */
+	private static Map<IProject, ValidationRequest> _work = new LinkedHashMap<IProject, ValidationRequest>();
+	
+	/** The changes to the hinted resources, that need to be validated ahead of the rest of the work. */
+	private static Map<IResource, ValidationRequest> _urgent = new LinkedHashMap<IResource, ValidationRequest>();
+	
+	/** The job is never held back by the quiet period for more than this many quiet periods in total. */
+	private final static int MaxQuietPeriods = 10;
 	
 	private final ValOperation _operation = new ValOperation();
+	
+	/** When the job was created, as answered by System.currentTimeMillis(). */
+	private final long _created;
+	
+	/** 
+	 * The resources that were validated through the urgent lane, and their modification stamps at the
+	 * time. The bulk work skips them, as long as they haven't changed again.
+	 */
+	private final Map<IResource, Long> _prioritized = new HashMap<IResource, Long>(20);
+	
+	/** Are we in the middle of running the urgent work? */
+	private boolean _preempting;
 		
 	/** The types of changes we are interested in. */
 	private final static int	InterestedFlags = IResourceDelta.CONTENT | IResourceDelta.ENCODING |
 		IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
 	
 	public static synchronized void validateProject(IProject project, IResourceDelta delta, int buildKind){
-		ValidationRequest request = new ValidationRequest(project, delta, buildKind);
+		ValidationRequest request = _work.get(project);
+		if (request != null){
+			request.merge(delta, buildKind);
+			ValidationMetrics.getDefault().requestMerged(request.getDropped());
+		}
+		else _work.put(project, new ValidationRequest(project, delta, buildKind));
+		
+		boolean urgent = delta != null && collectUrgent(project, delta, buildKind);
+		long quiet = urgent ? 0 : getQuietPeriod();
 		if (_job == null){
 			_job = new ValBuilderJob();
-			_job.add(request);
-			_job.schedule();
+			_job.schedule(quiet);
 		}
-		else {
-			_job.add(request);
+		else if (urgent){
+			if (_job.getState() == Job.SLEEPING)_job.wakeUp();
 		}
+		else if (quiet > 0)_job.debounce(quiet);
+	}
+	
+	/**
+	 * Put the changes to any of the hinted resources into the urgent lane.
+	 * 
+	 * @return true if there were any urgent changes.
+	 */
+	private static boolean collectUrgent(final IProject project, IResourceDelta delta, final int buildKind){
+		final PriorityManager pm = PriorityManager.getDefault();
+		if (!pm.hasHints())return false;
+		final boolean[] found = new boolean[1];
+		try {
+			delta.accept(new IResourceDeltaVisitor(){
+				public boolean visit(IResourceDelta child) throws CoreException {
+					IResource resource = child.getResource();
+					if (DisabledResourceManager.getDefault().isDisabled(resource))return false;
+					if (resource.getType() != IResource.FILE || !pm.hasHint(resource))return true;
+					if (child.getKind() == IResourceDelta.CHANGED && (child.getFlags() & InterestedFlags) == 0)return true;
+					_urgent.remove(resource);
+					_urgent.put(resource, new ValidationRequest(project, child, buildKind));
+					found[0] = true;
+					return true;
+				}
+			});
+		}
+		catch (CoreException e){
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		return found[0];
+	}
+	
+	/**
+	 * Answer the next urgent request.
+	 * 
+	 * @param project if this is not null, only the requests for this project are considered.
+	 */
+	private static synchronized ValidationRequest getUrgent(IProject project){
+		Iterator<ValidationRequest> it = _urgent.values().iterator();
+		while (it.hasNext()){
+			ValidationRequest request = it.next();
+			if (project == null || project.equals(request.getProject())){
+				it.remove();
+				return request;
+			}
+		}
+		return null;
 	}
 	
 	private static synchronized ValidationRequest getRequest(){
-		ValidationRequest request = _work.poll();
-		if (request == null){
+		Iterator<ValidationRequest> it = _work.values().iterator();
+		if (!it.hasNext()){
+			// any urgent work is also in the pending requests, so it has all been done by now
+			_urgent.clear();
 			_job = null;
+			return null;
 		}
+		ValidationRequest request = it.next();
+		it.remove();
 		return request;
 	}
 	
+	/**
+	 * Answer how long, in milliseconds, the job should wait for the builds to go quiet.
+	 */
+	private static long getQuietPeriod(){
+		try {
+			PreferencesWrapper pref = PreferencesWrapper.getPreferences(null, null);
+			return Math.max(0, pref.getInt(PrefConstants.buildQuietPeriod, 0));
+		}
+		catch (Exception e){
+			// we can always fall back to the default
+		}
+		return 0;
+	}
+	
 	/**
 	 * Each validation run is done in it's own job.
 	 * 
@@ -98,10 +209,16 @@ public final class ValBuilderJob extends WorkspaceJob {
 	 */
 	private ValBuilderJob(){
 		super(ValMessages.JobName);
+		_created = System.currentTimeMillis();
 	}
 	
-	private void add(ValidationRequest request){
-		_work.add(request);
+	/**
+	 * If the job hasn't started yet, push it's start back, so that it starts once the builds have been
+	 * quiet for the quiet period.
+	 */
+	private void debounce(long quiet){
+		if (System.currentTimeMillis() - _created > quiet * MaxQuietPeriods)return;
+		if (sleep())wakeUp(quiet);
 	}
 	
 	@Override
@@ -118,16 +235,24 @@ public final class ValBuilderJob extends WorkspaceJob {
 	public IStatus runInWorkspace(IProgressMonitor monitor) {
 		Tracing.log("ValBuilderJob-01: Starting"); //$NON-NLS-1$
 		
+		ValidationExecutor executor = ValidationExecutor.create(monitor);
+		getOperation().setExecutor(executor);
 		try {
 			startingValidation(monitor);
 			
+			preempt(null, monitor);
 			ValidationRequest request = getRequest();
 			while(request != null){
 				run(request, monitor);
+				preempt(null, monitor);
 				request = getRequest();
 			}
 		}
 		finally {
+			if (executor != null){
+				executor.shutdown();
+				getOperation().setExecutor(null);
+			}
 			finishingValidation(monitor);
 		}
 		
@@ -162,20 +287,13 @@ public final class ValBuilderJob extends WorkspaceJob {
 	}
 
 	private void run(ValidationRequest request, IProgressMonitor monitor){
+		ValidationMetrics metrics = ValidationMetrics.getDefault();
+		if (metrics.isEnabled())metrics.queueWait(System.nanoTime() - request.getQueued());
 		setName(MessageFormat.format(ValMessages.JobNameWithProjectName,new Object[] { request.getProject().getName() })); 
 		try {		
-	        IValidatorVisitor startingVisitor = new IValidatorVisitor(){
-
-	            public void visit(Validator validator, IProject project, ValType valType, 
-	                ValOperation operation, IProgressMonitor monitor) {
-	                
-	                validator.validationStarting(project, operation.getState(), monitor);                   
-	            }               
-	        };
-
-	        ValManager.getDefault().accept(startingVisitor, request.getProject(), ValType.Build, getOperation(), monitor);
+			projectStarting(request.getProject(), monitor);
 		  
-			if (request.getDelta() == null)fullBuild(request, monitor);
+			if (request.isFull())fullBuild(request, monitor);
 			else deltaBuild(request, monitor);
 
 			
@@ -190,32 +308,130 @@ public final class ValBuilderJob extends WorkspaceJob {
 			ValidationPlugin.getPlugin().handleException(e);
 		}
 		finally {
-		  IValidatorVisitor finishedVisitor = new IValidatorVisitor(){
+			projectFinishing(request.getProject(), monitor);
+		}
+		
+	}
+	
+	private void projectStarting(IProject project, IProgressMonitor monitor){
+		IValidatorVisitor startingVisitor = new IValidatorVisitor(){
 
-		    public void visit(Validator validator, IProject project, ValType valType,
-		      ValOperation operation, IProgressMonitor monitor) {
+			public void visit(Validator validator, IProject project, ValType valType, 
+				ValOperation operation, IProgressMonitor monitor) {
 
-		      validator.validationFinishing(project, operation.getState(), monitor);              
-		    }           
-		  };
-          ValManager.getDefault().accept(finishedVisitor, request.getProject(), ValType.Build, getOperation(), monitor);
+				validator.validationStarting(project, operation.getState(), monitor);                   
+			}               
+		};
+
+		ValManager.getDefault().accept(startingVisitor, project, ValType.Build, getOperation(), monitor);
+	}
+	
+	private void projectFinishing(IProject project, IProgressMonitor monitor){
+		// the validators need to have finished all of their work for the project before they are told that it is finished 
+		ValidationExecutor executor = getOperation().getExecutor();
+		if (executor != null)executor.join();
+
+		IValidatorVisitor finishedVisitor = new IValidatorVisitor(){
+
+			public void visit(Validator validator, IProject project, ValType valType,
+				ValOperation operation, IProgressMonitor monitor) {
+
+				validator.validationFinishing(project, operation.getState(), monitor);              
+			}           
+		};
+		ValManager.getDefault().accept(finishedVisitor, project, ValType.Build, getOperation(), monitor);
+	}
+	
+	/**
+	 * Called at each resource boundary of the bulk work. Wait for any interactive validations to finish, and
+	 * then validate any urgent changes.
+	 * 
+	 * @param current the project whose bulk work is being done, or null if we are between projects. While
+	 * a project is being done, only the urgent changes for that project are validated, the rest wait until
+	 * we are between projects.
+	 */
+	private void preempt(IProject current, IProgressMonitor monitor){
+		if (_preempting)return;
+		_preempting = true;
+		try {
+			PriorityManager.getDefault().yieldToInteractive(monitor);
+			ValidationRequest urgent = getUrgent(current);
+			while (urgent != null && !monitor.isCanceled()){
+				runUrgent(urgent, current == null, monitor);
+				urgent = getUrgent(current);
+			}
 		}
-		
+		finally {
+			_preempting = false;
+		}
+	}
+	
+	/**
+	 * Validate an urgent change, along with any other urgent changes for the same project.
+	 * 
+	 * @param between true if we are between projects, in which case the validators are told that the
+	 * project is starting and finishing around the urgent changes. Otherwise the project is the one whose
+	 * bulk work is being done, and they have already been told that it is starting.
+	 */
+	private void runUrgent(ValidationRequest request, boolean between, IProgressMonitor monitor){
+		IProject project = request.getProject();
+		try {
+			if (between)projectStarting(project, monitor);
+			while (request != null && !monitor.isCanceled()){
+				IResourceDelta delta = request.getDeltas().get(0);
+				IResource resource = delta.getResource();
+				if (Tracing.isLogging())Tracing.log("ValBuilderJob-03: validating ahead of the build: ", resource); //$NON-NLS-1$
+				try {
+					Visitor visitor = new Visitor(this, request, SubMonitor.convert(null, 1), monitor, getOperation());
+					visitor.visit(delta);
+					_prioritized.put(resource, resource.getModificationStamp());
+				}
+				catch (ResourceUnavailableError e){
+					ValidationPlugin.getPlugin().handleResourceUnavailableError(e);
+				}
+				catch (CoreException e){
+					ValidationPlugin.getPlugin().handleException(e);
+				}
+				request = getUrgent(project);
+			}
+		}
+		catch (ProjectUnavailableError e){
+			ValidationPlugin.getPlugin().handleProjectUnavailableError(e);
+		}
+		finally {
+			if (between)projectFinishing(project, monitor);
+		}
+	}
+	
+	/**
+	 * Answer true if the resource has already been validated through the urgent lane, and it hasn't
+	 * changed since then.
+	 */
+	private boolean isPrioritized(IResource resource){
+		if (_prioritized.isEmpty())return false;
+		Long stamp = _prioritized.remove(resource);
+		return stamp != null && stamp.longValue() == resource.getModificationStamp();
 	}
 
 	private void deltaBuild(ValidationRequest request, IProgressMonitor monitor) throws CoreException {
-		ResourceCounter counter = new ResourceCounter();
-		request.getDelta().accept(counter);
-		SubMonitor subMonitor = SubMonitor.convert(monitor, counter.getCount());
-		Visitor vistitor = new Visitor(request, subMonitor, monitor, getOperation());
-		request.getDelta().accept(vistitor);		
+		// merge all the deltas, so that each resource is only visited once, with it's latest change
+		Map<IResource, IResourceDelta> changes = new LinkedHashMap<IResource, IResourceDelta>(100);
+		DeltaCollector collector = new DeltaCollector(changes, getOperation());
+		for (IResourceDelta delta : request.getDeltas())delta.accept(collector);
+		
+		SubMonitor subMonitor = SubMonitor.convert(monitor, changes.size());
+		Visitor vistitor = new Visitor(this, request, subMonitor, monitor, getOperation());
+		for (IResourceDelta delta : changes.values()){
+			if (monitor.isCanceled())return;
+			vistitor.visit(delta);
+		}
 	}
 
 	private void fullBuild(ValidationRequest request, IProgressMonitor monitor) throws CoreException {
 		ResourceCounter counter = new ResourceCounter();
 		request.getProject().accept(counter, 0);
 		SubMonitor subMonitor = SubMonitor.convert(monitor, counter.getCount());
-		Visitor vistitor = new Visitor(request, subMonitor, monitor, getOperation());
+		Visitor vistitor = new Visitor(this, request, subMonitor, monitor, getOperation());
 		request.getProject().accept(vistitor);
 		
 	}
@@ -224,7 +440,7 @@ public final class ValBuilderJob extends WorkspaceJob {
 		return _operation;
 	}
 
-	static final class ResourceCounter implements IResourceProxyVisitor, IResourceDeltaVisitor {
+	static final class ResourceCounter implements IResourceProxyVisitor {
 		
 		private int _count;
 
@@ -236,39 +452,123 @@ public final class ValBuilderJob extends WorkspaceJob {
 			_count++;
 			return true;
 		}
+	}
+	
+	/**
+	 * Walk a delta, collecting the resources that have interesting changes. When a resource is in more
+	 * than one delta, the latest one replaces the earlier ones.
+	 */
+	static final class DeltaCollector implements IResourceDeltaVisitor {
+		
+		private final Map<IResource, IResourceDelta>	_changes;
+		private final ValOperation						_operation;
+		
+		DeltaCollector(Map<IResource, IResourceDelta> changes, ValOperation operation){
+			_changes = changes;
+			_operation = operation;
+		}
 
 		public boolean visit(IResourceDelta delta) throws CoreException {
-			_count++;
+			IResource resource = delta.getResource();
+			if (DisabledResourceManager.getDefault().isDisabled(resource)){
+				MarkerManager.getDefault().deleteMarkers(resource, _operation.getStarted(), IResource.DEPTH_INFINITE);
+				return false;
+			}
+			int kind = delta.getKind();
+			boolean isChanged = (kind & IResourceDelta.CHANGED) != 0;
+			if (isChanged &&  (delta.getFlags() & InterestedFlags) == 0)return true;
+			
+			// Check for file ADDED and REMOVED events, which means that the file may have moved to a new
+			// project. To be safe we clear it's cached list of validators.
+			if (((kind & (IResourceDelta.ADDED | IResourceDelta.REMOVED)) != 0)	&& resource.getType() == IResource.FILE) {
+				ValManager.getDefault().clearValProperty(resource.getProject());
+			}
+			
+			// remove it first, so that it moves to the end, in the order of it's latest change
+			_changes.remove(resource);
+			_changes.put(resource, delta);
 			return true;
-		}		
+		}
 	}
 	
-	static final class ValidationRequest {
+	public static final class ValidationRequest {
 		/** The project that is being built. */
 		private final IProject 			_project;
 		
-		/** The resource delta that triggered the build, it will be null for a full build. */
-		private final IResourceDelta	_delta;
+		/** The resource deltas that triggered the builds. These are ignored for a full build. */
+		private final List<IResourceDelta>	_deltas = new LinkedList<IResourceDelta>();
+		
+		/** Does the whole project need to be validated? */
+		private boolean						_full;
 		
 		/** 
 		 * The kind of build.
 		 * 
 		 *  @see org.eclipse.core.resources.IncrementalProjectBuilder
 		 */
-		private final int					_buildKind;
+		private int							_buildKind;
+		
+		/** The number of requests that were dropped, because they were superseded by a full build. */
+		private int							_dropped;
+		
+		/** When the request was queued, as answered by System.nanoTime(). */
+		private final long					_queued = System.nanoTime();
 		
+		/**
+		 * @param delta the delta that is being validated. This may be null, in which case we do a 
+		 * full validation of the project.
+		 */
 		public ValidationRequest(IProject project, IResourceDelta delta, int buildKind){
 			_project = project;
-			_delta = delta;
 			_buildKind = buildKind;
+			if (delta == null)_full = true;
+			else _deltas.add(delta);
+		}
+		
+		/**
+		 * Merge a later build into this request.
+		 * 
+		 * @param delta the delta of the later build. This may be null, in which case we do a 
+		 * full validation of the project.
+		 */
+		public void merge(IResourceDelta delta, int buildKind){
+			_dropped = 0;
+			if (_full){
+				if (delta != null)_dropped = 1;
+				else _buildKind = buildKind;
+				return;
+			}
+			_buildKind = buildKind;
+			if (delta != null){
+				_deltas.add(delta);
+				return;
+			}
+			_full = true;
+			_dropped = _deltas.size();
+			_deltas.clear();
+		}
+		
+		/**
+		 * Answer the number of requests that the last merge dropped.
+		 */
+		public int getDropped(){
+			return _dropped;
+		}
+		
+		public long getQueued() {
+			return _queued;
 		}
 
 		public IProject getProject() {
 			return _project;
 		}
 
-		public IResourceDelta getDelta() {
-			return _delta;
+		public boolean isFull() {
+			return _full;
+		}
+		
+		public List<IResourceDelta> getDeltas() {
+			return _deltas;
 		}
 
 		public int getBuildKind() {
@@ -276,14 +576,17 @@ public final class ValBuilderJob extends WorkspaceJob {
 		}
 	}
 	
-	private final static class Visitor implements IResourceDeltaVisitor, IResourceVisitor{
+	private final static class Visitor implements IResourceVisitor{
 		
+		private final ValBuilderJob			_job;
 		private final ValidationRequest 	_request;
 		private final SubMonitor 			_subMonitor;
 		private final IProgressMonitor 		_monitor;
 		private final ValOperation			_operation;
 		
-		public Visitor(ValidationRequest request, SubMonitor subMonitor, IProgressMonitor monitor, ValOperation operation){
+		public Visitor(ValBuilderJob job, ValidationRequest request, SubMonitor subMonitor, IProgressMonitor monitor, 
+			ValOperation operation){
+			_job = job;
 			_request = request;
 			_subMonitor = subMonitor;
 			_monitor = monitor;
@@ -296,8 +599,14 @@ public final class ValBuilderJob extends WorkspaceJob {
 					MarkerManager.getDefault().deleteMarkers(resource, _operation.getStarted(), IResource.DEPTH_INFINITE);
 					return false;
 				}
+				_job.preempt(_request.getProject(), _monitor);
+				if (_job.isPrioritized(resource)){
+					_subMonitor.worked(1);
+					return true;
+				}
 				ValManager.getDefault().validate(_request.getProject(), resource, IResourceDelta.NO_CHANGE, ValType.Build, 
 					_request.getBuildKind(), _operation, _subMonitor.newChild(1));
+				runCompleted();
 			}
 			catch (ResourceUnavailableError e){
 				if (Tracing.isLogging())Tracing.log("ValBuilderJob-02: " + e.toString()); //$NON-NLS-1$
@@ -306,23 +615,19 @@ public final class ValBuilderJob extends WorkspaceJob {
 			return true;
 		}
 		
+		/**
+		 * Validate a single changed resource. The delta has already been filtered by the {@link DeltaCollector},
+		 * so this doesn't visit the children of the delta.
+		 */
 		@SuppressWarnings("deprecation")
 		public boolean visit(IResourceDelta delta) throws CoreException {
 			IResource resource = delta.getResource();
-			if (DisabledResourceManager.getDefault().isDisabled(resource)){
-				MarkerManager.getDefault().deleteMarkers(resource, _operation.getStarted(), IResource.DEPTH_INFINITE);
-				return false;
+			_job.preempt(_request.getProject(), _monitor);
+			if (_job.isPrioritized(resource)){
+				_subMonitor.worked(1);
+				return true;
 			}
 			int kind = delta.getKind();
-			boolean isChanged = (kind & IResourceDelta.CHANGED) != 0;
-			if (isChanged &&  (delta.getFlags() & InterestedFlags) == 0)return true;
-			
-			// Check for file ADDED and REMOVED events, which means that the file may have moved to a new
-			// project. To be safe we clear it's cached list of validators.
-			if (((kind & (IResourceDelta.ADDED | IResourceDelta.REMOVED)) != 0)	&& resource.getType() == IResource.FILE) {
-				ValManager.getDefault().clearValProperty(resource.getProject());
-			}
-
 			if ((kind & (IResourceDelta.ADDED | IResourceDelta.CHANGED)) != 0){
 				ValManager.getDefault().validate(_request.getProject(), resource, delta.getKind(), ValType.Build,
 						_request.getBuildKind(), _operation, _subMonitor.newChild(1));
@@ -339,6 +644,8 @@ public final class ValBuilderJob extends WorkspaceJob {
 				}				
 			}
 					
+			runCompleted();
+					
 			IDependencyIndex index = ValidationFramework.getDefault().getDependencyIndex();
 			if (index.isDependedOn(resource)){
 				MarkerManager mm = MarkerManager.getDefault();
@@ -355,5 +662,13 @@ public final class ValBuilderJob extends WorkspaceJob {
 				}
 			return true;
 		}
+		
+		/**
+		 * Let the resources whose parallel work has finished, tell their group listeners that they are done. 
+		 */
+		private void runCompleted(){
+			ValidationExecutor executor = _operation.getExecutor();
+			if (executor != null)executor.runCompleted();
+		}
 	}
 }
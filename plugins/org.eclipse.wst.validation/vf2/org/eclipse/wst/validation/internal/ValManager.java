@@ -28,6 +28,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.resources.IResourceVisitor;
 import org.eclipse.core.resources.IWorkspaceRoot;
@@ -44,7 +45,6 @@ import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.common.project.facet.core.FacetedProjectFramework;
 import org.eclipse.wst.common.project.facet.core.events.IFacetedProjectEvent;
 import org.eclipse.wst.common.project.facet.core.events.IFacetedProjectListener;
-import org.eclipse.wst.validation.Friend;
 import org.eclipse.wst.validation.IPerformanceMonitor;
 import org.eclipse.wst.validation.IValidatorGroupListener;
 import org.eclipse.wst.validation.PerformanceCounters;
@@ -197,6 +197,18 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 		return _cache.getValidatorsCached(project);
 	}
 	
+	/**
+	 * Answer the compiled filters of the validators for the project. The bits that the matcher answers
+	 * are the indexes of the validators in the matcher's validator array, which is the same array that
+	 * {@link #getValidators(IProject)} answers.
+	 * 
+	 * @param project
+	 *            This may be null, in which case the global validators are used.
+	 */
+	public FilterMatcher getFilterMatcher(IProject project) throws ProjectUnavailableError {
+		return _cache.getMatcherCached(project);
+	}
+	
 	/**
 	 * Answer all the validators for the given project.
 	 * <p>
@@ -430,10 +442,8 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 			return v.hasValidator(folder);
 		}
 		else {
-			ContentTypeWrapper ctw = new ContentTypeWrapper();
-			for (Validator val : ValManager.getDefault().getValidators(resource.getProject())){
-				if (Friend.shouldValidate(val, resource, isManual, isBuild, ctw))return true;
-			}			
+			FilterMatcher matcher = getFilterMatcher(resource.getProject());
+			return !matcher.match(resource, isManual, isBuild, new ContentTypeWrapper()).isEmpty();
 		}
 		return false;
 	}
@@ -543,6 +553,7 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 		_configNumber.incrementAndGet();
 		ValidatorProjectManager.reset();
 		_cache.reset();
+		ValidationResultCache.getDefault().clear();
 	}
 		
 	/**
@@ -647,12 +658,16 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 	public void validate(IProject project, final IResource resource, final int kind, ValType valType, 
 		int buildKind, ValOperation operation, final IProgressMonitor monitor) {
 		
-		MarkerManager.getDefault().deleteMarkers(resource, operation.getStarted(), IResource.DEPTH_ZERO);
+		operation.openMarkerBatch(resource);
+		
+		ValidationExecutor executor = operation.getExecutor();
+		final ValidationExecutor.Batch batch = (executor != null && valType == ValType.Build) ? 
+			executor.newBatch() : null;
 		
 		IValidatorVisitor visitor = new IValidatorVisitor(){
 
-			public void visit(Validator validator, IProject project, ValType vt,
-				ValOperation operation, IProgressMonitor monitor) {
+			public void visit(final Validator validator, IProject project, ValType vt,
+				final ValOperation operation, IProgressMonitor monitor) {
 								
 				Validator.V1 v1 = validator.asV1Validator();
 				if (vt == ValType.Build && v1 != null)return;
@@ -661,12 +676,20 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 				String task = NLS.bind(ValMessages.LogValStart, validator.getName(), resource.getName());
 				subMonitor.beginTask(task, 1);
 
-				if (project.isOpen())
-					validate(validator, operation, resource, kind, subMonitor.newChild(1), null);
+				if (!project.isOpen())return;
+				if (batch != null && operation.getExecutor().canRunInParallel(validator)){
+					subMonitor.worked(1);
+					batch.submit(new Runnable(){
+						public void run() {
+							validate(validator, operation, resource, kind, batch.getMonitor(), null);
+						}
+					});
+				}
+				else validate(validator, operation, resource, kind, subMonitor.newChild(1), null);
 			}			
 		};
 		SubMonitor sm = SubMonitor.convert(monitor, getValidators(project).length);
-		accept(visitor, project, resource, valType, operation, sm);
+		accept(visitor, project, resource, valType, operation, sm, batch);
 		
 	}
 	
@@ -701,7 +724,29 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 	
 		if (resource.exists())
 		{	
-			ValidationResult vr = validator.validate(resource, kind, operation, monitor, event);
+			ValidationMetrics metrics = ValidationMetrics.getDefault();
+			boolean measure = metrics.isEnabled();
+			long start = measure ? System.nanoTime() : 0;
+			long allocated = measure && metrics.isTrackingAllocations() ? ValidationMetrics.getAllocatedBytes() : -1;
+			
+			ValidationResultCache resultCache = ValidationResultCache.getDefault();
+			ValidationResultCache.Key key = null;
+			if (event == null && kind != IResourceDelta.REMOVED)key = resultCache.createKey(validator, resource);
+			ValidationResult vr = key == null ? null : resultCache.replay(key, operation.getMarkerBatch(resource));
+			if (vr == null){
+				vr = validator.validate(resource, kind, operation, monitor, event);
+				if (key != null){
+					// if the validator changed it's dependencies, the key needs to reflect the new ones
+					if (vr != null && vr.getDependsOn() != null)key = resultCache.createKey(validator, resource);
+					if (key != null)resultCache.put(key, vr);
+				}
+			}
+			
+			if (measure){
+				if (allocated != -1)allocated = ValidationMetrics.getAllocatedBytes() - allocated;
+				int markers = vr == null ? 0 : vr.getMessages().length;
+				metrics.validated(validator, System.nanoTime() - start, allocated, markers);
+			}
 	
 			if (pm.isCollecting()){
 				if (cpuTime != -1){
@@ -763,60 +808,115 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 	 */
 	public void accept(IValidatorVisitor visitor, IProject project, IResource resource, 
 			ValType valType, ValOperation operation, IProgressMonitor monitor){
+		accept(visitor, project, resource, valType, operation, monitor, null);
+	}
+	
+	/**
+	 * Accept a visitor for all the validators that are enabled for the given project, resource, 
+	 * and validation mode.
+	 * 
+	 * @param batch if the visitor handed some of it's work to the worker threads, this is the batch that
+	 * holds that work. The group listeners are only told that validation is finishing once all of the work
+	 * in the batch has completed. This can be null.
+	 */
+	private void accept(IValidatorVisitor visitor, IProject project, IResource resource, 
+			ValType valType, ValOperation operation, IProgressMonitor monitor, ValidationExecutor.Batch batch){
 		
-		if (isDisabled(project))return;
+		if (isDisabled(project)){
+			if (batch != null)batch.close(null);
+			operation.flushMarkers(resource);
+			return;
+		}
 		
 		Map<String,IValidatorGroupListener[]> groupListeners = new HashMap<String,IValidatorGroupListener[]>();
+		int outcome = ValidationMetrics.Skipped;
 		
 		ValProperty vp = getValProperty(resource, valType, _configNumber.get());
-		if (vp != null){
-			BitSet bs = vp.getConfigSet();
-			for (Validator val : getValidators(project)){
-				if (!monitor.isCanceled()) {
-					if (!bs.get(_idManager.getIndex(val.getId())))continue;
-					if (operation.isSuspended(val, project))continue;
-					Validator.V2 v2 = val.asV2Validator();
-					if (v2 != null) {
-						notifyGroupListenersStarting(resource, operation.getState(), monitor, groupListeners, v2);
-					}
-					try {
-						visitor.visit(val, project, valType, operation, monitor);
-					}
-					catch (Exception e){
-						ValidationPlugin.getPlugin().handleException(e);
+		boolean known = vp != null;
+		try {
+			if (known){
+				BitSet bs = vp.getConfigSet();
+				for (Validator val : getValidators(project)){
+					if (!monitor.isCanceled()) {
+						if (!bs.get(_idManager.getIndex(val.getId())))continue;
+						if (operation.isSuspended(val, project)){
+							if (outcome == ValidationMetrics.Skipped)outcome = ValidationMetrics.Suspended;
+							continue;
+						}
+						Validator.V2 v2 = val.asV2Validator();
+						if (v2 != null) {
+							notifyGroupListenersStarting(resource, operation.getState(), monitor, groupListeners, v2);
+						}
+						outcome = ValidationMetrics.Validated;
+						try {
+							visitor.visit(val, project, valType, operation, monitor);
+						}
+						catch (Exception e){
+							ValidationPlugin.getPlugin().handleException(e);
+						}
 					}
+					else if (outcome != ValidationMetrics.Validated)outcome = ValidationMetrics.Canceled;
 				}
 			}
-			notifyGroupFinishing(resource, operation.getState(), monitor, groupListeners);
-			return;
-		}
-		
-		vp = new ValProperty();
-		vp.setConfigNumber(_configNumber.get());
-		ContentTypeWrapper ctw = new ContentTypeWrapper();
-		for (Validator val : getValidators(project)){
-			if (!monitor.isCanceled()) {
-				if (!ValidatorProjectManager.get().shouldValidate(val, project, valType))continue;
-				if (Friend.shouldValidate(val, resource, valType, ctw)){
-					vp.getConfigSet().set(_idManager.getIndex(val.getId()));
-					// we do the suspend check after figuring out if it needs to be validated, because we save
-					// this information for the session.
-					if (operation.isSuspended(val, project))continue;
-					Validator.V2 v2 = val.asV2Validator();
-					if (v2 != null) {
-						notifyGroupListenersStarting(resource, operation.getState(), monitor, groupListeners, v2);
-					}
-					try {
-						visitor.visit(val, project, valType, operation, monitor);
-					}
-					catch (Exception e){
-						ValidationPlugin.getPlugin().handleException(e);
+			else {
+				vp = new ValProperty();
+				vp.setConfigNumber(_configNumber.get());
+				FilterMatcher matcher = getFilterMatcher(project);
+				Validator[] validators = matcher.getValidators();
+				BitSet applicable = matcher.match(resource, valType, new ContentTypeWrapper());
+				for (int i = applicable.nextSetBit(0); i >= 0; i = applicable.nextSetBit(i+1)){
+					Validator val = validators[i];
+					if (!monitor.isCanceled()) {
+						if (!ValidatorProjectManager.get().shouldValidate(val, project, valType))continue;
+						vp.getConfigSet().set(_idManager.getIndex(val.getId()));
+						// we do the suspend check after figuring out if it needs to be validated, because we save
+						// this information for the session.
+						if (operation.isSuspended(val, project)){
+							if (outcome == ValidationMetrics.Skipped)outcome = ValidationMetrics.Suspended;
+							continue;
+						}
+						Validator.V2 v2 = val.asV2Validator();
+						if (v2 != null) {
+							notifyGroupListenersStarting(resource, operation.getState(), monitor, groupListeners, v2);
+						}
+						outcome = ValidationMetrics.Validated;
+						try {
+							visitor.visit(val, project, valType, operation, monitor);
+						}
+						catch (Exception e){
+							ValidationPlugin.getPlugin().handleException(e);
+						}
 					}
+					else if (outcome != ValidationMetrics.Validated)outcome = ValidationMetrics.Canceled;
 				}
 			}
 		}
-		notifyGroupFinishing(resource, operation.getState(), monitor, groupListeners);
-		putValProperty(vp, resource, valType);
+		finally {
+			// errors like ResourceUnavailableError get past the visitor, and the marker batch must not be left behind
+			finish(resource, operation, monitor, groupListeners, batch);
+		}
+		ValidationMetrics.getDefault().resourceDone(outcome);
+		if (!known)putValProperty(vp, resource, valType);
+	}
+	
+	/**
+	 * Let the group listeners know that validation is finished, and apply the resource's marker changes,
+	 * waiting for any work that is still running in the batch.
+	 */
+	private void finish(final IResource resource, final ValOperation operation, final IProgressMonitor monitor, 
+			final Map<String, IValidatorGroupListener[]> groupListeners, ValidationExecutor.Batch batch){
+		Runnable completion = new Runnable(){
+			public void run() {
+				try {
+					notifyGroupFinishing(resource, operation.getState(), monitor, groupListeners);
+				}
+				finally {
+					operation.flushMarkers(resource);
+				}
+			}
+		};
+		if (batch == null)completion.run();
+		else batch.close(completion);
 	}
 
 	/**
@@ -1247,6 +1347,22 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 	private final class ValidatorCache {
 		private final ConcurrentMap<IProject, Validator[]> _cache = new ConcurrentHashMap<IProject, Validator[]>(50);
 		private final AtomicReference<Validator[]> _global = new AtomicReference<Validator[]>();
+		private final ConcurrentMap<IProject, FilterMatcher> _matchers = new ConcurrentHashMap<IProject, FilterMatcher>(50);
+		private final AtomicReference<FilterMatcher> _globalMatcher = new AtomicReference<FilterMatcher>();
+		
+		/**
+		 * Answer the matcher for the project's validators. It is rebuilt whenever the validators change.
+		 */
+		public FilterMatcher getMatcherCached(IProject project) throws ProjectUnavailableError {
+			Validator[] vals = getValidatorsCached(project);
+			FilterMatcher matcher = project == null ? _globalMatcher.get() : _matchers.get(project);
+			if (matcher == null || matcher.getValidators() != vals){
+				matcher = new FilterMatcher(vals);
+				if (project == null)_globalMatcher.set(matcher);
+				else _matchers.put(project, matcher);
+			}
+			return matcher;
+		}
 		
 		public Validator[] getValidatorsCached(IProject project) throws ProjectUnavailableError {
 			Validator[] vals = null;
@@ -1270,10 +1386,15 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 		public void reset(){
 			_cache.clear();
 			_global.set(null);
+			_matchers.clear();
+			_globalMatcher.set(null);
 		}
 		
 		public void reset(IProject project){
-			if (project != null)_cache.remove(project);
+			if (project != null){
+				_cache.remove(project);
+				_matchers.remove(project);
+			}
 		}
 
 	}
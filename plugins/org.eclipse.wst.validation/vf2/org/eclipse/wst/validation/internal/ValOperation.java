@@ -64,6 +64,15 @@ public final class ValOperation {
 	
 	private final Set<IResource>	_validatedProjects = new HashSet<IResource>(20);
 	
+	/** 
+	 * If the thread safe validators can be run in parallel, this is the executor that runs them. It is
+	 * null if everything is run on the calling thread.
+	 */
+	private volatile ValidationExecutor _executor;
+	
+	/** The marker changes for the resources that are currently being validated. */
+	private final Map<IResource, MarkerBatch>	_markerBatches = new HashMap<IResource, MarkerBatch>(20);
+	
 	public ValOperation(){
 		_multiProject = false;
 	}
@@ -188,7 +197,54 @@ public final class ValOperation {
 	void suspendValidation(IProject project, Validator validator) {
 		if (project == null)return;
 		if (validator == null)return;
-		getSuspended(project).add(validator.getId());
+		synchronized(_suspended){
+			getSuspended(project).add(validator.getId());
+		}
+	}
+	
+	/**
+	 * Answer the executor that can be used to run the thread safe validators in parallel.
+	 * 
+	 * @return null if all the validators need to be run on the calling thread.
+	 */
+	public ValidationExecutor getExecutor() {
+		return _executor;
+	}
+	
+	void setExecutor(ValidationExecutor executor) {
+		_executor = executor;
+	}
+	
+	/**
+	 * Start collecting the marker changes for a resource that is about to be validated.
+	 */
+	void openMarkerBatch(IResource resource){
+		MarkerBatch batch = MarkerManager.getDefault().openBatch(resource, _started);
+		synchronized(_markerBatches){
+			_markerBatches.put(resource, batch);
+		}
+	}
+	
+	/**
+	 * Answer the batch that is collecting the marker changes for this resource.
+	 * 
+	 * @return null if the marker changes should be made immediately.
+	 */
+	public MarkerBatch getMarkerBatch(IResource resource){
+		synchronized(_markerBatches){
+			return _markerBatches.get(resource);
+		}
+	}
+	
+	/**
+	 * Apply any marker changes that have been collected for this resource.
+	 */
+	void flushMarkers(IResource resource){
+		MarkerBatch batch = null;
+		synchronized(_markerBatches){
+			batch = _markerBatches.remove(resource);
+		}
+		if (batch != null)batch.flush();
 	}
 
 	public long getStarted() {
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * The workspace only allows one save participant per plug-in, so this saves all of the validation
+ * framework's persistent state: the dependency index and the validation result cache.
+ * 
+ */
+public final class ValSaveParticipant implements ISaveParticipant {
+	
+	private final DependencyIndex _dependencyIndex;
+	
+	public ValSaveParticipant(DependencyIndex dependencyIndex){
+		_dependencyIndex = dependencyIndex;
+	}
+
+	public void doneSaving(ISaveContext context) {
+		_dependencyIndex.doneSaving(context);
+	}
+
+	public void prepareToSave(ISaveContext context) throws CoreException {
+		_dependencyIndex.prepareToSave(context);
+	}
+
+	public void rollback(ISaveContext context) {
+		_dependencyIndex.rollback(context);
+	}
+
+	public void saving(ISaveContext context) throws CoreException {
+		_dependencyIndex.saving(context);
+		ValidationResultCache.getDefault().save();
+	}
+}
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
+
+/**
+ * Runs the thread safe validators of a build on a pool of worker threads.
+ * <p>
+ * The executor is owned by a single thread (normally the ValBuilderJob). Only validators that have declared
+ * themselves thread safe, through the threadSafe attribute of the validator extension, are given to the
+ * workers. Everything else, including all the version 1 validators, continues to run on the owning thread.
+ * </p>
+ * <p>
+ * The work for a single resource is collected into a {@link Batch}. When the batch is closed it is given
+ * the code that needs to run once all of it's work has finished (this is where the validator group
+ * listeners are told that validation is finishing). That code is always run on the owning thread, either
+ * when {@link #runCompleted()} is called, or when {@link #join()} waits for all the outstanding work. This
+ * keeps the starting and finishing group notifications on the same thread, and in the same order, as they
+ * would be if everything was run serially.
+ * </p>
+ */
+public final class ValidationExecutor {
+
+	/** The number of units of work that we allow to be queued for each worker thread. */
+	private final static int QueueDepth = 4;
+
+	private final static AtomicInteger _threadNumber = new AtomicInteger();
+
+	private final ThreadPoolExecutor	_pool;
+
+	/** Limits the amount of work that can be outstanding, so that a large build doesn't flood the queue. */
+	private final Semaphore				_permits;
+
+	/** The batches whose work has finished, but who still need to run their completion code. */
+	private final Queue<Batch>			_completed = new ConcurrentLinkedQueue<Batch>();
+
+	/** The number of batches that have been closed but have not yet run their completion code. */
+	private int							_open;
+
+	private final IProgressMonitor		_monitor;
+
+	/**
+	 * Answer an executor for a build validation, or null if the parallel validation has been turned off.
+	 *
+	 * @param monitor
+	 *            The monitor of the owning thread. The workers only use it to
+	 *            see if the operation has been canceled.
+	 */
+	public static ValidationExecutor create(IProgressMonitor monitor){
+		int threads = getThreadCount();
+		if (threads < 2)return null;
+		return new ValidationExecutor(threads, monitor);
+	}
+
+	/**
+	 * Answer the number of worker threads that should be used. This is controlled by the threads
+	 * preference. If it is not set, or is zero, the number of available processors is used. A setting of
+	 * one turns the parallel validation off.
+	 */
+	public static int getThreadCount(){
+		int threads = 0;
+		try {
+			PreferencesWrapper pref = PreferencesWrapper.getPreferences(null, null);
+			threads = pref.getInt(PrefConstants.threads, 0);
+		}
+		catch (Exception e){
+			// we can always fall back to the default
+		}
+		if (threads <= 0)threads = Runtime.getRuntime().availableProcessors();
+		return threads;
+	}
+
+	private ValidationExecutor(int threads, IProgressMonitor monitor){
+		_monitor = monitor == null ? new NullProgressMonitor() : monitor;
+		_permits = new Semaphore(threads * QueueDepth);
+		_pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<Runnable>(), new WorkerFactory());
+		Tracing.log("ValidationExecutor-01: using threads: ", String.valueOf(threads)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Answer true if this validator can be given to one of the worker threads.
+	 */
+	public boolean canRunInParallel(Validator validator){
+		Validator.V2 v2 = validator.asV2Validator();
+		if (v2 == null)return false;
+		return v2.isThreadSafe();
+	}
+
+	/**
+	 * Start collecting the work for a new resource.
+	 */
+	public Batch newBatch(){
+		return new Batch();
+	}
+
+	/**
+	 * Run the completion code for any of the batches that have finished. This must be called from the owning thread.
+	 */
+	public void runCompleted(){
+		Batch batch = _completed.poll();
+		while (batch != null){
+			_open--;
+			batch.runCompletion();
+			batch = _completed.poll();
+		}
+	}
+
+	/**
+	 * Wait for all of the outstanding work to finish, running the completion code of each of the batches as
+	 * they finish. This must be called from the owning thread.
+	 */
+	public void join(){
+		runCompleted();
+		while (_open > 0){
+			synchronized(_completed){
+				if (_completed.isEmpty()){
+					try {
+						_completed.wait(100);
+					}
+					catch (InterruptedException e){
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+			runCompleted();
+		}
+	}
+
+	/**
+	 * Wait for the outstanding work to finish and release the worker threads.
+	 */
+	public void shutdown(){
+		try {
+			join();
+		}
+		finally {
+			_pool.shutdown();
+		}
+	}
+
+	/**
+	 * The monitor that the workers should use. The progress is reported by the owning thread, so this
+	 * monitor only answers whether the operation has been canceled.
+	 */
+	private IProgressMonitor getWorkerMonitor(){
+		return new NullProgressMonitor(){
+			@Override
+			public boolean isCanceled() {
+				return _monitor.isCanceled();
+			}
+		};
+	}
+
+	private void completed(Batch batch){
+		synchronized(_completed){
+			_completed.add(batch);
+			_completed.notifyAll();
+		}
+	}
+
+	/**
+	 * The work for a single resource.
+	 */
+	public final class Batch {
+
+		/**
+		 * The number of outstanding units of work. It starts at one, for the batch itself, which is removed when
+		 * the batch is closed.
+		 */
+		private final AtomicInteger _pending = new AtomicInteger(1);
+		private Runnable			_completion;
+
+		private Batch(){}
+
+		/**
+		 * Give some work to the worker threads. This may block if too much work is outstanding.
+		 */
+		public void submit(final Runnable work){
+			try {
+				_permits.acquire();
+			}
+			catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+				work.run();
+				return;
+			}
+			_pending.incrementAndGet();
+			_pool.execute(new Runnable(){
+				public void run() {
+					try {
+						if (!_monitor.isCanceled())work.run();
+					}
+					catch (ResourceUnavailableError e){
+						if (Tracing.isLogging())Tracing.log("ValidationExecutor-02: " + e.toString()); //$NON-NLS-1$
+					}
+					catch (ProjectUnavailableError e){
+						if (Tracing.isLogging())Tracing.log("ValidationExecutor-02: " + e.toString()); //$NON-NLS-1$
+					}
+					catch (Throwable e){
+						ValidationPlugin.getPlugin().handleException(e);
+					}
+					finally {
+						_permits.release();
+						done();
+					}
+				}
+			});
+		}
+
+		/**
+		 * Answer the monitor that the submitted work should use.
+		 */
+		public IProgressMonitor getMonitor(){
+			return getWorkerMonitor();
+		}
+
+		/**
+		 * No more work will be added to this batch.
+		 *
+		 * @param completion
+		 *            Code that is run on the owning thread once all of the work in this batch has finished. If
+		 *            there isn't any outstanding work it is run immediately. This can be null.
+		 */
+		public void close(Runnable completion){
+			_completion = completion;
+			_open++;
+			done();
+			runCompleted();
+		}
+
+		private void done(){
+			if (_pending.decrementAndGet() == 0)completed(this);
+		}
+
+		private void runCompletion(){
+			if (_completion == null)return;
+			try {
+				_completion.run();
+			}
+			catch (Exception e){
+				ValidationPlugin.getPlugin().handleException(e);
+			}
+		}
+	}
+
+	private final static class WorkerFactory implements ThreadFactory {
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Validation Worker-" + _threadNumber.incrementAndGet()); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,449 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.wst.validation.IValidationMetrics;
+import org.eclipse.wst.validation.Validator;
+
+/**
+ * The implementation of the validation metrics. All the collection is done with atomic counters, so that
+ * the validation threads never block each other.
+ */
+public final class ValidationMetrics implements IValidationMetrics {
+
+	/** The outcomes of validating a resource, see {@link #resourceDone(int)}. */
+	public final static int Validated = 0;
+	public final static int Skipped = 1;
+	public final static int Suspended = 2;
+	public final static int Canceled = 3;
+
+	private volatile boolean	_enabled = true;
+	private volatile boolean	_trackAllocations;
+
+	private final ConcurrentMap<String, ValidatorMetrics> _validators = new ConcurrentHashMap<String, ValidatorMetrics>(50);
+
+	private final AtomicLong	_resourcesValidated = new AtomicLong();
+	private final AtomicLong	_resourcesSkipped = new AtomicLong();
+	private final AtomicLong	_resourcesSuspended = new AtomicLong();
+	private final AtomicLong	_resourcesCanceled = new AtomicLong();
+	private final Histogram		_queueWait = new Histogram();
+	private final AtomicLong	_requestsMerged = new AtomicLong();
+	private final AtomicLong	_requestsDropped = new AtomicLong();
+
+	public static ValidationMetrics getDefault(){
+		return Singleton.metrics;
+	}
+
+	private ValidationMetrics(){}
+
+	public boolean isEnabled() {
+		return _enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		_enabled = enabled;
+	}
+
+	public boolean isTrackingAllocations() {
+		return _trackAllocations;
+	}
+
+	public void setTrackingAllocations(boolean track) {
+		_trackAllocations = track;
+	}
+
+	/**
+	 * Record an invocation of a validator.
+	 *
+	 * @param validator
+	 *            The validator that was invoked.
+	 * @param elapsed
+	 *            The elapsed time in nanoseconds.
+	 * @param allocated
+	 *            The number of bytes that were allocated, or -1 if this is
+	 *            unknown.
+	 * @param markers
+	 *            The number of messages that the validator produced.
+	 */
+	public void validated(Validator validator, long elapsed, long allocated, int markers){
+		ValidatorMetrics vm = getValidatorMetrics(validator.getId(), true);
+		vm.name = validator.getName();
+		vm.latency.record(elapsed / 1000);
+		if (markers > 0)vm.markers.addAndGet(markers);
+		if (allocated >= 0)vm.allocated.addAndGet(allocated);
+		else vm.allocationUnknown = true;
+	}
+
+	/**
+	 * Record what happened to a resource.
+	 *
+	 * @param outcome
+	 *            {@link #Validated} if at least one validator was run, {@link #Skipped} if the validator
+	 *            filters didn't match it, {@link #Suspended} if the only validators that matched were
+	 *            suspended, or {@link #Canceled} if the operation was canceled before any validator was run.
+	 */
+	public void resourceDone(int outcome){
+		switch (outcome){
+		case Validated:
+			_resourcesValidated.incrementAndGet();
+			break;
+		case Skipped:
+			_resourcesSkipped.incrementAndGet();
+			break;
+		case Suspended:
+			_resourcesSuspended.incrementAndGet();
+			break;
+		case Canceled:
+			_resourcesCanceled.incrementAndGet();
+			break;
+		}
+	}
+
+	/**
+	 * Record how long a build validation request waited.
+	 *
+	 * @param wait
+	 *            The time in nanoseconds.
+	 */
+	public void queueWait(long wait){
+		_queueWait.record(wait / 1000);
+	}
+
+	/**
+	 * Record that a build validation request was merged into a pending request.
+	 *
+	 * @param dropped
+	 *            The number of requests that were dropped by the merge.
+	 */
+	public void requestMerged(int dropped){
+		_requestsMerged.incrementAndGet();
+		if (dropped > 0)_requestsDropped.addAndGet(dropped);
+	}
+
+	private ValidatorMetrics getValidatorMetrics(String id, boolean create){
+		ValidatorMetrics vm = _validators.get(id);
+		if (vm == null && create){
+			vm = new ValidatorMetrics();
+			ValidatorMetrics existing = _validators.putIfAbsent(id, vm);
+			if (existing != null)vm = existing;
+		}
+		return vm;
+	}
+
+	public String[] getValidatorIds() {
+		TreeSet<String> ids = new TreeSet<String>(_validators.keySet());
+		String[] result = new String[ids.size()];
+		ids.toArray(result);
+		return result;
+	}
+
+	public long getInvocationCount(String validatorId) {
+		ValidatorMetrics vm = getValidatorMetrics(validatorId, false);
+		if (vm == null)return 0;
+		return vm.latency.getCount();
+	}
+
+	public long getLatency(String validatorId, double percentile) {
+		ValidatorMetrics vm = getValidatorMetrics(validatorId, false);
+		if (vm == null)return 0;
+		return vm.latency.getValueAt(percentile);
+	}
+
+	public long getMarkerCount(String validatorId) {
+		ValidatorMetrics vm = getValidatorMetrics(validatorId, false);
+		if (vm == null)return 0;
+		return vm.markers.get();
+	}
+
+	public long getAllocatedBytes(String validatorId) {
+		ValidatorMetrics vm = getValidatorMetrics(validatorId, false);
+		if (vm == null)return 0;
+		if (vm.allocationUnknown)return -1;
+		return vm.allocated.get();
+	}
+
+	public long getResourcesValidated() {
+		return _resourcesValidated.get();
+	}
+
+	public long getResourcesSkipped() {
+		return _resourcesSkipped.get();
+	}
+
+	public long getResourcesSuspended() {
+		return _resourcesSuspended.get();
+	}
+
+	public long getResourcesCanceled() {
+		return _resourcesCanceled.get();
+	}
+
+	public long getQueueWait(double percentile) {
+		return _queueWait.getValueAt(percentile);
+	}
+
+	public long getRequestsMerged() {
+		return _requestsMerged.get();
+	}
+
+	public long getRequestsDropped() {
+		return _requestsDropped.get();
+	}
+
+	public void reset() {
+		_requestsMerged.set(0);
+		_requestsDropped.set(0);
+		_validators.clear();
+		_resourcesValidated.set(0);
+		_resourcesSkipped.set(0);
+		_resourcesSuspended.set(0);
+		_resourcesCanceled.set(0);
+		_queueWait.reset();
+	}
+
+	public void writeJSON(Writer out) throws IOException {
+		out.write("{\"resourcesValidated\":" + getResourcesValidated()); //$NON-NLS-1$
+		out.write(",\"resourcesSkipped\":" + getResourcesSkipped()); //$NON-NLS-1$
+		out.write(",\"resourcesSuspended\":" + getResourcesSuspended()); //$NON-NLS-1$
+		out.write(",\"resourcesCanceled\":" + getResourcesCanceled()); //$NON-NLS-1$
+		out.write(",\"requestsMerged\":" + getRequestsMerged()); //$NON-NLS-1$
+		out.write(",\"requestsDropped\":" + getRequestsDropped()); //$NON-NLS-1$
+		out.write(",\"queueWait\":"); //$NON-NLS-1$
+		writeJSON(out, _queueWait);
+		out.write(",\"validators\":["); //$NON-NLS-1$
+		boolean first = true;
+		for (String id : getValidatorIds()){
+			ValidatorMetrics vm = getValidatorMetrics(id, false);
+			if (vm == null)continue;
+			if (!first)out.write(',');
+			first = false;
+			out.write("{\"id\":" + quote(id)); //$NON-NLS-1$
+			out.write(",\"name\":" + quote(vm.name)); //$NON-NLS-1$
+			out.write(",\"markers\":" + vm.markers.get()); //$NON-NLS-1$
+			out.write(",\"allocatedBytes\":" + getAllocatedBytes(id)); //$NON-NLS-1$
+			out.write(",\"latency\":"); //$NON-NLS-1$
+			writeJSON(out, vm.latency);
+			out.write('}');
+		}
+		out.write("]}"); //$NON-NLS-1$
+		out.flush();
+	}
+
+	private void writeJSON(Writer out, Histogram h) throws IOException {
+		out.write("{\"count\":" + h.getCount()); //$NON-NLS-1$
+		out.write(",\"mean\":" + h.getMean()); //$NON-NLS-1$
+		out.write(",\"p50\":" + h.getValueAt(50)); //$NON-NLS-1$
+		out.write(",\"p90\":" + h.getValueAt(90)); //$NON-NLS-1$
+		out.write(",\"p99\":" + h.getValueAt(99)); //$NON-NLS-1$
+		out.write(",\"max\":" + h.getMax()); //$NON-NLS-1$
+		out.write('}');
+	}
+
+	private static String quote(String s){
+		if (s == null)return "null"; //$NON-NLS-1$
+		StringBuffer b = new StringBuffer(s.length() + 2);
+		b.append('"');
+		for (int i=0; i<s.length(); i++){
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\')b.append('\\').append(c);
+			else if (c < 0x20){
+				String hex = Integer.toHexString(c);
+				b.append("\\u"); //$NON-NLS-1$
+				for (int j=hex.length(); j<4; j++)b.append('0');
+				b.append(hex);
+			}
+			else b.append(c);
+		}
+		b.append('"');
+		return b.toString();
+	}
+
+	public void writeCSV(Writer out) throws IOException {
+		out.write("id,name,count,mean,p50,p90,p99,max,markers,allocatedBytes\n"); //$NON-NLS-1$
+		for (String id : getValidatorIds()){
+			ValidatorMetrics vm = getValidatorMetrics(id, false);
+			if (vm == null)continue;
+			Histogram h = vm.latency;
+			out.write(csv(id) + ',' + csv(vm.name) + ',' + h.getCount() + ',' + h.getMean() + ',' +
+				h.getValueAt(50) + ',' + h.getValueAt(90) + ',' + h.getValueAt(99) + ',' + h.getMax() + ',' +
+				vm.markers.get() + ',' + getAllocatedBytes(id) + '\n');
+		}
+		out.flush();
+	}
+
+	private static String csv(String s){
+		if (s == null)return ""; //$NON-NLS-1$
+		if (s.indexOf(',') == -1 && s.indexOf('"') == -1 && s.indexOf('\n') == -1)return s;
+		return '"' + s.replace("\"", "\"\"") + '"'; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Answer the number of bytes that the current thread has allocated.
+	 *
+	 * @return -1 if this JVM doesn't support measuring the allocations.
+	 */
+	public static long getAllocatedBytes(){
+		return Allocation.getAllocatedBytes();
+	}
+
+	private final static class ValidatorMetrics {
+		final Histogram		latency = new Histogram();
+		final AtomicLong	markers = new AtomicLong();
+		final AtomicLong	allocated = new AtomicLong();
+		volatile String		name;
+		volatile boolean	allocationUnknown;
+	}
+
+	/**
+	 * A lock free histogram, with log-linear buckets in the style of a HDR histogram. Values below 32 are
+	 * recorded exactly, and each power of two above that is split into 16 buckets, so the values are
+	 * accurate to within about 6%.
+	 */
+	final static class Histogram {
+		private final static int SubBits = 4;
+		private final static int Sub = 1 << SubBits;
+		private final static int Linear = 2 * Sub;
+		private final static int MinExp = SubBits + 1;
+
+		/** The largest exponent that we track, 2^40 microseconds is about 12 days. */
+		private final static int MaxExp = 40;
+
+		private final static int Buckets = Linear + (MaxExp - MinExp + 1) * Sub;
+
+		private final AtomicLongArray	_counts = new AtomicLongArray(Buckets);
+		private final AtomicLong		_count = new AtomicLong();
+		private final AtomicLong		_sum = new AtomicLong();
+		private final AtomicLong		_max = new AtomicLong();
+
+		void record(long value){
+			if (value < 0)value = 0;
+			_counts.incrementAndGet(index(value));
+			_count.incrementAndGet();
+			_sum.addAndGet(value);
+			long max = _max.get();
+			while (value > max && !_max.compareAndSet(max, value))max = _max.get();
+		}
+
+		long getCount(){
+			return _count.get();
+		}
+
+		long getMax(){
+			return _max.get();
+		}
+
+		long getMean(){
+			long count = _count.get();
+			if (count == 0)return 0;
+			return _sum.get() / count;
+		}
+
+		/**
+		 * Answer the value at the percentile, which is the upper bound of the bucket that holds it.
+		 */
+		long getValueAt(double percentile){
+			long[] counts = new long[Buckets];
+			long total = 0;
+			for (int i=0; i<Buckets; i++){
+				counts[i] = _counts.get(i);
+				total += counts[i];
+			}
+			if (total == 0)return 0;
+			long target = (long)Math.ceil(Math.max(0.0, Math.min(100.0, percentile)) / 100.0 * total);
+			if (target < 1)target = 1;
+			long cumulative = 0;
+			for (int i=0; i<Buckets; i++){
+				cumulative += counts[i];
+				if (cumulative >= target)return Math.min(upperBound(i), getMax());
+			}
+			return getMax();
+		}
+
+		void reset(){
+			for (int i=0; i<Buckets; i++)_counts.set(i, 0);
+			_count.set(0);
+			_sum.set(0);
+			_max.set(0);
+		}
+
+		static int index(long value){
+			if (value < Linear)return (int)value;
+			int exp = 63 - Long.numberOfLeadingZeros(value);
+			if (exp > MaxExp)return Buckets - 1;
+			int sub = (int)((value >>> (exp - SubBits)) & (Sub - 1));
+			return Linear + (exp - MinExp) * Sub + sub;
+		}
+
+		static long upperBound(int index){
+			if (index < Linear)return index;
+			int exp = (index - Linear) / Sub + MinExp;
+			int sub = (index - Linear) % Sub;
+			long lower = (1L << exp) + ((long)sub << (exp - SubBits));
+			return lower + (1L << (exp - SubBits)) - 1;
+		}
+	}
+
+	/**
+	 * Measures the allocations of the current thread. This is only supported on JVMs that provide the
+	 * com.sun.management.ThreadMXBean, so it is accessed reflectively.
+	 */
+	private final static class Allocation {
+		private static final ThreadMXBean 	_bean;
+		private static final Method			_method;
+
+		static {
+			ThreadMXBean bean = null;
+			Method method = null;
+			try {
+				bean = ManagementFactory.getThreadMXBean();
+				Class<?> c = Class.forName("com.sun.management.ThreadMXBean"); //$NON-NLS-1$
+				if (c.isInstance(bean)){
+					Method supported = c.getMethod("isThreadAllocatedMemorySupported"); //$NON-NLS-1$
+					Method enabled = c.getMethod("isThreadAllocatedMemoryEnabled"); //$NON-NLS-1$
+					if (Boolean.TRUE.equals(supported.invoke(bean)) && Boolean.TRUE.equals(enabled.invoke(bean)))
+						method = c.getMethod("getThreadAllocatedBytes", long.class); //$NON-NLS-1$
+				}
+			}
+			catch (Throwable e){
+				// the allocations can't be measured on this JVM
+			}
+			_bean = bean;
+			_method = method;
+		}
+
+		static long getAllocatedBytes(){
+			if (_method == null)return -1;
+			try {
+				Object result = _method.invoke(_bean, Thread.currentThread().getId());
+				if (result instanceof Long)return ((Long)result).longValue();
+			}
+			catch (Exception e){
+				// fall through
+			}
+			return -1;
+		}
+	}
+
+	private static class Singleton {
+		static ValidationMetrics metrics = new ValidationMetrics();
+	}
+}
@@ -0,0 +1,530 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.validation.ValidationFramework;
+import org.eclipse.wst.validation.ValidationResult;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.ValidatorMessage;
+import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
+
+/**
+ * A persistent cache of validation results, so that resources that have not changed do not need to be
+ * validated again, even across workbench restarts and clean builds.
+ * <p>
+ * Only validators that have set the cacheable attribute on their validator extension are cached. The
+ * cache holds one entry for each validator and file. An entry is only used if it's fingerprint still
+ * matches, where the fingerprint is made up of:
+ * <ul>
+ * <li>the validator version and configuration</li>
+ * <li>a digest of the contents of the file</li>
+ * <li>a digest of each of the resources that the file depends on, as recorded in the dependency index</li>
+ * </ul>
+ * When an entry is used, the cached messages are turned back into markers without calling the validator.
+ * </p>
+ * <p>
+ * The cache is bounded both in the number of entries and in the (approximate) number of bytes that the
+ * messages take up. The least recently used entries are evicted first. It is saved in the plug-in's state
+ * location when the workspace is saved.
+ * </p>
+ * <p>
+ * The format of the cache file is:
+ *
+ * <pre>
+ * Version number
+ * Number of entries
+ *   validator id and file name, separated by a tab
+ *   fingerprint length
+ *   fingerprint bytes
+ *   number of errors, warnings, infos
+ *   number of messages
+ *     resource name
+ *     marker type
+ *     number of attributes
+ *       attribute name
+ *       attribute type (S, I or B)
+ *       attribute value
+ * </pre>
+ *
+ */
+public final class ValidationResultCache {
+
+	/** Version of the persistent cache. */
+	private static final int CurrentVersion = 1;
+
+	/** The maximum number of entries that are kept. */
+	private static final int MaxEntries = 20000;
+
+	/** The (approximate) maximum number of bytes that the cached messages may use. */
+	private static final long MaxBytes = 16 * 1024 * 1024;
+
+	/** Strings that are longer than this are not cached. */
+	private static final int MaxStringLength = 8192;
+
+	private static final char TypeString = 'S';
+	private static final char TypeInteger = 'I';
+	private static final char TypeBoolean = 'B';
+
+	/** The entries in least recently used order. The key is the validator id and the file path. */
+	private Map<String, Entry> 	_map;
+
+	private long				_bytes;
+	private boolean				_dirty;
+
+	/** Some counters so that we can tell if the cache is working. */
+	private long				_hits;
+	private long				_misses;
+
+	public static ValidationResultCache getDefault(){
+		return Singleton.cache;
+	}
+
+	private ValidationResultCache(){}
+
+	/**
+	 * Answer a key that can be used to look up, and later store the results of validating this resource.
+	 *
+	 * @return null if the results of this validator on this resource can not be cached.
+	 */
+	public Key createKey(Validator validator, IResource resource){
+		Validator.V2 v2 = validator.asV2Validator();
+		if (v2 == null || !v2.isCacheable())return null;
+		if (resource.getType() != IResource.FILE)return null;
+		byte[] fingerprint = fingerprint(v2, (IFile)resource);
+		if (fingerprint == null)return null;
+		return new Key(validator.getId(), resource.getFullPath().toPortableString(), fingerprint);
+	}
+
+	/**
+	 * If we have a valid entry for the key, recreate it's markers, and answer a validation result that
+	 * holds the cached messages.
+	 *
+	 * @param batch
+	 *            If this is not null, the markers are added to the batch,
+	 *            rather than being created immediately.
+	 *
+	 * @return null if there was no valid entry.
+	 */
+	@SuppressWarnings("unchecked")
+	public ValidationResult replay(Key key, MarkerBatch batch){
+		Entry entry = null;
+		synchronized(this){
+			init();
+			entry = _map.get(key.getName());
+			if (entry == null || !Arrays.equals(entry.fingerprint, key.fingerprint)){
+				_misses++;
+				return null;
+			}
+			_hits++;
+		}
+
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		ValidationResult vr = new ValidationResult();
+		MarkerManager mm = MarkerManager.getDefault();
+		for (CachedMessage cm : entry.messages){
+			IResource res = root.findMember(cm.resource);
+			if (res == null)continue;
+			ValidatorMessage vm = ValidatorMessage.create("", res); //$NON-NLS-1$
+			vm.setType(cm.type);
+			vm.getAttributes().putAll(cm.attributes);
+			vr.add(vm);
+			if (batch != null)batch.create(vm, key.validatorId);
+			else mm.createMarker(vm, key.validatorId);
+		}
+		vr.setSeverityError(entry.errors);
+		vr.setSeverityWarning(entry.warnings);
+		vr.setSeverityInfo(entry.infos);
+		if (Tracing.isLogging())Tracing.log("ValidationResultCache-01: replayed ", key.getName()); //$NON-NLS-1$
+		return vr;
+	}
+
+	/**
+	 * Remember the results of a validation.
+	 *
+	 * @param key
+	 *            The key that was created before the resource was validated.
+	 * @param vr
+	 *            The result of the validation. Results that can not be
+	 *            faithfully replayed, for example results that suspended
+	 *            validation, are not cached.
+	 */
+	public void put(Key key, ValidationResult vr){
+		if (vr == null || vr.isCanceled() || vr.getValidationException() != null)return;
+		if (vr.getSuspendValidation() != null || vr.getValidated() != null)return;
+
+		ValidatorMessage[] msgs = vr.getMessages();
+		CachedMessage[] cms = new CachedMessage[msgs.length];
+		long size = key.getName().length() * 2 + key.fingerprint.length + 64;
+		for (int i=0; i<msgs.length; i++){
+			cms[i] = CachedMessage.create(msgs[i]);
+			if (cms[i] == null){
+				remove(key);
+				return;
+			}
+			size += cms[i].size();
+		}
+		Entry entry = new Entry(key.fingerprint, cms, vr.getSeverityError(), vr.getSeverityWarning(),
+			vr.getSeverityInfo(), size);
+		synchronized(this){
+			init();
+			Entry old = _map.put(key.getName(), entry);
+			if (old != null)_bytes -= old.size;
+			_bytes += entry.size;
+			_dirty = true;
+			trim();
+		}
+	}
+
+	private synchronized void remove(Key key){
+		init();
+		Entry old = _map.remove(key.getName());
+		if (old != null){
+			_bytes -= old.size;
+			_dirty = true;
+		}
+	}
+
+	/**
+	 * Discard all the cached results. This needs to be called whenever the validation configuration has
+	 * changed in a way that could change the results of the validators.
+	 */
+	public synchronized void clear(){
+		init();
+		if (_map.size() == 0)return;
+		_map.clear();
+		_bytes = 0;
+		_dirty = true;
+	}
+
+	public synchronized long getHits(){
+		return _hits;
+	}
+
+	public synchronized long getMisses(){
+		return _misses;
+	}
+
+	/**
+	 * Evict the least recently used entries until we are within our bounds.
+	 */
+	private void trim(){
+		Iterator<Entry> it = _map.values().iterator();
+		while ((_map.size() > MaxEntries || _bytes > MaxBytes) && it.hasNext()){
+			Entry e = it.next();
+			_bytes -= e.size;
+			it.remove();
+		}
+	}
+
+	/**
+	 * Answer the fingerprint of the validator's configuration, the file contents and the contents of all
+	 * the things that the file depends on.
+	 *
+	 * @return null if the fingerprint could not be calculated.
+	 */
+	private byte[] fingerprint(Validator.V2 validator, IFile file){
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			md.update(intToBytes(validator.getVersion()));
+			md.update(intToBytes(validator.hashCodeForConfig()));
+			if (!digest(md, file))return null;
+
+			DependencyIndex di = (DependencyIndex)ValidationFramework.getDefault().getDependencyIndex();
+			for (IResource dependsOn : di.getDependsOn(validator.getId(), file)){
+				md.update(dependsOn.getFullPath().toPortableString().getBytes("UTF-8")); //$NON-NLS-1$
+				if (dependsOn.getType() != IResource.FILE || !digest(md, (IFile)dependsOn))md.update((byte)0);
+			}
+			return md.digest();
+		}
+		catch (NoSuchAlgorithmException e){
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		catch (IOException e){
+			// the file can't be read, so we don't cache it
+		}
+		return null;
+	}
+
+	private boolean digest(MessageDigest md, IFile file) throws IOException {
+		if (!file.isAccessible())return false;
+		InputStream in = null;
+		try {
+			in = file.getContents(true);
+			byte[] buffer = new byte[8192];
+			int len = in.read(buffer);
+			while (len >= 0){
+				md.update(buffer, 0, len);
+				len = in.read(buffer);
+			}
+			return true;
+		}
+		catch (CoreException e){
+			return false;
+		}
+		finally {
+			Misc.close(in);
+		}
+	}
+
+	private static byte[] intToBytes(int i){
+		return new byte[]{(byte)(i >>> 24), (byte)(i >>> 16), (byte)(i >>> 8), (byte)i};
+	}
+
+	/**
+	 * Restore the cache. See the class comment for the structure.
+	 */
+	private void init(){
+		if (_map != null)return;
+		_map = new LinkedHashMap<String, Entry>(1000, 0.75f, true);
+
+		File f = getCacheLocation();
+		if (!f.exists() || f.length() == 0)return;
+
+		boolean error = false;
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+			int version = in.readInt();
+			if (version != CurrentVersion){
+				error = true;
+				return;
+			}
+			int numEntries = in.readInt();
+			for (int i=0; i<numEntries; i++){
+				String name = in.readUTF();
+				byte[] fingerprint = new byte[in.readInt()];
+				in.readFully(fingerprint);
+				int errors = in.readInt();
+				int warnings = in.readInt();
+				int infos = in.readInt();
+				CachedMessage[] cms = new CachedMessage[in.readInt()];
+				long size = name.length() * 2 + fingerprint.length + 64;
+				for (int j=0; j<cms.length; j++){
+					cms[j] = CachedMessage.read(in);
+					size += cms[j].size();
+				}
+				_map.put(name, new Entry(fingerprint, cms, errors, warnings, infos, size));
+				_bytes += size;
+			}
+		}
+		catch (EOFException e){
+			error = true;
+			Tracing.log("ValidationResultCache-02: Unable to read the validation result cache because of EOF exception");  //$NON-NLS-1$
+		}
+		catch (IOException e){
+			error = true;
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		finally {
+			Misc.close(in);
+			if (error){
+				_map.clear();
+				_bytes = 0;
+				f.delete();
+			}
+		}
+	}
+
+	/**
+	 * Persist the cache. See the class comment for the structure.
+	 */
+	public synchronized void save(){
+		if (!_dirty || _map == null)return;
+		_dirty = false;
+		boolean error = false;
+		DataOutputStream out = null;
+		File f = getCacheLocation();
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+			out.writeInt(CurrentVersion);
+			out.writeInt(_map.size());
+			for (Map.Entry<String, Entry> me : _map.entrySet()){
+				Entry e = me.getValue();
+				out.writeUTF(me.getKey());
+				out.writeInt(e.fingerprint.length);
+				out.write(e.fingerprint);
+				out.writeInt(e.errors);
+				out.writeInt(e.warnings);
+				out.writeInt(e.infos);
+				out.writeInt(e.messages.length);
+				for (CachedMessage cm : e.messages)cm.write(out);
+			}
+		}
+		catch (IOException e){
+			error = true;
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		finally {
+			Misc.close(out);
+			if (error)f.delete();
+		}
+	}
+
+	private File getCacheLocation() {
+		IPath path = ValidationPlugin.getPlugin().getStateLocation().append("results.cache"); //$NON-NLS-1$
+		return path.toFile();
+	}
+
+	/**
+	 * Identifies a validator, file and the state that the validator saw when it validated the file.
+	 */
+	public final static class Key {
+		private final String 	validatorId;
+		private final String	path;
+		private final byte[]	fingerprint;
+
+		private Key(String validatorId, String path, byte[] fingerprint){
+			this.validatorId = validatorId;
+			this.path = path;
+			this.fingerprint = fingerprint;
+		}
+
+		String getName(){
+			return validatorId + '\t' + path;
+		}
+	}
+
+	private final static class Entry {
+		final byte[] 			fingerprint;
+		final CachedMessage[] 	messages;
+		final int				errors;
+		final int				warnings;
+		final int				infos;
+
+		/** Approximate number of bytes used by the entry. */
+		final long				size;
+
+		Entry(byte[] fingerprint, CachedMessage[] messages, int errors, int warnings, int infos, long size){
+			this.fingerprint = fingerprint;
+			this.messages = messages;
+			this.errors = errors;
+			this.warnings = warnings;
+			this.infos = infos;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * A ValidatorMessage in a form that doesn't hold onto any resources.
+	 */
+	private final static class CachedMessage {
+		final String 				resource;
+		final String 				type;
+		final Map<String, Object> 	attributes;
+
+		private CachedMessage(String resource, String type, Map<String, Object> attributes){
+			this.resource = resource;
+			this.type = type;
+			this.attributes = attributes;
+		}
+
+		/**
+		 * Answer a cached form of the message, or null if the message has attributes that we can't
+		 * persist.
+		 */
+		@SuppressWarnings("unchecked")
+		static CachedMessage create(ValidatorMessage vm){
+			IResource res = vm.getResource();
+			if (res == null || vm.getType() == null)return null;
+			Map<String, Object> attributes = new LinkedHashMap<String, Object>();
+			for (Iterator it = vm.getAttributes().entrySet().iterator(); it.hasNext();){
+				Map.Entry me = (Map.Entry)it.next();
+				Object value = me.getValue();
+				if (!(me.getKey() instanceof String))return null;
+				if (value instanceof String){
+					if (((String)value).length() > MaxStringLength)return null;
+				}
+				else if (!(value instanceof Integer) && !(value instanceof Boolean))return null;
+				attributes.put((String)me.getKey(), value);
+			}
+			return new CachedMessage(res.getFullPath().toPortableString(), vm.getType(), attributes);
+		}
+
+		static CachedMessage read(DataInputStream in) throws IOException {
+			String resource = in.readUTF();
+			String type = in.readUTF();
+			int num = in.readInt();
+			Map<String, Object> attributes = new LinkedHashMap<String, Object>(num);
+			for (int i=0; i<num; i++){
+				String name = in.readUTF();
+				char t = in.readChar();
+				if (t == TypeString)attributes.put(name, in.readUTF());
+				else if (t == TypeInteger)attributes.put(name, new Integer(in.readInt()));
+				else if (t == TypeBoolean)attributes.put(name, Boolean.valueOf(in.readBoolean()));
+				else throw new IOException("Unknown attribute type: " + t); //$NON-NLS-1$
+			}
+			return new CachedMessage(resource, type, attributes);
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeUTF(resource);
+			out.writeUTF(type);
+			out.writeInt(attributes.size());
+			for (Map.Entry<String, Object> me : attributes.entrySet()){
+				out.writeUTF(me.getKey());
+				Object value = me.getValue();
+				if (value instanceof String){
+					out.writeChar(TypeString);
+					out.writeUTF((String)value);
+				}
+				else if (value instanceof Integer){
+					out.writeChar(TypeInteger);
+					out.writeInt(((Integer)value).intValue());
+				}
+				else {
+					out.writeChar(TypeBoolean);
+					out.writeBoolean(((Boolean)value).booleanValue());
+				}
+			}
+		}
+
+		long size(){
+			long size = (resource.length() + type.length()) * 2 + 32;
+			for (Map.Entry<String, Object> me : attributes.entrySet()){
+				size += me.getKey().length() * 2 + 32;
+				Object value = me.getValue();
+				if (value instanceof String)size += ((String)value).length() * 2;
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Store the singleton for the ValidationResultCache. This approach is used to avoid having to synchronize the
+	 * ValidationResultCache.getDefault() method.
+	 */
+	private static class Singleton {
+		static ValidationResultCache cache = new ValidationResultCache();
+	}
+}
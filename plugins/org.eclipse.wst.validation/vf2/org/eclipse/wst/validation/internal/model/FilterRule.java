@@ -354,6 +354,11 @@ public abstract class FilterRule implements IAdaptable {
 			return ValMessages.RuleFile;
 		}
 		
+		/** Answer one of the FileTypeXX constants. */
+		public int getFileType() {
+			return _type;
+		}
+		
 		public void setData(IConfigurationElement rule) {
 		}
 		
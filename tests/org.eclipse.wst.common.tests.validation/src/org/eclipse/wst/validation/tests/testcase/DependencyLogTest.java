@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.tests.testcase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.wst.validation.internal.DependencyLog;
+
+/** Test that the dependency log replays what was written to it, survives a torn append, and can be compacted. */
+public class DependencyLogTest extends TestCase {
+
+	private File _file;
+
+	public static Test suite() {
+		return new TestSuite(DependencyLogTest.class);
+	}
+
+	public DependencyLogTest(String name){
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		_file = File.createTempFile("dependency", ".log");
+		_file.delete();
+	}
+
+	protected void tearDown() throws Exception {
+		_file.delete();
+		super.tearDown();
+	}
+
+	private static byte[] strings(String... values) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (int i=0; i<values.length; i++)DependencyLog.writeString(out, i, values[i]);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] edge(byte type, int validator, int dependent, int dependsOn) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		DependencyLog.writeEdge(out, type, validator, dependent, dependsOn);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] concat(byte[]... parts){
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		for (byte[] part : parts)bytes.write(part, 0, part.length);
+		return bytes.toByteArray();
+	}
+
+	private List<String> replay(DependencyLog log) throws IOException {
+		Recorder recorder = new Recorder();
+		assertTrue(log.read(recorder));
+		return recorder.records;
+	}
+
+	public void testMissingLog() throws IOException {
+		assertFalse(new DependencyLog(_file).read(new Recorder()));
+	}
+
+	public void testReplay() throws IOException {
+		DependencyLog log = new DependencyLog(_file);
+		log.rewrite(concat(strings("validator", "/p/a.txt", "/p/b.txt"), edge(DependencyLog.TypeAdd, 0, 1, 2)), 4);
+		log.append(edge(DependencyLog.TypeRemove, 0, 1, 2), 1);
+		assertEquals(5, log.getRecords());
+
+		DependencyLog reread = new DependencyLog(_file);
+		assertEquals(Arrays.asList("string 0 validator", "string 1 /p/a.txt", "string 2 /p/b.txt",
+			"add 0 1 2", "remove 0 1 2"), replay(reread));
+		assertEquals(5, reread.getRecords());
+	}
+
+	public void testNonAsciiStrings() throws IOException {
+		DependencyLog log = new DependencyLog(_file);
+		log.rewrite(strings("/p/\u00e9t\u00e9.txt"), 1);
+		assertEquals(Arrays.asList("string 0 /p/\u00e9t\u00e9.txt"), replay(new DependencyLog(_file)));
+	}
+
+	/**
+	 * If we were interrupted while appending, the partial record is ignored, and dropped by the next append.
+	 */
+	public void testTruncatedTail() throws IOException {
+		DependencyLog log = new DependencyLog(_file);
+		log.rewrite(strings("validator", "/p/a.txt", "/p/b.txt"), 3);
+		log.append(concat(edge(DependencyLog.TypeAdd, 0, 1, 2), edge(DependencyLog.TypeAdd, 0, 2, 1)), 2);
+		long length = _file.length();
+		RandomAccessFile raf = new RandomAccessFile(_file, "rw");
+		try {
+			raf.setLength(length - 5);
+		}
+		finally {
+			raf.close();
+		}
+
+		DependencyLog reread = new DependencyLog(_file);
+		assertEquals(Arrays.asList("string 0 validator", "string 1 /p/a.txt", "string 2 /p/b.txt",
+			"add 0 1 2"), replay(reread));
+		assertEquals(4, reread.getRecords());
+
+		reread.append(edge(DependencyLog.TypeRemove, 0, 1, 2), 1);
+		// the partial record was replaced by a complete one
+		assertEquals(length, _file.length());
+		assertEquals(Arrays.asList("string 0 validator", "string 1 /p/a.txt", "string 2 /p/b.txt",
+			"add 0 1 2", "remove 0 1 2"), replay(new DependencyLog(_file)));
+	}
+
+	/**
+	 * A log that we don't understand is reported, so that the caller can rewrite it.
+	 */
+	public void testUnknownFormat() throws IOException {
+		FileOutputStream out = new FileOutputStream(_file);
+		try {
+			out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+		}
+		finally {
+			out.close();
+		}
+		DependencyLog log = new DependencyLog(_file);
+		assertFalse(log.read(new Recorder()));
+
+		// an append to a log that couldn't be read replaces it
+		log.append(strings("validator"), 1);
+		assertEquals(Arrays.asList("string 0 validator"), replay(new DependencyLog(_file)));
+	}
+
+	/**
+	 * A record that the reader rejects makes the whole log unusable, so that the caller rebuilds it.
+	 */
+	public void testRejectedRecord() throws IOException {
+		DependencyLog log = new DependencyLog(_file);
+		log.rewrite(concat(strings("validator", "/p/a.txt", "/p/b.txt"), edge(DependencyLog.TypeRemove, 0, 1, 2)), 4);
+
+		DependencyLog reread = new DependencyLog(_file);
+		Recorder recorder = new Recorder();
+		recorder.rejectRemoves = true;
+		assertFalse(reread.read(recorder));
+		assertEquals(0, reread.getRecords());
+
+		// an append to a log that was rejected replaces it
+		reread.append(strings("validator"), 1);
+		assertEquals(Arrays.asList("string 0 validator"), replay(new DependencyLog(_file)));
+	}
+
+	public void testCompaction() throws IOException {
+		DependencyLog log = new DependencyLog(_file);
+		log.rewrite(strings("validator", "/p/a.txt", "/p/b.txt"), 3);
+		for (int i=0; i<50; i++){
+			log.append(edge(DependencyLog.TypeAdd, 0, 1, 2), 1);
+			log.append(edge(DependencyLog.TypeRemove, 0, 1, 2), 1);
+		}
+		assertEquals(103, log.getRecords());
+		long length = _file.length();
+
+		log.rewrite(concat(strings("validator", "/p/a.txt", "/p/b.txt"), edge(DependencyLog.TypeAdd, 0, 2, 1)), 4);
+		assertEquals(4, log.getRecords());
+		assertTrue(_file.length() < length);
+		assertFalse(new File(_file.getPath() + ".tmp").exists());
+
+		DependencyLog reread = new DependencyLog(_file);
+		assertEquals(Arrays.asList("string 0 validator", "string 1 /p/a.txt", "string 2 /p/b.txt",
+			"add 0 2 1"), replay(reread));
+
+		// the compacted log can be appended to
+		reread.append(edge(DependencyLog.TypeRemove, 0, 2, 1), 1);
+		assertEquals(5, replay(new DependencyLog(_file)).size());
+	}
+
+	private static final class Recorder implements DependencyLog.Reader {
+		final List<String> records = new LinkedList<String>();
+		boolean rejectRemoves;
+
+		public boolean string(int id, String value) {
+			records.add("string " + id + " " + value);
+			return true;
+		}
+
+		public boolean add(int validator, int dependent, int dependsOn) {
+			records.add("add " + validator + " " + dependent + " " + dependsOn);
+			return true;
+		}
+
+		public boolean remove(int validator, int dependent, int dependsOn) {
+			if (rejectRemoves)return false;
+			records.add("remove " + validator + " " + dependent + " " + dependsOn);
+			return true;
+		}
+	}
+}
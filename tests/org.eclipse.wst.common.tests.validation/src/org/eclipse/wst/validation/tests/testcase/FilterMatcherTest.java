@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.tests.testcase;
+
+import java.util.BitSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.internal.ContentTypeWrapper;
+import org.eclipse.wst.validation.internal.FilterMatcher;
+import org.eclipse.wst.validation.internal.ValManager;
+import org.eclipse.wst.validation.internal.ValType;
+
+/** Test that the compiled filters make the same decisions as asking each validator's filter groups. */
+public class FilterMatcherTest extends TestCase {
+
+	private TestEnvironment _env;
+	private IProject		_project;
+
+	public static Test suite() {
+		return new TestSuite(FilterMatcherTest.class);
+	}
+
+	public FilterMatcherTest(String name){
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		_env = new TestEnvironment();
+		_project = _env.createProject("FilterMatcherTest");
+		IPath root = _project.getFullPath();
+		IPath source = _env.addFolder(root, "source");
+		IPath ignore = _env.addFolder(source, "ignore");
+		IPath third = _env.addFolder(_env.addFolder(_env.addFolder(root, "first"), "second"), "third");
+		IPath thirdx = _env.addFolder(_env.addFolder(root, "secondx"), "third");
+
+		_env.addFile(source, "first.test1", "error - error");
+		_env.addFile(source, "first.TEST1", "error - error");
+		_env.addFile(source, "a.t1b", "error - error");
+		_env.addFile(source, "b.t1c", "error - error");
+		_env.addFile(ignore, "c.t1c", "error - error");
+		_env.addFile(source, "page.jsp", "<html/>");
+		_env.addFile(source, "page.html", "<html/>");
+		_env.addFile(source, "page.htm", "<html/>");
+		_env.addFile(source, "data.xml", "<fun>times</fun>");
+		_env.addFile(root, "somefile.txt", "# some file");
+		_env.addFile(root, "file.specific", "# file rule");
+		_env.addFile(source, "file.specific", "# file rule");
+		_env.addFile(root, "full.specific", "# full rule");
+		_env.addFile(source, "full.specific", "# full rule");
+		_env.addFile(third, "d.txt", "# pattern rule");
+		_env.addFile(thirdx, "e.txt", "# pattern rule");
+		_env.addFile(source, "f.t6a", "# no rules match");
+		_env.addFile(source, "g.t11a", "error - error");
+		_env.addFile(source, "noextension", "# no extension");
+		_env.addFile(source, "derived.test1", "error - error").setDerived(true);
+	}
+
+	protected void tearDown() throws Exception {
+		_project.delete(true, null);
+		_env.dispose();
+		super.tearDown();
+	}
+
+	public void testSameDecisions() throws CoreException {
+		final FilterMatcher matcher = ValManager.getDefault().getFilterMatcher(_project);
+		final Validator[] validators = matcher.getValidators();
+		assertTrue(validators.length > 0);
+		final int[] checked = new int[1];
+		_project.accept(new IResourceVisitor(){
+			public boolean visit(IResource resource) throws CoreException {
+				if (resource.getType() == IResource.PROJECT)return true;
+				for (ValType type : ValType.values()){
+					BitSet bits = matcher.match(resource, type, new ContentTypeWrapper());
+					for (int i=0; i<validators.length; i++){
+						assertEquals(type + " " + validators[i].getId() + " " + resource,
+							validators[i].shouldValidate(resource, type), bits.get(i));
+					}
+				}
+				BitSet bits = matcher.match(resource, false, false, new ContentTypeWrapper());
+				for (int i=0; i<validators.length; i++){
+					assertEquals(validators[i].getId() + " " + resource,
+						validators[i].shouldValidate(resource, false, false), bits.get(i));
+				}
+				checked[0]++;
+				return true;
+			}
+		});
+		assertTrue(checked[0] > 20);
+	}
+
+	/**
+	 * The matcher answers the validators of the project, in the same order.
+	 */
+	public void testSameValidators() {
+		Validator[] validators = ValManager.getDefault().getValidators(_project);
+		Validator[] matched = ValManager.getDefault().getFilterMatcher(_project).getValidators();
+		assertEquals(validators.length, matched.length);
+		for (int i=0; i<validators.length; i++)assertEquals(validators[i].getId(), matched[i].getId());
+	}
+}
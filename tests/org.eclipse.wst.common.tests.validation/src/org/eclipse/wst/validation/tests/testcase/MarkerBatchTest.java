@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.tests.testcase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IMarkerDelta;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.validation.ValidatorMessage;
+import org.eclipse.wst.validation.internal.MarkerBatch;
+import org.eclipse.wst.validation.internal.MarkerManager;
+import org.eclipse.wst.validation.internal.ValConstants;
+
+/** Test that a marker batch only touches the markers that have actually changed. */
+public class MarkerBatchTest extends TestCase {
+
+	private static final String ValidatorId = "org.eclipse.wst.common.tests.validation.MarkerBatchTest"; //$NON-NLS-1$
+
+	private TestEnvironment _env;
+	private IProject		_project;
+	private IFile			_file;
+	private DeltaCounter	_counter = new DeltaCounter();
+
+	public static Test suite() {
+		return new TestSuite(MarkerBatchTest.class);
+	}
+
+	public MarkerBatchTest(String name){
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		_env = new TestEnvironment();
+		_project = _env.createProject("MarkerBatchTest");
+		_file = _env.addFile(_project.getFullPath(), "first.txt", "# some contents");
+		MarkerManager mm = MarkerManager.getDefault();
+		mm.createMarker(createMessage("kept", 1), ValidatorId);
+		mm.createMarker(createMessage("stale", 2), ValidatorId);
+		_env.getWorkspace().addResourceChangeListener(_counter, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	protected void tearDown() throws Exception {
+		_env.getWorkspace().removeResourceChangeListener(_counter);
+		_project.delete(true, null);
+		_env.dispose();
+		super.tearDown();
+	}
+
+	private ValidatorMessage createMessage(String text, int line){
+		ValidatorMessage message = ValidatorMessage.create(text, _file);
+		message.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		message.setAttribute(IMarker.LINE_NUMBER, line);
+		return message;
+	}
+
+	/**
+	 * Open a batch that treats all the existing markers as being from an earlier validation.
+	 */
+	private MarkerBatch openBatch(){
+		return MarkerManager.getDefault().openBatch(_file, System.currentTimeMillis() + 1);
+	}
+
+	private Map<String, IMarker> getMarkers() throws CoreException {
+		Map<String, IMarker> map = new HashMap<String, IMarker>();
+		for (IMarker marker : _file.findMarkers(ValConstants.ProblemMarker, false, IResource.DEPTH_ZERO)){
+			map.put(marker.getAttribute(IMarker.MESSAGE, ""), marker);
+		}
+		return map;
+	}
+
+	public void testOnlyChangedMarkersAreTouched() throws Exception {
+		IMarker kept = getMarkers().get("kept");
+		IMarker stale = getMarkers().get("stale");
+		MarkerBatch batch = openBatch();
+		batch.create(createMessage("kept", 1), ValidatorId);
+		batch.create(createMessage("new", 3), ValidatorId);
+		_counter.reset();
+		batch.flush();
+
+		Map<String, IMarker> markers = getMarkers();
+		assertEquals(2, markers.size());
+		assertEquals(kept.getId(), markers.get("kept").getId());
+		assertTrue(markers.containsKey("new"));
+		assertFalse(stale.exists());
+
+		assertEquals("The changes should be in a single event", 1, _counter.events);
+		assertEquals(1, _counter.added);
+		assertEquals(1, _counter.removed);
+		assertEquals(0, _counter.changed);
+	}
+
+	public void testUnchangedResultsCauseNoChurn() throws Exception {
+		Map<String, IMarker> before = getMarkers();
+		MarkerBatch batch = openBatch();
+		batch.create(createMessage("stale", 2), ValidatorId);
+		batch.create(createMessage("kept", 1), ValidatorId);
+		_counter.reset();
+		batch.flush();
+
+		Map<String, IMarker> after = getMarkers();
+		assertEquals(2, after.size());
+		assertEquals(before.get("kept").getId(), after.get("kept").getId());
+		assertEquals(before.get("stale").getId(), after.get("stale").getId());
+		assertEquals(0, _counter.added + _counter.removed + _counter.changed);
+	}
+
+	public void testChangedAttributesAreReplaced() throws Exception {
+		IMarker kept = getMarkers().get("kept");
+		MarkerBatch batch = openBatch();
+		batch.create(createMessage("kept", 1), ValidatorId);
+		batch.create(createMessage("stale", 5), ValidatorId);
+		_counter.reset();
+		batch.flush();
+
+		Map<String, IMarker> markers = getMarkers();
+		assertEquals(kept.getId(), markers.get("kept").getId());
+		assertEquals(5, markers.get("stale").getAttribute(IMarker.LINE_NUMBER, -1));
+		assertEquals(1, _counter.added);
+		assertEquals(1, _counter.removed);
+	}
+
+	public void testEmptyBatchRemovesTheOldMarkers() throws Exception {
+		MarkerBatch batch = openBatch();
+		_counter.reset();
+		batch.flush();
+		assertEquals(0, getMarkers().size());
+		assertEquals(2, _counter.removed);
+	}
+
+	private static final class DeltaCounter implements IResourceChangeListener {
+		int events;
+		int added;
+		int removed;
+		int changed;
+
+		void reset(){
+			events = 0;
+			added = 0;
+			removed = 0;
+			changed = 0;
+		}
+
+		public void resourceChanged(IResourceChangeEvent event) {
+			IMarkerDelta[] deltas = event.findMarkerDeltas(ValConstants.ProblemMarker, true);
+			if (deltas.length == 0)return;
+			events++;
+			for (IMarkerDelta delta : deltas){
+				switch (delta.getKind()){
+				case IResourceDelta.ADDED:
+					added++;
+					break;
+				case IResourceDelta.REMOVED:
+					removed++;
+					break;
+				default:
+					changed++;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.tests.testcase;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.wst.validation.ValidationFramework;
+import org.eclipse.wst.validation.internal.PriorityManager;
+import org.eclipse.wst.validation.tests.T11A;
+
+/** Test the priority hints and the pausing of the build validation, through the headless API. */
+public class PriorityManagerTest extends TestCase {
+
+	private TestEnvironment _env;
+	private IProject		_project;
+	private IFile			_file;
+
+	public static Test suite() {
+		return new TestSuite(PriorityManagerTest.class);
+	}
+
+	public PriorityManagerTest(String name){
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		_env = new TestEnvironment();
+		_env.turnoffAutoBuild();
+		TestEnvironment.enableOnlyThisValidator(T11A.class.getName());
+		_project = _env.createProject("PriorityManagerTest");
+		_file = _env.addFile(_project.getFullPath(), "first.t11a", "error - error");
+	}
+
+	protected void tearDown() throws Exception {
+		_project.delete(true, null);
+		_env.dispose();
+		super.tearDown();
+	}
+
+	/**
+	 * A file that is open in two editors keeps it's priority until both of them are closed.
+	 */
+	public void testHintsAreCounted() {
+		ValidationFramework vf = ValidationFramework.getDefault();
+		assertFalse(vf.hasPriorityHint(_file));
+		vf.addPriorityHint(_file);
+		vf.addPriorityHint(_file);
+		assertTrue(vf.hasPriorityHint(_file));
+		assertTrue(PriorityManager.getDefault().hasHints());
+
+		vf.removePriorityHint(_file);
+		assertTrue(vf.hasPriorityHint(_file));
+		vf.removePriorityHint(_file);
+		assertFalse(vf.hasPriorityHint(_file));
+
+		// an unbalanced remove is ignored
+		vf.removePriorityHint(_file);
+		vf.addPriorityHint(_file);
+		assertTrue(vf.hasPriorityHint(_file));
+		vf.removePriorityHint(_file);
+		assertFalse(vf.hasPriorityHint(_file));
+	}
+
+	/**
+	 * The build validation waits at a resource boundary while an interactive validation is running.
+	 */
+	public void testBuildYieldsToInteractive() throws InterruptedException {
+		PriorityManager pm = PriorityManager.getDefault();
+		Yielder yielder = new Yielder(new NullProgressMonitor());
+		pm.interactiveStarting();
+		try {
+			assertTrue(pm.isInteractive());
+			yielder.start();
+			yielder.join(500);
+			assertTrue("The build should be waiting", yielder.isAlive());
+		}
+		finally {
+			pm.interactiveFinished();
+		}
+		yielder.join(5000);
+		assertFalse("The build should have continued", yielder.isAlive());
+		assertFalse(pm.isInteractive());
+	}
+
+	public void testCanceledBuildStopsWaiting() throws InterruptedException {
+		PriorityManager pm = PriorityManager.getDefault();
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		Yielder yielder = new Yielder(monitor);
+		pm.interactiveStarting();
+		try {
+			yielder.start();
+			yielder.join(300);
+			assertTrue(yielder.isAlive());
+			monitor.setCanceled(true);
+			yielder.join(5000);
+			assertFalse("A canceled build should not wait", yielder.isAlive());
+		}
+		finally {
+			pm.interactiveFinished();
+		}
+	}
+
+	/**
+	 * An interactive validation that triggers build work on the same thread must not wait for itself.
+	 */
+	public void testInteractiveDoesNotWaitForItself() {
+		PriorityManager pm = PriorityManager.getDefault();
+		pm.interactiveStarting();
+		try {
+			long start = System.currentTimeMillis();
+			pm.yieldToInteractive(new NullProgressMonitor());
+			assertTrue(System.currentTimeMillis() - start < 1000);
+		}
+		finally {
+			pm.interactiveFinished();
+		}
+	}
+
+	/**
+	 * An explicit validation of a file runs on the calling thread, and it's interactive lane is released
+	 * once it is done.
+	 */
+	public void testInteractiveValidationIsBalanced() throws Exception {
+		PriorityManager pm = PriorityManager.getDefault();
+		T11A.resetThreads();
+		ValidationFramework.getDefault().validate(_file, new NullProgressMonitor());
+		assertEquals(1, T11A.getThreads().size());
+		assertFalse("The interactive validation should be finished", pm.isInteractive());
+	}
+
+	private static final class Yielder extends Thread {
+		private final IProgressMonitor _monitor;
+
+		Yielder(IProgressMonitor monitor){
+			_monitor = monitor;
+		}
+
+		public void run() {
+			PriorityManager.getDefault().yieldToInteractive(_monitor);
+		}
+	}
+}
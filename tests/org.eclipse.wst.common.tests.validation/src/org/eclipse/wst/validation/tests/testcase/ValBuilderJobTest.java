@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.tests.testcase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.wst.validation.internal.ValBuilderJob.ValidationRequest;
+
+/** Test that the pending build validation requests for a project are coalesced. */
+public class ValBuilderJobTest extends TestCase {
+
+	private TestEnvironment 	_env;
+	private IProject			_project;
+	private IResourceDelta		_first;
+	private IResourceDelta		_second;
+
+	public static Test suite() {
+		return new TestSuite(ValBuilderJobTest.class);
+	}
+
+	public ValBuilderJobTest(String name){
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		_env = new TestEnvironment();
+		_env.turnoffAutoBuild();
+		_project = _env.createProject("ValBuilderJobTest");
+		final List<IResourceDelta> deltas = new ArrayList<IResourceDelta>();
+		IResourceChangeListener listener = new IResourceChangeListener(){
+			public void resourceChanged(IResourceChangeEvent event) {
+				IResourceDelta delta = event.getDelta().findMember(_project.getFullPath());
+				if (delta != null)deltas.add(delta);
+			}
+		};
+		_env.getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		try {
+			IFile file = _env.addFile(_project.getFullPath(), "first.txt", "first");
+			_env.addFile(_project.getFullPath(), file.getName(), "second");
+		}
+		finally {
+			_env.getWorkspace().removeResourceChangeListener(listener);
+		}
+		assertTrue(deltas.size() >= 2);
+		_first = deltas.get(0);
+		_second = deltas.get(1);
+	}
+
+	protected void tearDown() throws Exception {
+		_project.delete(true, null);
+		_env.dispose();
+		super.tearDown();
+	}
+
+	public void testDeltasAreMerged() {
+		ValidationRequest request = new ValidationRequest(_project, _first, IncrementalProjectBuilder.INCREMENTAL_BUILD);
+		request.merge(_second, IncrementalProjectBuilder.AUTO_BUILD);
+		assertFalse(request.isFull());
+		assertEquals(Arrays.asList(_first, _second), request.getDeltas());
+		assertEquals(IncrementalProjectBuilder.AUTO_BUILD, request.getBuildKind());
+		assertEquals(0, request.getDropped());
+	}
+
+	public void testFullBuildReplacesTheDeltas() {
+		ValidationRequest request = new ValidationRequest(_project, _first, IncrementalProjectBuilder.INCREMENTAL_BUILD);
+		request.merge(_second, IncrementalProjectBuilder.INCREMENTAL_BUILD);
+		request.merge(null, IncrementalProjectBuilder.FULL_BUILD);
+		assertTrue(request.isFull());
+		assertEquals(0, request.getDeltas().size());
+		assertEquals(IncrementalProjectBuilder.FULL_BUILD, request.getBuildKind());
+		assertEquals(2, request.getDropped());
+	}
+
+	public void testDeltaAfterFullBuildIsDropped() {
+		ValidationRequest request = new ValidationRequest(_project, null, IncrementalProjectBuilder.FULL_BUILD);
+		request.merge(_first, IncrementalProjectBuilder.INCREMENTAL_BUILD);
+		assertTrue(request.isFull());
+		assertEquals(0, request.getDeltas().size());
+		assertEquals(IncrementalProjectBuilder.FULL_BUILD, request.getBuildKind());
+		assertEquals(1, request.getDropped());
+	}
+
+	public void testLaterFullBuildWins() {
+		ValidationRequest request = new ValidationRequest(_project, null, IncrementalProjectBuilder.FULL_BUILD);
+		request.merge(null, IncrementalProjectBuilder.CLEAN_BUILD);
+		assertTrue(request.isFull());
+		assertEquals(IncrementalProjectBuilder.CLEAN_BUILD, request.getBuildKind());
+		assertEquals(0, request.getDropped());
+
+		// the count is for the last merge only
+		request.merge(_first, IncrementalProjectBuilder.INCREMENTAL_BUILD);
+		request.merge(null, IncrementalProjectBuilder.FULL_BUILD);
+		assertEquals(0, request.getDropped());
+	}
+}
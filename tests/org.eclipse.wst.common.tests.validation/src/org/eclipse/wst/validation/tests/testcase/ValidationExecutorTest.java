@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.tests.testcase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.wst.validation.internal.PrefConstants;
+import org.eclipse.wst.validation.internal.PreferencesWrapper;
+import org.eclipse.wst.validation.internal.ValConstants;
+import org.eclipse.wst.validation.internal.ValidationExecutor;
+import org.eclipse.wst.validation.tests.T11A;
+
+/** Test that running the thread safe validators in parallel gives the same results as running them serially. */
+public class ValidationExecutorTest extends TestCase {
+
+	private static final int Files = 40;
+
+	private TestEnvironment _env;
+	private IProject		_project;
+	private int				_threads;
+
+	public static Test suite() {
+		return new TestSuite(ValidationExecutorTest.class);
+	}
+
+	public ValidationExecutorTest(String name){
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		_env = new TestEnvironment();
+		_env.turnoffAutoBuild();
+		TestEnvironment.enableOnlyThisValidator(T11A.class.getName());
+		_project = _env.createProject("ValidationExecutorTest");
+		IPath folder = _env.addFolder(_project.getFullPath(), "source");
+		for (int i=0; i<Files; i++){
+			StringBuffer contents = new StringBuffer();
+			for (int j=0; j<=i%4; j++){
+				if (j % 3 == 0)contents.append("error - file " + i + "\n");
+				else if (j % 3 == 1)contents.append("warning - file " + i + "\n");
+				else contents.append("info - file " + i + "\n");
+			}
+			_env.addFile(folder, "file" + i + ".t11a", contents.toString());
+		}
+		_threads = getPreferences().getInt(PrefConstants.threads, 0);
+	}
+
+	protected void tearDown() throws Exception {
+		setThreads(_threads);
+		_project.delete(true, null);
+		_env.dispose();
+		super.tearDown();
+	}
+
+	private static PreferencesWrapper getPreferences(){
+		return PreferencesWrapper.getPreferences(null, null);
+	}
+
+	private static void setThreads(int threads){
+		getPreferences().putInt(PrefConstants.threads, threads);
+	}
+
+	/**
+	 * A build with worker threads must leave exactly the same markers as a build without them.
+	 */
+	public void testParallelMatchesSequential() throws Exception {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		setThreads(1);
+		T11A.resetThreads();
+		_env.fullBuild(monitor);
+		List<String> sequential = describeMarkers();
+		assertFalse("No validation should have run on a worker", ranOnWorker(T11A.getThreads()));
+
+		_project.deleteMarkers(ValConstants.ProblemMarker, true, IResource.DEPTH_INFINITE);
+		setThreads(4);
+		T11A.resetThreads();
+		_env.fullBuild(monitor);
+		List<String> parallel = describeMarkers();
+		assertTrue("Some validation should have run on a worker", ranOnWorker(T11A.getThreads()));
+
+		int expected = 0;
+		for (int i=0; i<Files; i++)expected += i%4 + 1;
+		assertEquals(expected, sequential.size());
+		assertEquals(sequential, parallel);
+	}
+
+	/**
+	 * The completion code of a batch runs on the owning thread, once, and only after all of the batch's work has
+	 * finished.
+	 */
+	public void testCompletionRunsAfterTheWork() {
+		setThreads(4);
+		ValidationExecutor executor = ValidationExecutor.create(new NullProgressMonitor());
+		assertNotNull(executor);
+		final Thread owner = Thread.currentThread();
+		final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+		final AtomicInteger completions = new AtomicInteger();
+		try {
+			for (int i=0; i<20; i++){
+				final int batchNumber = i;
+				final AtomicInteger done = new AtomicInteger();
+				ValidationExecutor.Batch batch = executor.newBatch();
+				for (int j=0; j<3; j++){
+					batch.submit(new Runnable(){
+						public void run() {
+							if (Thread.currentThread() == owner)errors.add("work ran on the owner: " + batchNumber);
+							done.incrementAndGet();
+						}
+					});
+				}
+				batch.close(new Runnable(){
+					public void run() {
+						if (Thread.currentThread() != owner)errors.add("completion ran on a worker: " + batchNumber);
+						if (done.get() != 3)errors.add("completion ran too early: " + batchNumber);
+						completions.incrementAndGet();
+					}
+				});
+			}
+			executor.join();
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertEquals(Collections.EMPTY_LIST, errors);
+		assertEquals(20, completions.get());
+	}
+
+	private static boolean ranOnWorker(Set<String> threads){
+		for (String name : threads){
+			if (name.startsWith("Validation Worker-"))return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Answer a sorted description of all the validation markers in the project.
+	 */
+	private List<String> describeMarkers() throws CoreException {
+		List<String> list = new ArrayList<String>();
+		for (IMarker marker : _project.findMarkers(ValConstants.ProblemMarker, true, IResource.DEPTH_INFINITE)){
+			list.add(marker.getResource().getName() + " " + marker.getAttribute(IMarker.LINE_NUMBER, -1) + " " +
+				marker.getAttribute(IMarker.SEVERITY, -1) + " " + marker.getAttribute(IMarker.MESSAGE, ""));
+		}
+		Collections.sort(list);
+		return list;
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.tests.testcase;
+
+import java.io.StringWriter;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.wst.validation.IValidationMetrics;
+import org.eclipse.wst.validation.ValidationFramework;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.internal.ValidationMetrics;
+import org.eclipse.wst.validation.tests.T11A;
+
+/** Test the validation metrics, and in particular the accuracy of their histograms. */
+public class ValidationMetricsTest extends TestCase {
+
+	private ValidationMetrics	_metrics;
+	private boolean				_enabled;
+	private Validator			_validator;
+
+	public static Test suite() {
+		return new TestSuite(ValidationMetricsTest.class);
+	}
+
+	public ValidationMetricsTest(String name){
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		_metrics = ValidationMetrics.getDefault();
+		_enabled = _metrics.isEnabled();
+		_metrics.setEnabled(true);
+		_metrics.reset();
+		_validator = ValidationFramework.getDefault().getValidator(T11A.id());
+		assertNotNull(_validator);
+	}
+
+	protected void tearDown() throws Exception {
+		_metrics.reset();
+		_metrics.setEnabled(_enabled);
+		super.tearDown();
+	}
+
+	public void testPublicInterface() {
+		IValidationMetrics metrics = ValidationFramework.getDefault().getValidationMetrics();
+		assertSame(_metrics, metrics);
+	}
+
+	/**
+	 * The percentiles are accurate to within about 6%, and never more than the largest value.
+	 */
+	public void testLatencyPercentiles() {
+		for (int i=1; i<=1000; i++){
+			// the elapsed time is in nanoseconds, the latencies in microseconds
+			_metrics.validated(_validator, i * 1000L, -1, i % 2);
+		}
+		String id = _validator.getId();
+		assertEquals(1000, _metrics.getInvocationCount(id));
+		assertEquals(500, _metrics.getMarkerCount(id));
+		assertEquals(-1, _metrics.getAllocatedBytes(id));
+		assertNear(500, _metrics.getLatency(id, 50));
+		assertNear(900, _metrics.getLatency(id, 90));
+		assertNear(990, _metrics.getLatency(id, 99));
+		assertEquals(1000, _metrics.getLatency(id, 100));
+		assertEquals(1, _metrics.getLatency(id, 0));
+	}
+
+	/**
+	 * Small values are recorded exactly.
+	 */
+	public void testSmallValuesAreExact() {
+		for (int i=0; i<10; i++)_metrics.validated(_validator, 7000, -1, 0);
+		_metrics.validated(_validator, 31000, -1, 0);
+		String id = _validator.getId();
+		assertEquals(7, _metrics.getLatency(id, 50));
+		assertEquals(31, _metrics.getLatency(id, 100));
+	}
+
+	public void testUnknownValidator() {
+		assertEquals(0, _metrics.getInvocationCount("unknown"));
+		assertEquals(0, _metrics.getLatency("unknown", 50));
+		assertEquals(0, _metrics.getQueueWait(50));
+	}
+
+	public void testAllocations() {
+		String id = _validator.getId();
+		_metrics.validated(_validator, 1000, 10, 0);
+		_metrics.validated(_validator, 1000, 15, 0);
+		assertEquals(25, _metrics.getAllocatedBytes(id));
+		_metrics.validated(_validator, 1000, -1, 0);
+		assertEquals("The allocations were not always measured", -1, _metrics.getAllocatedBytes(id));
+	}
+
+	public void testResourcesAndRequests() {
+		_metrics.resourceDone(ValidationMetrics.Validated);
+		_metrics.resourceDone(ValidationMetrics.Validated);
+		_metrics.resourceDone(ValidationMetrics.Skipped);
+		_metrics.resourceDone(ValidationMetrics.Suspended);
+		_metrics.resourceDone(ValidationMetrics.Canceled);
+		assertEquals(2, _metrics.getResourcesValidated());
+		assertEquals(1, _metrics.getResourcesSkipped());
+		assertEquals(1, _metrics.getResourcesSuspended());
+		assertEquals(1, _metrics.getResourcesCanceled());
+
+		_metrics.queueWait(5000000);
+		assertNear(5000, _metrics.getQueueWait(50));
+		_metrics.requestMerged(0);
+		_metrics.requestMerged(3);
+		assertEquals(2, _metrics.getRequestsMerged());
+		assertEquals(3, _metrics.getRequestsDropped());
+
+		_metrics.reset();
+		assertEquals(0, _metrics.getResourcesValidated());
+		assertEquals(0, _metrics.getRequestsMerged());
+		assertEquals(0, _metrics.getValidatorIds().length);
+	}
+
+	/**
+	 * No invocations are lost when they are recorded from several threads at the same time.
+	 */
+	public void testConcurrentRecording() throws InterruptedException {
+		Thread[] threads = new Thread[4];
+		for (int i=0; i<threads.length; i++){
+			threads[i] = new Thread(){
+				public void run() {
+					for (int j=0; j<10000; j++)_metrics.validated(_validator, j, -1, 1);
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread t : threads)t.join();
+		assertEquals(40000, _metrics.getInvocationCount(_validator.getId()));
+		assertEquals(40000, _metrics.getMarkerCount(_validator.getId()));
+	}
+
+	public void testReports() throws Exception {
+		_metrics.validated(_validator, 1000, -1, 2);
+		StringWriter json = new StringWriter();
+		_metrics.writeJSON(json);
+		assertTrue(json.toString().startsWith("{"));
+		assertTrue(json.toString().indexOf(_validator.getId()) > 0);
+
+		StringWriter csv = new StringWriter();
+		_metrics.writeCSV(csv);
+		String[] lines = csv.toString().split("\n");
+		assertEquals("A header line and one validator", 2, lines.length);
+		assertTrue(lines[1].indexOf(_validator.getId()) >= 0);
+	}
+
+	private static void assertNear(long expected, long actual){
+		assertTrue("Expected about " + expected + " but was " + actual,
+			actual >= expected && actual <= expected + expected * 6 / 100);
+	}
+}
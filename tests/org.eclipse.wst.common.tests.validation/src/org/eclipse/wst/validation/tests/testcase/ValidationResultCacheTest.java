@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.tests.testcase;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.wst.validation.ValidationFramework;
+import org.eclipse.wst.validation.ValidationResult;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.ValidatorMessage;
+import org.eclipse.wst.validation.internal.ValConstants;
+import org.eclipse.wst.validation.internal.ValManager;
+import org.eclipse.wst.validation.internal.ValidationResultCache;
+import org.eclipse.wst.validation.tests.T11A;
+import org.eclipse.wst.validation.tests.T11B;
+
+/** Test that cached validation results are replayed, and only while nothing that they depend on has changed. */
+public class ValidationResultCacheTest extends TestCase {
+
+	private TestEnvironment 		_env;
+	private IProject				_project;
+	private IFile					_file;
+	private IFile					_include;
+	private Validator				_validator;
+	private ValidationResultCache	_cache;
+
+	public static Test suite() {
+		return new TestSuite(ValidationResultCacheTest.class);
+	}
+
+	public ValidationResultCacheTest(String name){
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		_env = new TestEnvironment();
+		_env.turnoffAutoBuild();
+		TestEnvironment.enableOnlyThisValidator(T11B.class.getName());
+		_project = _env.createProject("ValidationResultCacheTest");
+		IPath folder = _env.addFolder(_project.getFullPath(), "source");
+		_file = _env.addFile(folder, "first.t11b", "error - one\nwarning - two\n");
+		_include = _env.addFile(folder, "map.txt", "# no mappings yet");
+		_validator = ValManager.getDefault().getValidatorWithId(T11B.id(), _project);
+		assertNotNull(_validator);
+		_cache = ValidationResultCache.getDefault();
+		_cache.clear();
+	}
+
+	protected void tearDown() throws Exception {
+		_cache.clear();
+		_project.delete(true, null);
+		_env.dispose();
+		super.tearDown();
+	}
+
+	private ValidationResult createResult(){
+		ValidationResult vr = new ValidationResult();
+		ValidatorMessage message = ValidatorMessage.create("cached error", _file);
+		message.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		message.setAttribute(IMarker.LINE_NUMBER, 1);
+		vr.add(message);
+		vr.setSeverityError(1);
+		return vr;
+	}
+
+	public void testReplay() throws Exception {
+		ValidationResultCache.Key key = _cache.createKey(_validator, _file);
+		assertNotNull(key);
+		long misses = _cache.getMisses();
+		assertNull(_cache.replay(key, null));
+		assertEquals(misses+1, _cache.getMisses());
+		_cache.put(key, createResult());
+
+		long hits = _cache.getHits();
+		ValidationResult vr = _cache.replay(_cache.createKey(_validator, _file), null);
+		assertNotNull(vr);
+		assertEquals(hits+1, _cache.getHits());
+		assertEquals(1, vr.getMessages().length);
+		assertEquals(1, vr.getSeverityError());
+
+		IMarker[] markers = _file.findMarkers(ValConstants.ProblemMarker, false, IResource.DEPTH_ZERO);
+		assertEquals(1, markers.length);
+		assertEquals("cached error", markers[0].getAttribute(IMarker.MESSAGE, null));
+		assertEquals(_validator.getId(), markers[0].getAttribute(ValidatorMessage.ValidationId, null));
+	}
+
+	public void testContentChangeInvalidates() throws Exception {
+		_cache.put(_cache.createKey(_validator, _file), createResult());
+		_env.addFile(_file.getParent().getFullPath(), _file.getName(), "error - changed\n");
+		assertNull(_cache.replay(_cache.createKey(_validator, _file), null));
+	}
+
+	public void testDependencyChangeInvalidates() throws Exception {
+		ValidationFramework.getDefault().getDependencyIndex().set(_validator.getId(), _file, new IResource[]{_include});
+		_cache.put(_cache.createKey(_validator, _file), createResult());
+		assertNotNull(_cache.replay(_cache.createKey(_validator, _file), null));
+
+		_env.addFile(_include.getParent().getFullPath(), _include.getName(), "map t1error error");
+		assertNull(_cache.replay(_cache.createKey(_validator, _file), null));
+	}
+
+	public void testValidatorChangeInvalidates() throws Exception {
+		_cache.put(_cache.createKey(_validator, _file), createResult());
+		Validator changed = _validator.copy();
+		changed.setVersion(_validator.getVersion() + 1);
+		assertNull(_cache.replay(_cache.createKey(changed, _file), null));
+		assertNotNull(_cache.replay(_cache.createKey(_validator, _file), null));
+	}
+
+	public void testClear() throws Exception {
+		_cache.put(_cache.createKey(_validator, _file), createResult());
+		_cache.clear();
+		assertNull(_cache.replay(_cache.createKey(_validator, _file), null));
+	}
+
+	public void testOnlyCacheableValidatorsAndFiles() throws Exception {
+		Validator notCacheable = ValManager.getDefault().getValidatorWithId(T11A.id(), _project);
+		assertNotNull(notCacheable);
+		assertNull(_cache.createKey(notCacheable, _file));
+		assertNull(_cache.createKey(_validator, _file.getParent()));
+	}
+
+	/**
+	 * A second build of an unchanged file recreates the markers without calling the validator.
+	 */
+	public void testBuildReplays() throws Exception {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		T11B.resetCalls();
+		_env.fullBuild(monitor);
+		assertEquals(1, T11B.getCalls());
+		assertEquals(1, _env.getErrors(_file));
+
+		_env.fullBuild(monitor);
+		assertEquals(1, T11B.getCalls());
+		assertEquals(1, _env.getErrors(_file));
+
+		_env.addFile(_file.getParent().getFullPath(), _file.getName(), "error - one\nerror - two\n");
+		_env.fullBuild(monitor);
+		assertEquals(2, T11B.getCalls());
+		assertEquals(2, _env.getErrors(_file));
+	}
+}
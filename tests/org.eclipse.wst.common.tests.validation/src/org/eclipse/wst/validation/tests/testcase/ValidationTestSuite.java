@@ -25,6 +25,14 @@ public class ValidationTestSuite extends TestSuite {
 		suite.addTest(TestSuite8.suite());
         suite.addTest(TestSuite9.suite());
         suite.addTest(TestSuite10.suite());
+        suite.addTest(ValidationExecutorTest.suite());
+        suite.addTest(ValidationResultCacheTest.suite());
+        suite.addTest(MarkerBatchTest.suite());
+        suite.addTest(DependencyLogTest.suite());
+        suite.addTest(FilterMatcherTest.suite());
+        suite.addTest(ValidationMetricsTest.suite());
+        suite.addTest(ValBuilderJobTest.suite());
+        suite.addTest(PriorityManagerTest.suite());
         return suite;
     }
 
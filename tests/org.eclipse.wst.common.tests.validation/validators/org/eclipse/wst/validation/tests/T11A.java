@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.tests;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.common.tests.validation.Activator;
+import org.eclipse.wst.validation.ValidationResult;
+import org.eclipse.wst.validation.ValidationState;
+
+/**
+ * A thread safe validator, that remembers the threads that it was called on.
+ */
+public class T11A extends TestValidator {
+	
+	private static Set<String> _threads = new HashSet<String>();
+	
+	public static String id(){
+		return Activator.PLUGIN_ID +".T11A";
+	}
+	
+	public static synchronized void resetThreads(){
+		_threads.clear();
+	}
+	
+	public static synchronized Set<String> getThreads(){
+		return new HashSet<String>(_threads);
+	}
+	
+	private static synchronized void called(){
+		_threads.add(Thread.currentThread().getName());
+	}
+	
+	@Override
+	public ValidationResult validate(IResource resource, int kind, ValidationState state, IProgressMonitor monitor) {
+		called();
+		return super.validate(resource, kind, state, monitor);
+	}
+	
+	@Override
+	public String getId() {
+		return id();
+	}
+	
+	@Override
+	public String getName() {
+		return "T11A";
+	}
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.tests;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.common.tests.validation.Activator;
+import org.eclipse.wst.validation.ValidationResult;
+import org.eclipse.wst.validation.ValidationState;
+
+/**
+ * A cacheable validator, that counts the number of times that it was called.
+ */
+public class T11B extends TestValidator {
+	
+	private static AtomicInteger _calls = new AtomicInteger();
+	
+	public static String id(){
+		return Activator.PLUGIN_ID +".T11B";
+	}
+	
+	public static int getCalls(){
+		return _calls.get();
+	}
+	
+	public static void resetCalls(){
+		_calls.set(0);
+	}
+	
+	@Override
+	public ValidationResult validate(IResource resource, int kind, ValidationState state, IProgressMonitor monitor) {
+		_calls.incrementAndGet();
+		return super.validate(resource, kind, state, monitor);
+	}
+	
+	@Override
+	public String getId() {
+		return id();
+	}
+	
+	@Override
+	public String getName() {
+		return "T11B";
+	}
+}
@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.tests.flatten;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class AllTests extends TestCase {
+
+	public static Test suite() {
+		TestSuite testSuite = new TestSuite("All Flatten Tests");
+		testSuite.addTestSuite(ParallelFlattenTest.class);
+		testSuite.addTestSuite(FlatComponentCacheTest.class);
+		testSuite.addTestSuite(FlatDeltaTest.class);
+		testSuite.addTestSuite(IncrementalFlatVirtualComponentTest.class);
+		return testSuite;
+	}
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.tests.flatten;
+
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatComponentCache;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatVirtualComponent.FlatComponentTaskModel;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatFolder;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatResource;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
+
+/**
+ * Checks that the {@link FlatComponentCache} reuses flattened components
+ * until something they depend on changes, and no longer.
+ */
+public class FlatComponentCacheTest extends FlatComponentTestCase {
+
+	private FlatComponentCache cache;
+	private IVirtualComponent root;
+	private IVirtualComponent lib;
+
+	public FlatComponentCacheTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		cache = new FlatComponentCache(4);
+		root = createComponent("FlatCacheRoot");
+		lib = createComponent("FlatCacheLib");
+		writeFile(root, "index.html", "root");
+		writeFile(root, "a/one.txt", "root");
+		writeFile(lib, "lib.txt", "lib");
+		writeFile(lib, "b/deep.txt", "lib");
+		addReference(root, lib, IVirtualReference.DEPENDENCY_TYPE_CONSUMES, "/", null);
+		waitForGraph(root);
+	}
+
+	protected void tearDown() throws Exception {
+		cache.clear();
+		super.tearDown();
+	}
+
+	public void testHitAndMiss() throws Exception {
+		List<String> first = fetch(root);
+		assertEquals(1, cache.getMisses());
+		assertEquals(0, cache.getHits());
+		assertEquals(first, fetch(root));
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.size());
+	}
+
+	public void testEviction() throws Exception {
+		FlatComponentCache small = new FlatComponentCache(1);
+		try {
+			small.getFlatVirtualComponent(root, new FlatComponentTaskModel()).fetchResources();
+			small.getFlatVirtualComponent(lib, new FlatComponentTaskModel()).fetchResources();
+			assertEquals(1, small.getEvictions());
+			assertEquals(1, small.size());
+			small.getFlatVirtualComponent(root, new FlatComponentTaskModel()).fetchResources();
+			assertEquals(3, small.getMisses());
+			assertEquals(2, small.getEvictions());
+		} finally {
+			small.clear();
+		}
+		assertEquals(0, small.size());
+	}
+
+	public void testContentChangeIsPatched() throws Exception {
+		List<String> before = fetch(root);
+		IFile file = writeFile(lib, "b/deep.txt", "changed");
+		List<String> after = fetch(root);
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+		assertEquals(before.size(), after.size());
+		assertTrue(after.contains("b/deep.txt " + file.getModificationStamp() + " " + file.getFullPath()));
+	}
+
+	public void testAddedFileFlattensAgain() throws Exception {
+		fetch(root);
+		IFile file = writeFile(lib, "b/added.txt", "lib");
+		List<String> after = fetch(root);
+		assertEquals(2, cache.getMisses());
+		assertTrue(after.contains("b/added.txt " + file.getModificationStamp() + " " + file.getFullPath()));
+	}
+
+	public void testReferenceChangeFlattensAgain() throws Exception {
+		IVirtualComponent other = createComponent("FlatCacheOther");
+		IFile file = writeFile(other, "other.txt", "other");
+		fetch(root);
+		addReference(lib, other, IVirtualReference.DEPENDENCY_TYPE_CONSUMES, "/other", null);
+		waitForGraph(lib);
+		List<String> after = fetch(root);
+		assertEquals(2, cache.getMisses());
+		assertTrue(after.contains("other/other.txt " + file.getModificationStamp() + " " + file.getFullPath()));
+	}
+
+	public void testUnrelatedGraphChangeIsIgnored() throws Exception {
+		fetch(root);
+		long folderHits = cache.getFolderHits();
+		IVirtualComponent one = createComponent("FlatCacheUnrelated1");
+		IVirtualComponent two = createComponent("FlatCacheUnrelated2");
+		addReference(one, two, IVirtualReference.DEPENDENCY_TYPE_CONSUMES, "/", null);
+		waitForGraph(one);
+		fetch(root);
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+		assertEquals(folderHits, cache.getFolderHits());
+	}
+
+	public void testCopiesAreReturned() throws Exception {
+		IFlatVirtualComponent flat = cache.getFlatVirtualComponent(root, new FlatComponentTaskModel());
+		IFlatResource[] first = flat.fetchResources();
+		List<String> expected = describe(first);
+		for (IFlatResource resource : first) {
+			if (resource instanceof IFlatFolder) {
+				((IFlatFolder) resource).setMembers(new IFlatResource[0]);
+			}
+		}
+		assertEquals(expected, describe(flat.fetchResources()));
+	}
+
+	public void testReferencedFoldersAreReadOnce() throws Exception {
+		IVirtualComponent second = createComponent("FlatCacheSecondRoot");
+		writeFile(second, "second.txt", "second");
+		addReference(second, lib, IVirtualReference.DEPENDENCY_TYPE_CONSUMES, "/", null);
+		waitForGraph(second);
+		List<String> first = fetch(root);
+		long misses = cache.getFolderMisses();
+		cache.resetStatistics();
+		List<String> other = fetch(second);
+		// only the second root's own folder is read, the library's are known
+		assertEquals(1, cache.getFolderMisses());
+		assertTrue(cache.getFolderHits() > 0);
+		assertTrue(misses > 1);
+		IFile file = lib.getProject().getFolder(CONTENT).getFile("b/deep.txt");
+		String deep = "b/deep.txt " + file.getModificationStamp() + " " + file.getFullPath();
+		assertTrue(first.contains(deep));
+		assertTrue(other.contains(deep));
+	}
+
+	private List<String> fetch(IVirtualComponent component) throws Exception {
+		return describe(cache.getFlatVirtualComponent(component, new FlatComponentTaskModel()).fetchResources());
+	}
+}
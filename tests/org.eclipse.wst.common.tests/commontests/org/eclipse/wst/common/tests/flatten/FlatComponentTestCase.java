@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.tests.flatten;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.common.componentcore.ComponentCore;
+import org.eclipse.wst.common.componentcore.ModuleCoreNature;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraph;
+import org.eclipse.wst.common.componentcore.internal.flat.IChildModuleReference;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatFolder;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatResource;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
+
+/**
+ * Creates small component projects whose root folder is mapped to a
+ * "content" folder, and describes flattened results so that they can
+ * be compared.
+ */
+public abstract class FlatComponentTestCase extends TestCase {
+
+	protected static final String CONTENT = "content";
+
+	private List<IProject> projects = new ArrayList<IProject>();
+
+	public FlatComponentTestCase(String name) {
+		super(name);
+	}
+
+	protected void tearDown() throws Exception {
+		for (IProject project : projects) {
+			project.delete(true, null);
+		}
+		projects.clear();
+	}
+
+	protected IVirtualComponent createComponent(String name) throws CoreException {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+		if (project.exists()) {
+			project.delete(true, null);
+		}
+		project.create(null);
+		project.open(null);
+		projects.add(project);
+		ModuleCoreNature.addModuleCoreNatureIfNecessary(project, null);
+		IVirtualComponent component = ComponentCore.createComponent(project);
+		component.create(0, null);
+		component.getRootFolder().createLink(new Path("/" + CONTENT), 0, null);
+		return component;
+	}
+
+	/**
+	 * Create or change a file below the content folder of the component.
+	 */
+	protected IFile writeFile(IVirtualComponent component, String path, String contents) throws CoreException {
+		IFile file = component.getProject().getFolder(CONTENT).getFile(new Path(path));
+		createFolders(file.getParent());
+		ByteArrayInputStream in = new ByteArrayInputStream(contents.getBytes());
+		if (file.exists()) {
+			file.setContents(in, true, false, null);
+		} else {
+			file.create(in, true, null);
+		}
+		return file;
+	}
+
+	private void createFolders(IResource resource) throws CoreException {
+		if (resource instanceof IFolder && !resource.exists()) {
+			createFolders(resource.getParent());
+			((IFolder) resource).create(true, true, null);
+		}
+	}
+
+	protected IVirtualReference addReference(IVirtualComponent source, IVirtualComponent target, int dependencyType,
+			String runtimePath, String archiveName) {
+		IVirtualReference reference = ComponentCore.createReference(source, target, new Path(runtimePath));
+		reference.setDependencyType(dependencyType);
+		if (archiveName != null) {
+			reference.setArchiveName(archiveName);
+		}
+		source.addReferences(new IVirtualReference[] { reference });
+		return reference;
+	}
+
+	/**
+	 * The graph is updated by a job; asking it for references waits for it.
+	 */
+	protected static void waitForGraph(IVirtualComponent component) {
+		IDependencyGraph.INSTANCE.getReferencingComponents(component.getProject());
+	}
+
+	/**
+	 * Describe each resource, depth first in member order, by its path, its
+	 * modification stamp and the workspace file it comes from.
+	 */
+	protected static List<String> describe(IFlatResource[] resources) {
+		List<String> lines = new ArrayList<String>();
+		describe(resources, lines);
+		return lines;
+	}
+
+	private static void describe(IFlatResource[] resources, List<String> lines) {
+		for (IFlatResource resource : resources) {
+			IPath path = resource.getModuleRelativePath().append(resource.getName());
+			if (resource instanceof IFlatFolder) {
+				lines.add(path + "/");
+				describe(((IFlatFolder) resource).members(), lines);
+			} else {
+				IFile file = (IFile) resource.getAdapter(IFile.class);
+				lines.add(path + " " + resource.getModificationStamp() + " " + (file == null ? null : file.getFullPath()));
+			}
+		}
+	}
+
+	protected static List<String> describe(IChildModuleReference[] children) {
+		List<String> lines = new ArrayList<String>();
+		for (IChildModuleReference child : children) {
+			lines.add(child.getRelativeURI().toString());
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.tests.flatten;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatDelta;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatFile;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatFolder;
+import org.eclipse.wst.common.componentcore.internal.flat.IChildModuleReference;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatDelta;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatResource;
+
+
+public class FlatDeltaTest extends TestCase {
+
+	private static final IChildModuleReference[] NO_CHILDREN = new IChildModuleReference[0];
+
+    public FlatDeltaTest(String name) {
+        super(name);
+    }
+
+    public void testFirstDeltaAddsEverything() {
+    	IFlatResource[] tree = tree(1, 1);
+    	IFlatDelta delta = FlatDelta.compute(null, null, tree, NO_CHILDREN);
+    	assertEquals(4, delta.getAdded().length);
+    	assertEquals("WEB-INF", delta.getAdded()[0].getName());
+    	assertEquals("web.xml", delta.getAdded()[1].getName());
+    	assertEquals(0, delta.getChanged().length);
+    	assertEquals(0, delta.getRemoved().length);
+    }
+
+    public void testSameTreeIsEmpty() {
+    	IFlatResource[] tree = tree(1, 1);
+    	assertTrue(FlatDelta.compute(tree, NO_CHILDREN, tree, NO_CHILDREN).isEmpty());
+    	assertTrue(FlatDelta.compute(tree(1, 1), NO_CHILDREN, tree(1, 1), NO_CHILDREN).isEmpty());
+    }
+
+    public void testChangedStamp() {
+    	IFlatDelta delta = FlatDelta.compute(tree(1, 1), NO_CHILDREN, tree(2, 1), NO_CHILDREN);
+    	assertEquals(1, delta.getChanged().length);
+    	assertEquals("web.xml", delta.getChanged()[0].getName());
+    	assertEquals(0, delta.getAdded().length);
+    	assertEquals(0, delta.getRemoved().length);
+    }
+
+    public void testAddedAndRemoved() {
+    	FlatFolder webInf = new FlatFolder(null, "WEB-INF", Path.EMPTY);
+    	webInf.setMembers(new IFlatResource[] {
+    			new FlatFile("web.xml", new Path("WEB-INF"), 1),
+    			new FlatFile("faces-config.xml", new Path("WEB-INF"), 1),
+    			new FlatFolder(null, "lib", new Path("WEB-INF")) });
+    	IFlatResource[] newTree = new IFlatResource[] { webInf };
+
+    	IFlatDelta delta = FlatDelta.compute(tree(1, 1), NO_CHILDREN, newTree, NO_CHILDREN);
+    	assertEquals(1, delta.getAdded().length);
+    	assertEquals("faces-config.xml", delta.getAdded()[0].getName());
+    	assertEquals(1, delta.getRemoved().length);
+    	assertEquals("index.html", delta.getRemoved()[0].getName());
+    	assertEquals(0, delta.getChanged().length);
+    }
+
+    public void testFileReplacedByFolder() {
+    	FlatFolder index = new FlatFolder(null, "index.html", Path.EMPTY);
+    	IFlatResource[] newTree = new IFlatResource[] { tree(1, 1)[0], index };
+
+    	IFlatDelta delta = FlatDelta.compute(tree(1, 1), NO_CHILDREN, newTree, NO_CHILDREN);
+    	assertEquals(1, delta.getRemoved().length);
+    	assertTrue(delta.getRemoved()[0] instanceof FlatFile);
+    	assertEquals(1, delta.getAdded().length);
+    	assertSame(index, delta.getAdded()[0]);
+    }
+
+    private static IFlatResource[] tree(long webXmlStamp, long indexStamp) {
+    	FlatFolder webInf = new FlatFolder(null, "WEB-INF", Path.EMPTY);
+    	FlatFolder lib = new FlatFolder(null, "lib", new Path("WEB-INF"));
+    	webInf.setMembers(new IFlatResource[] {
+    			new FlatFile("web.xml", new Path("WEB-INF"), webXmlStamp), lib });
+    	return new IFlatResource[] { webInf, new FlatFile("index.html", Path.EMPTY, indexStamp) };
+    }
+}
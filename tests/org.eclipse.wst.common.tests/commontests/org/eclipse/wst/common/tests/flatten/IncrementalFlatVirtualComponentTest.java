@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.tests.flatten;
+
+import java.util.List;
+
+import org.eclipse.wst.common.componentcore.internal.StructureEdit;
+import org.eclipse.wst.common.componentcore.internal.flat.AbstractFlattenParticipant;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatVirtualComponent;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatVirtualComponent.FlatComponentTaskModel;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatDelta;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatResource;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatVirtualComponent;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlattenParticipant;
+import org.eclipse.wst.common.componentcore.internal.flat.IncrementalFlatVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
+
+/**
+ * Checks which changes the {@link IncrementalFlatVirtualComponent} patches
+ * into its tree and which flatten the component again, and that the result
+ * always matches a fresh {@link FlatVirtualComponent}.
+ */
+public class IncrementalFlatVirtualComponentTest extends FlatComponentTestCase {
+
+	private IVirtualComponent root;
+	private IVirtualComponent lib;
+	private CountingParticipant participant;
+	private IncrementalFlatVirtualComponent flat;
+
+	public IncrementalFlatVirtualComponentTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		root = createComponent("IncrementalFlatRoot");
+		lib = createComponent("IncrementalFlatLib");
+		writeFile(root, "index.html", "root");
+		writeFile(root, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n");
+		writeFile(root, "a/one.txt", "root");
+		writeFile(lib, "lib.txt", "lib");
+		writeFile(lib, "b/deep.txt", "lib");
+		addReference(root, lib, IVirtualReference.DEPENDENCY_TYPE_CONSUMES, "/", null);
+		waitForGraph(root);
+		participant = new CountingParticipant();
+		flat = new IncrementalFlatVirtualComponent(root, model(participant));
+	}
+
+	protected void tearDown() throws Exception {
+		flat.dispose();
+		super.tearDown();
+	}
+
+	public void testFirstDeltaAddsEverything() throws Exception {
+		IFlatDelta delta = flat.fetchDelta();
+		assertEquals(describe(flat.fetchResources()).size(), delta.getAdded().length);
+		assertEquals(0, delta.getChanged().length);
+		assertEquals(0, delta.getRemoved().length);
+		assertTrue(flat.fetchDelta().isEmpty());
+		assertEquals(1, participant.flattens);
+	}
+
+	public void testContentChangeIsPatched() throws Exception {
+		flat.fetchDelta();
+		writeFile(lib, "b/deep.txt", "changed");
+		IFlatDelta delta = flat.fetchDelta();
+		assertEquals(1, participant.flattens);
+		assertEquals(1, delta.getChanged().length);
+		assertEquals("deep.txt", delta.getChanged()[0].getName());
+		assertEquals(0, delta.getAdded().length);
+		assertEquals(0, delta.getRemoved().length);
+		assertSameAsFresh();
+	}
+
+	public void testAddedFileFlattensAgain() throws Exception {
+		flat.fetchDelta();
+		writeFile(root, "a/two.txt", "root");
+		IFlatDelta delta = flat.fetchDelta();
+		assertEquals(2, participant.flattens);
+		assertEquals(1, delta.getAdded().length);
+		assertEquals("two.txt", delta.getAdded()[0].getName());
+		assertSameAsFresh();
+	}
+
+	public void testRemovedFileFlattensAgain() throws Exception {
+		flat.fetchDelta();
+		lib.getProject().getFolder(CONTENT).getFile("lib.txt").delete(true, null);
+		IFlatDelta delta = flat.fetchDelta();
+		assertEquals(2, participant.flattens);
+		assertEquals(1, delta.getRemoved().length);
+		assertEquals("lib.txt", delta.getRemoved()[0].getName());
+		assertSameAsFresh();
+	}
+
+	public void testComponentFileChangeFlattensAgain() throws Exception {
+		flat.fetchResources();
+		root.getProject().getFile(StructureEdit.MODULE_META_FILE_NAME).touch(null);
+		flat.fetchResources();
+		assertEquals(2, participant.flattens);
+	}
+
+	public void testManifestChangeFlattensAgain() throws Exception {
+		flat.fetchResources();
+		writeFile(root, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\nClass-Path: other.jar\n");
+		flat.fetchResources();
+		assertEquals(2, participant.flattens);
+		assertSameAsFresh();
+	}
+
+	public void testReferenceChangeFlattensAgain() throws Exception {
+		IVirtualComponent other = createComponent("IncrementalFlatOther");
+		writeFile(other, "other.txt", "other");
+		flat.fetchDelta();
+		addReference(root, other, IVirtualReference.DEPENDENCY_TYPE_CONSUMES, "/other", null);
+		waitForGraph(root);
+		IFlatDelta delta = flat.fetchDelta();
+		assertEquals(2, participant.flattens);
+		assertEquals(2, delta.getAdded().length);
+		assertSameAsFresh();
+	}
+
+	public void testUnrelatedChangesAreIgnored() throws Exception {
+		flat.fetchResources();
+		IVirtualComponent one = createComponent("IncrementalFlatUnrelated1");
+		IVirtualComponent two = createComponent("IncrementalFlatUnrelated2");
+		writeFile(one, "one.txt", "one");
+		addReference(one, two, IVirtualReference.DEPENDENCY_TYPE_CONSUMES, "/", null);
+		waitForGraph(one);
+		assertTrue(flat.fetchDelta().isEmpty());
+		assertEquals(1, participant.flattens);
+	}
+
+	public void testDisposeForgetsTheTree() throws Exception {
+		flat.fetchResources();
+		flat.dispose();
+		flat.fetchResources();
+		assertEquals(2, participant.flattens);
+	}
+
+	private void assertSameAsFresh() throws Exception {
+		List<String> expected = describe(new FlatVirtualComponent(root, model(new CountingParticipant())).fetchResources());
+		assertEquals(expected, describe(flat.fetchResources()));
+	}
+
+	private static FlatComponentTaskModel model(IFlattenParticipant participant) {
+		FlatComponentTaskModel dataModel = new FlatComponentTaskModel();
+		dataModel.put(IFlatVirtualComponent.PARTICIPANT_LIST, new IFlattenParticipant[] { participant });
+		return dataModel;
+	}
+
+	/**
+	 * Counts how many times the component is flattened.
+	 */
+	private static class CountingParticipant extends AbstractFlattenParticipant {
+		private int flattens;
+
+		public void initialize(IVirtualComponent component, FlatComponentTaskModel dataModel,
+				List<IFlatResource> resources) {
+			flattens++;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.tests.flatten;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.wst.common.componentcore.internal.flat.AbstractFlattenParticipant;
+import org.eclipse.wst.common.componentcore.internal.flat.FilterResourceParticipant;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatVirtualComponent;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatVirtualComponent.FlatComponentTaskModel;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatResource;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatVirtualComponent;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlattenParticipant;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
+
+/**
+ * Checks that flattening with {@link IFlatVirtualComponent#PARALLEL_FLATTEN}
+ * gives exactly the same result as flattening on one thread.
+ */
+public class ParallelFlattenTest extends FlatComponentTestCase {
+
+	private IVirtualComponent root;
+	private IVirtualComponent lib;
+	private IVirtualReference extra;
+
+	public ParallelFlattenTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		root = createComponent("ParallelFlattenRoot");
+		lib = createComponent("ParallelFlattenLib");
+		IVirtualComponent[] modules = new IVirtualComponent[4];
+		for (int i = 0; i < modules.length; i++) {
+			modules[i] = createComponent("ParallelFlattenModule" + i);
+		}
+
+		writeFile(root, "index.html", "root");
+		writeFile(root, "a/one.txt", "root");
+		writeFile(root, "a/two.txt", "root");
+		writeFile(root, "b/c/deep.txt", "root");
+		for (int i = 0; i < 20; i++) {
+			writeFile(root, "many/file" + i + ".txt", "root");
+		}
+		// a/one.txt is also in the consumed library, which replaces the root's copy
+		writeFile(lib, "a/one.txt", "lib");
+		writeFile(lib, "lib.txt", "lib");
+		writeFile(lib, "b/lib.txt", "lib");
+
+		addReference(root, lib, IVirtualReference.DEPENDENCY_TYPE_CONSUMES, "/", null);
+		addReference(root, modules[2], IVirtualReference.DEPENDENCY_TYPE_USES, "/", "module2.jar");
+		addReference(root, modules[0], IVirtualReference.DEPENDENCY_TYPE_USES, "/", "module0.jar");
+		addReference(root, modules[1], IVirtualReference.DEPENDENCY_TYPE_USES, "/lib", "module1.jar");
+		// the library's module is at the same place as module0 and replaces it
+		addReference(lib, modules[3], IVirtualReference.DEPENDENCY_TYPE_USES, "/", "module0.jar");
+		extra = addReference(root, modules[3], IVirtualReference.DEPENDENCY_TYPE_USES, "/extra", "module3.jar");
+	}
+
+	public void testSameMembers() throws Exception {
+		ChildModuleParticipant sequential = new ChildModuleParticipant();
+		ChildModuleParticipant parallel = new ChildModuleParticipant();
+		FlatVirtualComponent one = flatten(sequential, false);
+		FlatVirtualComponent many = flatten(parallel, true);
+
+		List<String> expected = describe(one.fetchResources());
+		assertEquals(expected, describe(many.fetchResources()));
+		assertEquals(1, countEndingWith(expected, lib.getProject().getFolder(CONTENT).getFile("a/one.txt").getFullPath().toString()));
+		assertEquals(0, countEndingWith(expected, root.getProject().getFolder(CONTENT).getFile("a/one.txt").getFullPath().toString()));
+		assertEquals(1, countEndingWith(expected, lib.getProject().getFolder(CONTENT).getFile("b/lib.txt").getFullPath().toString()));
+	}
+
+	public void testSameChildModules() throws Exception {
+		FlatVirtualComponent one = flatten(new ChildModuleParticipant(), false);
+		FlatVirtualComponent many = flatten(new ChildModuleParticipant(), true);
+
+		List<String> expected = describe(one.getChildModules());
+		assertEquals(expected, describe(many.getChildModules()));
+		assertEquals(4, expected.size());
+		assertEquals(1, countEndingWith(expected, "module0.jar"));
+	}
+
+	public void testChildModulesAskedOnce() throws Exception {
+		ChildModuleParticipant sequential = new ChildModuleParticipant();
+		ChildModuleParticipant parallel = new ChildModuleParticipant();
+		flatten(sequential, false).fetchResources();
+		flatten(parallel, true).fetchResources();
+
+		assertEquals(Integer.valueOf(1), sequential.calls.get(root));
+		assertEquals(sequential.calls, parallel.calls);
+	}
+
+	public void testParticipantsAreNotThreadSafeByDefault() {
+		assertFalse(new AbstractFlattenParticipant().isThreadSafe());
+		assertTrue(FilterResourceParticipant.createSuffixFilterParticipant(new String[] { ".java" }).isThreadSafe());
+		assertFalse(new FilterResourceParticipant(new FilterResourceParticipant.IExportableResourceFilter() {
+			public boolean accepts(IFlatResource resource) {
+				return true;
+			}
+		}).isThreadSafe());
+	}
+
+	private static int countEndingWith(List<String> lines, String suffix) {
+		int count = 0;
+		for (String line : lines) {
+			if (line.endsWith(suffix))
+				count++;
+		}
+		return count;
+	}
+
+	private FlatVirtualComponent flatten(IFlattenParticipant participant, boolean parallel) {
+		FlatComponentTaskModel dataModel = new FlatComponentTaskModel();
+		dataModel.put(IFlatVirtualComponent.PARTICIPANT_LIST, new IFlattenParticipant[] { participant });
+		if (parallel) {
+			dataModel.put(IFlatVirtualComponent.PARALLEL_FLATTEN, Boolean.TRUE);
+		}
+		return new FlatVirtualComponent(root, dataModel);
+	}
+
+	/**
+	 * Makes every used reference a child module, and adds one more
+	 * child module to the root component.
+	 */
+	private class ChildModuleParticipant extends AbstractFlattenParticipant {
+		private Map<IVirtualComponent, Integer> calls = new HashMap<IVirtualComponent, Integer>();
+
+		public boolean isChildModule(IVirtualComponent rootComponent, IVirtualReference referenced,
+				FlatComponentTaskModel dataModel) {
+			return true;
+		}
+
+		public synchronized List<IVirtualReference> getChildModules(IVirtualComponent rootComponent,
+				FlatComponentTaskModel dataModel) {
+			Integer count = calls.get(rootComponent);
+			calls.put(rootComponent, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+			List<IVirtualReference> references = new ArrayList<IVirtualReference>();
+			if (rootComponent.equals(root)) {
+				references.add(extra);
+			}
+			return references;
+		}
+
+		public boolean isThreadSafe() {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.tests.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.common.core.search.SearchParticipant;
+import org.eclipse.wst.common.core.search.SearchRequestor;
+import org.eclipse.wst.common.core.search.document.Entry;
+import org.eclipse.wst.common.core.search.document.SearchDocument;
+import org.eclipse.wst.common.core.search.document.SearchDocumentSet;
+import org.eclipse.wst.common.core.search.internal.SearchIndex;
+import org.eclipse.wst.common.core.search.pattern.SearchPattern;
+import org.eclipse.wst.common.core.search.scope.SearchScope;
+
+/**
+ * Checks that the {@link SearchIndex} selects the files that can contain
+ * matches, indexes files again only after they change, survives being saved
+ * and loaded, and forgets removed files.
+ */
+public class SearchIndexTest extends TestCase {
+
+	private static final String ID = "org.eclipse.wst.common.tests.search.words";
+	private static final String WORD = "word";
+
+	private IProject project;
+	private IFile alpha;
+	private IFile beta;
+	private IFile plain;
+	private File indexFile;
+	private SearchIndex index;
+
+	public SearchIndexTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject("SearchIndexTest");
+		if (project.exists()) {
+			project.delete(true, null);
+		}
+		project.create(null);
+		project.open(null);
+		IFolder folder = project.getFolder("words");
+		folder.create(true, true, null);
+		alpha = write(folder.getFile("alpha.words"), "alpha beta");
+		beta = write(folder.getFile("beta.words"), "beta");
+		// not indexed, so always searched
+		plain = write(project.getFile("plain.txt"), "alpha");
+		indexFile = File.createTempFile("search", ".index");
+		indexFile.delete();
+		index = createIndex();
+	}
+
+	protected void tearDown() throws Exception {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(index);
+		project.delete(true, null);
+		indexFile.delete();
+	}
+
+	private SearchIndex createIndex() {
+		SearchIndex searchIndex = new SearchIndex(indexFile);
+		searchIndex.load();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(searchIndex, IResourceChangeEvent.POST_CHANGE);
+		return searchIndex;
+	}
+
+	private static IFile write(IFile file, String contents) throws CoreException {
+		ByteArrayInputStream in = new ByteArrayInputStream(contents.getBytes());
+		if (file.exists()) {
+			file.setContents(in, true, false, null);
+		} else {
+			file.create(in, true, null);
+		}
+		return file;
+	}
+
+	private IFile[] files() {
+		return new IFile[] { alpha, beta, plain };
+	}
+
+	private Set<IFile> select(SearchIndex searchIndex, WordParticipant participant, String word) {
+		Entry key = new Entry();
+		key.setCategory(WORD);
+		key.setKey(word);
+		return new HashSet<IFile>(Arrays.asList(searchIndex.selectCandidates(participant, ID, new Entry[] { key }, files(), null)));
+	}
+
+	private static Set<IFile> set(IFile... files) {
+		return new HashSet<IFile>(Arrays.asList(files));
+	}
+
+	public void testCandidates() {
+		WordParticipant participant = new WordParticipant();
+		assertEquals(set(alpha, plain), select(index, participant, "alpha"));
+		assertEquals(set(alpha, beta, plain), select(index, participant, "beta"));
+		assertEquals(set(plain), select(index, participant, "gamma"));
+		// each indexed file is read once
+		assertEquals(2, participant.indexed.size());
+		assertEquals(2, index.getDocumentCount(ID));
+	}
+
+	public void testChangedFileIsIndexedAgain() throws Exception {
+		WordParticipant participant = new WordParticipant();
+		assertEquals(set(plain), select(index, participant, "gamma"));
+		write(beta, "gamma");
+		assertEquals(set(beta, plain), select(index, participant, "gamma"));
+		assertEquals(set(alpha, plain), select(index, participant, "beta"));
+		assertEquals(3, participant.indexed.size());
+		assertEquals(beta.getLocation().toString(), participant.indexed.get(2));
+	}
+
+	public void testUnindexedFileIsAlwaysSearched() throws Exception {
+		WordParticipant participant = new WordParticipant();
+		write(beta, "unindexable");
+		assertEquals(set(alpha, beta, plain), select(index, participant, "alpha"));
+		assertEquals(set(beta, plain), select(index, participant, "gamma"));
+		assertEquals(2, participant.indexed.size());
+	}
+
+	public void testSaveAndLoad() throws Exception {
+		select(index, new WordParticipant(), "alpha");
+		index.save();
+		assertTrue(indexFile.exists());
+
+		WordParticipant participant = new WordParticipant();
+		SearchIndex loaded = new SearchIndex(indexFile);
+		loaded.load();
+		assertEquals(2, loaded.getDocumentCount(ID));
+		assertEquals(set(alpha, plain), select(loaded, participant, "alpha"));
+		assertEquals(set(alpha, beta, plain), select(loaded, participant, "beta"));
+		assertEquals(0, participant.indexed.size());
+
+		// a file changed while the index was not loaded is indexed again
+		write(alpha, "gamma");
+		assertEquals(set(alpha, plain), select(loaded, participant, "gamma"));
+		assertEquals(1, participant.indexed.size());
+	}
+
+	public void testRemovedFilesAreDropped() throws Exception {
+		select(index, new WordParticipant(), "alpha");
+		assertEquals(2, index.getDocumentCount(ID));
+		alpha.delete(true, null);
+		assertEquals(1, index.getDocumentCount(ID));
+		project.getFolder("words").delete(true, null);
+		assertEquals(0, index.getDocumentCount(ID));
+	}
+
+	/**
+	 * Indexes the words of the files ending with ".words". Files containing
+	 * the word "unindexable" can't be indexed.
+	 */
+	private static class WordParticipant extends SearchParticipant {
+		private List<String> indexed = new ArrayList<String>();
+
+		public boolean isIndexed(IFile file) {
+			return file.getName().endsWith(".words");
+		}
+
+		public Entry[] createIndexEntries(String documentPath, IProgressMonitor monitor) {
+			List<Entry> entries = new ArrayList<Entry>();
+			try {
+				FileReader reader = new FileReader(documentPath);
+				try {
+					StreamTokenizer tokenizer = new StreamTokenizer(reader);
+					while (tokenizer.nextToken() != StreamTokenizer.TT_EOF) {
+						if ("unindexable".equals(tokenizer.sval)) {
+							return null;
+						}
+						Entry entry = new Entry();
+						entry.setCategory(WORD);
+						entry.setKey(tokenizer.sval);
+						entries.add(entry);
+					}
+				} finally {
+					reader.close();
+				}
+			} catch (IOException e) {
+				return null;
+			} finally {
+				indexed.add(documentPath);
+			}
+			return entries.toArray(new Entry[entries.size()]);
+		}
+
+		public boolean isApplicable(SearchPattern pattern, Map searchOptions) {
+			return true;
+		}
+
+		public SearchDocument createSearchDocument(String documentPath) {
+			return null;
+		}
+
+		public void locateMatches(SearchDocumentSet documentSet, SearchPattern pattern, SearchScope scope,
+				SearchRequestor requestor, Map searchOptions, IProgressMonitor monitor) {
+			// not searched
+		}
+
+		public void populateSearchDocument(SearchDocument document, SearchPattern pattern) {
+			// not searched
+		}
+	}
+}
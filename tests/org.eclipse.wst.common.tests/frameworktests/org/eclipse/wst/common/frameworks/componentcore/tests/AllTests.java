@@ -25,6 +25,8 @@ public class AllTests extends TestCase {
 		suite.addTestSuite(ModuleCoreURIConverterUnitTest.class);
 		//suite.addTestSuite(StructureEditAPITest.class);
 		suite.addTestSuite(StructureEditStressTest.class);
+		suite.addTestSuite(DependencyGraphNotificationTest.class);
+		suite.addTestSuite(DependencyGraphImplTest.class);
 		
 		
 		return suite;
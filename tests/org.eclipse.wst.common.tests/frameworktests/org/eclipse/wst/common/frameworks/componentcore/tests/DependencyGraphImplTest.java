@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.frameworks.componentcore.tests;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.wst.common.componentcore.internal.StructureEdit;
+import org.eclipse.wst.common.componentcore.internal.builder.DependencyGraphImpl;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraph;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraph2;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraphReferences;
+
+public class DependencyGraphImplTest extends DependencyGraphTestCase {
+
+	private IDependencyGraph2 graph;
+	private IProject a;
+	private IProject b;
+	private IProject c;
+
+	public DependencyGraphImplTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		assertTrue(IDependencyGraph.INSTANCE instanceof IDependencyGraph2);
+		graph = (IDependencyGraph2) IDependencyGraph.INSTANCE;
+		a = createProject("DependencyGraphA");
+		b = createProject("DependencyGraphB");
+		c = createProject("DependencyGraphC");
+		// A -> B -> C
+		addReference(a, b);
+		addReference(b, c);
+	}
+
+	protected void tearDown() throws Exception {
+		a.delete(true, null);
+		b.delete(true, null);
+		c.delete(true, null);
+	}
+
+	private static Set<IProject> set(IProject... projects) {
+		return new HashSet<IProject>(Arrays.asList(projects));
+	}
+
+	public void testTransitiveQueries() {
+		assertEquals(set(b), graph.getReferencingComponents(c));
+		assertEquals(set(a, b), graph.getTransitiveReferencingComponents(c));
+		assertEquals(set(a, b), graph.getTransitiveReferencingComponents(c, true).getReferencingComponents());
+		assertEquals(set(b, c), graph.getTransitiveReferencedComponents(a));
+		assertEquals(set(), graph.getTransitiveReferencingComponents(a));
+		assertEquals(set(), graph.getTransitiveReferencedComponents(c));
+	}
+
+	/**
+	 * The non-waiting form of the referenced query answers the same projects
+	 * once the graph is up to date.
+	 */
+	public void testReferencedQueryWithoutWaiting() {
+		// wait for the references added by setUp
+		graph.getReferencingComponents(c);
+		IDependencyGraphReferences refs = graph.getTransitiveReferencedComponents(a, false);
+		assertEquals(a, refs.getTargetProject());
+		assertEquals(set(b, c), refs.getReferencingComponents());
+		assertEquals(set(b, c), graph.getTransitiveReferencedComponents(a, true).getReferencingComponents());
+	}
+
+	public void testCycles() {
+		addReference(c, a);
+		assertEquals(set(b, c), graph.getTransitiveReferencingComponents(a));
+		assertEquals(set(a, c), graph.getTransitiveReferencingComponents(b));
+		assertEquals(set(b, c), graph.getTransitiveReferencedComponents(a));
+		assertEquals(set(a, b), graph.getTransitiveReferencedComponents(c));
+	}
+
+	public void testReturnedSetsAreUnmodifiable() {
+		assertUnmodifiable(graph.getReferencingComponents(c));
+		assertUnmodifiable(graph.getTransitiveReferencingComponents(c));
+		assertUnmodifiable(graph.getTransitiveReferencedComponents(a));
+	}
+
+	private void assertUnmodifiable(Set<IProject> projects) {
+		try {
+			projects.add(c);
+			fail("The set can be changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * A set returned before an update keeps describing the old graph, and
+	 * the update is visible to the next query.
+	 */
+	public void testUpdatesArePublishedAsNewSnapshots() throws Exception {
+		Set<IProject> before = graph.getReferencingComponents(c);
+		Set<IProject> closureBefore = graph.getTransitiveReferencingComponents(c);
+		long stamp = graph.getModStamp();
+		IProject d = createProject("DependencyGraphD");
+		try {
+			addReference(d, c);
+			assertEquals(set(b, d), graph.getReferencingComponents(c));
+			assertEquals(set(a, b, d), graph.getTransitiveReferencingComponents(c));
+			assertTrue(graph.getModStamp() > stamp);
+			assertEquals(set(b), before);
+			assertEquals(set(a, b), closureBefore);
+		} finally {
+			d.delete(true, null);
+		}
+		assertEquals(set(b), graph.getReferencingComponents(c));
+	}
+
+	public void testClosedProjectsArePruned() throws Exception {
+		b.close(null);
+		assertEquals(set(), graph.getReferencingComponents(c));
+		assertEquals(set(), graph.getTransitiveReferencingComponents(c));
+		b.open(null);
+		assertEquals(set(b), graph.getReferencingComponents(c));
+	}
+
+	public void testRestoredGraphIsUsedOnlyWhenComponentFilesAreUnchanged() throws Exception {
+		HashMap<String, Long> stamps = DependencyGraphImpl.getComponentFileStamps();
+		assertTrue(stamps.containsKey(a.getName()));
+		assertTrue(DependencyGraphImpl.isRestoredGraphCurrent(stamps));
+		// graphs saved by older versions have no stamps
+		assertFalse(DependencyGraphImpl.isRestoredGraphCurrent(null));
+
+		HashMap<String, Long> gone = new HashMap<String, Long>(stamps);
+		gone.put("DependencyGraphGone", Long.valueOf(1));
+		assertFalse(DependencyGraphImpl.isRestoredGraphCurrent(gone));
+
+		File componentFile = b.getFile(StructureEdit.MODULE_META_FILE_NAME).getLocation().toFile();
+		assertTrue(componentFile.setLastModified(componentFile.lastModified() + 10000));
+		assertFalse(DependencyGraphImpl.isRestoredGraphCurrent(stamps));
+	}
+}
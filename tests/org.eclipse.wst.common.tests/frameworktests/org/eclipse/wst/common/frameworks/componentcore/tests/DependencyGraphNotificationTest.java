@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.frameworks.componentcore.tests;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.wst.common.componentcore.internal.builder.DependencyGraphImpl;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraph;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraphListener;
+import org.eclipse.wst.common.componentcore.internal.builder.IDependencyGraphUpdateEvent;
+
+public class DependencyGraphNotificationTest extends DependencyGraphTestCase {
+
+	private static final String LIB_PROJECT_NAME = "DependencyGraphLib";
+	private static final String CLIENT_PROJECT_NAME = "DependencyGraphClient";
+	private static final int CLIENT_COUNT = 20;
+
+	private IProject lib;
+	private IProject[] clients = new IProject[CLIENT_COUNT];
+
+	public DependencyGraphNotificationTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		lib = createProject(LIB_PROJECT_NAME);
+		for (int i = 0; i < clients.length; i++) {
+			clients[i] = createProject(CLIENT_PROJECT_NAME + i);
+		}
+		// let the graph and its listeners settle before counting anything
+		IDependencyGraph.INSTANCE.getReferencingComponents(lib);
+		Job.getJobManager().join(DependencyGraphImpl.GRAPH_NOTIFICATION_JOB_FAMILY, null);
+	}
+
+	protected void tearDown() throws Exception {
+		lib.delete(true, null);
+		for (int i = 0; i < clients.length; i++) {
+			clients[i].delete(true, null);
+		}
+	}
+
+	/**
+	 * Holds up the first notification, and checks that the updates made
+	 * meanwhile are delivered together as one event once it is released.
+	 */
+	public void testNotificationsAreMerged() throws Exception {
+		final CountDownLatch firstEventStarted = new CountDownLatch(1);
+		final CountDownLatch releaseFirstEvent = new CountDownLatch(1);
+		final AtomicInteger events = new AtomicInteger();
+		final Set<IProject> added = Collections.synchronizedSet(new HashSet<IProject>());
+		IDependencyGraphListener listener = new IDependencyGraphListener() {
+			public void dependencyGraphUpdate(IDependencyGraphUpdateEvent event) {
+				Set<IProject> referencing = event.getAddedReferences().get(lib);
+				if (referencing == null) {
+					return;
+				}
+				added.addAll(referencing);
+				if (events.incrementAndGet() == 1) {
+					firstEventStarted.countDown();
+					try {
+						releaseFirstEvent.await(30, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		};
+		final AtomicInteger notificationRuns = new AtomicInteger();
+		final AtomicInteger updateRuns = new AtomicInteger();
+		JobChangeAdapter jobCounter = new JobChangeAdapter() {
+			public void done(IJobChangeEvent event) {
+				if (event.getJob().belongsTo(DependencyGraphImpl.GRAPH_NOTIFICATION_JOB_FAMILY)) {
+					notificationRuns.incrementAndGet();
+				} else if (event.getJob().belongsTo(DependencyGraphImpl.GRAPH_UPDATE_JOB_FAMILY)) {
+					updateRuns.incrementAndGet();
+				}
+			}
+		};
+		IDependencyGraph.INSTANCE.addListener(listener);
+		Job.getJobManager().addJobChangeListener(jobCounter);
+		try {
+			addReference(clients[0], lib);
+			assertTrue(IDependencyGraph.INSTANCE.getReferencingComponents(lib).contains(clients[0]));
+			assertTrue("The first notification was not delivered", firstEventStarted.await(30, TimeUnit.SECONDS));
+
+			DependencyGraphImpl graph = (DependencyGraphImpl) IDependencyGraph.INSTANCE;
+			long waits = graph.getUpdateWaits();
+			long idleWakeups = graph.getIdleWakeups();
+			for (int i = 1; i < clients.length; i++) {
+				addReference(clients[i], lib);
+				assertTrue(IDependencyGraph.INSTANCE.getReferencingComponents(lib).contains(clients[i]));
+			}
+			// each wait is woken by the update job starting or finishing a run, rather than by polling
+			assertTrue("Nothing waited for the graph updates", graph.getUpdateWaits() > waits);
+			assertEquals("A wait for the graph update woke up without a run", idleWakeups, graph.getIdleWakeups());
+
+			releaseFirstEvent.countDown();
+			Job.getJobManager().join(DependencyGraphImpl.GRAPH_NOTIFICATION_JOB_FAMILY, null);
+
+			assertEquals(CLIENT_COUNT, added.size());
+			for (int i = 0; i < clients.length; i++) {
+				assertTrue(added.contains(clients[i]));
+			}
+			assertEquals("The held back updates were not merged", 2, events.get());
+			assertEquals("The held back updates were not delivered by one run", 2, notificationRuns.get());
+			assertTrue(notificationRuns.get() <= updateRuns.get());
+		} finally {
+			releaseFirstEvent.countDown();
+			Job.getJobManager().removeJobChangeListener(jobCounter);
+			IDependencyGraph.INSTANCE.removeListener(listener);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.frameworks.componentcore.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.wst.common.componentcore.ComponentCore;
+import org.eclipse.wst.common.componentcore.ModuleCoreNature;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
+
+/**
+ * Creates component projects and references between them, so that the
+ * dependency graph can be tested.
+ */
+public abstract class DependencyGraphTestCase extends TestCase {
+
+	public DependencyGraphTestCase(String name) {
+		super(name);
+	}
+
+	protected IProject createProject(String name) throws Exception {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		IProject project = root.getProject(name);
+		if (project.exists()) {
+			project.delete(true, null);
+		}
+		project.create(null);
+		project.open(null);
+		ModuleCoreNature.addModuleCoreNatureIfNecessary(project, null);
+		ComponentCore.createComponent(project).create(0, null);
+		return project;
+	}
+
+	protected void addReference(IProject sourceProject, IProject targetProject) {
+		IVirtualComponent source = ComponentCore.createComponent(sourceProject);
+		IVirtualComponent target = ComponentCore.createComponent(targetProject);
+		source.addReferences(new IVirtualReference[] { ComponentCore.createReference(source, target) });
+	}
+}
@@ -63,6 +63,8 @@ public class AutomatedBVT extends TestSuite {
 		suite.addTest(DataModelAPITests.suite());
 		suite.addTest(ArtifactEditAPITests.suite());
 		suite.addTest(EnvironmentTests.suite());
+		suite.addTest(org.eclipse.wst.common.tests.flatten.AllTests.suite());
+		suite.addTest(org.eclipse.wst.common.tests.search.AllTests.suite());
 		return suite;
 	}
 }
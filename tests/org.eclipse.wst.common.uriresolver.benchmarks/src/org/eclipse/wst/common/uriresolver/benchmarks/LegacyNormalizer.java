@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.benchmarks;
+
+import java.net.URL;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.common.uriresolver.internal.URI;
+
+/**
+ * The normalization that was used before the fast paths were added, kept here as the baseline for
+ * the benchmarks. Every uri is parsed, whether or not it needs to be normalized.
+ */
+final class LegacyNormalizer {
+
+	private LegacyNormalizer(){}
+
+	/**
+	 * URIHelper.normalize(String), which always parses the uri into a URL and a Path.
+	 */
+	static String normalize(String uri){
+		if (uri != null){
+			if (getProtocol(uri) != null){
+				try {
+					URL url = new URL(uri);
+					IPath path = new Path(url.getFile());
+					URL url2 = new URL(url.getProtocol(), url.getHost(), url.getPort(), path.toString());
+					uri = url2.toString();
+				}
+				catch (Exception e){
+				}
+			}
+			else {
+				uri = new Path(uri).toString();
+			}
+		}
+		return uri;
+	}
+
+	/**
+	 * URIHelper.getProtocol(String), which answers a new string for every call.
+	 */
+	static String getProtocol(String uri){
+		int index = uri.indexOf(":"); //$NON-NLS-1$
+		return index > 2 ? uri.substring(0, index + 1) : null;
+	}
+
+	/**
+	 * ExtensibleURIResolver.normalize(String, String) for a system id that isn't relative, which
+	 * parsed the system id to find out that there was nothing to do.
+	 */
+	static String resolveAbsolute(String systemId){
+		try {
+			URI systemURI = URI.createURI(systemId);
+			if (systemURI.isRelative())return null;
+		}
+		catch (Exception e){
+		}
+		return systemId;
+	}
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.wst.common.uriresolver.internal.ExtensibleURIResolver;
+import org.eclipse.wst.common.uriresolver.internal.util.URIHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare the normalization of uris with the legacy implementation. Each invocation normalizes every
+ * uri of the given kind; run with the GC profiler, gc.alloc.rate.norm is the number of bytes allocated
+ * for each invocation, which should be zero for the current implementation with uris that have already
+ * been normalized.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NormalizeBenchmark {
+
+	/**
+	 * The kind of uri: normalized file and platform uris, which take the fast path, and uris that
+	 * still need to be normalized, which show what the fast path costs when it doesn't apply.
+	 */
+	@Param({"file", "platform", "unnormalized"})
+	public String kind;
+
+	private String[]		_uris;
+	private CharSequence[]	_sequences;
+	private Resolver		_resolver;
+
+	@Setup
+	public void setup(){
+		_uris = new String[100];
+		_sequences = new CharSequence[_uris.length];
+		for (int i=0; i<_uris.length; i++){
+			String path = "project" + (i % 5) + "/folder" + (i % 10) + "/schema" + i + ".xsd"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			if ("file".equals(kind))_uris[i] = "file:/workspace/" + path; //$NON-NLS-1$ //$NON-NLS-2$
+			else if ("platform".equals(kind))_uris[i] = "platform:/resource/" + path; //$NON-NLS-1$ //$NON-NLS-2$
+			else _uris[i] = "file:/workspace/" + path.replace("/folder", "/other/../folder"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			_sequences[i] = new StringBuilder(_uris[i]);
+		}
+		_resolver = new Resolver();
+	}
+
+	@Benchmark
+	public void normalize(Blackhole bh){
+		for (String uri : _uris)bh.consume(URIHelper.normalize(uri));
+	}
+
+	@Benchmark
+	public void normalizeLegacy(Blackhole bh){
+		for (String uri : _uris)bh.consume(LegacyNormalizer.normalize(uri));
+	}
+
+	/**
+	 * The check on its own, on a sequence that isn't a string.
+	 */
+	@Benchmark
+	public void isNormalized(Blackhole bh){
+		for (CharSequence uri : _sequences)bh.consume(URIHelper.isNormalized(uri));
+	}
+
+	/**
+	 * The normalization that the resolver does between the pre and post normalization resolvers,
+	 * for an absolute system id.
+	 */
+	@Benchmark
+	public void resolverNormalize(Blackhole bh){
+		for (String uri : _uris)bh.consume(_resolver.normalize(uri));
+	}
+
+	@Benchmark
+	public void resolverNormalizeLegacy(Blackhole bh){
+		for (String uri : _uris)bh.consume(LegacyNormalizer.resolveAbsolute(uri));
+	}
+
+	@Benchmark
+	public void getProtocol(Blackhole bh){
+		for (String uri : _uris)bh.consume(Helper.protocol(uri));
+	}
+
+	@Benchmark
+	public void getProtocolLegacy(Blackhole bh){
+		for (String uri : _uris)bh.consume(LegacyNormalizer.getProtocol(uri));
+	}
+
+	/**
+	 * Gives the benchmarks access to the protected methods.
+	 */
+	private static final class Resolver extends ExtensibleURIResolver {
+
+		String normalize(String systemId){
+			return normalize("platform:/resource/project/base.xml", systemId); //$NON-NLS-1$
+		}
+	}
+
+	private static final class Helper extends URIHelper {
+
+		static String protocol(String uri){
+			return getProtocol(uri);
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.benchmarks;
+
+import java.util.Collection;
+
+import junit.framework.TestCase;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Run the URI resolver benchmarks. This is run as a test, so that the benchmarks run inside a
+ * (headless) OSGi runtime, and it runs JMH in process. The GC profiler is always used, so that the
+ * results include the bytes allocated for each operation (gc.alloc.rate.norm) as well as the time.
+ * <p>
+ * The run can be configured with these system properties:
+ * <dl>
+ * <dt>benchmark.include</dt><dd>A regular expression for the benchmarks to run.</dd>
+ * <dt>benchmark.warmups, benchmark.iterations</dt><dd>The number of one second warm up and measurement
+ * iterations.</dd>
+ * <dt>benchmark.result</dt><dd>The file that the results are written to, as JSON.</dd>
+ * </dl>
+ * </p>
+ */
+public class URIResolverBenchmarks extends TestCase {
+
+	public void testBenchmarks() throws Exception {
+		ChainedOptionsBuilder options = new OptionsBuilder()
+			.include(property("benchmark.include", ".*Benchmark\\..*")) //$NON-NLS-1$ //$NON-NLS-2$
+			.forks(0)
+			.addProfiler(GCProfiler.class)
+			.warmupIterations(Integer.parseInt(property("benchmark.warmups", "3"))) //$NON-NLS-1$ //$NON-NLS-2$
+			.warmupTime(TimeValue.seconds(1))
+			.measurementIterations(Integer.parseInt(property("benchmark.iterations", "5"))) //$NON-NLS-1$ //$NON-NLS-2$
+			.measurementTime(TimeValue.seconds(1))
+			.resultFormat(ResultFormatType.JSON)
+			.result(property("benchmark.result", "benchmark-results.json")); //$NON-NLS-1$ //$NON-NLS-2$
+
+		Collection<RunResult> results = new Runner(options.build()).run();
+		assertFalse("No benchmarks were run", results.isEmpty()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Answer the system property, treating an empty property as not being set.
+	 */
+	private static String property(String name, String defaultValue){
+		String value = System.getProperty(name);
+		if (value == null || value.trim().length() == 0)return defaultValue;
+		return value.trim();
+	}
+
+}
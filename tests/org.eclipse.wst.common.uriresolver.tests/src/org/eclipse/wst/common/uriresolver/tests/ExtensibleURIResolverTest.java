@@ -14,9 +14,12 @@ package org.eclipse.wst.common.uriresolver.tests;
 import junit.framework.TestCase;
 
 import org.eclipse.wst.common.uriresolver.internal.ExtensibleURIResolver;
+import org.eclipse.wst.common.uriresolver.internal.URIResolverExtensionRegistry;
 import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolver;
+import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolver2;
 import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverPlugin;
 import org.eclipse.wst.common.uriresolver.tests.util.AuxiliaryCounter;
+import org.eclipse.wst.common.uriresolver.tests.util.CacheableResolverExtension;
 import org.eclipse.wst.common.uriresolver.tests.util.ResolverExtensionForText;
 
 public class ExtensibleURIResolverTest extends TestCase {
@@ -45,5 +48,69 @@ public class ExtensibleURIResolverTest extends TestCase {
 		}
 	}
 
+	public void testCacheableResolverResultIsReused() {
+
+		URIResolverExtensionRegistry registry = URIResolverExtensionRegistry.getIntance();
+		URIResolver resolver = URIResolverPlugin.createResolver();
+		// Compute the resolver chains
+		resolver.resolve(null, null, null);
+		registry.clearMemo();
+		registry.resetStatistics();
+		CacheableResolverExtension.resetCount();
+		AuxiliaryCounter.getInstance().resetCounter();
+
+		String first = resolver.resolve(null, null, CacheableResolverExtension.SYSTEM_ID_URL);
+		String second = resolver.resolve(null, null, CacheableResolverExtension.SYSTEM_ID_URL);
+		assertEquals(CacheableResolverExtension.SYSTEM_ID_LOCATION, first);
+		assertEquals(CacheableResolverExtension.SYSTEM_ID_LOCATION, second);
+
+		// The cacheable resolver is only called once, the other resolver every time
+		assertEquals(1, CacheableResolverExtension.getCount());
+		assertEquals(2, AuxiliaryCounter.getInstance().getCount());
+		assertEquals(1, registry.getMemoHits());
+		assertEquals(1, registry.getMemoMisses());
+
+		// The resolver chains are computed once and then reused
+		assertEquals(0, registry.getChainMisses());
+		assertTrue(registry.getChainHits() > 0);
+	}
+
+	public void testResolveAllMatchesResolve() {
+
+		URIResolverExtensionRegistry registry = URIResolverExtensionRegistry.getIntance();
+		URIResolver2 resolver = (URIResolver2) URIResolverPlugin.createResolver();
+		String[] publicIds = {ResolverExtensionForText.PUBLIC_ID_URL, null, null, null};
+		String[] systemIds = {null, ResolverExtensionForText.SYSTEM_ID_URL, CacheableResolverExtension.SYSTEM_ID_URL, "relative.xsd"};
+		String baseLocation = "file:/folder/base.xsd";
+
+		String[] expected = new String[systemIds.length];
+		for (int i = 0; i < systemIds.length; i++) {
+			expected[i] = resolver.resolve(baseLocation, publicIds[i], systemIds[i]);
+		}
+		registry.clearMemo();
+		registry.resetStatistics();
+		CacheableResolverExtension.resetCount();
+		AuxiliaryCounter.getInstance().resetCounter();
+
+		String[] results = resolver.resolveAll(baseLocation, publicIds, systemIds);
+		assertEquals(systemIds.length, results.length);
+		for (int i = 0; i < systemIds.length; i++) {
+			assertEquals(expected[i], results[i]);
+		}
+		assertEquals(ResolverExtensionForText.PUBLIC_ID_LOCATION, results[0]);
+		assertEquals(CacheableResolverExtension.SYSTEM_ID_LOCATION, results[2]);
+		assertEquals("file:/folder/relative.xsd", results[3]);
+
+		// The batch resolver is called once for all the references, the other resolver for each of them
+		assertEquals(1, CacheableResolverExtension.getBatchCount());
+		assertEquals(systemIds.length, CacheableResolverExtension.getCount());
+		assertEquals(systemIds.length, AuxiliaryCounter.getInstance().getCount());
+
+		// The results of the cacheable resolver are kept
+		resolver.resolveAll(baseLocation, publicIds, systemIds);
+		assertEquals(1, CacheableResolverExtension.getBatchCount());
+		assertEquals(systemIds.length, registry.getMemoHits());
+	}
+
 
 }
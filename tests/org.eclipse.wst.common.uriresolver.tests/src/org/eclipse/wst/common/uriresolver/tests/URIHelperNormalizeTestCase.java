@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.wst.common.uriresolver.internal.util.URIHelper;
+
+public class URIHelperNormalizeTestCase extends TestCase {
+
+	public void testNormalizedURIsAreReturnedUnchanged() {
+		String[] normalized = {"file:/C/workspace/project/schema.xsd", "file:/tmp/a.b/c..d/.e/", "platform:/resource/project/folder/file.xml"};
+		for (int i = 0; i < normalized.length; i++) {
+			assertTrue(normalized[i], URIHelper.isNormalized(normalized[i]));
+			assertSame(normalized[i], URIHelper.normalize(normalized[i]));
+		}
+		String[] unnormalized = {"file:///tmp/a.xsd", "file://host/a.xsd", "file:/tmp//a.xsd", "file:/tmp/./a.xsd", "file:/tmp/../a.xsd", "file:/tmp/..", "file:/C:/a.xsd", "file:/tmp\\a.xsd", "file:/a.xsd?q", "file:/a.xsd#f", "file:/", "http://host/a.xsd", "a.xsd"};
+		for (int i = 0; i < unnormalized.length; i++) {
+			assertFalse(unnormalized[i], URIHelper.isNormalized(unnormalized[i]));
+		}
+		assertEquals("file:/tmp/a.xsd", URIHelper.normalize("file:/tmp/b/../a.xsd"));
+	}
+
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *     
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.tests.util;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverExtension2;
+
+/**
+ * A resolver whose result only depends on its arguments, which is declared
+ * as cacheable, and which can resolve many references in one call.
+ */
+public class CacheableResolverExtension implements URIResolverExtension2 {
+	
+	public static final String SYSTEM_ID_URL = "http://www.cacheable.org";
+	public static final String SYSTEM_ID_LOCATION = "/folder/cacheable.extension";
+	
+	private static int count = 0;
+	private static int batchCount = 0;
+	
+	public static synchronized void resetCount() {
+		count = 0;
+		batchCount = 0;
+	}
+	
+	public static synchronized int getCount() {
+		return count;
+	}
+	
+	public static synchronized int getBatchCount() {
+		return batchCount;
+	}
+	
+	public String resolve(IFile file, String baseLocation, String publicId, String systemId) {
+		synchronized (CacheableResolverExtension.class) {
+			count++;
+		}
+		if(SYSTEM_ID_URL.equals(systemId)) {
+			return SYSTEM_ID_LOCATION;
+		}
+		return null;
+	}
+	
+	public String[] resolveAll(IFile file, String baseLocation, String[] publicIds, String[] systemIds) {
+		synchronized (CacheableResolverExtension.class) {
+			batchCount++;
+		}
+		String[] results = new String[systemIds.length];
+		for (int i = 0; i < systemIds.length; i++) {
+			results[i] = resolve(file, baseLocation, publicIds[i], systemIds[i]);
+		}
+		return results;
+	}
+
+}
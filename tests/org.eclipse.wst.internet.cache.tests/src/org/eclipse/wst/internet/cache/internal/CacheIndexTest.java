@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.internet.cache.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for the CacheIndex class.
+ */
+public class CacheIndexTest extends TestCase
+{
+	private File location;
+	
+	/**
+	  * Create a tests suite from this test class.
+	  * 
+	  * @return A test suite containing this test class.
+	  */
+	  public static Test suite()
+	  {
+	    return new TestSuite(CacheIndexTest.class);
+	  }
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		location = Files.createTempDirectory("cacheindex").toFile();
+	}
+
+	protected void tearDown() throws Exception {
+		File[] files = location.listFiles();
+		for(int i = 0; i < files.length; i++)
+		{
+			files[i].delete();
+		}
+		location.delete();
+		super.tearDown();
+	}
+	
+	/**
+	 * Test that changes are persisted as they are made, without the
+	 * index being closed.
+	 */
+	public void testChangesSurviveWithoutClose() throws Exception
+	{
+		CacheIndex index = new CacheIndex(location);
+		index.load();
+		index.put(new CacheEntry("http://a", "1.cache", 10, 20, "\"a\""));
+		index.put(new CacheEntry("http://b", "2.cache", 30, 40, null));
+		index.delete("http://a");
+		
+		Map entries = load(new CacheIndex(location));
+		assertEquals("The index doesn't have one entry.", 1, entries.size());
+		CacheEntry entry = (CacheEntry)entries.get("http://b");
+		assertNotNull("The entry was not persisted.", entry);
+		assertEquals("The local file was not persisted.", "2.cache", entry.getLocalFile());
+		assertEquals("The last modified time was not persisted.", 30, entry.getLastModified());
+		assertEquals("The expiration time was not persisted.", 40, entry.getExpirationTime());
+		assertNull("The entity tag was not persisted.", entry.getETag());
+		index.close();
+	}
+	
+	/**
+	 * Test that an access is persisted if the last access that was persisted
+	 * for the entry is old enough.
+	 */
+	public void testTouch() throws Exception
+	{
+		CacheIndex index = new CacheIndex(location);
+		index.load();
+		CacheEntry entry = new CacheEntry("http://a", "1.cache", 10, 20, "\"a\"");
+		entry.setLastAccessed(1000);
+		index.put(entry);
+		entry.setLastAccessed(500000);
+		entry.setAccessCount(7);
+		index.touch(entry);
+		
+		CacheEntry loaded = (CacheEntry)load(new CacheIndex(location)).get("http://a");
+		assertEquals("The access time was not persisted.", 500000, loaded.getLastAccessed());
+		assertEquals("The access count was not persisted.", 7, loaded.getAccessCount());
+		assertEquals("The entity tag was not persisted.", "\"a\"", loaded.getETag());
+		index.close();
+	}
+	
+	/**
+	 * Test that a record that was only partly written, as it would be after a
+	 * crash, is ignored and that new records can still be added.
+	 */
+	public void testTornRecordIsIgnored() throws Exception
+	{
+		CacheIndex index = new CacheIndex(location);
+		index.load();
+		index.put(new CacheEntry("http://a", "1.cache", 10, 20, null));
+		index.close();
+		FileOutputStream out = new FileOutputStream(new File(location, "cache.journal"), true);
+		out.write(new byte[]{0, 0, 0, 40, 1, 0, 8, 'h', 't'});
+		out.close();
+		
+		index = new CacheIndex(location);
+		Map entries = load(index);
+		assertEquals("The complete record was not read.", 1, entries.size());
+		index.put(new CacheEntry("http://b", "2.cache", 10, 20, null));
+		index.close();
+		assertEquals("The record after the torn record was not read.", 2, load(new CacheIndex(location)).size());
+	}
+	
+	/**
+	 * Test that a snapshot empties the journal and holds all the entries.
+	 */
+	public void testSnapshot() throws Exception
+	{
+		CacheIndex index = new CacheIndex(location);
+		index.load();
+		Map cache = new HashMap();
+		for(int i = 0; i < 10; i++)
+		{
+			CacheEntry entry = new CacheEntry("http://" + i, i + ".cache", i, i, null);
+			cache.put(entry.getURI(), entry);
+			index.put(entry);
+		}
+		index.snapshot(cache);
+		assertFalse("The journal was not emptied.", new File(location, "cache.journal").exists());
+		index.delete("http://0");
+		index.close();
+		
+		Map entries = load(new CacheIndex(location));
+		assertEquals("The snapshot and journal were not both read.", 9, entries.size());
+		assertFalse("The deleted entry was read.", entries.containsKey("http://0"));
+	}
+	
+	/**
+	 * Test that the entries of the cache.xml file written by older versions
+	 * of the cache are read, and that the file is removed once a snapshot
+	 * has been written.
+	 */
+	public void testLegacyIndexIsRead() throws Exception
+	{
+		writeLegacy("<cache><entry uri=\"http://a\" location=\"1.cache\" lastModified=\"10\" expirationTime=\"20\"/></cache>");
+		CacheIndex index = new CacheIndex(location);
+		Map entries = load(index);
+		assertEquals("The legacy entry was not read.", 1, entries.size());
+		assertEquals("The legacy entry has the wrong location.", "1.cache", ((CacheEntry)entries.get("http://a")).getLocalFile());
+		assertTrue("A snapshot is not needed.", index.isSnapshotNeeded());
+		index.snapshot(entries);
+		index.close();
+		assertFalse("The legacy file was not removed.", new File(location, "cache.xml").exists());
+		assertEquals("The snapshot does not have the legacy entry.", 1, load(new CacheIndex(location)).size());
+	}
+	
+	private void writeLegacy(String contents) throws IOException
+	{
+		FileWriter writer = new FileWriter(new File(location, "cache.xml"));
+		writer.write(contents);
+		writer.close();
+	}
+	
+	private static Map load(CacheIndex index) throws IOException
+	{
+		Map entries = new HashMap();
+		Collection loaded = index.load();
+		for(Iterator it = loaded.iterator(); it.hasNext();)
+		{
+			CacheEntry entry = (CacheEntry)it.next();
+			entries.put(entry.getURI(), entry);
+		}
+		return entries;
+	}
+}
@@ -10,12 +10,23 @@
  *******************************************************************************/
 package org.eclipse.wst.internet.cache.internal;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import org.eclipse.core.runtime.IStatus;
+
 /**
  * Tests for the Cache class.
  */
@@ -205,9 +216,490 @@ public class CacheTest extends TestCase
 		cache.clear();
 		
 	}
-	
-	
-	
-	
+
+	/**
+	 * Test that concurrent requests for the same resource share a single
+	 * download rather than each downloading it.
+	 */
+	public void testConcurrentRequestsShareOneDownload() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		try
+		{
+			server.put("/single", "single");
+			server.put("/shared", "shared");
+			// The number of requests the cache makes to download one resource.
+			assertNotNull("The single resource was not cached.", cache.getResource(server.getURI("/single")));
+			int single = server.getRequests("/single");
+
+			server.setDelay(200);
+			final String resource = server.getURI("/shared");
+			final int threads = 8;
+			final String[] results = new String[threads];
+			final CountDownLatch start = new CountDownLatch(1);
+			Thread[] fetchers = new Thread[threads];
+			for(int i = 0; i < threads; i++)
+			{
+				final int index = i;
+				fetchers[i] = new Thread()
+				{
+					public void run()
+					{
+						try
+						{
+							start.await();
+							results[index] = cache.getResource(resource);
+						}
+						catch(InterruptedException e)
+						{
+							// The result stays null and the test fails.
+						}
+					}
+				};
+				fetchers[i].start();
+			}
+			start.countDown();
+			for(int i = 0; i < threads; i++)
+			{
+				fetchers[i].join(30000);
+			}
+			for(int i = 0; i < threads; i++)
+			{
+				assertNotNull("Thread " + i + " did not get the cached resource.", results[i]);
+				assertEquals("Thread " + i + " got a different cached resource.", results[0], results[i]);
+			}
+			assertEquals("The resource was downloaded more than once.", single, server.getRequests("/shared"));
+		}
+		finally
+		{
+			cache.clear();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that an expired entry is revalidated with its entity tag, and that
+	 * only its expiration time is updated if it has not been modified.
+	 */
+	public void testExpiredEntryIsRevalidated() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		CachePlugin.getDefault().setStaleWhileRevalidate(false);
+		try
+		{
+			server.put("/revalidate", "version 1", "\"v1\"");
+			String resource = server.getURI("/revalidate");
+			String result = cache.getResource(resource);
+			assertNotNull("The resource was not cached.", result);
+			CacheEntry entry = cache.getCacheEntry(resource);
+			assertEquals("The entity tag was not stored.", "\"v1\"", entry.getETag());
+			File file = new File(new URL(result).getFile());
+			long fileModified = file.lastModified();
+
+			entry.setExpiration(System.currentTimeMillis() - 1);
+			assertEquals("The revalidated resource has a different location.", result, cache.getResource(resource));
+			assertEquals("The server did not answer that the resource was not modified.", 1, server.getNotModified("/revalidate"));
+			assertFalse("The revalidated entry is still expired.", entry.hasExpired());
+			assertEquals("The cached file was rewritten.", fileModified, file.lastModified());
+			assertEquals("The cached content changed.", "version 1", read(result));
+		}
+		finally
+		{
+			CachePlugin.getDefault().setStaleWhileRevalidate(true);
+			cache.clear();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that an expired entry that has been modified on the server is
+	 * downloaded again.
+	 */
+	public void testModifiedEntryIsDownloadedAgain() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		CachePlugin.getDefault().setStaleWhileRevalidate(false);
+		try
+		{
+			server.put("/modified", "version 1", "\"v1\"");
+			String resource = server.getURI("/modified");
+			String result = cache.getResource(resource);
+			assertNotNull("The resource was not cached.", result);
+
+			server.put("/modified", "version 2", "\"v2\"");
+			CacheEntry entry = cache.getCacheEntry(resource);
+			entry.setExpiration(System.currentTimeMillis() - 1);
+			result = cache.getResource(resource);
+			assertEquals("The server answered that the resource was not modified.", 0, server.getNotModified("/modified"));
+			assertEquals("The entity tag was not updated.", "\"v2\"", entry.getETag());
+			assertEquals("The cached content was not updated.", "version 2", read(result));
+		}
+		finally
+		{
+			CachePlugin.getDefault().setStaleWhileRevalidate(true);
+			cache.clear();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that an expired entry is returned straight away and revalidated in
+	 * the background.
+	 */
+	public void testStaleEntryIsRevalidatedInBackground() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		try
+		{
+			server.put("/stale", "version 1", "\"v1\"");
+			String resource = server.getURI("/stale");
+			String result = cache.getResource(resource);
+			assertNotNull("The resource was not cached.", result);
+			int requests = server.getRequests("/stale");
+
+			server.setDelay(500);
+			CacheEntry entry = cache.getCacheEntry(resource);
+			entry.setExpiration(System.currentTimeMillis() - 1);
+			long start = System.currentTimeMillis();
+			assertEquals("The stale resource was not returned.", result, cache.getResource(resource));
+			assertTrue("The caller waited for the revalidation.", System.currentTimeMillis() - start < 500);
+
+			long timeout = System.currentTimeMillis() + 30000;
+			while(entry.hasExpired() && System.currentTimeMillis() < timeout)
+			{
+				Thread.sleep(50);
+			}
+			assertFalse("The stale entry was not revalidated.", entry.hasExpired());
+			assertEquals("The stale entry was not revalidated once.", requests + 1, server.getRequests("/stale"));
+			assertEquals("The server did not answer that the resource was not modified.", 1, server.getNotModified("/stale"));
+		}
+		finally
+		{
+			cache.clear();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that once the cache has more entries than allowed, the least
+	 * recently used entries are evicted, along with entries whose files have
+	 * disappeared.
+	 */
+	public void testEvictsLeastRecentlyUsedEntries() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		CachePlugin.getDefault().setMaxCacheEntries(3);
+		try
+		{
+			String[] resources = new String[5];
+			for(int i = 0; i < resources.length; i++)
+			{
+				server.put("/evict" + i, "resource " + i);
+				resources[i] = server.getURI("/evict" + i);
+			}
+			String first = cache.getResource(resources[0]);
+			Thread.sleep(10);
+			String second = cache.getResource(resources[1]);
+			Thread.sleep(10);
+			cache.getResource(resources[2]);
+			Thread.sleep(10);
+			// Use the first resource again so the second is the least recently used.
+			cache.getResource(resources[0]);
+			Thread.sleep(10);
+			cache.getResource(resources[3]);
+			assertNotNull("The most recently used entry was evicted.", cache.getCacheEntry(resources[0]));
+			assertNull("The least recently used entry was not evicted.", cache.getCacheEntry(resources[1]));
+			assertNull("The second least recently used entry was not evicted.", cache.getCacheEntry(resources[2]));
+			assertNotNull("The new entry was evicted.", cache.getCacheEntry(resources[3]));
+			assertFalse("The file of the evicted entry was not deleted.", new File(new URL(second).getFile()).exists());
+
+			// An entry whose file has disappeared is evicted even if it was used recently.
+			Thread.sleep(10);
+			cache.getResource(resources[0]);
+			new File(new URL(first).getFile()).delete();
+			cache.getResource(resources[4]);
+			cache.getResource(resources[1]);
+			assertNull("The entry whose file disappeared was not evicted.", cache.getCacheEntry(resources[0]));
+			assertNotNull("The new entry was evicted.", cache.getCacheEntry(resources[1]));
+			assertNotNull("A recently used entry was evicted.", cache.getCacheEntry(resources[4]));
+			assertEquals("The cache size is not the size of its files.", "resource 0".length() * 2, cache.getSize());
+		}
+		finally
+		{
+			CachePlugin.getDefault().setMaxCacheEntries(CachePlugin.DEFAULT_MAX_CACHE_ENTRIES);
+			cache.clear();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that resources with the same contents share one file, which is
+	 * only deleted once no entry refers to it.
+	 */
+	public void testIdenticalResourcesShareOneFile() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		try
+		{
+			server.put("/mirror1/schema.xsd", "<schema/>");
+			server.put("/mirror2/schema.xsd", "<schema/>");
+			String resource1 = server.getURI("/mirror1/schema.xsd");
+			String resource2 = server.getURI("/mirror2/schema.xsd");
+			String result1 = cache.getResource(resource1);
+			String result2 = cache.getResource(resource2);
+			assertNotNull("The first resource was not cached.", result1);
+			assertEquals("The resources do not share a file.", result1, result2);
+			assertEquals("The shared file was counted twice.", "<schema/>".length(), cache.getSize());
+
+			File file = new File(new URL(result1).getFile());
+			cache.deleteEntry(resource1);
+			assertTrue("The shared file was deleted while it was still in use.", file.exists());
+			cache.deleteEntry(resource2);
+			assertFalse("The shared file was not deleted.", file.exists());
+			assertEquals("The cache is not empty.", 0, cache.getSize());
+		}
+		finally
+		{
+			cache.clear();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that verifying the cache removes the entries whose files no longer
+	 * have the contents they were stored with.
+	 */
+	public void testVerifyRemovesCorruptEntries() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		try
+		{
+			server.put("/intact", "intact");
+			server.put("/corrupt", "corrupt");
+			String intact = server.getURI("/intact");
+			String corrupt = server.getURI("/corrupt");
+			cache.getResource(intact);
+			String result = cache.getResource(corrupt);
+			FileWriter writer = new FileWriter(new URL(result).getFile());
+			writer.write("tampered");
+			writer.close();
+
+			assertEquals("The corrupt entry was not removed.", 1, cache.verify());
+			assertNull("The corrupt entry is still cached.", cache.getCacheEntry(corrupt));
+			assertNotNull("The intact entry was removed.", cache.getCacheEntry(intact));
+		}
+		finally
+		{
+			cache.clear();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that prefetching downloads the resources in parallel and reports
+	 * the resources that could not be cached.
+	 */
+	public void testPrefetchCachesResourcesInParallel() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		try
+		{
+			List<String> uris = new ArrayList<String>();
+			for(int i = 0; i < 8; i++)
+			{
+				server.put("/prefetch" + i, "prefetch " + i);
+				uris.add(server.getURI("/prefetch" + i));
+			}
+			String missing = server.getURI("/missing");
+			uris.add(missing);
+			server.setDelay(500);
+
+			long start = System.currentTimeMillis();
+			IStatus status = cache.prefetch(uris);
+			long elapsed = System.currentTimeMillis() - start;
+			// Downloading one at a time takes at least as long as all the delayed responses.
+			int responses = 0;
+			for(int i = 0; i < 8; i++)
+			{
+				responses += server.getRequests("/prefetch" + i);
+			}
+			responses += server.getRequests("/missing");
+			assertTrue("The resources were not downloaded in parallel.", elapsed < responses * 500 / 2);
+			for(int i = 0; i < 8; i++)
+			{
+				assertNotNull("Resource " + i + " was not cached.", cache.getCacheEntry(uris.get(i)));
+			}
+			assertEquals("The missing resource was not reported.", 1, status.getChildren().length);
+			assertTrue("The missing resource is not in the status.", status.getChildren()[0].getMessage().indexOf(missing) != -1);
+			assertTrue("The missing resource is not retried later.", Arrays.asList(cache.getUncachedURIs()).contains(missing));
+		}
+		finally
+		{
+			cache.clearUncachedURIs();
+			cache.clear();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that getting many resources at once downloads the ones that are
+	 * not cached in parallel, and only requests each of them once.
+	 */
+	public void testGetResourcesDownloadsInParallel() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		try
+		{
+			String[] uris = new String[9];
+			for(int i = 0; i < 8; i++)
+			{
+				server.put("/batch" + i, "batch " + i);
+				uris[i] = server.getURI("/batch" + i);
+			}
+			String missing = server.getURI("/missing");
+			uris[8] = missing;
+			server.setDelay(500);
+
+			long start = System.currentTimeMillis();
+			String[] resources = cache.getResources(uris);
+			long elapsed = System.currentTimeMillis() - start;
+			// Downloading one at a time takes at least as long as all the delayed responses.
+			int responses = 0;
+			for(int i = 0; i < 8; i++)
+			{
+				responses += server.getRequests("/batch" + i);
+			}
+			responses += server.getRequests("/missing");
+			assertTrue("The resources were not downloaded in parallel.", elapsed < responses * 500 / 2);
+			assertEquals(uris.length, resources.length);
+			for(int i = 0; i < 8; i++)
+			{
+				assertNotNull("Resource " + i + " was not cached.", resources[i]);
+			}
+			assertNull("The missing resource was cached.", resources[8]);
+
+			// The downloaded resources are not requested again.
+			String[] again = cache.getResources(uris);
+			for(int i = 0; i < 8; i++)
+			{
+				assertEquals(resources[i], again[i]);
+				responses -= server.getRequests("/batch" + i);
+			}
+			responses -= server.getRequests("/missing");
+			assertEquals("Resources were requested again.", 0, responses);
+		}
+		finally
+		{
+			cache.clearUncachedURIs();
+			cache.clear();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that a resource that could not be cached is not requested again
+	 * until it is due to be retried, and that prefetching it retries it
+	 * straight away.
+	 */
+	public void testUncachedResourceBacksOff() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		try
+		{
+			String resource = server.getURI("/later");
+			assertNull("A missing resource was cached.", cache.getResource(resource));
+			int requests = server.getRequests("/later");
+			assertNull("A missing resource was cached.", cache.getResource(resource));
+			assertEquals("The missing resource was requested before it was due to be retried.", requests, server.getRequests("/later"));
+			assertTrue("No retry was scheduled.", cache.getRetryDelay() > 0);
+
+			server.put("/later", "later");
+			assertTrue("The resource was not prefetched.", cache.prefetch(Arrays.asList(new String[]{resource})).isOK());
+			assertNotNull("The resource was not cached.", cache.getResource(resource));
+			assertFalse("The cached resource is still retried.", Arrays.asList(cache.getUncachedURIs()).contains(resource));
+		}
+		finally
+		{
+			cache.clearUncachedURIs();
+			cache.clear();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that the reason a resource could not be cached is remembered.
+	 */
+	public void testUncachedReasonIsRecorded() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		try
+		{
+			String resource = server.getURI("/notfound");
+			assertNull("A missing resource was cached.", cache.getResource(resource));
+			String reason = cache.getUncachedReason(resource);
+			assertNotNull("No reason was recorded.", reason);
+			assertTrue("The reason does not give the response code: " + reason, reason.indexOf("404") != -1);
+		}
+		finally
+		{
+			cache.clearUncachedURIs();
+			server.close();
+		}
+	}
+
+	/**
+	 * Test that an offline cache returns expired entries without revalidating
+	 * them and doesn't try to download resources that aren't cached.
+	 */
+	public void testOfflineCacheDoesNotUseNetwork() throws Exception
+	{
+		LocalServer server = new LocalServer();
+		CachePlugin plugin = CachePlugin.getDefault();
+		try
+		{
+			server.put("/offline", "offline");
+			server.put("/online", "online");
+			String resource = server.getURI("/offline");
+			String result = cache.getResource(resource);
+			assertNotNull("The resource was not cached.", result);
+			int requests = server.getRequests("/offline");
+			cache.getCacheEntry(resource).setExpiration(System.currentTimeMillis() - 1);
+
+			plugin.setOffline(true);
+			assertEquals("The expired resource was not returned.", result, cache.getResource(resource));
+			assertNull("A resource was downloaded while offline.", cache.getResource(server.getURI("/online")));
+			assertFalse("The prefetch succeeded while offline.", cache.prefetch(Arrays.asList(new String[]{server.getURI("/online")})).isOK());
+			Thread.sleep(200);
+			assertEquals("The expired resource was revalidated while offline.", requests, server.getRequests("/offline"));
+			assertEquals("A resource was requested while offline.", 0, server.getRequests("/online"));
+			assertFalse("The resource was remembered as uncached while offline.", Arrays.asList(cache.getUncachedURIs()).contains(server.getURI("/online")));
+		}
+		finally
+		{
+			plugin.setOffline(false);
+			cache.clear();
+			server.close();
+		}
+	}
+
+	private static String read(String uri) throws IOException
+	{
+		InputStream is = new URL(uri).openStream();
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int length;
+			while((length = is.read(buffer)) != -1)
+			{
+				bytes.write(buffer, 0, length);
+			}
+			return bytes.toString("UTF-8");
+		}
+		finally
+		{
+			is.close();
+		}
+	}
 
 }
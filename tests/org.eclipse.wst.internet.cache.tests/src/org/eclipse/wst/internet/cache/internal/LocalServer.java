@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.internet.cache.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal HTTP server on the loopback interface, so that the cache
+ * tests can count the requests the cache makes without depending on
+ * an external server.
+ */
+class LocalServer
+{
+  private final ServerSocket socket;
+  private final Map<String, String> resources = new ConcurrentHashMap<String, String>();
+  private final Map<String, String> etags = new ConcurrentHashMap<String, String>();
+  private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<String, AtomicInteger>();
+  private final Map<String, AtomicInteger> notModified = new ConcurrentHashMap<String, AtomicInteger>();
+  private volatile long delay;
+
+  /**
+   * Start a server on a free port.
+   */
+  public LocalServer() throws IOException
+  {
+	socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+	Thread acceptor = new Thread("LocalServer") //$NON-NLS-1$
+	{
+	  public void run()
+	  {
+		accept();
+	  }
+	};
+	acceptor.setDaemon(true);
+	acceptor.start();
+  }
+
+  /**
+   * Serve the given body for the path.
+   */
+  public void put(String path, String body)
+  {
+	resources.put(path, body);
+	etags.remove(path);
+  }
+
+  /**
+   * Serve the given body for the path with an entity tag. Requests with
+   * a matching If-None-Match header get a 304 (Not Modified) response.
+   */
+  public void put(String path, String body, String etag)
+  {
+	resources.put(path, body);
+	etags.put(path, etag);
+  }
+
+  /**
+   * Delay every response by the given number of milliseconds.
+   */
+  public void setDelay(long delay)
+  {
+	this.delay = delay;
+  }
+
+  /**
+   * Get the number of requests that have been made for the path.
+   */
+  public int getRequests(String path)
+  {
+	return get(requests, path);
+  }
+
+  /**
+   * Get the number of 304 (Not Modified) responses for the path.
+   */
+  public int getNotModified(String path)
+  {
+	return get(notModified, path);
+  }
+
+  /**
+   * Get the URI of the path on this server.
+   */
+  public String getURI(String path)
+  {
+	return "http://127.0.0.1:" + socket.getLocalPort() + path; //$NON-NLS-1$
+  }
+
+  public void close()
+  {
+	try
+	{
+	  socket.close();
+	}
+	catch(IOException e)
+	{
+	  // Do nothing if the socket cannot be closed.
+	}
+  }
+
+  private static int get(Map<String, AtomicInteger> counts, String path)
+  {
+	AtomicInteger count = counts.get(path);
+	return count == null ? 0 : count.get();
+  }
+
+  private static void increment(Map<String, AtomicInteger> counts, String path)
+  {
+	AtomicInteger count = counts.get(path);
+	if(count == null)
+	{
+	  counts.putIfAbsent(path, new AtomicInteger());
+	  count = counts.get(path);
+	}
+	count.incrementAndGet();
+  }
+
+  private void accept()
+  {
+	while(!socket.isClosed())
+	{
+	  try
+	  {
+		final Socket client = socket.accept();
+		Thread handler = new Thread("LocalServer client") //$NON-NLS-1$
+		{
+		  public void run()
+		  {
+			handle(client);
+		  }
+		};
+		handler.setDaemon(true);
+		handler.start();
+	  }
+	  catch(IOException e)
+	  {
+		// The socket has been closed.
+	  }
+	}
+  }
+
+  private void handle(Socket client)
+  {
+	try
+	{
+	  BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.ISO_8859_1));
+	  String line = in.readLine();
+	  if(line == null)
+	  {
+		return;
+	  }
+	  String[] parts = line.split(" "); //$NON-NLS-1$
+	  String path = parts.length > 1 ? parts[1] : "/"; //$NON-NLS-1$
+	  String ifNoneMatch = null;
+	  while((line = in.readLine()) != null && line.length() > 0)
+	  {
+		if(line.regionMatches(true, 0, "If-None-Match:", 0, 14)) //$NON-NLS-1$
+		{
+		  ifNoneMatch = line.substring(14).trim();
+		}
+	  }
+	  increment(requests, path);
+	  if(delay > 0)
+	  {
+		Thread.sleep(delay);
+	  }
+	  String body = resources.get(path);
+	  String etag = etags.get(path);
+	  String status = body == null ? "404 Not Found" : "200 OK"; //$NON-NLS-1$ //$NON-NLS-2$
+	  if(etag != null && etag.equals(ifNoneMatch))
+	  {
+		increment(notModified, path);
+		status = "304 Not Modified"; //$NON-NLS-1$
+		body = null;
+	  }
+	  byte[] bytes = (body == null ? "" : body).getBytes(StandardCharsets.UTF_8); //$NON-NLS-1$
+	  String header = "HTTP/1.1 " + status + "\r\n" + //$NON-NLS-1$ //$NON-NLS-2$
+		"Content-Type: text/plain\r\n" + //$NON-NLS-1$
+		(etag == null ? "" : "ETag: " + etag + "\r\n") + //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		"Content-Length: " + bytes.length + "\r\n" + //$NON-NLS-1$ //$NON-NLS-2$
+		"Connection: close\r\n\r\n"; //$NON-NLS-1$
+	  OutputStream out = client.getOutputStream();
+	  out.write(header.getBytes(StandardCharsets.ISO_8859_1));
+	  out.write(bytes);
+	  out.flush();
+	}
+	catch(IOException e)
+	{
+	  // The client went away.
+	}
+	catch(InterruptedException e)
+	{
+	  Thread.currentThread().interrupt();
+	}
+	finally
+	{
+	  try
+	  {
+		client.close();
+	  }
+	  catch(IOException e)
+	  {
+		// Do nothing if the socket cannot be closed.
+	  }
+	}
+  }
+}
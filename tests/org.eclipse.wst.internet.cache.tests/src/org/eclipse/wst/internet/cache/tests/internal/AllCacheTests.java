@@ -12,6 +12,7 @@ package org.eclipse.wst.internet.cache.tests.internal;
 import junit.framework.Test;
 
 import org.eclipse.wst.internet.cache.internal.CacheEntryTest;
+import org.eclipse.wst.internet.cache.internal.CacheIndexTest;
 import org.eclipse.wst.internet.cache.internal.CacheTest;
 import org.eclipse.wst.internet.cache.internal.CacheURIResolverExtensionTest;
 import org.eclipse.wst.internet.cache.internal.LicenseRegistryTest;
@@ -38,6 +39,7 @@ public class AllCacheTests extends junit.framework.TestSuite
     super("AllCacheTests");
 	addTest(CacheTest.suite());
 	addTest(CacheEntryTest.suite());
+	addTest(CacheIndexTest.suite());
 	addTest(CacheURIResolverExtensionTest.suite());
 	addTest(LicenseRegistryTest.suite());
   }
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.internal.ValManager;
+import org.eclipse.wst.validation.internal.ValOperation;
+import org.eclipse.wst.validation.internal.ValType;
+import org.eclipse.wst.validation.internal.model.IValidatorVisitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measure ValManager.accept, which is the framework overhead that every validated resource pays: finding the
+ * project's validators, matching their filters, and caching the answer in the resource's ValProperty.
+ * <p>
+ * The validators are the ones that are contributed by this fragment (along with any others in the runtime),
+ * and the resources are stub files in a real project. When cached is false, the session properties are cleared before each resource, so the
+ * filters are evaluated every time.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AcceptBenchmark {
+
+	/** The extensions of the files, some of which the validators that are contributed by this fragment use. */
+	private static final String[] Extensions = {"xml", "xsd", "html", "jsp", "css", "java", "properties", "js", "txt", "dtd"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+
+	@Param({"1000"})
+	public int resources;
+
+	@Param({"true", "false"})
+	public boolean cached;
+
+	private IProject			_project;
+	private IFile[]				_files;
+	private IProgressMonitor	_monitor = new NullProgressMonitor();
+	private CountingVisitor		_visitor = new CountingVisitor();
+
+	@Setup
+	public void setup() throws CoreException {
+		_project = SyntheticWorkspace.getProject("accept"); //$NON-NLS-1$
+		// half of the files are in a web content folder, which some of the validators require
+		IFile[] src = SyntheticWorkspace.createFiles(_project, "src", Extensions, resources / 2); //$NON-NLS-1$
+		IFile[] web = SyntheticWorkspace.createFiles(_project, "WebContent", Extensions, resources - src.length); //$NON-NLS-1$
+		_files = new IFile[resources];
+		System.arraycopy(src, 0, _files, 0, src.length);
+		System.arraycopy(web, 0, _files, src.length, web.length);
+	}
+
+	@Benchmark
+	public int accept(){
+		ValManager vm = ValManager.getDefault();
+		ValOperation operation = new ValOperation();
+		_visitor.count = 0;
+		for (IFile file : _files){
+			if (!cached)StubResources.clearSessionProperties(file);
+			vm.accept(_visitor, _project, file, ValType.Build, operation, _monitor);
+		}
+		return _visitor.count;
+	}
+
+	private static final class CountingVisitor implements IValidatorVisitor {
+
+		int count;
+
+		public void visit(Validator validator, IProject project, ValType valType, ValOperation operation,
+			IProgressMonitor monitor) {
+			count++;
+		}
+	}
+
+}
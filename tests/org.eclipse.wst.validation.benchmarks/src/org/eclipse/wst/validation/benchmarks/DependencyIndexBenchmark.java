@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.validation.internal.DependencyIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measure the dependency index lookups that the build does for every changed resource, and the cost of
+ * replacing a resource's dependencies after it has been validated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DependencyIndexBenchmark {
+
+	private static final String ValidatorId = "benchmark.validator"; //$NON-NLS-1$
+
+	@Param({"10000"})
+	public int resources;
+
+	/** The number of resources that each resource depends on. */
+	@Param({"5"})
+	public int fanOut;
+
+	private DependencyIndex	_index;
+	private IFile[]			_files;
+	private int				_next;
+
+	@Setup
+	public void setup() throws CoreException {
+		IProject project = SyntheticWorkspace.getProject("dependencies"); //$NON-NLS-1$
+		_files = SyntheticWorkspace.createHandles(project, resources);
+		_index = new DependencyIndex();
+		for (int i=0; i<_files.length; i++)_index.set(ValidatorId, _files[i], dependsOn(i));
+	}
+
+	private IResource[] dependsOn(int i){
+		IResource[] dependsOn = new IResource[fanOut];
+		for (int j=0; j<fanOut; j++)dependsOn[j] = _files[(i * 31 + j * 7 + 1) % _files.length];
+		return dependsOn;
+	}
+
+	private IFile next(){
+		_next = (_next + 1) % _files.length;
+		return _files[_next];
+	}
+
+	@Benchmark
+	public boolean isDependedOn(){
+		return _index.isDependedOn(next());
+	}
+
+	@Benchmark
+	public IResource[] getDependents(){
+		return _index.get(ValidatorId, next());
+	}
+
+	@Benchmark
+	public IResource[] getDependsOn(){
+		return _index.getDependsOn(ValidatorId, next());
+	}
+
+	@Benchmark
+	public void set(){
+		int i = (_next + 1) % _files.length;
+		_index.set(ValidatorId, next(), dependsOn(i + 1));
+	}
+
+}
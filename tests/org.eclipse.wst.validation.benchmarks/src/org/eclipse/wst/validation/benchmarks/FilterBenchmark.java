@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.wst.validation.Friend;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.internal.ContentTypeWrapper;
+import org.eclipse.wst.validation.internal.FilterMatcher;
+import org.eclipse.wst.validation.internal.ValType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measure how long it takes to decide which validators apply to a resource, based on their filter rules.
+ * Each invocation checks every resource in the synthetic workspace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterBenchmark {
+
+	@Param({"10", "50"})
+	public int validators;
+
+	@Param({"5", "20"})
+	public int rules;
+
+	@Param({"1000"})
+	public int resources;
+
+	private Validator[]		_validators;
+	private IFile[]			_files;
+	private FilterMatcher	_matcher;
+
+	@Setup
+	public void setup(){
+		_validators = SyntheticWorkspace.createValidators(validators, rules);
+		_files = SyntheticWorkspace.createFiles(StubResources.project("filter"), resources); //$NON-NLS-1$
+		_matcher = new FilterMatcher(_validators);
+	}
+
+	/**
+	 * The compiled matcher, which is what ValManager uses.
+	 */
+	@Benchmark
+	public int matcher(){
+		int matches = 0;
+		for (IFile file : _files){
+			matches += _matcher.match(file, ValType.Build, new ContentTypeWrapper()).cardinality();
+		}
+		return matches;
+	}
+
+	/**
+	 * Ask each validator in turn, evaluating all of it's rules.
+	 */
+	@Benchmark
+	public int direct(){
+		int matches = 0;
+		for (IFile file : _files){
+			ContentTypeWrapper ctw = new ContentTypeWrapper();
+			for (Validator v : _validators){
+				if (Friend.shouldValidate(v, file, false, true, ctw))matches++;
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * The cost of compiling the matcher, which is paid whenever the validator configuration changes.
+	 */
+	@Benchmark
+	public FilterMatcher build(){
+		return new FilterMatcher(_validators);
+	}
+
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Resources that only exist in memory, so that the benchmarks can build synthetic workspaces with many
+ * thousands of resources, without touching the disk.
+ * <p>
+ * The stubs answer the questions that the validation framework asks of a resource (names, paths,
+ * extensions, the project, the session properties and so on). Anything else answers null, false or zero.
+ * The parent of a stub can be a real container, for example a real project, so that the framework's
+ * project level preferences are used.
+ * </p>
+ */
+public final class StubResources {
+
+	private StubResources(){}
+
+	public static IProject project(String name){
+		return (IProject)create(IProject.class, IResource.PROJECT, Path.ROOT.append(name), null, null);
+	}
+
+	public static IFolder folder(IContainer parent, String name){
+		return (IFolder)create(IFolder.class, IResource.FOLDER, parent.getFullPath().append(name), parent, parent.getProject());
+	}
+
+	public static IFile file(IContainer parent, String name){
+		return (IFile)create(IFile.class, IResource.FILE, parent.getFullPath().append(name), parent, parent.getProject());
+	}
+
+	/**
+	 * Forget all the session properties of a stub resource, so that the framework has to recompute the
+	 * things that it caches there.
+	 */
+	public static void clearSessionProperties(IResource resource){
+		((Handler)Proxy.getInvocationHandler(resource))._properties.clear();
+	}
+
+	/**
+	 * Answer a configuration element for a validator extension, that only has a class attribute. The
+	 * filters of the validator are added separately.
+	 */
+	public static IConfigurationElement validatorElement(String validatorClass){
+		final Map<String, String> attributes = new HashMap<String, String>();
+		attributes.put("class", validatorClass); //$NON-NLS-1$
+		InvocationHandler handler = new InvocationHandler(){
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("getAttribute"))return attributes.get(args[0]); //$NON-NLS-1$
+				if (name.equals("getChildren"))return new IConfigurationElement[0]; //$NON-NLS-1$
+				if (name.equals("getName"))return "validator"; //$NON-NLS-1$ //$NON-NLS-2$
+				if (name.equals("isValid"))return Boolean.TRUE; //$NON-NLS-1$
+				return defaultValue(proxy, method, args);
+			}
+		};
+		return (IConfigurationElement)Proxy.newProxyInstance(StubResources.class.getClassLoader(),
+			new Class<?>[]{IConfigurationElement.class}, handler);
+	}
+
+	private static IResource create(Class<? extends IResource> type, int resourceType, IPath path,
+		IContainer parent, IProject project){
+		Handler handler = new Handler(resourceType, path, parent, project);
+		IResource resource = (IResource)Proxy.newProxyInstance(StubResources.class.getClassLoader(),
+			new Class<?>[]{type}, handler);
+		if (project == null)handler._project = (IProject)resource;
+		return resource;
+	}
+
+	private static Object defaultValue(Object proxy, Method method, Object[] args){
+		String name = method.getName();
+		if (name.equals("equals"))return proxy == args[0]; //$NON-NLS-1$
+		if (name.equals("hashCode"))return System.identityHashCode(proxy); //$NON-NLS-1$
+		Class<?> type = method.getReturnType();
+		if (type == boolean.class)return Boolean.FALSE;
+		if (type == int.class)return 0;
+		if (type == long.class)return 0L;
+		return null;
+	}
+
+	private static final class Handler implements InvocationHandler {
+
+		private final int					_type;
+		private final IPath					_path;
+		private final IContainer			_parent;
+		private IProject					_project;
+		private final Map<Object, Object>	_properties = new HashMap<Object, Object>();
+
+		Handler(int type, IPath path, IContainer parent, IProject project){
+			_type = type;
+			_path = path;
+			_parent = parent;
+			_project = project;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			switch (name){
+			case "getName": //$NON-NLS-1$
+				return _path.lastSegment();
+			case "getFullPath": //$NON-NLS-1$
+				return _path;
+			case "getProjectRelativePath": //$NON-NLS-1$
+				return _path.removeFirstSegments(1);
+			case "getFileExtension": //$NON-NLS-1$
+				return _type == IResource.FILE ? _path.getFileExtension() : null;
+			case "getType": //$NON-NLS-1$
+				return _type;
+			case "getParent": //$NON-NLS-1$
+				return _parent;
+			case "getProject": //$NON-NLS-1$
+				return _project;
+			case "getWorkspace": //$NON-NLS-1$
+				return ResourcesPlugin.getWorkspace();
+			case "exists": //$NON-NLS-1$
+			case "isAccessible": //$NON-NLS-1$
+			case "isOpen": //$NON-NLS-1$
+				return Boolean.TRUE;
+			case "getModificationStamp": //$NON-NLS-1$
+				return 1L;
+			case "getSessionProperty": //$NON-NLS-1$
+				return _properties.get(args[0]);
+			case "setSessionProperty": //$NON-NLS-1$
+				if (args[1] == null)_properties.remove(args[0]);
+				else _properties.put(args[0], args[1]);
+				return null;
+			case "toString": //$NON-NLS-1$
+				return (_type == IResource.FILE ? "L" : _type == IResource.FOLDER ? "F" : "P") + _path; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			default:
+				return defaultValue(proxy, method, args);
+			}
+		}
+	}
+
+}
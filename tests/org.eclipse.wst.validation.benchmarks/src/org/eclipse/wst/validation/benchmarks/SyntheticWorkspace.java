@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.benchmarks;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.internal.model.FilterGroup;
+import org.eclipse.wst.validation.internal.model.FilterRule;
+
+/**
+ * Builds the synthetic validators and resources that the benchmarks run against. Everything is derived
+ * from the counts, so that two runs with the same parameters see exactly the same workspace.
+ * <p>
+ * The file names are drawn from a fixed number of extensions, folders and base names, so that some
+ * fraction of the filter rules match each resource, as they would in a real workspace.
+ * </p>
+ */
+public final class SyntheticWorkspace {
+
+	public static final int Extensions = 20;
+	public static final int Folders = 50;
+	public static final int Names = 200;
+
+	private SyntheticWorkspace(){}
+
+	/**
+	 * Create the validators. Each validator has one include group with the given number of rules, which
+	 * are a mix of file extension, folder and file name rules, and one exclude group for the output folder.
+	 *
+	 * @param count
+	 *            The number of validators.
+	 * @param rules
+	 *            The number of include rules for each validator.
+	 */
+	public static Validator[] createValidators(int count, int rules){
+		Validator[] validators = new Validator[count];
+		for (int i=0; i<count; i++){
+			Validator.V2 v = Validator.create(StubResources.validatorElement(NullValidator.class.getName()), null).asV2Validator();
+			v.setId("benchmark.validator" + i); //$NON-NLS-1$
+			v.setName("Benchmark Validator " + i); //$NON-NLS-1$
+			FilterRule[] include = new FilterRule[rules];
+			for (int j=0; j<rules; j++){
+				int k = i + j;
+				switch (j % 3){
+				case 0:
+					include[j] = FilterRule.createFileExt("ext" + (k % Extensions), false); //$NON-NLS-1$
+					break;
+				case 1:
+					include[j] = FilterRule.createFile("src/folder" + (k % Folders) + "/", false,  //$NON-NLS-1$ //$NON-NLS-2$
+						FilterRule.File.FileTypeFolder);
+					break;
+				default:
+					include[j] = FilterRule.createFile("file" + ((i * 7 + j) % Names) + ".", true, //$NON-NLS-1$ //$NON-NLS-2$
+						FilterRule.File.FileTypeFile);
+				}
+			}
+			v.add(FilterGroup.create(false, include));
+			v.add(FilterGroup.create(true, new FilterRule[]{FilterRule.createFile("bin/", true, FilterRule.File.FileTypeFolder)})); //$NON-NLS-1$
+			validators[i] = v;
+		}
+		return validators;
+	}
+
+	/**
+	 * Create stub files in the container, with the synthetic extensions, in folders under src.
+	 *
+	 * @param parent
+	 *            The container, which can be a real project or a stub.
+	 * @param count
+	 *            The number of files.
+	 */
+	public static IFile[] createFiles(IContainer parent, int count){
+		String[] extensions = new String[Extensions];
+		for (int i=0; i<Extensions; i++)extensions[i] = "ext" + i; //$NON-NLS-1$
+		return createFiles(parent, "src", extensions, count); //$NON-NLS-1$
+	}
+
+	/**
+	 * Create stub files in the container.
+	 *
+	 * @param parent
+	 *            The container, which can be a real project or a stub.
+	 * @param root
+	 *            The name of the folder that holds all the other folders.
+	 * @param extensions
+	 *            The file extensions, which are used in turn.
+	 * @param count
+	 *            The number of files.
+	 */
+	public static IFile[] createFiles(IContainer parent, String root, String[] extensions, int count){
+		IFolder top = StubResources.folder(parent, root);
+		IFolder[] folders = new IFolder[Folders];
+		for (int i=0; i<Folders; i++)folders[i] = StubResources.folder(top, "folder" + i); //$NON-NLS-1$
+		IFile[] files = new IFile[count];
+		for (int i=0; i<count; i++){
+			String name = "file" + (i % Names) + "." + i + "." + extensions[i % extensions.length]; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			files[i] = StubResources.file(folders[(i / Names) % Folders], name);
+		}
+		return files;
+	}
+
+	/**
+	 * Answer handles for files in a real project. The files themselves are not created.
+	 */
+	public static IFile[] createHandles(IProject project, int count){
+		IFile[] files = new IFile[count];
+		for (int i=0; i<count; i++){
+			files[i] = project.getFile("src/folder" + (i % Folders) + "/file" + i + ".ext" + (i % Extensions)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		return files;
+	}
+
+	/**
+	 * Answer a real, open project in the workspace, creating it if needed.
+	 */
+	public static IProject getProject(String name) throws CoreException {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		IProject project = root.getProject(name);
+		if (!project.exists())project.create(null);
+		if (!project.isOpen())project.open(null);
+		return project;
+	}
+
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.benchmarks;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.wst.validation.internal.ValProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measure the ValProperty bit set handling, in the same way that ValManager uses it: building the set of
+ * validators that apply to a resource, and then scanning the project's validators against a cached set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValPropertyBenchmark {
+
+	@Param({"10", "50", "200"})
+	public int validators;
+
+	/** The bit that ValManager's id manager has assigned to each validator. */
+	private int[]		_indexes;
+
+	/** The validators that apply to the resource. */
+	private BitSet		_applicable;
+
+	private ValProperty	_cached;
+
+	@Setup
+	public void setup(){
+		_indexes = new int[validators];
+		_applicable = new BitSet(validators);
+		for (int i=0; i<validators; i++){
+			// the ids are handed out across all the projects, so they aren't dense
+			_indexes[i] = i * 3;
+			if (i % 4 == 0)_applicable.set(i);
+		}
+		_cached = build();
+	}
+
+	@Benchmark
+	public ValProperty build(){
+		ValProperty vp = new ValProperty();
+		vp.setConfigNumber(1);
+		for (int i = _applicable.nextSetBit(0); i >= 0; i = _applicable.nextSetBit(i+1)){
+			vp.getConfigSet().set(_indexes[i]);
+		}
+		return vp;
+	}
+
+	@Benchmark
+	public int scan(){
+		BitSet bs = _cached.getConfigSet();
+		int count = 0;
+		for (int i=0; i<_indexes.length; i++){
+			if (bs.get(_indexes[i]))count++;
+		}
+		return count;
+	}
+
+}